@@ -0,0 +1,76 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.CountQuery;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+import org.wso2.carbon.cassandra.explorer.exception.CassandraExplorerException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the columns of a row. Columns are counted by Cassandra, so that they are not read by the
+ * explorer. Rows wider than the estimate limit are estimated by the limit.
+ */
+public class ColumnCounter implements Counter {
+    private static final ByteBufferSerializer byteBufferSerializer = new ByteBufferSerializer();
+
+    static final int ESTIMATE_COLUMN_LIMIT = 10000;
+
+    private final Keyspace keyspace;
+    private final String columnFamily;
+    private final ByteBuffer rowKey;
+
+    public ColumnCounter(Keyspace keyspace, String columnFamily, ByteBuffer rowKey) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.rowKey = rowKey;
+    }
+
+    public CountResult estimate() throws CassandraExplorerException {
+        CountResult result = new CountResult();
+        result.setTimestamp(System.currentTimeMillis());
+        int count = countColumns(ESTIMATE_COLUMN_LIMIT + 1);
+        result.setCount(Math.min(count, ESTIMATE_COLUMN_LIMIT));
+        result.setEstimated(count > ESTIMATE_COLUMN_LIMIT);
+        return result;
+    }
+
+    public long countExactly() throws CassandraExplorerException {
+        return countColumns(Integer.MAX_VALUE);
+    }
+
+    private int countColumns(int limit) throws CassandraExplorerException {
+        CountQuery<ByteBuffer, ByteBuffer> countQuery =
+                HFactory.createCountQuery(keyspace, byteBufferSerializer, byteBufferSerializer);
+        countQuery.setColumnFamily(columnFamily);
+        countQuery.setKey(rowKey.duplicate());
+        countQuery.setRange(ByteBufferUtil.EMPTY_BYTE_BUFFER, ByteBufferUtil.EMPTY_BYTE_BUFFER, limit);
+        try {
+            return countQuery.execute().get();
+        } catch (HectorException exception) {
+            throw new CassandraExplorerException(exception.getMessage(), exception);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+import org.wso2.carbon.cassandra.explorer.exception.CassandraExplorerException;
+import org.wso2.carbon.cassandra.explorer.session.ExplorerSessionManager;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts of the explorer views of a session. A view is first counted with a bounded
+ * {@link Counter#estimate()}, and if that is not exact the view is counted exactly in the
+ * background. Exact counts are kept with the time they were taken, and returned until they are
+ * refreshed in the background after {@link #EXACT_COUNT_TTL}.
+ */
+public class CountService {
+    private static final Log log = LogFactory.getLog(CountService.class);
+
+    private static final String COUNT_SERVICE = "countService";
+    private static final int DEFAULT_MAX_COUNTS = 128;
+    public static final long EXACT_COUNT_TTL = 5 * 60 * 1000;
+
+    private static final Executor EXACT_COUNT_EXECUTOR = new ThreadPoolExecutor(
+            1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(32), new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cassandra-explorer-count-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Executor executor;
+    private final int maxCounts;
+    private final LinkedHashMap<String, CountResult> exactCounts =
+            new LinkedHashMap<String, CountResult>(16, 0.75f, true);
+    private final Set<String> pendingCounts = new HashSet<String>();
+
+    CountService(Executor executor, int maxCounts) {
+        this.executor = executor;
+        this.maxCounts = maxCounts;
+    }
+
+    /**
+     * @return the count service of the current session
+     */
+    public static CountService getSessionService() {
+        CountService service = (CountService) ExplorerSessionManager.getSessionObject(COUNT_SERVICE);
+        if (service == null) {
+            service = new CountService(EXACT_COUNT_EXECUTOR, DEFAULT_MAX_COUNTS);
+            ExplorerSessionManager.setSessionObject(COUNT_SERVICE, service);
+        }
+        return service;
+    }
+
+    /**
+     * @param viewKey identifies what the counter counts
+     * @return the last exact count of the view if there is one, or else the estimate of the counter
+     */
+    public CountResult getCount(String viewKey, Counter counter) throws CassandraExplorerException {
+        CountResult exactCount;
+        synchronized (this) {
+            exactCount = exactCounts.get(viewKey);
+        }
+        if (exactCount != null) {
+            boolean refreshing = System.currentTimeMillis() - exactCount.getTimestamp() > EXACT_COUNT_TTL &&
+                    scheduleExactCount(viewKey, counter);
+            return copyOf(exactCount, refreshing);
+        }
+
+        CountResult estimate = counter.estimate();
+        if (estimate.isEstimated()) {
+            estimate.setExactCountPending(scheduleExactCount(viewKey, counter));
+        } else {
+            putExactCount(viewKey, estimate);
+        }
+        return estimate;
+    }
+
+    private boolean scheduleExactCount(final String viewKey, final Counter counter) {
+        synchronized (this) {
+            if (!pendingCounts.add(viewKey)) {
+                return true;
+            }
+        }
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        long count = counter.countExactly();
+                        CountResult exactCount = new CountResult();
+                        exactCount.setCount(count);
+                        exactCount.setTimestamp(System.currentTimeMillis());
+                        putExactCount(viewKey, exactCount);
+                    } catch (Exception e) {
+                        log.warn("Exact count of " + viewKey.replace('\n', '/') + " failed: " + e.getMessage());
+                        if (log.isDebugEnabled()) {
+                            log.debug("Exact count of " + viewKey.replace('\n', '/') + " failed", e);
+                        }
+                    } finally {
+                        synchronized (CountService.this) {
+                            pendingCounts.remove(viewKey);
+                        }
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            //too many counts in progress, the view is counted again on a later call
+            synchronized (this) {
+                pendingCounts.remove(viewKey);
+            }
+            return false;
+        }
+    }
+
+    private synchronized void putExactCount(String viewKey, CountResult exactCount) {
+        exactCounts.put(viewKey, copyOf(exactCount, false));
+        Iterator<CountResult> iterator = exactCounts.values().iterator();
+        while (exactCounts.size() > maxCounts && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static CountResult copyOf(CountResult count, boolean exactCountPending) {
+        CountResult copy = new CountResult();
+        copy.setCount(count.getCount());
+        copy.setEstimated(count.isEstimated());
+        copy.setTimestamp(count.getTimestamp());
+        copy.setExactCountPending(exactCountPending);
+        return copy;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+import org.wso2.carbon.cassandra.explorer.exception.CassandraExplorerException;
+
+/**
+ * Counts the rows or columns matching a single explorer view
+ */
+public interface Counter {
+
+    /**
+     * @return a count taken without reading more than a bounded number of keys or columns. It is
+     * exact if everything to be counted was read, and estimated otherwise.
+     */
+    CountResult estimate() throws CassandraExplorerException;
+
+    /**
+     * @return the exact count. May read the whole column family or row.
+     */
+    long countExactly() throws CassandraExplorerException;
+}
@@ -0,0 +1,303 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import me.prettyprint.cassandra.connection.HClientPool;
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.connection.client.HClient;
+import me.prettyprint.cassandra.connection.client.HThriftClient;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.service.CassandraHost;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.RangeSlicesQuery;
+import org.apache.cassandra.thrift.AuthenticationRequest;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.CfSplit;
+import org.apache.cassandra.thrift.TokenRange;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+import org.wso2.carbon.cassandra.explorer.exception.CassandraExplorerException;
+import org.wso2.carbon.cassandra.explorer.utils.CFInfo;
+import org.wso2.carbon.cassandra.explorer.utils.CassandraUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the rows of a column family, or the rows whose key contains a search key.
+ *
+ * Column families with more rows than can be read for an estimate are estimated from the key
+ * estimates of the token ranges of the ring, which Cassandra takes from the index summaries of
+ * the SSTables. Search results are estimated by the share of matching keys in a few token ranges
+ * spread over the ring.
+ */
+public class RowCounter implements Counter {
+    private static final Log log = LogFactory.getLog(RowCounter.class);
+
+    private static final ByteBufferSerializer byteBufferSerializer = new ByteBufferSerializer();
+    private static final ByteBuffer EMPTY_KEY = ByteBufferUtil.EMPTY_BYTE_BUFFER;
+    private static final String ANY_ADDRESS = "0.0.0.0";
+
+    static final int ESTIMATE_ROW_LIMIT = 1000;
+    static final int KEYS_PER_SPLIT = 64 * 1024;
+    static final int SAMPLED_SPLITS = 8;
+    static final int SAMPLE_ROWS_PER_SPLIT = 1000;
+    static final int COUNT_BATCH_SIZE = 1000;
+
+    private final Cluster cluster;
+    private final Keyspace keyspace;
+    private final String columnFamily;
+    private final CFInfo columnFamilyInfo;
+    private final String searchKey;
+
+    /**
+     * @param columnFamilyInfo serializers of the column family. Only needed with a search key.
+     * @param searchKey        count only the rows whose key contains it. Counts all rows if null.
+     */
+    public RowCounter(Cluster cluster, Keyspace keyspace, String columnFamily, CFInfo columnFamilyInfo,
+                      String searchKey) {
+        this.cluster = cluster;
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.columnFamilyInfo = columnFamilyInfo;
+        this.searchKey = searchKey;
+    }
+
+    public CountResult estimate() throws CassandraExplorerException {
+        CountResult result = new CountResult();
+        result.setTimestamp(System.currentTimeMillis());
+
+        List<ByteBuffer> firstKeys = getKeys(EMPTY_KEY, null, null, ESTIMATE_ROW_LIMIT + 1);
+        if (firstKeys.size() <= ESTIMATE_ROW_LIMIT) {
+            result.setCount(countMatches(firstKeys));
+            return result;
+        }
+
+        result.setEstimated(true);
+        List<CfSplit> splits;
+        try {
+            splits = getSplits();
+        } catch (HectorException exception) {
+            //keep the count of the keys read, so that the view still renders
+            log.warn("Could not get the key estimates of " + keyspace.getKeyspaceName() + "/" + columnFamily +
+                     ": " + exception.getMessage());
+            result.setCount(countMatches(firstKeys));
+            return result;
+        }
+
+        long estimatedRows = 0;
+        for (CfSplit split : splits) {
+            estimatedRows += split.getRow_count();
+        }
+        //the index summaries do not cover rows still in memtables
+        estimatedRows = Math.max(estimatedRows, firstKeys.size());
+
+        if (searchKey == null) {
+            result.setCount(estimatedRows);
+        } else {
+            long sampledRows = firstKeys.size();
+            long matchingRows = countMatches(firstKeys);
+            int sampleCount = Math.min(SAMPLED_SPLITS, splits.size());
+            for (int i = 0; i < sampleCount; i++) {
+                CfSplit split = splits.get(i * splits.size() / sampleCount);
+                List<ByteBuffer> keys = getKeys(null, split.getStart_token(), split.getEnd_token(),
+                                                SAMPLE_ROWS_PER_SPLIT);
+                sampledRows += keys.size();
+                matchingRows += countMatches(keys);
+            }
+            result.setCount(estimateMatches(matchingRows, sampledRows, estimatedRows));
+        }
+        return result;
+    }
+
+    public long countExactly() throws CassandraExplorerException {
+        long count = 0;
+        ByteBuffer startKey = EMPTY_KEY;
+        boolean firstBatch = true;
+        while (true) {
+            List<ByteBuffer> keys = getKeys(startKey, null, null, COUNT_BATCH_SIZE + 1);
+            //the start key was counted with the previous batch
+            List<ByteBuffer> newKeys = firstBatch || keys.isEmpty() ? keys : keys.subList(1, keys.size());
+            if (newKeys.size() > COUNT_BATCH_SIZE) {
+                newKeys = newKeys.subList(0, COUNT_BATCH_SIZE);
+            }
+            count += countMatches(newKeys);
+            if (keys.size() <= COUNT_BATCH_SIZE) {
+                return count;
+            }
+            startKey = newKeys.get(newKeys.size() - 1);
+            firstBatch = false;
+        }
+    }
+
+    /**
+     * Scales the share of matching keys in the sampled keys to the estimated number of rows
+     */
+    static long estimateMatches(long matchingRows, long sampledRows, long estimatedRows) {
+        if (sampledRows == 0) {
+            return 0;
+        }
+        return Math.round((double) matchingRows / sampledRows * estimatedRows);
+    }
+
+    private long countMatches(List<ByteBuffer> keys) {
+        if (searchKey == null) {
+            return keys.size();
+        }
+        long count = 0;
+        for (ByteBuffer key : keys) {
+            if (toRowKey(key).contains(searchKey)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    String toRowKey(ByteBuffer key) {
+        return CassandraUtils.getStringDeserialization(columnFamilyInfo.getKeyCassandraSerializer(), key);
+    }
+
+    /**
+     * Reads keys only, starting either at the start key or at the start token
+     */
+    List<ByteBuffer> getKeys(ByteBuffer startKey, String startToken, String endToken, int rowCount)
+            throws CassandraExplorerException {
+        RangeSlicesQuery<ByteBuffer, ByteBuffer, ByteBuffer> rangeSlicesQuery =
+                HFactory.createRangeSlicesQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
+                                                byteBufferSerializer);
+        rangeSlicesQuery.setColumnFamily(columnFamily);
+        if (startKey != null) {
+            rangeSlicesQuery.setKeys(startKey, EMPTY_KEY);
+        } else {
+            rangeSlicesQuery.setTokens(null, startToken, endToken);
+        }
+        rangeSlicesQuery.setReturnKeysOnly();
+        rangeSlicesQuery.setRowCount(rowCount);
+
+        List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> rows;
+        try {
+            rows = rangeSlicesQuery.execute().get().getList();
+        } catch (HectorException exception) {
+            throw new CassandraExplorerException(exception.getMessage(), exception);
+        }
+        List<ByteBuffer> keys = new ArrayList<ByteBuffer>(rows.size());
+        for (Row<ByteBuffer, ByteBuffer, ByteBuffer> row : rows) {
+            keys.add(row.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * @return the splits of every token range of the ring, with their estimated number of keys
+     */
+    List<CfSplit> getSplits() {
+        List<CfSplit> splits = new ArrayList<CfSplit>();
+        for (TokenRange tokenRange : cluster.describeRing(keyspace.getKeyspaceName())) {
+            splits.addAll(describeSplits(tokenRange));
+        }
+        return splits;
+    }
+
+    /**
+     * The key estimates only cover the SSTables of the node asked, so the splits of a token range
+     * are asked from one of its replicas. Any other node would count none or only some of its keys.
+     */
+    private List<CfSplit> describeSplits(TokenRange tokenRange) {
+        HectorException failure = null;
+        for (String endpoint : getReplicaAddresses(tokenRange)) {
+            try {
+                return describeSplits(endpoint, tokenRange);
+            } catch (HectorException exception) {
+                failure = exception;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw new HectorException("No replica is known for token range " + tokenRange.getStart_token() +
+                                  " - " + tokenRange.getEnd_token());
+    }
+
+    private List<String> getReplicaAddresses(TokenRange tokenRange) {
+        //the rpc addresses are unset, or the wildcard address, unless the nodes listen for clients elsewhere
+        List<String> rpcEndpoints = tokenRange.getRpc_endpoints();
+        if (rpcEndpoints == null || rpcEndpoints.isEmpty() || rpcEndpoints.contains(ANY_ADDRESS)) {
+            return tokenRange.getEndpoints();
+        }
+        return rpcEndpoints;
+    }
+
+    private List<CfSplit> describeSplits(String endpoint, TokenRange tokenRange) {
+        HConnectionManager connectionManager = cluster.getConnectionManager();
+        CassandraHost anyHost = null;
+        for (HClientPool pool : connectionManager.getActivePools()) {
+            CassandraHost host = pool.getCassandraHost();
+            if (endpoint.equals(host.getIp()) || endpoint.equals(host.getHost())) {
+                HClient client = pool.borrowClient();
+                try {
+                    return describeSplits(client, tokenRange);
+                } finally {
+                    pool.releaseClient(client);
+                }
+            }
+            anyHost = host;
+        }
+
+        //the replica is not pooled, e.g. when the hosts of the ring are not discovered
+        CassandraHost host = new CassandraHost(endpoint, anyHost != null ? anyHost.getPort() :
+                                                         CassandraHost.DEFAULT_PORT);
+        if (anyHost != null) {
+            host.setUseThriftFramedTransport(anyHost.getUseThriftFramedTransport());
+            host.setMaxFrameSize(anyHost.getMaxFrameSize());
+            host.setCassandraThriftSocketTimeout(anyHost.getCassandraThriftSocketTimeout());
+        }
+        HClient client = new HThriftClient(host).open();
+        try {
+            return describeSplits(client, tokenRange);
+        } finally {
+            client.close();
+        }
+    }
+
+    private List<CfSplit> describeSplits(HClient client, TokenRange tokenRange) {
+        try {
+            Cassandra.Client cassandra = client.getCassandra(keyspace.getKeyspaceName());
+            Map<String, String> credentials = cluster.getCredentials();
+            if (credentials != null && !credentials.isEmpty() && !client.isAlreadyAuthenticated(credentials)) {
+                cassandra.login(new AuthenticationRequest(credentials));
+                client.setAuthenticated(credentials);
+            }
+            return cassandra.describe_splits_ex(columnFamily, tokenRange.getStart_token(),
+                                                tokenRange.getEnd_token(), KEYS_PER_SPLIT);
+        } catch (Exception exception) {
+            //the pool replaces closed clients instead of handing them out again
+            client.close();
+            throw exception instanceof HectorException ? (HectorException) exception :
+                  new HectorException(exception);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.data;
+
+/**
+ * Bean class to store a count of rows or columns, telling whether it is exact or estimated
+ */
+public class CountResult {
+    private long count;
+    private boolean estimated;
+    private long timestamp;
+    private boolean exactCountPending;
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return true if the count is estimated from a sample of the rows or, for columns, is the
+     * number of columns counted so far. Estimated column counts are lower bounds.
+     */
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public void setEstimated(boolean estimated) {
+        this.estimated = estimated;
+    }
+
+    /**
+     * @return time in milliseconds at which the count was taken
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return true if an exact count is being taken in the background, to be returned by a
+     * later call
+     */
+    public boolean isExactCountPending() {
+        return exactCountPending;
+    }
+
+    public void setExactCountPending(boolean exactCountPending) {
+        this.exactCountPending = exactCountPending;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.data;
+
+/**
+ * Bean class to store a page of rows together with the cursor of the next page
+ */
+public class RowPage {
+    private Row[] rows = new Row[0];
+    private String nextCursor;
+
+    public Row[] getRows() {
+        return rows;
+    }
+
+    public void setRows(Row[] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return cursor to pass to get the next page, or null if there are no more rows
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -18,27 +18,39 @@
 */
 package org.wso2.carbon.cassandra.explorer.service;
 
+import me.prettyprint.cassandra.serializers.AsciiSerializer;
 import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Cluster;
 import me.prettyprint.hector.api.Keyspace;
-import me.prettyprint.hector.api.beans.ColumnSlice;
+import me.prettyprint.hector.api.Serializer;
 import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.beans.OrderedRows;
 import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.beans.Rows;
 import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
 import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
 import me.prettyprint.hector.api.exceptions.HectorException;
 import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.CountQuery;
+import me.prettyprint.hector.api.query.MultigetSliceQuery;
 import me.prettyprint.hector.api.query.QueryResult;
 import me.prettyprint.hector.api.query.RangeSlicesQuery;
-import me.prettyprint.hector.api.query.SliceQuery;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.wso2.carbon.cassandra.explorer.connection.ConnectionManager;
+import org.wso2.carbon.cassandra.explorer.count.ColumnCounter;
+import org.wso2.carbon.cassandra.explorer.count.CountService;
+import org.wso2.carbon.cassandra.explorer.count.RowCounter;
 import org.wso2.carbon.cassandra.explorer.data.Column;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+import org.wso2.carbon.cassandra.explorer.data.RowPage;
 import org.wso2.carbon.cassandra.explorer.exception.CassandraExplorerException;
+import org.wso2.carbon.cassandra.explorer.session.ColumnCheckpointIndex;
+import org.wso2.carbon.cassandra.explorer.session.PageBoundaryCache;
 import org.wso2.carbon.cassandra.explorer.utils.CFInfo;
 import org.wso2.carbon.cassandra.explorer.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.explorer.utils.ColumnIterator;
+import org.wso2.carbon.cassandra.explorer.utils.RowKeyPredicate;
 import org.wso2.carbon.core.AbstractAdmin;
 
 import java.nio.ByteBuffer;
@@ -51,12 +63,15 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
 
     private static final StringSerializer stringSerializer = new StringSerializer();
     private static final ByteBufferSerializer byteBufferSerializer = new ByteBufferSerializer();
+    private static final int ROW_SKIP_BATCH_SIZE = 1000;
+    private static final int ROW_SEARCH_SCAN_LIMIT = 10000;
+    private static final int COLUMN_PAGE_SIZE = 1000;
     private ByteBuffer emptyByteBuffer = ByteBufferUtil.bytes("");
 
     /**
      * @param keyspaceName Selected KeySpace by tenant
      * @param columnFamily Selected Column Family by tenant
-     * @return no Of Rows
+     * @return no Of Rows, up to the max result count. See {@link #getRowCount} for larger column families.
      */
     public int getNoOfRows(String keyspaceName, String columnFamily)
             throws CassandraExplorerException {
@@ -83,7 +98,26 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
     }
 
     /**
-     * Method to get Paginate Slice for Rows
+     * @param keyspaceName Selected KeySpace by tenant
+     * @param columnFamily Selected Column Family by tenant
+     * @return count of the rows of the column family, telling whether it is estimated
+     */
+    public CountResult getRowCount(String keyspaceName, String columnFamily)
+            throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        return CountService.getSessionService().getCount(
+                "rows\n" + keyspaceName + '\n' + columnFamily,
+                new RowCounter(cluster, keyspace, columnFamily, null, null));
+    }
+
+    /**
+     * Method to get Paginate Slice for Rows. The first rows of the visited pages are kept for the
+     * session, so that only the rows between the nearest visited page and the requested one are
+     * skipped, reading their keys only.
      *
      * @param keyspaceName Name of the keyspace
      * @param columnFamily Column Family Name
@@ -102,67 +136,313 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
         CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
                                                                      columnFamily);
+        PageBoundaryCache pageBoundaries = PageBoundaryCache.getSessionCache();
+
+        ByteBuffer startKey = getStartKeyOfRow(keyspace, keyspaceName, columnFamily, startingNo, pageBoundaries);
+        if (startKey == null) {
+            return new org.wso2.carbon.cassandra.explorer.data.Row[0];
+        }
+
+        List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> cassandraRows =
+                getRowSlice(keyspace, columnFamily, startKey, limit + 1);
+        pageBoundaries.put(keyspaceName, columnFamily, startingNo, startKey);
+        if (cassandraRows.size() > limit) {
+            pageBoundaries.put(keyspaceName, columnFamily, startingNo + limit, cassandraRows.get(limit).getKey());
+        }
+
+        int rowCount = Math.min(limit, cassandraRows.size());
+        org.wso2.carbon.cassandra.explorer.data.Row rows[] =
+                new org.wso2.carbon.cassandra.explorer.data.Row[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = toRow(columnFamilyInfo, cassandraRows.get(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a page of rows, starting at the cursor returned with the previous page. Each page
+     * continues the range slice from the key of its first row, so deep pages cost the same as the
+     * first one.
+     *
+     * @param cursor cursor returned with the previous page, null or empty for the first page
+     * @param limit  number of rows of the page
+     */
+    public RowPage getRowPage(String keyspaceName, String columnFamily, String cursor, int limit)
+            throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
+                                                                     columnFamily);
+
+        ByteBuffer startKey = emptyByteBuffer;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                startKey = ByteBufferUtil.hexToBytes(cursor);
+            } catch (NumberFormatException exception) {
+                throw new CassandraExplorerException("Invalid row page cursor: " + cursor, exception);
+            }
+        }
+
+        List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> cassandraRows =
+                getRowSlice(keyspace, columnFamily, startKey, limit + 1);
+        int rowCount = Math.min(limit, cassandraRows.size());
+        org.wso2.carbon.cassandra.explorer.data.Row rows[] =
+                new org.wso2.carbon.cassandra.explorer.data.Row[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = toRow(columnFamilyInfo, cassandraRows.get(i));
+        }
+
+        RowPage rowPage = new RowPage();
+        rowPage.setRows(rows);
+        if (cassandraRows.size() > limit) {
+            //the key of the first row of the next page, range slices start at their start key
+            rowPage.setNextCursor(ByteBufferUtil.bytesToHex(cassandraRows.get(limit).getKey()));
+        }
+        return rowPage;
+    }
+
+    /**
+     * Returns a page of the rows whose key contains the search key. Unlike {@link #searchRows},
+     * every row of the column family is searched: each call reads keys only, up to a bounded number
+     * of them, and the returned cursor continues the search where the call stopped. A page may
+     * hold fewer rows than the limit while there are more to search.
+     *
+     * @param cursor cursor returned with the previous page, null or empty for the first page
+     */
+    public RowPage searchRowPage(String keyspaceName, String columnFamily, String searchKey,
+                                 String cursor, int limit) throws CassandraExplorerException {
+        return searchRowPage(keyspaceName, columnFamily, RowKeyPredicate.contains(searchKey), cursor, limit);
+    }
+
+    /**
+     * Returns a page of the rows whose key starts with the prefix. Column families of ordered
+     * partitioners are only read from the prefix on.
+     *
+     * @see #searchRowPage(String, String, String, String, int)
+     */
+    public RowPage searchRowsByPrefix(String keyspaceName, String columnFamily, String prefix,
+                                      String cursor, int limit) throws CassandraExplorerException {
+        return searchRowPage(keyspaceName, columnFamily, RowKeyPredicate.prefix(prefix), cursor, limit);
+    }
+
+    /**
+     * Returns a page of the rows with keys from the start key to the end key, both included.
+     * Column families of ordered partitioners are only read within the range.
+     *
+     * @param startKey first key of the range, unbounded if empty
+     * @param endKey   last key of the range, unbounded if empty
+     * @see #searchRowPage(String, String, String, String, int)
+     */
+    public RowPage searchRowsByRange(String keyspaceName, String columnFamily, String startKey,
+                                     String endKey, String cursor, int limit)
+            throws CassandraExplorerException {
+        return searchRowPage(keyspaceName, columnFamily, RowKeyPredicate.range(startKey, endKey), cursor,
+                             limit);
+    }
+
+    private RowPage searchRowPage(String keyspaceName, String columnFamily, RowKeyPredicate predicate,
+                                  String cursor, int limit) throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
+                                                                     columnFamily);
+
+        ByteBuffer startKey = emptyByteBuffer;
+        ByteBuffer endKey = emptyByteBuffer;
+        if (predicate.isKeyRangeBounded() && isKeyOrdered(cluster, columnFamilyInfo)) {
+            startKey = predicate.getStartKey();
+            endKey = predicate.getEndKey();
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                startKey = ByteBufferUtil.hexToBytes(cursor);
+            } catch (NumberFormatException exception) {
+                throw new CassandraExplorerException("Invalid row search cursor: " + cursor, exception);
+            }
+        }
 
         RangeSlicesQuery<ByteBuffer, ByteBuffer, ByteBuffer> rangeSlicesQuery =
                 HFactory.createRangeSlicesQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
                                                 byteBufferSerializer);
         rangeSlicesQuery.setColumnFamily(columnFamily);
-        rangeSlicesQuery.setKeys(emptyByteBuffer, emptyByteBuffer);
-        rangeSlicesQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, 3);
-        rangeSlicesQuery.setRowCount(startingNo + 1);
+        rangeSlicesQuery.setReturnKeysOnly();
+        rangeSlicesQuery.setRowCount(ROW_SKIP_BATCH_SIZE + 1);
+
+        List<ByteBuffer> matchingKeys = new ArrayList<ByteBuffer>();
+        ByteBuffer nextKey = null;
+        int scannedKeys = 0;
+        while (nextKey == null) {
+            rangeSlicesQuery.setKeys(startKey, endKey);
+            List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> keyRows;
+            try {
+                keyRows = rangeSlicesQuery.execute().get().getList();
+            } catch (HectorException exception) {
+                throw new CassandraExplorerException(exception.getMessage(), exception);
+            }
 
-        ArrayList<org.wso2.carbon.cassandra.explorer.data.Row> rowlist =
-                new ArrayList<org.wso2.carbon.cassandra.explorer.data.Row>();
+            int batchSize = Math.min(ROW_SKIP_BATCH_SIZE, keyRows.size());
+            for (int i = 0; i < batchSize && nextKey == null; i++) {
+                ByteBuffer key = keyRows.get(i).getKey();
+                String rowKey = CassandraUtils.getStringDeserialization(
+                        columnFamilyInfo.getKeyCassandraSerializer(), key);
+                if (!predicate.matches(rowKey)) {
+                    continue;
+                }
+                if (matchingKeys.size() == limit) {
+                    nextKey = key;
+                } else {
+                    matchingKeys.add(key);
+                }
+            }
+            if (keyRows.size() <= ROW_SKIP_BATCH_SIZE) {
+                break;
+            }
+            startKey = keyRows.get(ROW_SKIP_BATCH_SIZE).getKey();
+            scannedKeys += batchSize;
+            if (nextKey == null && scannedKeys >= ROW_SEARCH_SCAN_LIMIT) {
+                nextKey = startKey;
+            }
+        }
 
-        QueryResult<OrderedRows<ByteBuffer, ByteBuffer, ByteBuffer>> result;
+        List<org.wso2.carbon.cassandra.explorer.data.Row> rows =
+                new ArrayList<org.wso2.carbon.cassandra.explorer.data.Row>(matchingKeys.size());
+        if (!matchingKeys.isEmpty()) {
+            MultigetSliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> multigetSliceQuery =
+                    HFactory.createMultigetSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
+                                                      byteBufferSerializer);
+            multigetSliceQuery.setColumnFamily(columnFamily);
+            multigetSliceQuery.setKeys(matchingKeys);
+            multigetSliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, 3);
+            Rows<ByteBuffer, ByteBuffer, ByteBuffer> cassandraRows;
+            try {
+                cassandraRows = multigetSliceQuery.execute().get();
+            } catch (HectorException exception) {
+                throw new CassandraExplorerException(exception.getMessage(), exception);
+            }
+            //keep the key order of the scan
+            for (ByteBuffer key : matchingKeys) {
+                Row<ByteBuffer, ByteBuffer, ByteBuffer> cassandraRow = cassandraRows.getByKey(key);
+                if (cassandraRow != null) {
+                    rows.add(toRow(columnFamilyInfo, cassandraRow));
+                }
+            }
+        }
+
+        RowPage rowPage = new RowPage();
+        rowPage.setRows(rows.toArray(new org.wso2.carbon.cassandra.explorer.data.Row[rows.size()]));
+        if (nextKey != null) {
+            rowPage.setNextCursor(ByteBufferUtil.bytesToHex(nextKey));
+        }
+        return rowPage;
+    }
+
+    /**
+     * @return true if the rows of the column family are ordered by the bytes of their string keys
+     */
+    private boolean isKeyOrdered(Cluster cluster, CFInfo columnFamilyInfo) throws CassandraExplorerException {
+        Serializer keySerializer = columnFamilyInfo.getKeyCassandraSerializer().getSerializer();
+        if (!(keySerializer instanceof StringSerializer || keySerializer instanceof AsciiSerializer ||
+              keySerializer instanceof ByteBufferSerializer)) {
+            return false;
+        }
+        String partitioner;
         try {
-            result = rangeSlicesQuery.execute();
+            partitioner = cluster.describePartitioner();
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
-        ByteBuffer endKey = emptyByteBuffer;
-        if (result.get().peekLast() != null) {
-            endKey = result.get().peekLast().getKey();
-        }
-        rangeSlicesQuery.setRowCount(limit);
-        rangeSlicesQuery.setKeys(endKey, emptyByteBuffer);
+        return partitioner.endsWith(".ByteOrderedPartitioner") ||
+               partitioner.endsWith(".OrderPreservingPartitioner");
+    }
 
+    /**
+     * @return rows of the column family starting at the given key, with their first 3 columns
+     */
+    private List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> getRowSlice(Keyspace keyspace, String columnFamily,
+                                                                      ByteBuffer startKey, int rowCount)
+            throws CassandraExplorerException {
+        RangeSlicesQuery<ByteBuffer, ByteBuffer, ByteBuffer> rangeSlicesQuery =
+                HFactory.createRangeSlicesQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
+                                                byteBufferSerializer);
+        rangeSlicesQuery.setColumnFamily(columnFamily);
+        rangeSlicesQuery.setKeys(startKey, emptyByteBuffer);
+        rangeSlicesQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, 3);
+        rangeSlicesQuery.setRowCount(rowCount);
         try {
-            result = rangeSlicesQuery.execute();
+            return rangeSlicesQuery.execute().get().getList();
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
+    }
 
-        for (Row<ByteBuffer, ByteBuffer, ByteBuffer> cassandraRow : result.get().getList()) {
-            org.wso2.carbon.cassandra.explorer.data.Row row =
-                    new org.wso2.carbon.cassandra.explorer.data.Row();
-            row.setRowId(CassandraUtils.getStringDeserialization(
-                    columnFamilyInfo.getKeyCassandraSerializer(), cassandraRow.getKey()));
-            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = cassandraRow.
-                    getColumnSlice().getColumns();
-            Column[] columns = new Column[hColumnsList.size()];
-            for (int i = 0; i < hColumnsList.size(); i++) {
-                // we are sending only 3 columns max
-                if (i == 3) {
-                    break;
-                }
-                HColumn hColumn = hColumnsList.get(i);
-                Column column = new Column();
-                column.setName(cleanNonXmlChars(CassandraUtils.getStringDeserialization(
-                        columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes())));
-                String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
-                        getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
-                column.setValue(cleanNonXmlChars(value));
-                column.setTimeStamp(hColumn.getClock());
-                columns[i] = column;
+    /**
+     * @return key of the row at the given position, or null if the column family has fewer rows
+     */
+    private ByteBuffer getStartKeyOfRow(Keyspace keyspace, String keyspaceName, String columnFamily,
+                                        int position, PageBoundaryCache pageBoundaries)
+            throws CassandraExplorerException {
+        if (position <= 0) {
+            return emptyByteBuffer;
+        }
+
+        PageBoundaryCache.Boundary floor = pageBoundaries.getFloor(keyspaceName, columnFamily, position);
+        int currentPosition = floor != null ? floor.getOffset() : 0;
+        ByteBuffer currentKey = floor != null ? floor.getStartKey() : emptyByteBuffer;
+
+        RangeSlicesQuery<ByteBuffer, ByteBuffer, ByteBuffer> rangeSlicesQuery =
+                HFactory.createRangeSlicesQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
+                                                byteBufferSerializer);
+        rangeSlicesQuery.setColumnFamily(columnFamily);
+        rangeSlicesQuery.setReturnKeysOnly();
+        while (currentPosition < position) {
+            int skipCount = Math.min(position - currentPosition, ROW_SKIP_BATCH_SIZE);
+            rangeSlicesQuery.setKeys(currentKey, emptyByteBuffer);
+            rangeSlicesQuery.setRowCount(skipCount + 1);
+
+            List<Row<ByteBuffer, ByteBuffer, ByteBuffer>> keyRows;
+            try {
+                keyRows = rangeSlicesQuery.execute().get().getList();
+            } catch (HectorException exception) {
+                throw new CassandraExplorerException(exception.getMessage(), exception);
+            }
+            if (keyRows.size() <= skipCount) {
+                return null;
             }
-            row.setColumns(columns);
-            rowlist.add(row);
+            currentKey = keyRows.get(skipCount).getKey();
+            currentPosition += skipCount;
         }
-        org.wso2.carbon.cassandra.explorer.data.Row rows[] =
-                new org.wso2.carbon.cassandra.explorer.data.Row[rowlist.size()];
-        return rowlist.toArray(rows);
+        return currentKey;
+    }
 
+    private org.wso2.carbon.cassandra.explorer.data.Row toRow(CFInfo columnFamilyInfo,
+                                                             Row<ByteBuffer, ByteBuffer, ByteBuffer> cassandraRow) {
+        org.wso2.carbon.cassandra.explorer.data.Row row =
+                new org.wso2.carbon.cassandra.explorer.data.Row();
+        row.setRowId(CassandraUtils.getStringDeserialization(
+                columnFamilyInfo.getKeyCassandraSerializer(), cassandraRow.getKey()));
+        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = cassandraRow.
+                getColumnSlice().getColumns();
+        Column[] columns = new Column[Math.min(hColumnsList.size(), 3)];
+        for (int i = 0; i < columns.length; i++) {
+            // we are sending only 3 columns max
+            HColumn hColumn = hColumnsList.get(i);
+            Column column = new Column();
+            column.setName(cleanNonXmlChars(CassandraUtils.getStringDeserialization(
+                    columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes())));
+            String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                    getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
+            column.setValue(cleanNonXmlChars(value));
+            column.setTimeStamp(hColumn.getClock());
+            columns[i] = column;
+        }
+        row.setColumns(columns);
+        return row;
     }
 
     public org.wso2.carbon.cassandra.explorer.data.Row[] searchRows(String keyspaceName,
@@ -245,6 +525,9 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         return rows;
     }
 
+    /**
+     * @return no Of Rows whose key contains the search key, among the first rows up to the max result count
+     */
     public int getNoOfRowSearchResults(String keyspaceName, String columnFamily
             , String searchKey)
             throws CassandraExplorerException {
@@ -263,9 +546,6 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         rangeSlicesQuery.setKeys(emptyByteBuffer, emptyByteBuffer);
         rangeSlicesQuery.setReturnKeysOnly();
         rangeSlicesQuery.setRowCount(ConnectionManager.getMaxResultCount());
-
-        ArrayList<org.wso2.carbon.cassandra.explorer.data.Row> rowlist =
-                new ArrayList<org.wso2.carbon.cassandra.explorer.data.Row>();
         QueryResult<OrderedRows<ByteBuffer, ByteBuffer, ByteBuffer>> result;
         try {
             result = rangeSlicesQuery.execute();
@@ -273,18 +553,33 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
 
+        int noOfResults = 0;
         for (Row<ByteBuffer, ByteBuffer, ByteBuffer> cassandraRow : result.get().getList()) {
-            org.wso2.carbon.cassandra.explorer.data.Row row =
-                    new org.wso2.carbon.cassandra.explorer.data.Row();
-
             String rowKey = CassandraUtils.getStringDeserialization(
                     columnFamilyInfo.getKeyCassandraSerializer(), cassandraRow.getKey());
             //check if search key present in the row keys.
             if (rowKey.contains(searchKey)) {
-                rowlist.add(row);
+                noOfResults++;
             }
         }
-        return rowlist.size();
+        return noOfResults;
+    }
+
+    /**
+     * @return count of the rows whose key contains the search key, telling whether it is estimated
+     */
+    public CountResult getRowSearchResultCount(String keyspaceName, String columnFamily, String searchKey)
+            throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
+                                                                     columnFamily);
+        return CountService.getSessionService().getCount(
+                "rowSearch\n" + keyspaceName + '\n' + columnFamily + '\n' + searchKey,
+                new RowCounter(cluster, keyspace, columnFamily, columnFamilyInfo, searchKey));
     }
 
     public Column[] searchColumns(String keyspaceName, String columnFamily,
@@ -298,57 +593,25 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
                                                                      columnFamily);
 
-        SliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
-                                          byteBufferSerializer);
-        sliceQuery.setColumnFamily(columnFamily);
-        if (rowName instanceof String) {
-            sliceQuery.setKey(ByteBuffer.wrap(rowName.getBytes()));
-        } else {
-            sliceQuery.setKey(columnFamilyInfo.getKeySerializer().toByteBuffer(rowName));
-        }
-        sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false,
-                            ConnectionManager.getMaxResultCount());
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result;
+        int maxResultCount = ConnectionManager.getMaxResultCount();
+        ColumnIterator columns = new ColumnIterator(keyspace, columnFamily, ByteBuffer.wrap(rowName.getBytes()),
+                                                    emptyByteBuffer, emptyByteBuffer,
+                                                    Math.min(COLUMN_PAGE_SIZE, maxResultCount));
+        ArrayList<Column> columnsList = new ArrayList<Column>();
+        int searchedColumns = 0;
+        int matchingColumns = 0;
         try {
-            result = sliceQuery.execute();
+            while (columnsList.size() < limit && searchedColumns < maxResultCount && columns.hasNext()) {
+                HColumn<ByteBuffer, ByteBuffer> hColumn = columns.next();
+                searchedColumns++;
+                if (matchesColumn(columnFamilyInfo, hColumn, searchKey) && matchingColumns++ >= startingNo) {
+                    columnsList.add(toColumn(columnFamilyInfo, hColumn));
+                }
+            }
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
-
-        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList;
-        ArrayList<Column> columnsList = new ArrayList<Column>();
-        hColumnsList = result.get().getColumns();
-
-        for (HColumn hColumn : hColumnsList) {
-            String columnKey = CassandraUtils.getStringDeserialization(
-                    columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
-            String columnValue = CassandraUtils.getStringDeserialization(columnFamilyInfo.
-                    getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
-
-            if ((columnKey.contains(searchKey) || columnValue.contains(searchKey))) {
-                Column column = new Column();
-
-                columnKey = cleanNonXmlChars(columnKey);
-                columnValue = cleanNonXmlChars(columnValue);
-
-                column.setName(columnKey);
-                column.setValue(columnValue);
-                column.setTimeStamp(hColumn.getClock());
-
-                columnsList.add(column);
-            }
-        }
-        // if no of results returned are fewer than limit (or display size)
-        if (columnsList.size() < limit) {
-            limit = columnsList.size();
-        }
-
-        Column[] columnArray = new Column[limit];
-        for (int i = 0; i < limit; i++) {
-            columnArray[i] = columnsList.get(startingNo + i);
-        }
-        return columnArray;
+        return columnsList.toArray(new Column[columnsList.size()]);
     }
 
     public int getNoOfColumnSearchResults(String keyspaceName, String columnFamily,
@@ -362,41 +625,77 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
                                                                      columnFamily);
 
-        SliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
-                                          byteBufferSerializer);
-        sliceQuery.setColumnFamily(columnFamily);
-        if (rowName instanceof String) {
-            sliceQuery.setKey(ByteBuffer.wrap(rowName.getBytes()));
-        } else {
-            sliceQuery.setKey(columnFamilyInfo.getKeySerializer().toByteBuffer(rowName));
-        }
-        sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false,
-                            ConnectionManager.getMaxResultCount());
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result;
+        int maxResultCount = ConnectionManager.getMaxResultCount();
+        ColumnIterator columns = new ColumnIterator(keyspace, columnFamily, ByteBuffer.wrap(rowName.getBytes()),
+                                                    emptyByteBuffer, emptyByteBuffer,
+                                                    Math.min(COLUMN_PAGE_SIZE, maxResultCount));
+        int searchedColumns = 0;
+        int columnCount = 0;
         try {
-            result = sliceQuery.execute();
+            while (searchedColumns < maxResultCount && columns.hasNext()) {
+                searchedColumns++;
+                if (matchesColumn(columnFamilyInfo, columns.next(), searchKey)) {
+                    columnCount++;
+                }
+            }
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
-        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList;
-        hColumnsList = result.get().getColumns();
+        return columnCount;
+    }
 
-        int columnCount = 0;
-        for (HColumn hColumn : hColumnsList) {
+    /**
+     * Returns the columns whose name starts with the prefix. For column families whose columns
+     * are sorted by the bytes of their names, only the columns from the prefix on are read, so
+     * the whole row is searched. Otherwise the first max result count columns are searched.
+     */
+    public Column[] searchColumnsByPrefix(String keyspaceName, String columnFamily, String rowName,
+                                          String prefix, int startingNo, int limit)
+            throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
+                                                                     columnFamily);
 
-            String columnKey = CassandraUtils.getStringDeserialization(
-                    columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
-            String columnValue = CassandraUtils.getStringDeserialization(columnFamilyInfo.
-                    getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
+        ByteBuffer start = emptyByteBuffer;
+        ByteBuffer finish = emptyByteBuffer;
+        int maxSearchedColumns = ConnectionManager.getMaxResultCount();
+        if (columnFamilyInfo.isColumnNameByteOrdered()) {
+            start = ByteBufferUtil.bytes(prefix);
+            finish = CassandraUtils.getPrefixEnd(prefix);
+            maxSearchedColumns = Integer.MAX_VALUE;
+        }
 
-            if ((columnKey.contains(searchKey) || columnValue.contains(searchKey))) {
-                columnCount++;
+        ColumnIterator columns = new ColumnIterator(keyspace, columnFamily, ByteBuffer.wrap(rowName.getBytes()),
+                                                    start, finish,
+                                                    Math.min(COLUMN_PAGE_SIZE, startingNo + limit + 1));
+        ArrayList<Column> columnsList = new ArrayList<Column>();
+        int searchedColumns = 0;
+        int matchingColumns = 0;
+        try {
+            while (columnsList.size() < limit && searchedColumns < maxSearchedColumns && columns.hasNext()) {
+                HColumn<ByteBuffer, ByteBuffer> hColumn = columns.next();
+                searchedColumns++;
+                String columnKey = CassandraUtils.getStringDeserialization(
+                        columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
+                if (columnKey.startsWith(prefix) && matchingColumns++ >= startingNo) {
+                    columnsList.add(toColumn(columnFamilyInfo, hColumn));
+                }
             }
+        } catch (HectorException exception) {
+            throw new CassandraExplorerException(exception.getMessage(), exception);
         }
-        return columnCount;
+        return columnsList.toArray(new Column[columnsList.size()]);
     }
 
+    /**
+     * Method to get Paginate Slice for Columns. Every K-th column name of the pages read is kept
+     * for the session, so that a page is read from the nearest of them instead of from the first
+     * column of the row.
+     */
     public Column[] getColumnPaginateSlice(String keyspaceName, String columnFamily, String rowName,
                                            int startingNo, int limit)
             throws CassandraExplorerException {
@@ -407,68 +706,59 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
         Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
         CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
                                                                      columnFamily);
+        ColumnCheckpointIndex checkpoints = ColumnCheckpointIndex.getSessionIndex();
 
-        //get the results up to the startingNo
-        SliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
-                                          byteBufferSerializer);
-        sliceQuery.setColumnFamily(columnFamily);
-        if (rowName instanceof String) {
-            sliceQuery.setKey(ByteBuffer.wrap(rowName.getBytes()));
-        } else {
-            sliceQuery.setKey(columnFamilyInfo.getKeySerializer().toByteBuffer(rowName));
-        }
-
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result;
-        if (startingNo != 0) {
-            sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false,
-                                startingNo + 1);
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraExplorerException(exception.getMessage(), exception);
-            }
-            List<HColumn<ByteBuffer, ByteBuffer>> tmpHColumnsList = result.get().getColumns();
+        ColumnCheckpointIndex.Checkpoint floor = checkpoints.getFloor(keyspaceName, columnFamily, rowName,
+                                                                      startingNo);
+        int position = floor != null ? floor.getOffset() : 0;
+        ByteBuffer start = floor != null ? floor.getColumnName() : emptyByteBuffer;
 
-            //TODO handle if results are empty
-            HColumn startingColumn = tmpHColumnsList.get(tmpHColumnsList.size() - 1);
-            ByteBuffer startingColumnName = (ByteBuffer) startingColumn.getName();
-
-            sliceQuery.setRange(startingColumnName, emptyByteBuffer, false, limit);
-        } else {
-            sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, limit);
-        }
+        ColumnIterator columns = new ColumnIterator(keyspace, columnFamily, ByteBuffer.wrap(rowName.getBytes()),
+                                                    start, emptyByteBuffer,
+                                                    Math.min(COLUMN_PAGE_SIZE, startingNo - position + limit));
+        ArrayList<Column> columnsList = new ArrayList<Column>();
         try {
-            result = sliceQuery.execute();
+            while (columnsList.size() < limit && columns.hasNext()) {
+                HColumn<ByteBuffer, ByteBuffer> hColumn = columns.next();
+                checkpoints.put(keyspaceName, columnFamily, rowName, position, hColumn.getNameBytes());
+                if (position >= startingNo) {
+                    columnsList.add(toColumn(columnFamilyInfo, hColumn));
+                }
+                position++;
+            }
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
+        Column[] columnArray = new Column[columnsList.size()];
+        return columnsList.toArray(columnArray);
+    }
 
-        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList;
-        ArrayList<Column> columnsList = new ArrayList<Column>();
-        hColumnsList = result.get().getColumns();
-
-        for (HColumn hColumn : hColumnsList) {
-            Column column = new Column();
-
-            String key = CassandraUtils.getStringDeserialization(
-                    columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
-            String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
-                    getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
+    private boolean matchesColumn(CFInfo columnFamilyInfo, HColumn<ByteBuffer, ByteBuffer> hColumn,
+                                  String searchKey) {
+        String columnKey = CassandraUtils.getStringDeserialization(
+                columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
+        String columnValue = CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
+        return columnKey.contains(searchKey) || columnValue.contains(searchKey);
+    }
 
-            key = cleanNonXmlChars(key);
-            value = cleanNonXmlChars(value);
+    private Column toColumn(CFInfo columnFamilyInfo, HColumn<ByteBuffer, ByteBuffer> hColumn) {
+        Column column = new Column();
 
-            column.setName(key);
-            column.setValue(value);
-            column.setTimeStamp(hColumn.getClock());
+        String key = CassandraUtils.getStringDeserialization(
+                columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes());
+        String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
 
-            columnsList.add(column);
-        }
-        Column[] columnArray = new Column[columnsList.size()];
-        return columnsList.toArray(columnArray);
+        column.setName(cleanNonXmlChars(key));
+        column.setValue(cleanNonXmlChars(value));
+        column.setTimeStamp(hColumn.getClock());
+        return column;
     }
 
+    /**
+     * @return no Of Columns of the row, up to the max result count. See {@link #getColumnCount} for wider rows.
+     */
     public int getNoOfColumns(String keyspaceName, String columnFamily, String rowName)
             throws CassandraExplorerException {
         Cluster cluster = ConnectionManager.getCluster();
@@ -476,30 +766,32 @@ public class CassandraExplorerAdmin extends AbstractAdmin {
             throw new CassandraExplorerException("No connection to Cluster available");
         }
         Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
-        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
-                                                                     columnFamily);
-        
-        SliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
-                                          byteBufferSerializer);
-        sliceQuery.setColumnFamily(columnFamily);
-        if (rowName instanceof String) {
-            sliceQuery.setKey(ByteBuffer.wrap(rowName.getBytes()));
-        } else {
-            sliceQuery.setKey(columnFamilyInfo.getKeySerializer().toByteBuffer(rowName));
-        }
-        sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false,
-                            ConnectionManager.getMaxResultCount());
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result;
+
+        CountQuery<ByteBuffer, ByteBuffer> countQuery =
+                HFactory.createCountQuery(keyspace, byteBufferSerializer, byteBufferSerializer);
+        countQuery.setColumnFamily(columnFamily);
+        countQuery.setKey(ByteBuffer.wrap(rowName.getBytes()));
+        countQuery.setRange(emptyByteBuffer, emptyByteBuffer, ConnectionManager.getMaxResultCount());
         try {
-            result = sliceQuery.execute();
+            return countQuery.execute().get();
         } catch (HectorException exception) {
             throw new CassandraExplorerException(exception.getMessage(), exception);
         }
+    }
 
-        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList;
-        hColumnsList = result.get().getColumns();
-        return hColumnsList.size();
+    /**
+     * @return count of the columns of the row, telling whether it is estimated
+     */
+    public CountResult getColumnCount(String keyspaceName, String columnFamily, String rowName)
+            throws CassandraExplorerException {
+        Cluster cluster = ConnectionManager.getCluster();
+        if (cluster == null) {
+            throw new CassandraExplorerException("No connection to Cluster available");
+        }
+        Keyspace keyspace = ConnectionManager.getKeyspace(cluster, keyspaceName);
+        return CountService.getSessionService().getCount(
+                "columns\n" + keyspaceName + '\n' + columnFamily + '\n' + rowName,
+                new ColumnCounter(keyspace, columnFamily, ByteBuffer.wrap(rowName.getBytes())));
     }
 
     public boolean connectToCassandraCluster(String clusterName, String connectionUrl,
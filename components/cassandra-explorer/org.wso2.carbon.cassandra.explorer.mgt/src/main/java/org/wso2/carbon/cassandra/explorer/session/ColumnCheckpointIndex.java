@@ -0,0 +1,129 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.session;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Names of every K-th column of the rows paged through in a session, so that a column page is
+ * read from the nearest checkpoint before it instead of from the first column of the row.
+ *
+ * Checkpoints are kept for the most recently used rows only.
+ */
+public class ColumnCheckpointIndex {
+    private static final String COLUMN_CHECKPOINT_INDEX = "columnCheckpointIndex";
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    private static final int DEFAULT_MAX_ROWS = 64;
+
+    private final int checkpointInterval;
+    private final int maxRows;
+    private final LinkedHashMap<String, TreeMap<Integer, ByteBuffer>> rowCheckpoints =
+            new LinkedHashMap<String, TreeMap<Integer, ByteBuffer>>(16, 0.75f, true);
+
+    public ColumnCheckpointIndex(int checkpointInterval, int maxRows) {
+        this.checkpointInterval = checkpointInterval;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @return the index of the current session
+     */
+    public static ColumnCheckpointIndex getSessionIndex() {
+        ColumnCheckpointIndex index =
+                (ColumnCheckpointIndex) ExplorerSessionManager.getSessionObject(COLUMN_CHECKPOINT_INDEX);
+        if (index == null) {
+            index = new ColumnCheckpointIndex(DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_MAX_ROWS);
+            ExplorerSessionManager.setSessionObject(COLUMN_CHECKPOINT_INDEX, index);
+        }
+        return index;
+    }
+
+    /**
+     * Keeps the name of the column if its offset is a checkpoint
+     *
+     * @param offset     position of the column in the row
+     * @param columnName name of the column
+     */
+    public synchronized void put(String keyspaceName, String columnFamily, String rowName, int offset,
+                                 ByteBuffer columnName) {
+        if (offset <= 0 || offset % checkpointInterval != 0) {
+            return;
+        }
+        String rowKey = keyspaceName + '\n' + columnFamily + '\n' + rowName;
+        TreeMap<Integer, ByteBuffer> checkpoints = rowCheckpoints.get(rowKey);
+        if (checkpoints == null) {
+            checkpoints = new TreeMap<Integer, ByteBuffer>();
+            rowCheckpoints.put(rowKey, checkpoints);
+
+            Iterator<TreeMap<Integer, ByteBuffer>> iterator = rowCheckpoints.values().iterator();
+            while (rowCheckpoints.size() > maxRows && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        checkpoints.put(offset, columnName.duplicate());
+    }
+
+    /**
+     * @return the checkpoint of the row with the largest offset not after the given one, or null
+     * if there is none
+     */
+    public synchronized Checkpoint getFloor(String keyspaceName, String columnFamily, String rowName, int offset) {
+        TreeMap<Integer, ByteBuffer> checkpoints =
+                rowCheckpoints.get(keyspaceName + '\n' + columnFamily + '\n' + rowName);
+        if (checkpoints == null) {
+            return null;
+        }
+        Map.Entry<Integer, ByteBuffer> floor = checkpoints.floorEntry(offset);
+        return floor != null ? new Checkpoint(floor.getKey(), floor.getValue().duplicate()) : null;
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (TreeMap<Integer, ByteBuffer> checkpoints : rowCheckpoints.values()) {
+            size += checkpoints.size();
+        }
+        return size;
+    }
+
+    /**
+     * Column at a checkpoint
+     */
+    public static class Checkpoint {
+        private final int offset;
+        private final ByteBuffer columnName;
+
+        private Checkpoint(int offset, ByteBuffer columnName) {
+            this.offset = offset;
+            this.columnName = columnName;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public ByteBuffer getColumnName() {
+            return columnName;
+        }
+    }
+}
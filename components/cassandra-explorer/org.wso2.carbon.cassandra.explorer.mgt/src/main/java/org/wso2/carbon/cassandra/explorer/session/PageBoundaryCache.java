@@ -0,0 +1,120 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.session;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keys of the first rows of the row pages visited in a session, so that going back to a visited
+ * page, or on to the page after it, starts the range slice at the page instead of scanning the
+ * column family from its first row.
+ *
+ * Boundaries are kept by row offset for each column family, and the least recently used ones are
+ * dropped once the cache is full.
+ */
+public class PageBoundaryCache {
+    private static final String PAGE_BOUNDARY_CACHE = "pageBoundaryCache";
+    private static final int DEFAULT_MAX_BOUNDARIES = 256;
+
+    private final int maxBoundaries;
+    private final LinkedHashMap<String, Boundary> boundaries =
+            new LinkedHashMap<String, Boundary>(16, 0.75f, true);
+
+    public PageBoundaryCache(int maxBoundaries) {
+        this.maxBoundaries = maxBoundaries;
+    }
+
+    /**
+     * @return the cache of the current session
+     */
+    public static PageBoundaryCache getSessionCache() {
+        PageBoundaryCache cache = (PageBoundaryCache) ExplorerSessionManager.getSessionObject(PAGE_BOUNDARY_CACHE);
+        if (cache == null) {
+            cache = new PageBoundaryCache(DEFAULT_MAX_BOUNDARIES);
+            ExplorerSessionManager.setSessionObject(PAGE_BOUNDARY_CACHE, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * @param offset   position of the row in the column family
+     * @param startKey key of the row
+     */
+    public synchronized void put(String keyspaceName, String columnFamily, int offset, ByteBuffer startKey) {
+        String columnFamilyKey = keyspaceName + '\n' + columnFamily + '\n';
+        boundaries.put(columnFamilyKey + offset, new Boundary(columnFamilyKey, offset, startKey.duplicate()));
+
+        Iterator<Boundary> iterator = boundaries.values().iterator();
+        while (boundaries.size() > maxBoundaries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the boundary of the column family with the largest offset not after the given one,
+     * or null if there is none
+     */
+    public synchronized Boundary getFloor(String keyspaceName, String columnFamily, int offset) {
+        String columnFamilyKey = keyspaceName + '\n' + columnFamily + '\n';
+        Boundary floor = boundaries.get(columnFamilyKey + offset);
+        if (floor == null) {
+            for (Boundary boundary : boundaries.values()) {
+                if (boundary.columnFamilyKey.equals(columnFamilyKey) && boundary.offset <= offset &&
+                        (floor == null || boundary.offset > floor.offset)) {
+                    floor = boundary;
+                }
+            }
+            if (floor != null) {
+                //mark as recently used
+                boundaries.get(columnFamilyKey + floor.offset);
+            }
+        }
+        return floor;
+    }
+
+    public synchronized int size() {
+        return boundaries.size();
+    }
+
+    /**
+     * First row of a page
+     */
+    public static class Boundary {
+        private final String columnFamilyKey;
+        private final int offset;
+        private final ByteBuffer startKey;
+
+        private Boundary(String columnFamilyKey, int offset, ByteBuffer startKey) {
+            this.columnFamilyKey = columnFamilyKey;
+            this.offset = offset;
+            this.startKey = startKey;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public ByteBuffer getStartKey() {
+            return startKey.duplicate();
+        }
+    }
+}
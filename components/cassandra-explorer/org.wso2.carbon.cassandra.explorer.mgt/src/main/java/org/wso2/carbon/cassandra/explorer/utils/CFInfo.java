@@ -46,6 +46,8 @@ public class CFInfo {
 
     private Map<ByteBuffer, CassandraSerializer> valueSerializerMap = new HashMap<ByteBuffer, CassandraSerializer>();
 
+    private boolean columnNameByteOrdered = false;
+
     public CFInfo(Cluster cluster, Keyspace keyspace, String name) {
         this.setKeyspace(keyspace.getKeyspaceName());
         this.setColumnFamilyName(name);
@@ -65,6 +67,9 @@ public class CFInfo {
         if (cfDef != null) {
             comparatorType = cfDef.getComparatorType();
             columnMetaData = cfDef.getColumnMetadata();
+            columnNameByteOrdered = ComparatorType.UTF8TYPE.equals(comparatorType) ||
+                                    ComparatorType.ASCIITYPE.equals(comparatorType) ||
+                                    ComparatorType.BYTESTYPE.equals(comparatorType);
 
             Serializer tmpColumnSerializer = CassandraUtils.getSerializer(comparatorType.getClassName());
             this.columnSerializer.setSerializer(tmpColumnSerializer != null ? tmpColumnSerializer : new StringSerializer());
@@ -137,6 +142,14 @@ public class CFInfo {
         return cassandraSerializer.getSerializer();
     }
 
+    /**
+     * @return true if columns are sorted by the bytes of their names, so that a name prefix can
+     * be given as slice bounds
+     */
+    public boolean isColumnNameByteOrdered() {
+        return columnNameByteOrdered;
+    }
+
     public CassandraSerializer getKeyCassandraSerializer() {
         return keySerializer;
     }
@@ -21,6 +21,7 @@ import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.Serializer;
 import me.prettyprint.hector.api.beans.Composite;
 import me.prettyprint.hector.api.ddl.ComparatorType;
+import org.apache.cassandra.utils.ByteBufferUtil;
 
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -74,6 +75,20 @@ public class CassandraUtils {
         return cfInfo;
     }
 
+    /**
+     * @return the first key after all keys starting with the prefix, when compared by their UTF-8
+     * bytes, or an empty buffer if the prefix is empty
+     */
+    public static ByteBuffer getPrefixEnd(String prefix) {
+        byte[] prefixEnd = ByteBufferUtil.getArray(ByteBufferUtil.bytes(prefix));
+        if (prefixEnd.length == 0) {
+            return ByteBufferUtil.EMPTY_BYTE_BUFFER;
+        }
+        //the last byte of UTF-8 is never 0xFF, so it does not overflow
+        prefixEnd[prefixEnd.length - 1]++;
+        return ByteBuffer.wrap(prefixEnd);
+    }
+
     public static String getStringDeserialization(Serializer serializer, ByteBuffer data) {
         if(serializer instanceof ByteBufferSerializer){
             serializer = new StringSerializer();
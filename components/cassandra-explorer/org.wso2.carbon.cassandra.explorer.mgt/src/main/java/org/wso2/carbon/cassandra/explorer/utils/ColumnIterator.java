@@ -0,0 +1,102 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.utils;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceQuery;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the columns of a row between a start and a finish name, reading them in slices of a
+ * bounded size, so that wide rows are never read at once. Each slice starts at the last column
+ * of the previous one. Reading a slice may throw a HectorException.
+ */
+public class ColumnIterator implements Iterator<HColumn<ByteBuffer, ByteBuffer>> {
+    private static final ByteBufferSerializer byteBufferSerializer = new ByteBufferSerializer();
+
+    private final SliceQuery<ByteBuffer, ByteBuffer, ByteBuffer> sliceQuery;
+    private final ByteBuffer finish;
+    private final int pageSize;
+
+    private ByteBuffer pageStart;
+    private ByteBuffer previousName;
+    private Iterator<HColumn<ByteBuffer, ByteBuffer>> page;
+    private boolean lastPage = false;
+
+    /**
+     * @param start    name of the first column, the first column of the row if empty
+     * @param finish   name of the last column, the last column of the row if empty
+     * @param pageSize number of columns read at a time
+     */
+    public ColumnIterator(Keyspace keyspace, String columnFamily, ByteBuffer rowKey, ByteBuffer start,
+                          ByteBuffer finish, int pageSize) {
+        this.sliceQuery = HFactory.createSliceQuery(keyspace, byteBufferSerializer, byteBufferSerializer,
+                                                    byteBufferSerializer);
+        this.sliceQuery.setColumnFamily(columnFamily);
+        this.sliceQuery.setKey(rowKey);
+        this.pageStart = start;
+        this.finish = finish;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    public boolean hasNext() {
+        while (page == null || !page.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            readPage();
+        }
+        return true;
+    }
+
+    public HColumn<ByteBuffer, ByteBuffer> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Columns are read only");
+    }
+
+    private void readPage() {
+        //the first column of a following slice is the last one of the previous slice
+        int count = previousName == null ? pageSize : pageSize + 1;
+        sliceQuery.setRange(pageStart, finish, false, count);
+        List<HColumn<ByteBuffer, ByteBuffer>> columns = sliceQuery.execute().get().getColumns();
+        lastPage = columns.size() < count;
+
+        if (previousName != null && !columns.isEmpty() && columns.get(0).getNameBytes().equals(previousName)) {
+            columns = columns.subList(1, columns.size());
+        }
+        if (!columns.isEmpty()) {
+            previousName = columns.get(columns.size() - 1).getNameBytes();
+            pageStart = previousName;
+        }
+        page = columns.iterator();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.utils;
+
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Predicate of a row key search. Prefix and range predicates can also be given as key range
+ * bounds, so that column families of ordered partitioners are only read within the bounds.
+ * Bounds are the UTF-8 bytes of the searched keys, so they only apply to string keys.
+ */
+public class RowKeyPredicate {
+    private static final ByteBuffer NO_BOUND = ByteBufferUtil.EMPTY_BYTE_BUFFER;
+
+    private enum Type {CONTAINS, PREFIX, RANGE}
+
+    private final Type type;
+    private final String value;
+    private final String endValue;
+    /* range bounds are compared as UTF-8 bytes, the order of the key range given to Cassandra */
+    private final ByteBuffer startBytes;
+    private final ByteBuffer endBytes;
+
+    private RowKeyPredicate(Type type, String value, String endValue) {
+        this.type = type;
+        this.value = value;
+        this.endValue = endValue;
+        this.startBytes = value == null ? null : ByteBufferUtil.bytes(value);
+        this.endBytes = endValue == null ? null : ByteBufferUtil.bytes(endValue);
+    }
+
+    public static RowKeyPredicate contains(String searchKey) {
+        return new RowKeyPredicate(Type.CONTAINS, searchKey, null);
+    }
+
+    public static RowKeyPredicate prefix(String prefix) {
+        return new RowKeyPredicate(Type.PREFIX, prefix, null);
+    }
+
+    /**
+     * @param startKey first key of the range, unbounded if null or empty
+     * @param endKey   last key of the range, unbounded if null or empty
+     */
+    public static RowKeyPredicate range(String startKey, String endKey) {
+        return new RowKeyPredicate(Type.RANGE, isEmpty(startKey) ? null : startKey,
+                                   isEmpty(endKey) ? null : endKey);
+    }
+
+    public boolean matches(String rowKey) {
+        switch (type) {
+            case CONTAINS:
+                return rowKey.contains(value);
+            case PREFIX:
+                return rowKey.startsWith(value);
+            default:
+                ByteBuffer rowKeyBytes = ByteBufferUtil.bytes(rowKey);
+                return (startBytes == null || ByteBufferUtil.compareUnsigned(rowKeyBytes, startBytes) >= 0) &&
+                       (endBytes == null || ByteBufferUtil.compareUnsigned(rowKeyBytes, endBytes) <= 0);
+        }
+    }
+
+    /**
+     * @return true if all matching keys are within {@link #getStartKey()} and {@link #getEndKey()}
+     */
+    public boolean isKeyRangeBounded() {
+        return type != Type.CONTAINS;
+    }
+
+    /**
+     * @return smallest key a matching key can have, or an empty buffer if unbounded
+     */
+    public ByteBuffer getStartKey() {
+        if (!isKeyRangeBounded() || value == null) {
+            return NO_BOUND;
+        }
+        return startBytes.duplicate();
+    }
+
+    /**
+     * @return key after which there are no matching keys, or an empty buffer if unbounded. For a
+     * prefix this is the first key after all keys with the prefix, which itself does not match.
+     */
+    public ByteBuffer getEndKey() {
+        if (type == Type.RANGE) {
+            return endBytes == null ? NO_BOUND : endBytes.duplicate();
+        } else if (type == Type.PREFIX) {
+            return CassandraUtils.getPrefixEnd(value);
+        }
+        return NO_BOUND;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
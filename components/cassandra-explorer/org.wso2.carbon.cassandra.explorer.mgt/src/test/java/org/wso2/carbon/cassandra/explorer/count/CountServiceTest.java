@@ -0,0 +1,111 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class CountServiceTest extends TestCase {
+
+    private final List<Runnable> scheduledCounts = new ArrayList<Runnable>();
+    private final Executor executor = new Executor() {
+        public void execute(Runnable command) {
+            scheduledCounts.add(command);
+        }
+    };
+
+    public void testEstimateIsReplacedByExactCount() throws Exception {
+        CountService service = new CountService(executor, 10);
+        FixedCounter counter = new FixedCounter(1000, true, 1234);
+
+        CountResult estimate = service.getCount("view", counter);
+        assertEquals(1000, estimate.getCount());
+        assertTrue(estimate.isEstimated());
+        assertTrue(estimate.isExactCountPending());
+
+        //pending counts are not scheduled again
+        service.getCount("view", counter);
+        assertEquals(1, scheduledCounts.size());
+
+        scheduledCounts.get(0).run();
+        CountResult exact = service.getCount("view", counter);
+        assertEquals(1234, exact.getCount());
+        assertFalse(exact.isEstimated());
+        assertFalse(exact.isExactCountPending());
+        assertTrue(exact.getTimestamp() > 0);
+        assertEquals(2, counter.estimates);
+        assertEquals(1, counter.exactCounts);
+    }
+
+    public void testExactEstimateIsCached() throws Exception {
+        CountService service = new CountService(executor, 10);
+        FixedCounter counter = new FixedCounter(12, false, 12);
+
+        assertEquals(12, service.getCount("view", counter).getCount());
+        assertEquals(12, service.getCount("view", counter).getCount());
+        assertEquals(1, counter.estimates);
+        assertTrue(scheduledCounts.isEmpty());
+    }
+
+    public void testFailedExactCountIsRetried() throws Exception {
+        CountService service = new CountService(executor, 10);
+        FixedCounter counter = new FixedCounter(1000, true, -1);
+
+        service.getCount("view", counter);
+        scheduledCounts.get(0).run();
+        CountResult estimate = service.getCount("view", counter);
+        assertTrue(estimate.isEstimated());
+        assertEquals(2, scheduledCounts.size());
+    }
+
+    private static class FixedCounter implements Counter {
+        private final long estimate;
+        private final boolean estimated;
+        private final long exactCount;
+        private int estimates;
+        private int exactCounts;
+
+        private FixedCounter(long estimate, boolean estimated, long exactCount) {
+            this.estimate = estimate;
+            this.estimated = estimated;
+            this.exactCount = exactCount;
+        }
+
+        public CountResult estimate() {
+            estimates++;
+            CountResult result = new CountResult();
+            result.setCount(estimate);
+            result.setEstimated(estimated);
+            result.setTimestamp(System.currentTimeMillis());
+            return result;
+        }
+
+        public long countExactly() {
+            exactCounts++;
+            if (exactCount < 0) {
+                throw new IllegalStateException("count failed");
+            }
+            return exactCount;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.count;
+
+import junit.framework.TestCase;
+import org.apache.cassandra.thrift.CfSplit;
+import org.wso2.carbon.cassandra.explorer.data.CountResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RowCounterTest extends TestCase {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public void testSmallColumnFamilyIsCountedExactly() throws Exception {
+        SampledRowCounter counter = new SampledRowCounter("match", 10, 3, 16, 10000, 0, 0);
+
+        CountResult result = counter.estimate();
+        assertEquals(3, result.getCount());
+        assertFalse(result.isEstimated());
+        assertTrue(counter.sampledTokens.isEmpty());
+    }
+
+    public void testRowsAreEstimatedFromTheSplits() throws Exception {
+        SampledRowCounter counter = new SampledRowCounter(null, RowCounter.ESTIMATE_ROW_LIMIT + 1, 0, 4,
+                                                          10000, 0, 0);
+
+        CountResult result = counter.estimate();
+        assertEquals(40000, result.getCount());
+        assertTrue(result.isEstimated());
+        assertTrue(counter.sampledTokens.isEmpty());
+    }
+
+    public void testSearchResultsAreScaledByTheSampledShare() throws Exception {
+        //101 of the first 1001 keys and 200 of the 1000 keys of each sampled split match
+        SampledRowCounter counter = new SampledRowCounter("match", RowCounter.ESTIMATE_ROW_LIMIT + 1, 101, 16,
+                                                          10000, RowCounter.SAMPLE_ROWS_PER_SPLIT, 200);
+
+        CountResult result = counter.estimate();
+        assertTrue(result.isEstimated());
+        long sampledRows = RowCounter.ESTIMATE_ROW_LIMIT + 1 +
+                           RowCounter.SAMPLED_SPLITS * RowCounter.SAMPLE_ROWS_PER_SPLIT;
+        long matchingRows = 101 + RowCounter.SAMPLED_SPLITS * 200;
+        assertEquals(Math.round((double) matchingRows / sampledRows * 160000), result.getCount());
+        assertEquals(30237, result.getCount());
+
+        //the sampled splits are spread over the ring
+        assertEquals(RowCounter.SAMPLED_SPLITS, counter.sampledTokens.size());
+        for (int i = 0; i < RowCounter.SAMPLED_SPLITS; i++) {
+            assertEquals(String.valueOf(i * 2), counter.sampledTokens.get(i));
+        }
+    }
+
+    public void testFewerSplitsThanSamplesAreAllSampled() throws Exception {
+        SampledRowCounter counter = new SampledRowCounter("match", RowCounter.ESTIMATE_ROW_LIMIT + 1, 0, 3,
+                                                          1000, 500, 250);
+
+        CountResult result = counter.estimate();
+        assertEquals(3, counter.sampledTokens.size());
+        //750 of 2501 sampled keys match, of at least 3000 rows
+        assertEquals(Math.round(750d / 2501 * 3000), result.getCount());
+    }
+
+    public void testEstimateMatches() {
+        assertEquals(250, RowCounter.estimateMatches(1, 4, 1000));
+        assertEquals(0, RowCounter.estimateMatches(0, 4, 1000));
+        assertEquals(1000, RowCounter.estimateMatches(4, 4, 1000));
+        assertEquals(0, RowCounter.estimateMatches(0, 0, 1000));
+    }
+
+    /**
+     * Serves keys and splits from memory. Matching keys contain "match".
+     */
+    private static class SampledRowCounter extends RowCounter {
+        private final int firstKeyCount;
+        private final int firstMatchCount;
+        private final int splitCount;
+        private final long rowsPerSplit;
+        private final int sampleKeyCount;
+        private final int sampleMatchCount;
+        private final List<String> sampledTokens = new ArrayList<String>();
+
+        SampledRowCounter(String searchKey, int firstKeyCount, int firstMatchCount, int splitCount,
+                          long rowsPerSplit, int sampleKeyCount, int sampleMatchCount) {
+            super(null, null, "Standard1", null, searchKey);
+            this.firstKeyCount = firstKeyCount;
+            this.firstMatchCount = firstMatchCount;
+            this.splitCount = splitCount;
+            this.rowsPerSplit = rowsPerSplit;
+            this.sampleKeyCount = sampleKeyCount;
+            this.sampleMatchCount = sampleMatchCount;
+        }
+
+        @Override
+        List<ByteBuffer> getKeys(ByteBuffer startKey, String startToken, String endToken, int rowCount) {
+            if (startKey != null) {
+                return createKeys(Math.min(firstKeyCount, rowCount), firstMatchCount);
+            }
+            sampledTokens.add(startToken);
+            return createKeys(Math.min(sampleKeyCount, rowCount), sampleMatchCount);
+        }
+
+        @Override
+        List<CfSplit> getSplits() {
+            List<CfSplit> splits = new ArrayList<CfSplit>();
+            for (int i = 0; i < splitCount; i++) {
+                splits.add(new CfSplit(String.valueOf(i), String.valueOf(i + 1), rowsPerSplit));
+            }
+            return splits;
+        }
+
+        @Override
+        String toRowKey(ByteBuffer key) {
+            return UTF8.decode(key.duplicate()).toString();
+        }
+
+        private List<ByteBuffer> createKeys(int keyCount, int matchCount) {
+            List<ByteBuffer> keys = new ArrayList<ByteBuffer>(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                keys.add(ByteBuffer.wrap(((i < matchCount ? "match" : "key") + i).getBytes(UTF8)));
+            }
+            return keys;
+        }
+    }
+}
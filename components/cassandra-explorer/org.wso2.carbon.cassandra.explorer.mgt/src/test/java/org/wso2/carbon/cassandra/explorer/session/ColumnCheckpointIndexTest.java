@@ -0,0 +1,51 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.session;
+
+import junit.framework.TestCase;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+public class ColumnCheckpointIndexTest extends TestCase {
+
+    public void testOnlyIntervalOffsetsAreKept() {
+        ColumnCheckpointIndex index = new ColumnCheckpointIndex(100, 10);
+        index.put("ks", "cf", "row", 0, ByteBufferUtil.bytes("col0"));
+        index.put("ks", "cf", "row", 50, ByteBufferUtil.bytes("col50"));
+        index.put("ks", "cf", "row", 100, ByteBufferUtil.bytes("col100"));
+        index.put("ks", "cf", "row", 300, ByteBufferUtil.bytes("col300"));
+
+        assertEquals(2, index.size());
+        assertNull(index.getFloor("ks", "cf", "row", 99));
+        assertEquals(100, index.getFloor("ks", "cf", "row", 250).getOffset());
+        assertEquals(ByteBufferUtil.bytes("col300"), index.getFloor("ks", "cf", "row", 5000).getColumnName());
+        assertNull(index.getFloor("ks", "cf", "other", 5000));
+    }
+
+    public void testLeastRecentlyUsedRowsAreDropped() {
+        ColumnCheckpointIndex index = new ColumnCheckpointIndex(10, 2);
+        index.put("ks", "cf", "row1", 10, ByteBufferUtil.bytes("a"));
+        index.put("ks", "cf", "row2", 10, ByteBufferUtil.bytes("b"));
+        index.getFloor("ks", "cf", "row1", 10);
+        index.put("ks", "cf", "row3", 10, ByteBufferUtil.bytes("c"));
+
+        assertNotNull(index.getFloor("ks", "cf", "row1", 10));
+        assertNull(index.getFloor("ks", "cf", "row2", 10));
+        assertNotNull(index.getFloor("ks", "cf", "row3", 10));
+    }
+}
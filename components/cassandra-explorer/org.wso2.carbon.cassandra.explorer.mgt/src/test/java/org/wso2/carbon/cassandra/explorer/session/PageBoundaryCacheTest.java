@@ -0,0 +1,59 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.session;
+
+import junit.framework.TestCase;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+public class PageBoundaryCacheTest extends TestCase {
+
+    public void testFloorOfVisitedPages() {
+        PageBoundaryCache cache = new PageBoundaryCache(10);
+        cache.put("ks", "cf", 100, ByteBufferUtil.bytes("row100"));
+        cache.put("ks", "cf", 200, ByteBufferUtil.bytes("row200"));
+        cache.put("ks", "other", 150, ByteBufferUtil.bytes("other150"));
+
+        assertEquals(200, cache.getFloor("ks", "cf", 200).getOffset());
+        assertEquals(ByteBufferUtil.bytes("row200"), cache.getFloor("ks", "cf", 200).getStartKey());
+        assertEquals(100, cache.getFloor("ks", "cf", 199).getOffset());
+        assertEquals(200, cache.getFloor("ks", "cf", 5000).getOffset());
+        assertNull(cache.getFloor("ks", "cf", 99));
+        assertNull(cache.getFloor("ks2", "cf", 500));
+    }
+
+    public void testLeastRecentlyUsedBoundariesAreDropped() {
+        PageBoundaryCache cache = new PageBoundaryCache(2);
+        cache.put("ks", "cf", 10, ByteBufferUtil.bytes("row10"));
+        cache.put("ks", "cf", 20, ByteBufferUtil.bytes("row20"));
+        cache.getFloor("ks", "cf", 15);
+        cache.put("ks", "cf", 30, ByteBufferUtil.bytes("row30"));
+
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.getFloor("ks", "cf", 25).getOffset());
+        assertEquals(30, cache.getFloor("ks", "cf", 30).getOffset());
+    }
+
+    public void testStartKeyIsNotConsumedByReaders() {
+        PageBoundaryCache cache = new PageBoundaryCache(2);
+        cache.put("ks", "cf", 10, ByteBufferUtil.bytes("row10"));
+
+        cache.getFloor("ks", "cf", 10).getStartKey().get();
+        assertEquals(ByteBufferUtil.bytes("row10"), cache.getFloor("ks", "cf", 10).getStartKey());
+    }
+}
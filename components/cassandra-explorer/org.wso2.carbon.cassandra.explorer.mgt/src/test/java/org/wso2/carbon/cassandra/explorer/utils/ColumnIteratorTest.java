@@ -0,0 +1,153 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.utils;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.QuorumAllConsistencyLevelPolicy;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.exceptions.HectorTransportException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.SliceRange;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.thrift.protocol.TProtocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class ColumnIteratorTest extends TestCase {
+    private static final ByteBuffer EMPTY = ByteBufferUtil.EMPTY_BYTE_BUFFER;
+
+    private WideRowClient client;
+    private ExecutingKeyspace keyspace;
+
+    protected void setUp() {
+        client = new WideRowClient(25);
+        keyspace = new ExecutingKeyspace("ks", new StubConnectionManager(client),
+                new QuorumAllConsistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE);
+    }
+
+    public void testRowIsReadInBoundedSlices() throws Exception {
+        List<String> names = readNames(new ColumnIterator(keyspace, "cf", ByteBufferUtil.bytes("row"),
+                                                          EMPTY, EMPTY, 10));
+        assertEquals(25, names.size());
+        assertEquals("col00", names.get(0));
+        assertEquals("col24", names.get(24));
+        assertEquals("[10, 11, 11]", client.requestedCounts.toString());
+    }
+
+    public void testSliceBounds() throws Exception {
+        List<String> names = readNames(new ColumnIterator(keyspace, "cf", ByteBufferUtil.bytes("row"),
+                                                          ByteBufferUtil.bytes("col1"),
+                                                          CassandraUtils.getPrefixEnd("col1"), 4));
+        assertEquals("[col10, col11, col12, col13, col14, col15, col16, col17, col18, col19]",
+                     names.toString());
+    }
+
+    public void testEmptyRow() throws Exception {
+        ColumnIterator columns = new ColumnIterator(keyspace, "cf", ByteBufferUtil.bytes("row"),
+                                                    ByteBufferUtil.bytes("x"), EMPTY, 10);
+        assertFalse(columns.hasNext());
+        assertEquals(1, client.requestedCounts.size());
+    }
+
+    private static List<String> readNames(ColumnIterator columns) throws Exception {
+        List<String> names = new ArrayList<String>();
+        while (columns.hasNext()) {
+            names.add(ByteBufferUtil.string(columns.next().getNameBytes()));
+        }
+        return names;
+    }
+
+    private static class StubConnectionManager extends HConnectionManager {
+        private final Cassandra.Client client;
+
+        private StubConnectionManager(Cassandra.Client client) {
+            super("test", createConfigurator());
+            this.client = client;
+        }
+
+        private static CassandraHostConfigurator createConfigurator() {
+            CassandraHostConfigurator configurator = new CassandraHostConfigurator();
+            configurator.setHosts("");
+            configurator.setRetryDownedHosts(false);
+            configurator.setAutoDiscoverHosts(false);
+            return configurator;
+        }
+
+        @Override
+        public void operateWithFailover(Operation<?> operation) throws HectorException {
+            try {
+                operation.executeAndSetResult(client, null);
+            } catch (Exception e) {
+                throw new HectorTransportException(e);
+            }
+        }
+    }
+
+    /**
+     * Single row of columns col00..
+     */
+    private static class WideRowClient extends Cassandra.Client {
+        private final TreeMap<ByteBuffer, ByteBuffer> columns = new TreeMap<ByteBuffer, ByteBuffer>();
+        private final List<Integer> requestedCounts = new ArrayList<Integer>();
+
+        private WideRowClient(int columnCount) {
+            super((TProtocol) null);
+            for (int i = 0; i < columnCount; i++) {
+                columns.put(ByteBufferUtil.bytes(String.format("col%02d", i)), ByteBufferUtil.bytes("value" + i));
+            }
+        }
+
+        @Override
+        public List<ColumnOrSuperColumn> get_slice(ByteBuffer key, ColumnParent columnParent,
+                                                   SlicePredicate predicate, ConsistencyLevel consistencyLevel) {
+            SliceRange range = predicate.getSlice_range();
+            requestedCounts.add(range.getCount());
+
+            SortedMap<ByteBuffer, ByteBuffer> slice = columns.tailMap(range.bufferForStart());
+            if (range.bufferForFinish().hasRemaining()) {
+                slice = columns.subMap(range.bufferForStart(), true, range.bufferForFinish(), true);
+            }
+            List<ColumnOrSuperColumn> result = new ArrayList<ColumnOrSuperColumn>();
+            for (ByteBuffer name : slice.keySet()) {
+                if (result.size() == range.getCount()) {
+                    break;
+                }
+                Column column = new Column(name.duplicate());
+                column.setValue(columns.get(name).duplicate());
+                column.setTimestamp(0);
+                result.add(new ColumnOrSuperColumn().setColumn(column));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.explorer.utils;
+
+import junit.framework.TestCase;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+public class RowKeyPredicateTest extends TestCase {
+
+    public void testContainsIsNotBounded() {
+        RowKeyPredicate predicate = RowKeyPredicate.contains("bc");
+        assertTrue(predicate.matches("abcd"));
+        assertFalse(predicate.matches("acbd"));
+        assertFalse(predicate.isKeyRangeBounded());
+        assertEquals(ByteBufferUtil.EMPTY_BYTE_BUFFER, predicate.getStartKey());
+        assertEquals(ByteBufferUtil.EMPTY_BYTE_BUFFER, predicate.getEndKey());
+    }
+
+    public void testPrefixBounds() throws Exception {
+        RowKeyPredicate predicate = RowKeyPredicate.prefix("row1");
+        assertTrue(predicate.matches("row1"));
+        assertTrue(predicate.matches("row10"));
+        assertFalse(predicate.matches("row2"));
+        assertEquals(ByteBufferUtil.bytes("row1"), predicate.getStartKey());
+        assertEquals(ByteBufferUtil.bytes("row2"), predicate.getEndKey());
+        assertFalse(predicate.matches(ByteBufferUtil.string(predicate.getEndKey())));
+    }
+
+    public void testRangeBounds() {
+        RowKeyPredicate predicate = RowKeyPredicate.range("b", "d");
+        assertTrue(predicate.matches("b"));
+        assertTrue(predicate.matches("c123"));
+        assertTrue(predicate.matches("d"));
+        assertFalse(predicate.matches("d1"));
+        assertFalse(predicate.matches("a"));
+        assertEquals(ByteBufferUtil.bytes("b"), predicate.getStartKey());
+        assertEquals(ByteBufferUtil.bytes("d"), predicate.getEndKey());
+
+        RowKeyPredicate openRange = RowKeyPredicate.range("", "d");
+        assertTrue(openRange.matches("a"));
+        assertEquals(ByteBufferUtil.EMPTY_BYTE_BUFFER, openRange.getStartKey());
+    }
+
+    public void testRangeUsesUtf8ByteOrder() {
+        //U+1F600 sorts before U+FF00 in UTF-16 but after it in UTF-8, as in the key range given to Cassandra
+        String supplementary = "\uD83D\uDE00";
+        RowKeyPredicate predicate = RowKeyPredicate.range("\uFF00", null);
+        assertTrue(predicate.matches(supplementary));
+        assertTrue(ByteBufferUtil.compareUnsigned(ByteBufferUtil.bytes(supplementary), predicate.getStartKey()) > 0);
+
+        RowKeyPredicate upTo = RowKeyPredicate.range(null, "\uFF00");
+        assertFalse(upTo.matches(supplementary));
+        assertTrue(upTo.matches("\uE000"));
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.cassandra.explorer.stub.CassandraExplorerAdminStub;
 import org.wso2.carbon.cassandra.explorer.stub.data.xsd.Column;
+import org.wso2.carbon.cassandra.explorer.stub.data.xsd.CountResult;
 import org.wso2.carbon.cassandra.explorer.stub.data.xsd.Row;
 import org.wso2.carbon.ui.CarbonUIUtil;
 import org.wso2.carbon.utils.ServerConstants;
@@ -82,6 +83,15 @@ public class CassandraExplorerAdminClient {
         }
     }
 
+    public CountResult getColumnCount(String keyspace, String columnFamily, String rowName)
+            throws CassandraAdminClientException {
+        try {
+            return explorerAdminStub.getColumnCount(keyspace, columnFamily, rowName);
+        } catch (Exception e) {
+            throw new CassandraAdminClientException("Unable to retrieve data. " + e.getMessage(), e, log);
+        }
+    }
+
     public Column[] searchColumns(String keyspace, String columnFamily, String rowName,
                                   String searchKey, int startingNo, int limit)
             throws CassandraAdminClientException {
@@ -132,6 +142,14 @@ public class CassandraExplorerAdminClient {
         }
     }
 
+    public CountResult getRowSearchResultCount(String keyspace, String columnFamily, String searchKey)
+            throws CassandraAdminClientException {
+        try {
+            return explorerAdminStub.getRowSearchResultCount(keyspace, columnFamily, searchKey);
+        } catch (Exception e) {
+            throw new CassandraAdminClientException("Unable to retrieve data. " + e.getMessage(), e, log);
+        }
+    }
 
     public boolean connectToCassandraCluster(String clusterName, String connectionUrl,
                                              String userName, String password)
@@ -168,6 +186,14 @@ public class CassandraExplorerAdminClient {
         }
     }
 
+    public CountResult getRowCount(String keyspace, String columnFamily) throws CassandraAdminClientException {
+        try {
+            return explorerAdminStub.getRowCount(keyspace, columnFamily);
+        } catch (Exception e) {
+            throw new CassandraAdminClientException("Unable to retrieve data. " + e.getMessage(), e, log);
+        }
+    }
+
     public void setMaxRowCount(int maxRowCount)
             throws CassandraAdminClientException {
         try {
@@ -20,6 +20,7 @@
 <%@ page import="java.util.Date" %>
 <%@ page import="org.wso2.carbon.cassandra.explorer.ui.CassandraExplorerAdminClient" %>
 <%@ page import="org.wso2.carbon.cassandra.explorer.stub.data.xsd.Column" %>
+<%@ page import="org.wso2.carbon.cassandra.explorer.stub.data.xsd.CountResult" %>
 <%@ page import="org.json.simple.JSONObject" %>
 <%@ page import="org.codehaus.jackson.JsonEncoding" %>
 <%@ page import="org.json.simple.JSONArray" %>
@@ -48,7 +49,13 @@
     int noOfTotalColumns;
     int noOfFilteredColumns;
 
-    noOfTotalColumns = cassandraExplorerAdminClient.getNoOfColumns(keyspace, columnFamily, rowId);
+    CountResult totalCount = cassandraExplorerAdminClient.getColumnCount(keyspace, columnFamily, rowId);
+    noOfTotalColumns = (int) Math.min(totalCount.getCount(), Integer.MAX_VALUE);
+    String countInfo = (totalCount.getEstimated() ? "Estimated" : "Counted") + " as of " +
+                       new Date(totalCount.getTimestamp());
+    if (totalCount.getExactCountPending()) {
+        countInfo += ", exact count in progress";
+    }
 
     if (searchKey != null && !searchKey.isEmpty()) {
         columns = cassandraExplorerAdminClient.searchColumns(keyspace, columnFamily, rowId, searchKey,
@@ -68,6 +75,7 @@
     jsonObject.put("sEcho",echoValue);
     jsonObject.put("iTotalRecords",noOfTotalColumns);
     jsonObject.put("iTotalDisplayRecords",noOfFilteredColumns);
+    jsonObject.put("countInfo",countInfo);
 
     JSONArray valuesArray = new JSONArray();
     if (columns != null) {
@@ -62,6 +62,7 @@
         <div id="workArea">
             <div id="container">
                 <div id="dynamic"></div>
+                <div id="countInfo"></div>
                 <div class="spacer"></div>
             </div>
 
@@ -83,6 +84,12 @@
                                                     aoData.push({ "name":"row_id", "value":'<%=rowID%>' },
                                                                 {"name":"columnFamily", "value":'<%=columnFamily%>'},
                                                                 {"name":"keySpace", "value":'<%=keyspace%>'});
+                                                },
+                                                "fnServerData":function (sSource, aoData, fnCallback) {
+                                                    $.getJSON(sSource, aoData, function (json) {
+                                                        $('#countInfo').text(json.countInfo);
+                                                        fnCallback(json);
+                                                    });
                                                 }
                                             }
                     );
@@ -17,6 +17,7 @@
 --%>
 
 <%@ page import="org.wso2.carbon.cassandra.explorer.stub.data.xsd.Column" %>
+<%@ page import="org.wso2.carbon.cassandra.explorer.stub.data.xsd.CountResult" %>
 <%@ page import="org.wso2.carbon.cassandra.explorer.ui.CassandraExplorerAdminClient" %>
 <%@ page import="org.wso2.carbon.ui.CarbonUIMessage" %>
 <%@ page import="java.util.Date" %>
@@ -42,25 +43,33 @@
     Row[] rows = new Row[0];
     int noOfTotalRows = 0;
     int noOfFilteredRows = 0;
+    CountResult shownCount;
     JSONObject jsonResponse = new JSONObject();
     try {
         cassandraExplorerAdminClient =
                 new CassandraExplorerAdminClient(config.getServletContext(), session);
 
 
-        noOfTotalRows = cassandraExplorerAdminClient.getNoOfRows(keyspace, columnFamily);
+        CountResult totalCount = cassandraExplorerAdminClient.getRowCount(keyspace, columnFamily);
+        noOfTotalRows = (int) Math.min(totalCount.getCount(), Integer.MAX_VALUE);
 
         if (searchKey != null && !searchKey.isEmpty()) {
             rows = cassandraExplorerAdminClient.searchRows(keyspace, columnFamily, searchKey,
                                                            displayStart, displayLength);
-            noOfFilteredRows = cassandraExplorerAdminClient.getNoOfFilteredResultsoforRows(keyspace,
-                                                                                           columnFamily,
-                                                                                           searchKey);
+            shownCount = cassandraExplorerAdminClient.getRowSearchResultCount(keyspace, columnFamily,
+                                                                               searchKey);
+            noOfFilteredRows = (int) Math.min(shownCount.getCount(), Integer.MAX_VALUE);
         } else {
             rows = cassandraExplorerAdminClient.
                     getPaginateSliceforRows(keyspace, columnFamily, displayStart, displayLength);
+            shownCount = totalCount;
             noOfFilteredRows = noOfTotalRows;
         }
+        String countInfo = (shownCount.getEstimated() ? "Estimated" : "Counted") + " as of " +
+                           new Date(shownCount.getTimestamp());
+        if (shownCount.getExactCountPending()) {
+            countInfo += ", exact count in progress";
+        }
 
         int totalDisplayRecords = 0;
         if (rows != null) {
@@ -70,6 +79,7 @@
         jsonObject.put("sEcho", echoValue);
         jsonObject.put("iTotalRecords", noOfTotalRows);
         jsonObject.put("iTotalDisplayRecords", noOfFilteredRows);
+        jsonObject.put("countInfo", countInfo);
 
         JSONArray dataArray = new JSONArray();
         if (rows != null) {
@@ -56,6 +56,7 @@
         <div id="workArea">
             <div id="container">
                 <div id="dynamic"></div>
+                <div id="countInfo"></div>
                 <div class="spacer"></div>
             </div>
             <script type="text/javascript">
@@ -76,6 +77,7 @@
                         "fnServerData": function ( sSource, aoData, fnCallback, oSettings ) {
                             callback = function(json){
                                 if(json.status == "success"){
+                                    $('#countInfo').text(json.data.countInfo);
                                     fnCallback(json.data);
                                 } else {
                                     var callbackUrl = "cassandra_keyspaces.jsp";
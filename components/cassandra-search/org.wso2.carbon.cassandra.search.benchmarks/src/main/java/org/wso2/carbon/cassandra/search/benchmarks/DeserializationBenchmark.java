@@ -0,0 +1,122 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import me.prettyprint.cassandra.serializers.BooleanSerializer;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.CompositeSerializer;
+import me.prettyprint.cassandra.serializers.DoubleSerializer;
+import me.prettyprint.cassandra.serializers.IntegerSerializer;
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.beans.Composite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraSerializer;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.databridge.commons.AttributeType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of synthetic column data: typed column values read back from their serialized form,
+ * filter values parsed to the type of the property, and column names of plain and composite
+ * comparators rendered as strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeserializationBenchmark {
+    private static final AttributeType[] TYPES = {AttributeType.LONG, AttributeType.INT,
+            AttributeType.DOUBLE, AttributeType.BOOL, AttributeType.STRING};
+    private static final String[] FILTER_VALUES = {"1396850000000", "404", "12.75", "true", "EchoService"};
+
+    private final ByteBuffer[] columnValues = new ByteBuffer[TYPES.length];
+    private ByteBuffer stringColumnName;
+    private ByteBuffer compositeColumnName;
+    private CassandraSerializer stringSerializer;
+    private CassandraSerializer bytesSerializer;
+    private CassandraSerializer compositeSerializer;
+
+    @Setup
+    public void setUp() {
+        columnValues[0] = LongSerializer.get().toByteBuffer(1396850000000L);
+        columnValues[1] = IntegerSerializer.get().toByteBuffer(404);
+        columnValues[2] = DoubleSerializer.get().toByteBuffer(12.75);
+        columnValues[3] = BooleanSerializer.get().toByteBuffer(true);
+        columnValues[4] = StringSerializer.get().toByteBuffer("EchoService");
+
+        stringColumnName = StringSerializer.get().toByteBuffer("payload_service_name");
+        stringSerializer = new CassandraSerializer(StringSerializer.get());
+        bytesSerializer = new CassandraSerializer(ByteBufferSerializer.get());
+
+        Composite composite = new Composite();
+        composite.addComponent(1396850000000L, LongSerializer.get());
+        composite.addComponent("10.100.0.12", StringSerializer.get());
+        compositeColumnName = CompositeSerializer.get().toByteBuffer(composite);
+        compositeSerializer = new CassandraSerializer(CompositeSerializer.get());
+        compositeSerializer.setCompositeSerializerList(
+                "org.apache.cassandra.db.marshal.CompositeType(org.apache.cassandra.db.marshal.LongType," +
+                "org.apache.cassandra.db.marshal.UTF8Type)");
+    }
+
+    @Benchmark
+    public void columnValues(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < TYPES.length; i++) {
+            blackhole.consume(CassandraUtils.getOriginalValueFromColumnValue(columnValues[i].duplicate(), TYPES[i]));
+        }
+    }
+
+    @Benchmark
+    public void filterValues(Blackhole blackhole) throws CassandraSearchException {
+        for (int i = 0; i < TYPES.length; i++) {
+            blackhole.consume(CassandraUtils.getValue(FILTER_VALUES[i], TYPES[i]));
+        }
+    }
+
+    @Benchmark
+    public String stringColumnName() {
+        return CassandraUtils.getStringDeserialization(stringSerializer, stringColumnName.duplicate());
+    }
+
+    @Benchmark
+    public String bytesColumnName() {
+        return CassandraUtils.getStringDeserialization(bytesSerializer, stringColumnName.duplicate());
+    }
+
+    @Benchmark
+    public String compositeColumnName() {
+        return CassandraUtils.getStringDeserialization(compositeSerializer, compositeColumnName.duplicate());
+    }
+}
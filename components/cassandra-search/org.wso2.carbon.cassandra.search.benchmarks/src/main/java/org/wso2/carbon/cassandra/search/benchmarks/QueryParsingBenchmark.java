@@ -0,0 +1,91 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.cassandra.search.engine.Filter;
+import org.wso2.carbon.cassandra.search.engine.QueryParser;
+import org.wso2.carbon.cassandra.search.engine.SearchQuery;
+import org.wso2.carbon.cassandra.search.engine.SearchStatement;
+import org.wso2.carbon.cassandra.search.engine.StatementParser;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a search statement and building of the per stream search query, with and without the
+ * compiled query cache in front of the parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryParsingBenchmark {
+    private static final String STATEMENT =
+            "bam_message_store.Timestamp >= 20140401000000 AND bam_message_store.Timestamp < 20140501000000 " +
+            "AND bam_message_store.meta_host = '10.100.0.12' AND bam_message_store.payload_service_name = " +
+            "'EchoService' AND bam_message_store.payload_content % 'urn:echoString' " +
+            "AND org_wso2_bam_activity_monitoring.correlation_activity_id = 'f81d4fae-7dec-11d0-a765-00a0c91e6bf6'";
+
+    private final StatementParser statementParser = new StatementParser();
+    private List<Filter> streamFilters;
+
+    @Setup
+    public void setUp() throws CassandraSearchException {
+        streamFilters = QueryParser.parse(STATEMENT).getStreamFilters().get("bam_message_store");
+    }
+
+    @Benchmark
+    public SearchStatement parse() throws CassandraSearchException {
+        return QueryParser.parse(STATEMENT);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return QueryParser.normalize(STATEMENT);
+    }
+
+    /**
+     * Statement to filters as done by the search admin, answered from the compiled query cache
+     */
+    @Benchmark
+    public Map<String, List<Filter>> extractCachedFilters() throws CassandraSearchException {
+        return statementParser.extractFilters(STATEMENT);
+    }
+
+    @Benchmark
+    public SearchQuery buildQuery() throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery();
+        searchQuery.buildQuery(streamFilters);
+        return searchQuery;
+    }
+}
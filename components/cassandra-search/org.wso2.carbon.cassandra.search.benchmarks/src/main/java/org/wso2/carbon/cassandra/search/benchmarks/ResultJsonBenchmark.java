@@ -0,0 +1,125 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.cassandra.search.data.json.Event;
+import org.wso2.carbon.cassandra.search.data.json.Events;
+import org.wso2.carbon.cassandra.search.data.json.JsonResultWriter;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.cassandra.search.utils.TimestampCodec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of an event search result, built as a string by Gson as the admin service returns
+ * it, compared with streaming it through JsonResultWriter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultJsonBenchmark {
+    private static final Gson GSON = new Gson();
+
+    @Param({"100", "1000"})
+    public int eventCount;
+
+    private List<Event> results;
+
+    @Setup
+    public void setUp() {
+        results = new ArrayList<Event>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            long timestamp = 1396850000000L + i * 250L;
+            Event event = new Event("bam_message_store", timestamp + "::10.100.0.12::" + i,
+                    SearchConstants.DEFAULT_STREAM_VERSION, TimestampCodec.format(timestamp));
+            event.setHost("10.100.0.12");
+            event.setActivityId("f81d4fae-7dec-11d0-a765-" + (100000000000L + i));
+            event.setMessageBodyType("request");
+            event.setMessageBody("<soapenv:Envelope><soapenv:Body><p:echoString><in>message " + i +
+                    "</in></p:echoString></soapenv:Body></soapenv:Envelope>");
+            event.addColumnValue(SearchConstants.SERVICE_NAME_PROPERTY, "EchoService");
+            event.addColumnValue(SearchConstants.OPERATION_NAME_PROPERTY, "echoString");
+            event.addColumnValue(SearchConstants.DIRECTION_PROPERTY, "in");
+            results.add(event);
+        }
+    }
+
+    @Benchmark
+    public String gsonToString() {
+        Events events = new Events();
+        events.setResults(results);
+        return GSON.toJson(events);
+    }
+
+    @Benchmark
+    public long streamedWithJsonResultWriter() throws IOException {
+        JsonResultWriter writer = new JsonResultWriter(new DiscardingWriter(),
+                SearchConstants.JSON_RESULT_BYTE_LIMIT);
+        writer.beginObject();
+        writer.beginResults("results");
+        for (Event event : results) {
+            if (!writer.writeResult(event)) {
+                break;
+            }
+        }
+        writer.endResults();
+        writer.endObject();
+        return writer.getByteCount();
+    }
+
+    /**
+     * Stands in for the response stream, so that only the serialization is measured
+     */
+    private static class DiscardingWriter extends Writer {
+        @Override
+        public void write(char[] chars, int offset, int length) {
+        }
+
+        @Override
+        public void write(String value, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
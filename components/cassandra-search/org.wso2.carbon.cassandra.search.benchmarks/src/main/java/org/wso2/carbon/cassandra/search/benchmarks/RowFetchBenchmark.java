@@ -0,0 +1,123 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.beans.HColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.cassandra.search.engine.RowBatchFetcher;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the rows of a search result through RowBatchFetcher from a StubKeyspace, measuring the
+ * client side cost of the multiget queries and of deserializing the returned columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowFetchBenchmark {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final String COLUMN_FAMILY = "org_wso2_bam_activity_monitoring";
+
+    @Param({"100", "1000"})
+    public int rowCount;
+
+    @Param({"20"})
+    public int columnCount;
+
+    private StubKeyspace keyspace;
+    private RowBatchFetcher sequentialFetcher;
+    private RowBatchFetcher parallelFetcher;
+    private ExecutorService executor;
+    private List<String> rowKeys;
+    private List<String> columnFamilies;
+
+    @Setup
+    public void setUp() {
+        keyspace = new StubKeyspace(SearchConstants.DEFAULT_KEY_SPACE_NAME, columnCount, 64);
+        executor = Executors.newFixedThreadPool(SearchConstants.ROW_FETCH_THREAD_POOL_SIZE);
+        sequentialFetcher = new RowBatchFetcher(keyspace, SearchConstants.ROW_FETCH_BATCH_SIZE, null);
+        parallelFetcher = new RowBatchFetcher(keyspace, SearchConstants.ROW_FETCH_BATCH_SIZE, executor);
+
+        rowKeys = new ArrayList<String>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rowKeys.add("1396850000000::10.100.0." + (i % 255) + "::" + i);
+        }
+        columnFamilies = Collections.nCopies(rowCount, COLUMN_FAMILY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        keyspace.shutdown();
+    }
+
+    @Benchmark
+    public void fetchSequentially(Blackhole blackhole) throws CassandraSearchException {
+        consume(sequentialFetcher.fetchAllColumns(COLUMN_FAMILY, rowKeys), blackhole);
+    }
+
+    @Benchmark
+    public void fetchInParallel(Blackhole blackhole) throws CassandraSearchException {
+        consume(parallelFetcher.fetchAllColumns(COLUMN_FAMILY, rowKeys), blackhole);
+    }
+
+    @Benchmark
+    public void fetchStreamed(final Blackhole blackhole) throws CassandraSearchException {
+        parallelFetcher.fetchAllColumns(columnFamilies, rowKeys, 2, new RowBatchFetcher.BatchHandler() {
+            public boolean handleBatch(int offset, List<List<HColumn<ByteBuffer, ByteBuffer>>> columns) {
+                consume(columns, blackhole);
+                return true;
+            }
+        });
+    }
+
+    private static void consume(List<List<HColumn<ByteBuffer, ByteBuffer>>> rows, Blackhole blackhole) {
+        for (List<HColumn<ByteBuffer, ByteBuffer>> columns : rows) {
+            for (HColumn<ByteBuffer, ByteBuffer> column : columns) {
+                blackhole.consume(CassandraUtils.getStringDeserialization(STRING_SERIALIZER, column.getValue()));
+            }
+        }
+    }
+}
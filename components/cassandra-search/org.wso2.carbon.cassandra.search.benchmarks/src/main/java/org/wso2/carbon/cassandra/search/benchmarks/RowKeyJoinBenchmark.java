@@ -0,0 +1,92 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.cassandra.search.engine.RowKeySetOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AND / OR joins of the row keys returned for the filters of a query. The second list overlaps
+ * half of the first one and is a tenth of its size in the skewed variants, as when a selective
+ * filter is joined with a broad one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowKeyJoinBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<String> rowKeys;
+    private List<String> overlappingRowKeys;
+    private List<String> selectiveRowKeys;
+
+    @Setup
+    public void setUp() {
+        rowKeys = createRowKeys(0, size);
+        overlappingRowKeys = createRowKeys(size / 2, size);
+        selectiveRowKeys = createRowKeys(size / 2, size / 10);
+    }
+
+    private static List<String> createRowKeys(int start, int count) {
+        List<String> keys = new ArrayList<String>(count);
+        for (int i = start; i < start + count; i++) {
+            keys.add((1396850000000L + i * 17L) + "::10.100.0." + (i % 255) + "::" + i);
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public List<String> intersection() {
+        return RowKeySetOperations.intersection(rowKeys, overlappingRowKeys);
+    }
+
+    @Benchmark
+    public List<String> intersectionWithSelectiveFilter() {
+        return RowKeySetOperations.intersection(rowKeys, selectiveRowKeys);
+    }
+
+    @Benchmark
+    public List<String> union() {
+        return RowKeySetOperations.union(rowKeys, overlappingRowKeys);
+    }
+
+    @Benchmark
+    public List<String> difference() {
+        return RowKeySetOperations.difference(rowKeys, overlappingRowKeys);
+    }
+}
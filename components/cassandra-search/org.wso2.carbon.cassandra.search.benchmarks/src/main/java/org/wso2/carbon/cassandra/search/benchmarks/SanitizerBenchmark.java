@@ -0,0 +1,108 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removal of the characters not allowed in XML from the column values returned by the admin
+ * service, compared with the regex replacement it replaced. Most payloads are clean, a few carry
+ * control characters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SanitizerBenchmark {
+
+    @Param({"32", "4096"})
+    public int length;
+
+    private String cleanValue;
+    private String dirtyValue;
+
+    @Setup
+    public void setUp() {
+        String payload = "<soapenv:Envelope><soapenv:Body><p:echoString><in>hello world</in>" +
+                "</p:echoString></soapenv:Body></soapenv:Envelope>\r\n";
+        StringBuilder clean = new StringBuilder(length);
+        while (clean.length() < length) {
+            clean.append(payload);
+        }
+        clean.setLength(length);
+        cleanValue = clean.toString();
+
+        StringBuilder dirty = new StringBuilder(cleanValue);
+        for (int i = 7; i < length; i += 64) {
+            dirty.setCharAt(i, (char) (i % 0x1F == 0x0A ? 0x01 : i % 0x1F));
+        }
+        dirtyValue = dirty.toString();
+    }
+
+    private static String cleanWithRegex(String value) {
+        String parsedString = "";
+        if (value != null) {
+            parsedString = value.replaceAll("[\\x00-\\x09\\x0B\\x0C\\x0E-\\x1F\\x7F]", " ");
+        }
+        if (parsedString.trim().isEmpty()) {
+            parsedString = "***Non displayable value***";
+        }
+        return parsedString;
+    }
+
+    @Benchmark
+    public String cleanValueWithRegex() {
+        return cleanWithRegex(cleanValue);
+    }
+
+    @Benchmark
+    public String valueWithControlCharsWithRegex() {
+        return cleanWithRegex(dirtyValue);
+    }
+
+    @Benchmark
+    public String cleanValue() {
+        return CassandraUtils.cleanNonXmlChars(cleanValue);
+    }
+
+    @Benchmark
+    public String valueWithControlChars() {
+        return CassandraUtils.cleanNonXmlChars(dirtyValue);
+    }
+
+    @Benchmark
+    public String valueWithControlCharsAndSurrogateCheck() {
+        return CassandraUtils.cleanNonXmlChars(dirtyValue, true);
+    }
+}
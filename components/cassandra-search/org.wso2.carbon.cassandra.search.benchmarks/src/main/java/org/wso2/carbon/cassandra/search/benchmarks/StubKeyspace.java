@@ -0,0 +1,158 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.QuorumAllConsistencyLevelPolicy;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.exceptions.HectorTransportException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.thrift.protocol.TProtocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyspace which executes Hector operations against an in-memory thrift client instead of a
+ * Cassandra node, so that code issuing queries through Hector can be benchmarked offline.
+ *
+ * Every requested row exists and holds the same synthetic event columns. Only the slice
+ * operations are answered; any other operation fails.
+ */
+public class StubKeyspace extends ExecutingKeyspace {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * @param columnCount number of columns of each row
+     * @param valueLength length of the value of each column
+     */
+    public StubKeyspace(String keyspaceName, int columnCount, int valueLength) {
+        super(keyspaceName, new StubConnectionManager(keyspaceName, new StubClient(createRow(columnCount, valueLength))),
+                new QuorumAllConsistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE);
+    }
+
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    private static List<ColumnOrSuperColumn> createRow(int columnCount, int valueLength) {
+        StringBuilder valueBuilder = new StringBuilder(valueLength);
+        for (int i = 0; i < valueLength; i++) {
+            valueBuilder.append((char) ('a' + i % 26));
+        }
+        byte[] value = valueBuilder.toString().getBytes(UTF8);
+
+        List<ColumnOrSuperColumn> columns = new ArrayList<ColumnOrSuperColumn>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            Column column = new Column(ByteBuffer.wrap(("payload_property_" + i).getBytes(UTF8)));
+            column.setValue(ByteBuffer.wrap(value));
+            column.setTimestamp(i);
+            columns.add(new ColumnOrSuperColumn().setColumn(column));
+        }
+        return columns;
+    }
+
+    /**
+     * Connection manager without hosts, which runs every operation on the stub client instead of
+     * a pooled connection
+     */
+    private static class StubConnectionManager extends HConnectionManager {
+        private final Cassandra.Client client;
+
+        private StubConnectionManager(String clusterName, Cassandra.Client client) {
+            super(clusterName, createConfigurator());
+            this.client = client;
+        }
+
+        private static CassandraHostConfigurator createConfigurator() {
+            CassandraHostConfigurator configurator = new CassandraHostConfigurator();
+            configurator.setHosts("");
+            configurator.setRetryDownedHosts(false);
+            configurator.setAutoDiscoverHosts(false);
+            return configurator;
+        }
+
+        @Override
+        public void operateWithFailover(Operation<?> operation) throws HectorException {
+            try {
+                operation.executeAndSetResult(client, null);
+            } catch (HectorException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new HectorTransportException(e);
+            }
+        }
+    }
+
+    private static class StubClient extends Cassandra.Client {
+        private final List<ColumnOrSuperColumn> row;
+
+        private StubClient(List<ColumnOrSuperColumn> row) {
+            super((TProtocol) null);
+            this.row = row;
+        }
+
+        @Override
+        public List<ColumnOrSuperColumn> get_slice(ByteBuffer key, ColumnParent columnParent,
+                                                   SlicePredicate predicate, ConsistencyLevel consistencyLevel) {
+            return copyRow();
+        }
+
+        @Override
+        public Map<ByteBuffer, List<ColumnOrSuperColumn>> multiget_slice(List<ByteBuffer> keys,
+                                                                         ColumnParent columnParent,
+                                                                         SlicePredicate predicate,
+                                                                         ConsistencyLevel consistencyLevel) {
+            Map<ByteBuffer, List<ColumnOrSuperColumn>> rows =
+                    new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>(keys.size() * 2);
+            for (ByteBuffer key : keys) {
+                rows.put(key, copyRow());
+            }
+            return rows;
+        }
+
+        /**
+         * Hector consumes the value buffers while converting the result, hand out fresh views
+         */
+        private List<ColumnOrSuperColumn> copyRow() {
+            List<ColumnOrSuperColumn> columns = new ArrayList<ColumnOrSuperColumn>(row.size());
+            for (ColumnOrSuperColumn columnOrSuperColumn : row) {
+                Column column = columnOrSuperColumn.getColumn();
+                Column copy = new Column(column.bufferForName().duplicate());
+                copy.setValue(column.bufferForValue().duplicate());
+                copy.setTimestamp(column.getTimestamp());
+                columns.add(new ColumnOrSuperColumn().setColumn(copy));
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.TimestampCodec;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares TimestampCodec with the SimpleDateFormat based formatting and parsing it replaced.
+ * The shared formatter variant is only correct because each benchmark thread has its own state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Thread)
+public class TimestampCodecBenchmark {
+    private static final int SAMPLE_COUNT = 1024;
+
+    private final long[] timestamps = new long[SAMPLE_COUNT];
+    private final String[] queryTimestamps = new String[SAMPLE_COUNT];
+    private final SimpleDateFormat sharedFormatter = new SimpleDateFormat(TimestampCodec.DISPLAY_FORMAT);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        SimpleDateFormat queryFormat = new SimpleDateFormat(TimestampCodec.QUERY_FORMATS[0]);
+        //events of a search result are close in time, a few of them share a second
+        long timestamp = 1396850000000L;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            timestamp += random.nextInt(2000);
+            timestamps[i] = timestamp;
+            queryTimestamps[i] = queryFormat.format(new Date(timestamp));
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SAMPLE_COUNT - 1);
+        return index;
+    }
+
+    @Benchmark
+    public String formatWithSharedSimpleDateFormat() {
+        return sharedFormatter.format(new Date(timestamps[next()]));
+    }
+
+    @Benchmark
+    public String formatWithNewSimpleDateFormat() {
+        return new SimpleDateFormat(TimestampCodec.DISPLAY_FORMAT).format(new Date(timestamps[next()]));
+    }
+
+    @Benchmark
+    public String formatWithCodec() {
+        return TimestampCodec.format(timestamps[next()]);
+    }
+
+    /**
+     * Parsing as done by the search admin before the codec, creating a formatter per attempt
+     */
+    @Benchmark
+    public long parseWithNewSimpleDateFormats() throws ParseException {
+        String value = queryTimestamps[next()];
+        for (String pattern : TimestampCodec.QUERY_FORMATS) {
+            try {
+                return new SimpleDateFormat(pattern).parse(value).getTime();
+            } catch (ParseException e) {
+                //try the next format
+            }
+        }
+        throw new ParseException(value, 0);
+    }
+
+    @Benchmark
+    public long parseWithCodec() throws CassandraSearchException {
+        return TimestampCodec.parse(queryTimestamps[next()]);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
+import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.data.CacheStatistics;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CFInfo;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the column family metadata of a keyspace of a cluster, together with the serializers
+ * resolved from it.
+ *
+ * The column family definitions of the keyspace are described once and the {@link CFInfo} of a
+ * column family is built from them when it is first requested. Everything is dropped when the schema
+ * version of the cluster changes, which is re-checked at most once per version check interval.
+ *
+ * A cache is kept per keyspace of a cluster, the least recently used ones are dropped once there are
+ * more than {@link SearchConstants#KEYSPACE_CACHE_SIZE}.
+ */
+public class ColumnFamilyInfoCache {
+    private static final Log log = LogFactory.getLog(ColumnFamilyInfoCache.class);
+
+    private static final String UNREACHABLE_SCHEMA_VERSION = "UNREACHABLE";
+
+    private static final Map<String, ColumnFamilyInfoCache> CACHES =
+            new LinkedHashMap<String, ColumnFamilyInfoCache>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ColumnFamilyInfoCache> eldest) {
+                    return size() > SearchConstants.KEYSPACE_CACHE_SIZE;
+                }
+            };
+
+    private final String name;
+    private final String keyspaceName;
+    private final long versionCheckInterval;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public ColumnFamilyInfoCache(String name, String keyspaceName, long versionCheckInterval) {
+        this.name = name;
+        this.keyspaceName = keyspaceName;
+        this.versionCheckInterval = versionCheckInterval;
+    }
+
+    public static ColumnFamilyInfoCache getInstance(Cluster cluster, Keyspace keyspace) {
+        String cacheName = CassandraUtils.getClusterKey(cluster) + "/" + keyspace.getKeyspaceName();
+        synchronized (CACHES) {
+            ColumnFamilyInfoCache cache = CACHES.get(cacheName);
+            if (cache == null) {
+                cache = new ColumnFamilyInfoCache(cacheName, keyspace.getKeyspaceName(),
+                        SearchConstants.SCHEMA_VERSION_CHECK_INTERVAL);
+                CACHES.put(cacheName, cache);
+            }
+            return cache;
+        }
+    }
+
+    public static void invalidateAll() {
+        for (ColumnFamilyInfoCache cache : getCaches()) {
+            cache.invalidate();
+        }
+    }
+
+    public static List<CacheStatistics> getAllStatistics() {
+        List<CacheStatistics> statisticsList = new ArrayList<CacheStatistics>();
+        for (ColumnFamilyInfoCache cache : getCaches()) {
+            statisticsList.add(cache.getStatistics());
+        }
+        return statisticsList;
+    }
+
+    private static List<ColumnFamilyInfoCache> getCaches() {
+        synchronized (CACHES) {
+            return new ArrayList<ColumnFamilyInfoCache>(CACHES.values());
+        }
+    }
+
+    /**
+     * @throws CassandraSearchException if the column family does not exist in the keyspace
+     */
+    public CFInfo getColumnFamilyInfo(Cluster cluster, String columnFamilyName) throws CassandraSearchException {
+        Snapshot current = getSnapshot(cluster);
+        CFInfo cfInfo = current.columnFamilyInfos.get(columnFamilyName);
+        if (cfInfo != null) {
+            hitCount.incrementAndGet();
+            return cfInfo;
+        }
+
+        missCount.incrementAndGet();
+        ColumnFamilyDefinition cfDef = current.definitions.get(columnFamilyName);
+        if (cfDef == null) {
+            //column family may have been created after the keyspace was described
+            current = load(cluster, current);
+            cfDef = current.definitions.get(columnFamilyName);
+            if (cfDef == null) {
+                throw new CassandraSearchException("Column family " + columnFamilyName +
+                        " does not exist in keyspace " + keyspaceName);
+            }
+        }
+
+        cfInfo = new CFInfo(keyspaceName, cfDef);
+        CFInfo existingInfo = current.columnFamilyInfos.putIfAbsent(columnFamilyName, cfInfo);
+        return existingInfo != null ? existingInfo : cfInfo;
+    }
+
+    public void invalidate() {
+        snapshot = null;
+        invalidationCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Invalidated column family cache " + name);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        Snapshot current = snapshot;
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName(name);
+        statistics.setHitCount(hitCount.get());
+        statistics.setMissCount(missCount.get());
+        statistics.setLoadCount(loadCount.get());
+        statistics.setInvalidationCount(invalidationCount.get());
+        statistics.setSize(current != null ? current.columnFamilyInfos.size() : 0);
+        return statistics;
+    }
+
+    private Snapshot getSnapshot(Cluster cluster) throws CassandraSearchException {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return load(cluster, null);
+        }
+        if (System.currentTimeMillis() - current.checkedTime < versionCheckInterval) {
+            return current;
+        }
+        return checkVersion(cluster, current);
+    }
+
+    private synchronized Snapshot load(Cluster cluster, Snapshot expected) throws CassandraSearchException {
+        if (snapshot != expected && snapshot != null) {
+            //loaded by another thread while waiting
+            return snapshot;
+        }
+        //the version is read first, so that a schema change during the describe is seen by the next check
+        String version = getSchemaVersion(cluster);
+        snapshot = new Snapshot(describeColumnFamilies(cluster), version);
+        loadCount.incrementAndGet();
+        return snapshot;
+    }
+
+    private synchronized Snapshot checkVersion(Cluster cluster, Snapshot expected) throws CassandraSearchException {
+        if (snapshot != expected && snapshot != null) {
+            return snapshot;
+        }
+        long now = System.currentTimeMillis();
+        if (now - expected.checkedTime < versionCheckInterval) {
+            return expected;
+        }
+
+        String version = getSchemaVersion(cluster);
+        if (version.equals(expected.version)) {
+            expected.checkedTime = now;
+            return expected;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Schema of " + name + " has been modified. Reloading the column family cache.");
+        }
+        invalidationCount.incrementAndGet();
+        loadCount.incrementAndGet();
+        snapshot = new Snapshot(describeColumnFamilies(cluster), version);
+        return snapshot;
+    }
+
+    private Map<String, ColumnFamilyDefinition> describeColumnFamilies(Cluster cluster)
+            throws CassandraSearchException {
+        KeyspaceDefinition keyspaceDef;
+        try {
+            keyspaceDef = cluster.describeKeyspace(keyspaceName);
+        } catch (HectorException exception) {
+            throw new CassandraSearchException(exception.getMessage(), exception);
+        }
+
+        Map<String, ColumnFamilyDefinition> definitions = new HashMap<String, ColumnFamilyDefinition>();
+        if (keyspaceDef != null) {
+            for (ColumnFamilyDefinition cfDef : keyspaceDef.getCfDefs()) {
+                definitions.put(cfDef.getName(), cfDef);
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * The schema versions agreed on by the reachable nodes are used as the version of the keyspace,
+     * so that a node becoming unreachable does not drop the cache.
+     */
+    private static String getSchemaVersion(Cluster cluster) throws CassandraSearchException {
+        Map<String, List<String>> schemaVersions;
+        try {
+            schemaVersions = cluster.describeSchemaVersions();
+        } catch (HectorException exception) {
+            throw new CassandraSearchException(exception.getMessage(), exception);
+        }
+
+        TreeSet<String> versions = new TreeSet<String>();
+        if (schemaVersions != null) {
+            versions.addAll(schemaVersions.keySet());
+        }
+        versions.remove(UNREACHABLE_SCHEMA_VERSION);
+        return versions.toString();
+    }
+
+    private static final class Snapshot {
+        private final Map<String, ColumnFamilyDefinition> definitions;
+        private final ConcurrentMap<String, CFInfo> columnFamilyInfos = new ConcurrentHashMap<String, CFInfo>();
+        private final String version;
+        private volatile long checkedTime;
+
+        private Snapshot(Map<String, ColumnFamilyDefinition> definitions, String version) {
+            this.definitions = Collections.unmodifiableMap(definitions);
+            this.version = version;
+            this.checkedTime = System.currentTimeMillis();
+        }
+    }
+}
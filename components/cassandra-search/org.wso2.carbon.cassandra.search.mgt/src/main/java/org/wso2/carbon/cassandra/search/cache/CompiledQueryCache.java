@@ -0,0 +1,93 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import org.wso2.carbon.cassandra.search.data.CacheStatistics;
+import org.wso2.carbon.cassandra.search.engine.QueryParser;
+import org.wso2.carbon.cassandra.search.engine.SearchStatement;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of parsed search statements keyed by the normalized statement, so that statements
+ * repeated by dashboards are parsed only once.
+ */
+public class CompiledQueryCache {
+    private static final CompiledQueryCache INSTANCE =
+            new CompiledQueryCache(SearchConstants.COMPILED_QUERY_CACHE_SIZE);
+
+    private final Map<String, SearchStatement> statements;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public CompiledQueryCache(final int maxSize) {
+        this.statements = Collections.synchronizedMap(new LinkedHashMap<String, SearchStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchStatement> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public static CompiledQueryCache getInstance() {
+        return INSTANCE;
+    }
+
+    public SearchStatement getStatement(String query) throws CassandraSearchException {
+        if (query == null || query.isEmpty()) {
+            throw new CassandraSearchException("Null or Empty search query..");
+        }
+
+        String normalizedQuery = QueryParser.normalize(query);
+        SearchStatement statement = statements.get(normalizedQuery);
+        if (statement != null) {
+            hitCount.incrementAndGet();
+            return statement;
+        }
+
+        missCount.incrementAndGet();
+        //the original statement is parsed, the normalized one is only used as the key
+        statement = QueryParser.parse(query);
+        statements.put(normalizedQuery, statement);
+        return statement;
+    }
+
+    public void invalidate() {
+        statements.clear();
+        invalidationCount.incrementAndGet();
+    }
+
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName("compiled-queries");
+        statistics.setHitCount(hitCount.get());
+        statistics.setMissCount(missCount.get());
+        statistics.setLoadCount(missCount.get());
+        statistics.setInvalidationCount(invalidationCount.get());
+        statistics.setSize(statements.size());
+        return statistics;
+    }
+}
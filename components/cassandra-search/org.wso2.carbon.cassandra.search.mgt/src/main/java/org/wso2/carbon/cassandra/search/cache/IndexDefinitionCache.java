@@ -0,0 +1,411 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.OrderedRows;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.ColumnQuery;
+import me.prettyprint.hector.api.query.QueryResult;
+import me.prettyprint.hector.api.query.RangeSlicesQuery;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.data.CacheStatistics;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.NGramIndexState;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.databridge.commons.IndexDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the stream index definitions of an index keyspace of a cluster.
+ *
+ * The definitions are loaded with a single range query and kept until the TTL expires or the cache
+ * is invalidated. Within the TTL the last modified column of the definitions is re-checked once per
+ * version check interval, so that a changed definition is picked up without waiting for the TTL.
+ * Writers of definitions bump that column with {@link #addVersionUpdate(Mutator)}, definitions
+ * written without bumping it are picked up when the TTL expires.
+ *
+ * A cache is kept per index keyspace of a cluster, the least recently used ones are dropped once
+ * there are more than {@link SearchConstants#KEYSPACE_CACHE_SIZE}.
+ */
+public class IndexDefinitionCache {
+    private static final Log log = LogFactory.getLog(IndexDefinitionCache.class);
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+
+    private static final Map<String, IndexDefinitionCache> CACHES =
+            new LinkedHashMap<String, IndexDefinitionCache>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IndexDefinitionCache> eldest) {
+                    return size() > SearchConstants.KEYSPACE_CACHE_SIZE;
+                }
+            };
+
+    private final String name;
+    private final long ttl;
+    private final long versionCheckInterval;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public IndexDefinitionCache(String name, long ttl, long versionCheckInterval) {
+        this.name = name;
+        this.ttl = ttl;
+        this.versionCheckInterval = versionCheckInterval;
+    }
+
+    public static IndexDefinitionCache getInstance(Cluster cluster, Keyspace indexKeyspace) {
+        String cacheName = CassandraUtils.getClusterKey(cluster) + "/" + indexKeyspace.getKeyspaceName();
+        synchronized (CACHES) {
+            IndexDefinitionCache cache = CACHES.get(cacheName);
+            if (cache == null) {
+                cache = new IndexDefinitionCache(cacheName, SearchConstants.INDEX_DEFINITION_CACHE_TTL,
+                        SearchConstants.INDEX_DEFINITION_VERSION_CHECK_INTERVAL);
+                CACHES.put(cacheName, cache);
+            }
+            return cache;
+        }
+    }
+
+    public static void invalidateAll() {
+        for (IndexDefinitionCache cache : getCaches()) {
+            cache.invalidate();
+        }
+    }
+
+    public static List<CacheStatistics> getAllStatistics() {
+        List<CacheStatistics> statisticsList = new ArrayList<CacheStatistics>();
+        for (IndexDefinitionCache cache : getCaches()) {
+            statisticsList.add(cache.getStatistics());
+        }
+        return statisticsList;
+    }
+
+    private static List<IndexDefinitionCache> getCaches() {
+        synchronized (CACHES) {
+            return new ArrayList<IndexDefinitionCache>(CACHES.values());
+        }
+    }
+
+    /**
+     * Adds the update of the last modified column of the definitions to the mutator, to be called by
+     * every writer of the index definition column family so that caches reload the definitions.
+     */
+    public static void addVersionUpdate(Mutator<String> mutator) {
+        mutator.addInsertion(SearchConstants.INDEX_DEF_VERSION_ROW_KEY, SearchConstants.INDEX_DEF_CF,
+                HFactory.createStringColumn(SearchConstants.INDEX_DEF_LAST_MODIFIED,
+                        String.valueOf(System.currentTimeMillis())));
+    }
+
+    /**
+     * @return index definitions of all streams having at least one index or fixed search property
+     */
+    public Map<String, IndexDefinition> getAllIndexDefinitions(Keyspace indexKeyspace)
+            throws CassandraSearchException {
+        return getSnapshot(indexKeyspace).allDefinitions;
+    }
+
+    /**
+     * @return index definition of the stream, or null if the stream has neither secondary nor custom indexes
+     */
+    public IndexDefinition getIndexDefinition(Keyspace indexKeyspace, String streamName)
+            throws CassandraSearchException {
+        Snapshot current = getSnapshot(indexKeyspace);
+        if (!current.allDefinitions.containsKey(streamName) && !current.unknownStreams.contains(streamName)) {
+            //stream may have been defined after the definitions were loaded
+            missCount.incrementAndGet();
+            current = load(indexKeyspace, current);
+            if (!current.allDefinitions.containsKey(streamName)) {
+                current.unknownStreams.add(streamName);
+            }
+        }
+        return current.searchableDefinitions.get(streamName);
+    }
+
+    /**
+     * @return properties of the stream having an n-gram index, empty if there are none
+     */
+    public Set<String> getNGramIndexedProperties(Keyspace indexKeyspace, String streamName)
+            throws CassandraSearchException {
+        Set<String> properties = getSnapshot(indexKeyspace).nGramIndexedProperties.get(streamName);
+        return properties != null ? properties : Collections.<String>emptySet();
+    }
+
+    /**
+     * @return properties of the stream whose n-gram index holds every event, so that contains
+     * filters on them can be answered from the index
+     */
+    public Set<String> getSearchableNGramIndexedProperties(Keyspace indexKeyspace, String streamName)
+            throws CassandraSearchException {
+        Snapshot current = getSnapshot(indexKeyspace);
+        Set<String> properties = current.nGramIndexedProperties.get(streamName);
+        if (properties == null) {
+            return Collections.emptySet();
+        }
+        NGramIndexState state = getNGramIndexState(current, streamName);
+        Set<String> searchable = new LinkedHashSet<String>();
+        for (String property : properties) {
+            if (state.isComplete(property)) {
+                searchable.add(property);
+            }
+        }
+        return searchable;
+    }
+
+    public NGramIndexState getNGramIndexState(Keyspace indexKeyspace, String streamName)
+            throws CassandraSearchException {
+        return getNGramIndexState(getSnapshot(indexKeyspace), streamName);
+    }
+
+    private static NGramIndexState getNGramIndexState(Snapshot snapshot, String streamName) {
+        NGramIndexState state = snapshot.nGramIndexStates.get(streamName);
+        return state != null ? state : NGramIndexState.EMPTY;
+    }
+
+    public void invalidate() {
+        snapshot = null;
+        invalidationCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Invalidated index definition cache " + name);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        Snapshot current = snapshot;
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName(name);
+        statistics.setHitCount(hitCount.get());
+        statistics.setMissCount(missCount.get());
+        statistics.setLoadCount(loadCount.get());
+        statistics.setInvalidationCount(invalidationCount.get());
+        statistics.setSize(current != null ? current.allDefinitions.size() : 0);
+        return statistics;
+    }
+
+    private Snapshot getSnapshot(Keyspace indexKeyspace) throws CassandraSearchException {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+
+        if (current != null && now - current.loadedTime < ttl) {
+            if (now - current.checkedTime < versionCheckInterval) {
+                hitCount.incrementAndGet();
+                return current;
+            }
+            return checkVersion(indexKeyspace, current);
+        }
+        missCount.incrementAndGet();
+        return load(indexKeyspace, current);
+    }
+
+    private synchronized Snapshot load(Keyspace indexKeyspace, Snapshot expected) throws CassandraSearchException {
+        if (snapshot != expected && snapshot != null) {
+            //loaded by another thread while waiting
+            return snapshot;
+        }
+        //the version is read first, so that a definition written during the load is seen by the next check
+        long version = readVersion(indexKeyspace);
+        snapshot = new Snapshot(readDefinitionRows(indexKeyspace), version);
+        loadCount.incrementAndGet();
+        return snapshot;
+    }
+
+    private synchronized Snapshot checkVersion(Keyspace indexKeyspace, Snapshot expected)
+            throws CassandraSearchException {
+        if (snapshot != expected && snapshot != null) {
+            hitCount.incrementAndGet();
+            return snapshot;
+        }
+        long now = System.currentTimeMillis();
+        if (now - expected.checkedTime < versionCheckInterval) {
+            hitCount.incrementAndGet();
+            return expected;
+        }
+
+        long version = readVersion(indexKeyspace);
+        if (version == expected.version) {
+            expected.checkedTime = now;
+            hitCount.incrementAndGet();
+            return expected;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Index definitions of " + name + " have been modified. Reloading the cache.");
+        }
+        invalidationCount.incrementAndGet();
+        missCount.incrementAndGet();
+        loadCount.incrementAndGet();
+        snapshot = new Snapshot(readDefinitionRows(indexKeyspace), version);
+        return snapshot;
+    }
+
+    private List<Row<String, String, String>> readDefinitionRows(Keyspace indexKeyspace)
+            throws CassandraSearchException {
+        RangeSlicesQuery<String, String, String> rangeSlicesQuery =
+                HFactory.createRangeSlicesQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
+                        STRING_SERIALIZER);
+        rangeSlicesQuery.setColumnFamily(SearchConstants.INDEX_DEF_CF);
+        rangeSlicesQuery.setKeys("", "");
+        //whole rows are read, the n-gram index state columns are named after the properties
+        rangeSlicesQuery.setRange("", "", false, Integer.MAX_VALUE);
+        rangeSlicesQuery.setRowCount(Integer.MAX_VALUE);
+
+        QueryResult<OrderedRows<String, String, String>> result;
+        try {
+            result = rangeSlicesQuery.execute();
+        } catch (HectorException exception) {
+            throw new CassandraSearchException(exception.getMessage(), exception);
+        }
+        return result.get().getList();
+    }
+
+    /**
+     * The write timestamp of the last modified column is used as the version of the definitions.
+     */
+    private static long readVersion(Keyspace indexKeyspace) throws CassandraSearchException {
+        ColumnQuery<String, String, String> columnQuery =
+                HFactory.createColumnQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER, STRING_SERIALIZER);
+        columnQuery.setColumnFamily(SearchConstants.INDEX_DEF_CF).setKey(SearchConstants.INDEX_DEF_VERSION_ROW_KEY)
+                .setName(SearchConstants.INDEX_DEF_LAST_MODIFIED);
+
+        HColumn<String, String> column;
+        try {
+            column = columnQuery.execute().get();
+        } catch (HectorException exception) {
+            throw new CassandraSearchException(exception.getMessage(), exception);
+        }
+        return column != null ? column.getClock() : Long.MIN_VALUE;
+    }
+
+    private static final class Snapshot {
+        private final Map<String, IndexDefinition> allDefinitions;
+        private final Map<String, IndexDefinition> searchableDefinitions;
+        private final Map<String, Set<String>> nGramIndexedProperties;
+        private final Map<String, NGramIndexState> nGramIndexStates;
+        private final Set<String> unknownStreams =
+                Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final long version;
+        private final long loadedTime;
+        private volatile long checkedTime;
+
+        private Snapshot(List<Row<String, String, String>> rows, long version) {
+            boolean incrementalIndex = false;
+            Map<String, IndexDefinition> definitions = new HashMap<String, IndexDefinition>();
+            Map<String, IndexDefinition> searchable = new HashMap<String, IndexDefinition>();
+            Map<String, Set<String>> nGramIndexed = new HashMap<String, Set<String>>();
+            Map<String, NGramIndexState> nGramStates = new HashMap<String, NGramIndexState>();
+
+            for (Row<String, String, String> cassandraRow : rows) {
+                StringBuilder indexSB = new StringBuilder();
+                String secIndex  = "";
+                String custIndex = "";
+                String fixedIndex= "";
+                String arbitraryIndex= "";
+                String nGramIndex= "";
+                String streamName = cassandraRow.getKey();
+                Map<String, Long> maintainedSince = new HashMap<String, Long>();
+                Map<String, Long> backfilledUntil = new HashMap<String, Long>();
+
+                for (HColumn<String, String> hColumn : cassandraRow.getColumnSlice().getColumns()) {
+                    String columnName = hColumn.getName();
+                    if(columnName.equals(SearchConstants.SECONDARY_INDEX_DEF)) {
+                        secIndex = hColumn.getValue();
+                    } else if(columnName.equals(SearchConstants.CUSTOM_INDEX_DEF)) {
+                        custIndex= hColumn.getValue();
+                    } else if(columnName.equals(SearchConstants.FIXED_SEARCH_DEF)) {
+                        fixedIndex= hColumn.getValue();
+                    } else if(columnName.equals(SearchConstants.ARBITRARY_INDEX_DEF)) {
+                        arbitraryIndex= hColumn.getValue();
+                    } else if(columnName.equals(SearchConstants.N_GRAM_INDEX_DEF)) {
+                        nGramIndex= hColumn.getValue();
+                    } else if(columnName.startsWith(SearchConstants.N_GRAM_INDEX_MAINTAINED_SINCE)) {
+                        putTime(maintainedSince, columnName.substring(
+                                SearchConstants.N_GRAM_INDEX_MAINTAINED_SINCE.length()), hColumn.getValue());
+                    } else if(columnName.startsWith(SearchConstants.N_GRAM_INDEX_BACKFILLED_UNTIL)) {
+                        putTime(backfilledUntil, columnName.substring(
+                                SearchConstants.N_GRAM_INDEX_BACKFILLED_UNTIL.length()), hColumn.getValue());
+                    }
+                }
+                if(!maintainedSince.isEmpty() || !backfilledUntil.isEmpty()) {
+                    nGramStates.put(streamName, new NGramIndexState(maintainedSince, backfilledUntil));
+                }
+                if(!nGramIndex.isEmpty()) {
+                    Set<String> properties = new LinkedHashSet<String>();
+                    for (String property : nGramIndex.split(",")) {
+                        if (!property.trim().isEmpty()) {
+                            properties.add(property.trim());
+                        }
+                    }
+                    nGramIndexed.put(streamName, Collections.unmodifiableSet(properties));
+                }
+                if(secIndex.isEmpty() && custIndex.isEmpty()
+                        && fixedIndex.isEmpty() && arbitraryIndex.isEmpty()) {
+                    continue;
+                }
+
+                IndexDefinition indexDefinition = new IndexDefinition();
+                indexDefinition.setIndexDataFromStore(indexSB.append(secIndex).append("|").
+                        append(custIndex).append("|").append(fixedIndex).append("|").
+                        append(incrementalIndex).append("|").append(arbitraryIndex).toString());
+                definitions.put(streamName, indexDefinition);
+
+                if (!(secIndex.isEmpty() && custIndex.isEmpty())) {
+                    searchable.put(streamName, indexDefinition);
+                }
+            }
+
+            this.allDefinitions = Collections.unmodifiableMap(definitions);
+            this.searchableDefinitions = Collections.unmodifiableMap(searchable);
+            this.nGramIndexedProperties = Collections.unmodifiableMap(nGramIndexed);
+            this.nGramIndexStates = Collections.unmodifiableMap(nGramStates);
+            this.version = version;
+            this.loadedTime = System.currentTimeMillis();
+            this.checkedTime = loadedTime;
+        }
+
+        private static void putTime(Map<String, Long> times, String property, String value) {
+            try {
+                times.put(property, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                //an unreadable time leaves the index unsearchable until it is written again
+                log.warn("Invalid n-gram index time " + value + " for property " + property);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import org.wso2.carbon.cassandra.search.data.CacheStatistics;
+import org.wso2.carbon.cassandra.search.data.json.Event;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of event search results, partitioned by tenant so that results are never shared between
+ * tenants and a single tenant can not take more than its share of the memory budget.
+ *
+ * Results of searches whose time window has closed do not change and are kept until evicted. Other
+ * results expire after the TTL, after which they can be topped up with the events which arrived
+ * since they were searched instead of being searched again.
+ */
+public class SearchResultCache {
+    private static final SearchResultCache INSTANCE = new SearchResultCache(
+            SearchConstants.SEARCH_RESULT_CACHE_MAX_BYTES, SearchConstants.SEARCH_RESULT_CACHE_MAX_TENANT_BYTES);
+
+    private final long maxBytes;
+    private final long maxTenantBytes;
+
+    //guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<String, Long> tenantBytes = new HashMap<String, Long>();
+    private long totalBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public SearchResultCache(long maxBytes, long maxTenantBytes) {
+        this.maxBytes = maxBytes;
+        this.maxTenantBytes = maxTenantBytes;
+    }
+
+    public static SearchResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the cached results, also if they have expired so that they can be topped up, or null
+     */
+    public synchronized Entry get(String tenant, String key) {
+        Entry entry = entries.get(tenant + '\n' + key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else if (entry.isExpired(System.currentTimeMillis())) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    public synchronized void put(String tenant, String key, Entry entry) {
+        loadCount.incrementAndGet();
+        if (entry.weight > maxTenantBytes) {
+            remove(tenant + '\n' + key);
+            return;
+        }
+
+        entry.tenant = tenant;
+        remove(tenant + '\n' + key);
+        entries.put(tenant + '\n' + key, entry);
+        addBytes(tenant, entry.weight);
+
+        //least recently used results of the tenant first, then of all tenants
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (getTenantBytes(tenant) > maxTenantBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (eldest.tenant.equals(tenant)) {
+                iterator.remove();
+                addBytes(tenant, -eldest.weight);
+            }
+        }
+        iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            addBytes(eldest.tenant, -eldest.weight);
+        }
+    }
+
+    public synchronized void remove(String tenant, String key) {
+        remove(tenant + '\n' + key);
+    }
+
+    public synchronized void invalidate() {
+        entries.clear();
+        tenantBytes.clear();
+        totalBytes = 0;
+        invalidationCount.incrementAndGet();
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName("search-results");
+        statistics.setHitCount(hitCount.get());
+        statistics.setMissCount(missCount.get());
+        statistics.setLoadCount(loadCount.get());
+        statistics.setInvalidationCount(invalidationCount.get());
+        statistics.setSize(entries.size());
+        return statistics;
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void remove(String entryKey) {
+        Entry removed = entries.remove(entryKey);
+        if (removed != null) {
+            addBytes(removed.tenant, -removed.weight);
+        }
+    }
+
+    private long getTenantBytes(String tenant) {
+        Long bytes = tenantBytes.get(tenant);
+        return bytes != null ? bytes : 0;
+    }
+
+    private void addBytes(String tenant, long bytes) {
+        long updated = getTenantBytes(tenant) + bytes;
+        if (updated == 0) {
+            tenantBytes.remove(tenant);
+        } else {
+            tenantBytes.put(tenant, updated);
+        }
+        totalBytes += bytes;
+    }
+
+    /**
+     * Results of a search, with the JSON returned for them
+     */
+    public static class Entry {
+        private final List<Event> results;
+        private final String json;
+        private final boolean complete;
+        private final boolean immutable;
+        private final long searchedTime;
+        private final long expiryTime;
+        private final long weight;
+        private String tenant;
+
+        /**
+         * @param complete  true if the results hold every matching event, i.e. they were not cut at the limit
+         * @param immutable true if the time window of the search has closed
+         */
+        public Entry(List<Event> results, String json, boolean complete, boolean immutable,
+                     long searchedTime, long ttl) {
+            this.results = results;
+            this.json = json;
+            this.complete = complete;
+            this.immutable = immutable;
+            this.searchedTime = searchedTime;
+            this.expiryTime = immutable ? Long.MAX_VALUE : searchedTime + ttl;
+            //the JSON and the events hold about the same characters, two bytes each
+            this.weight = 4L * json.length();
+        }
+
+        public List<Event> getResults() {
+            return results;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        public boolean isImmutable() {
+            return immutable;
+        }
+
+        public long getSearchedTime() {
+            return searchedTime;
+        }
+
+        public boolean isExpired(long time) {
+            return time >= expiryTime;
+        }
+
+        /**
+         * @return timestamp of the newest event of the results, or the searched time if there are none
+         */
+        public long getNewestTimestamp() {
+            long newest = Long.MIN_VALUE;
+            for (Event event : results) {
+                newest = Math.max(newest, event.getTimestampMillis());
+            }
+            return results.isEmpty() ? searchedTime : newest;
+        }
+    }
+}
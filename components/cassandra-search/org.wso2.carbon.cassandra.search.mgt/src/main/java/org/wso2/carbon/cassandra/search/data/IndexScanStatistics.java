@@ -0,0 +1,73 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.data;
+
+/**
+ * Bean class to store the index scan counters of the stream searches
+ */
+public class IndexScanStatistics {
+    private long queryCount;
+    private long sliceCount;
+    private long scannedColumnCount;
+    private long returnedRowCount;
+    private long maxScannedColumnCount;
+
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    public void setQueryCount(long queryCount) {
+        this.queryCount = queryCount;
+    }
+
+    public long getSliceCount() {
+        return sliceCount;
+    }
+
+    public void setSliceCount(long sliceCount) {
+        this.sliceCount = sliceCount;
+    }
+
+    public long getScannedColumnCount() {
+        return scannedColumnCount;
+    }
+
+    public void setScannedColumnCount(long scannedColumnCount) {
+        this.scannedColumnCount = scannedColumnCount;
+    }
+
+    public long getReturnedRowCount() {
+        return returnedRowCount;
+    }
+
+    public void setReturnedRowCount(long returnedRowCount) {
+        this.returnedRowCount = returnedRowCount;
+    }
+
+    /**
+     * @return largest number of index columns scanned by a single query
+     */
+    public long getMaxScannedColumnCount() {
+        return maxScannedColumnCount;
+    }
+
+    public void setMaxScannedColumnCount(long maxScannedColumnCount) {
+        this.maxScannedColumnCount = maxScannedColumnCount;
+    }
+}
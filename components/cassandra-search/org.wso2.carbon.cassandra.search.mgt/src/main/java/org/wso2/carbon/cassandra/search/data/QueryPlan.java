@@ -0,0 +1,112 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.data;
+
+/**
+ * Bean class to store the plan of the search of a stream, as returned by explainQuery
+ */
+public class QueryPlan {
+    private String streamName = "";
+    private boolean valid;
+    private String[] filters = new String[0];
+    private QueryPlanStep[] steps = new QueryPlanStep[0];
+    private long estimatedCost;
+    private boolean estimateLimited;
+    private long costLimit;
+    private boolean rejected;
+
+    public String getStreamName() {
+        return streamName;
+    }
+
+    public void setStreamName(String streamName) {
+        this.streamName = streamName;
+    }
+
+    /**
+     * @return false if the stream can not be searched with the query, in which case there are no steps
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public String[] getFilters() {
+        return filters;
+    }
+
+    public void setFilters(String[] filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * @return index lookups of the search in the order they are joined
+     */
+    public QueryPlanStep[] getSteps() {
+        return steps;
+    }
+
+    public void setSteps(QueryPlanStep[] steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * @return estimated number of index columns the search scans
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public void setEstimatedCost(long estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+
+    /**
+     * @return true if counting stopped at the sample limit for a step, so the actual cost is higher
+     */
+    public boolean isEstimateLimited() {
+        return estimateLimited;
+    }
+
+    public void setEstimateLimited(boolean estimateLimited) {
+        this.estimateLimited = estimateLimited;
+    }
+
+    /**
+     * @return largest cost a search may have, 0 if searches are not limited
+     */
+    public long getCostLimit() {
+        return costLimit;
+    }
+
+    public void setCostLimit(long costLimit) {
+        this.costLimit = costLimit;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    public void setRejected(boolean rejected) {
+        this.rejected = rejected;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.data;
+
+/**
+ * Bean class to store an index lookup of a query plan
+ */
+public class QueryPlanStep {
+    private String property = "";
+    private String filters = "";
+    private String indexColumnFamily = "";
+    private String joinOperation = "";
+    private long estimatedRowCount;
+    private boolean estimateLimited;
+
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(String property) {
+        this.property = property;
+    }
+
+    public String getFilters() {
+        return filters;
+    }
+
+    public void setFilters(String filters) {
+        this.filters = filters;
+    }
+
+    public String getIndexColumnFamily() {
+        return indexColumnFamily;
+    }
+
+    public void setIndexColumnFamily(String indexColumnFamily) {
+        this.indexColumnFamily = indexColumnFamily;
+    }
+
+    /**
+     * @return how the rows of the step are joined with the rows of the previous steps, empty for the first step
+     */
+    public String getJoinOperation() {
+        return joinOperation;
+    }
+
+    public void setJoinOperation(String joinOperation) {
+        this.joinOperation = joinOperation;
+    }
+
+    public long getEstimatedRowCount() {
+        return estimatedRowCount;
+    }
+
+    public void setEstimatedRowCount(long estimatedRowCount) {
+        this.estimatedRowCount = estimatedRowCount;
+    }
+
+    /**
+     * @return true if counting stopped at the sample limit, so the actual count is higher
+     */
+    public boolean isEstimateLimited() {
+        return estimateLimited;
+    }
+
+    public void setEstimateLimited(boolean estimateLimited) {
+        this.estimateLimited = estimateLimited;
+    }
+}
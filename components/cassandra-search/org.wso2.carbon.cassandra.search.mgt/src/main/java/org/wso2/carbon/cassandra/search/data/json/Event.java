@@ -30,6 +30,7 @@ public class Event {
     private String activityId;
     private String messageBodyType;
     private String messageBody;
+    private transient long timestampMillis;
 
     private List<ColumnValue> content;
 
@@ -50,10 +51,18 @@ public class Event {
         content = new ArrayList<ColumnValue>();
     }
 
+    public String getStream() {
+        return stream;
+    }
+
     public void setStream(String stream) {
         this.stream = stream;
     }
 
+    public String getRowId() {
+        return rowId;
+    }
+
     public void setRowId(String rowId) {
         this.rowId = rowId;
     }
@@ -66,6 +75,14 @@ public class Event {
         this.timestamp = timestamp;
     }
 
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
     public void setHost(String host) {
         this.host = host;
     }
@@ -0,0 +1,193 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.data.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a JSON search result incrementally, one result at a time, instead of serializing the
+ * whole result object at once.
+ *
+ * The writer stops accepting results once the byte limit is reached or {@link #terminate()} has
+ * been called, for example by the consumer of the output when it is no longer interested in the
+ * result. A result which crosses the byte limit is still written, and a "truncated" property is
+ * added to the result object when results have been left out.
+ */
+public class JsonResultWriter {
+    private static final Gson GSON = new Gson();
+
+    private final CountingWriter countingWriter;
+    private final JsonWriter jsonWriter;
+    private final long byteLimit;
+
+    private volatile boolean terminated;
+    private boolean truncated;
+    private int resultCount;
+
+    /**
+     * @param byteLimit maximum number of UTF-8 bytes to write before the results are truncated
+     */
+    public JsonResultWriter(Writer writer, long byteLimit) {
+        this.countingWriter = new CountingWriter(writer);
+        this.jsonWriter = new JsonWriter(countingWriter);
+        this.jsonWriter.setHtmlSafe(true);
+        this.byteLimit = byteLimit;
+    }
+
+    public void beginObject() throws IOException {
+        jsonWriter.beginObject();
+    }
+
+    public void endObject() throws IOException {
+        if (truncated) {
+            jsonWriter.name("truncated").value(true);
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    /**
+     * Writes a property of the result object. Null values are skipped.
+     */
+    public void writeProperty(String name, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        jsonWriter.name(name);
+        if (value instanceof String) {
+            jsonWriter.value((String) value);
+        } else {
+            GSON.toJson(value, value.getClass(), jsonWriter);
+        }
+    }
+
+    public void beginResults(String name) throws IOException {
+        jsonWriter.name(name);
+        jsonWriter.beginArray();
+    }
+
+    public void endResults() throws IOException {
+        jsonWriter.endArray();
+        jsonWriter.flush();
+    }
+
+    /**
+     * @return false if the result was not written, in which case the results are marked as truncated
+     */
+    public boolean writeResult(Object result) throws IOException {
+        if (!isAcceptingResults()) {
+            truncated = true;
+            return false;
+        }
+        GSON.toJson(result, result.getClass(), jsonWriter);
+        resultCount++;
+        if (countingWriter.getByteCount() >= byteLimit) {
+            terminated = true;
+        }
+        return true;
+    }
+
+    /**
+     * Stops the writer from accepting further results. May be called from any thread.
+     */
+    public void terminate() {
+        terminated = true;
+    }
+
+    public boolean isAcceptingResults() {
+        return !terminated;
+    }
+
+    /**
+     * Marks the results as truncated, for producers which know there are results left when the
+     * writer stops accepting results.
+     */
+    public void markTruncated() {
+        truncated = true;
+    }
+
+    /**
+     * @return true if results have been left out after the writer stopped accepting results
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public long getByteCount() {
+        return countingWriter.getByteCount();
+    }
+
+    /**
+     * Counts the UTF-8 encoded length of the characters written
+     */
+    private static final class CountingWriter extends FilterWriter {
+        private long byteCount;
+
+        private CountingWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            byteCount += getByteCount((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.write(chars, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                byteCount += getByteCount(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            out.write(str, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                byteCount += getByteCount(str.charAt(i));
+            }
+        }
+
+        private static int getByteCount(char c) {
+            if (c < 0x80) {
+                return 1;
+            } else if (c < 0x800) {
+                return 2;
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                //a surrogate pair encodes to 4 bytes
+                return 2;
+            }
+            return 3;
+        }
+
+        private long getByteCount() {
+            return byteCount;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+/**
+ * Event count, time span and status of an activity
+ */
+public class ActivitySummary {
+    private final String activityID;
+    private final int eventCount;
+    private final long startTime;
+    private final long endTime;
+    private final boolean faulty;
+
+    public ActivitySummary(String activityID, int eventCount, long startTime, long endTime, boolean faulty) {
+        this.activityID = activityID;
+        this.eventCount = eventCount;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.faulty = faulty;
+    }
+
+    public String getActivityID() {
+        return activityID;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return true if an event of the activity has a status other than success
+     */
+    public boolean isFaulty() {
+        return faulty;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.ActivitySummaryIndex;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Summarizes activities from their activity index rows (timestamp:rowKey:columnFamily columns).
+ *
+ * The index rows of all activities are read with batched multiget slices, and the status column of
+ * all their events is read with one batched multiget per event column family, instead of a query
+ * per activity and per event. When a summary index is given, stored summaries which are still
+ * valid are used instead of reading the event statuses, and the computed summaries are stored.
+ */
+public class ActivitySummaryResolver {
+    private static final Log log = LogFactory.getLog(ActivitySummaryResolver.class);
+
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final ByteBuffer STATUS_COLUMN_NAME =
+            STRING_SERIALIZER.toByteBuffer(SearchConstants.MESSAGE_TYPE_STATUS);
+
+    private final Keyspace indexKeyspace;
+    private final RowBatchFetcher eventFetcher;
+    private final RowBatchFetcher indexFetcher;
+    private final ActivitySummaryIndex summaryIndex;
+
+    /**
+     * @param summaryIndex stored summaries to use and update, or null to summarize from the events only
+     */
+    public ActivitySummaryResolver(Keyspace eventKeyspace,
+                                   Keyspace indexKeyspace,
+                                   int batchSize,
+                                   ExecutorService executor,
+                                   ActivitySummaryIndex summaryIndex) {
+        this.indexKeyspace = indexKeyspace;
+        this.eventFetcher = new RowBatchFetcher(eventKeyspace, batchSize, executor);
+        this.indexFetcher = new RowBatchFetcher(indexKeyspace, batchSize, executor);
+        this.summaryIndex = summaryIndex;
+    }
+
+    /**
+     * @return summaries of the activities in the given order. Activities without events are left out.
+     */
+    public Map<String, ActivitySummary> resolve(List<String> activityIDs) throws CassandraSearchException {
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> indexRows =
+                indexFetcher.fetchAllColumns(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF, activityIDs);
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> summaryRows = summaryIndex != null ?
+                indexFetcher.fetchAllColumns(summaryIndex.getColumnFamily(), activityIDs) : null;
+
+        Map<String, ActivitySummary> summaries = new LinkedHashMap<String, ActivitySummary>();
+        Map<String, List<String>> unresolvedActivities = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < activityIDs.size(); i++) {
+            String activityID = activityIDs.get(i);
+            List<String> events = getEvents(indexRows.get(i));
+            if (events.isEmpty()) {
+                continue;
+            }
+
+            ActivitySummary storedSummary = summaryRows != null ?
+                    ActivitySummaryIndex.decode(activityID, summaryRows.get(i)) : null;
+            if (storedSummary != null &&
+                    (storedSummary.isFaulty() || storedSummary.getEventCount() == events.size())) {
+                summaries.put(activityID, summarize(activityID, events, storedSummary.isFaulty()));
+            } else {
+                //keeps the position of the activity until its status is known
+                summaries.put(activityID, null);
+                unresolvedActivities.put(activityID, events);
+            }
+        }
+
+        if (!unresolvedActivities.isEmpty()) {
+            Set<String> faultyEvents = getFaultyEvents(unresolvedActivities.values());
+            Mutator<String> mutator = summaryIndex != null ?
+                    HFactory.createMutator(indexKeyspace, STRING_SERIALIZER) : null;
+
+            for (Map.Entry<String, List<String>> entry : unresolvedActivities.entrySet()) {
+                boolean faulty = false;
+                for (String event : entry.getValue()) {
+                    if (faultyEvents.contains(getEventKey(event))) {
+                        faulty = true;
+                        break;
+                    }
+                }
+                ActivitySummary summary = summarize(entry.getKey(), entry.getValue(), faulty);
+                summaries.put(entry.getKey(), summary);
+                if (mutator != null) {
+                    summaryIndex.addSummary(mutator, summary);
+                }
+            }
+
+            if (mutator != null) {
+                try {
+                    mutator.execute();
+                } catch (HectorException e) {
+                    //the summaries are computed again on the next lookup
+                    log.warn("Failed to store activity summaries: " + e.getMessage());
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * @return summaries holding only the event count and time span of the activities, which are
+     * read without looking up the status of the events. Activities without events are left out.
+     */
+    public Map<String, ActivitySummary> resolveTimeSpans(List<String> activityIDs)
+            throws CassandraSearchException {
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> indexRows =
+                indexFetcher.fetchAllColumns(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF, activityIDs);
+
+        Map<String, ActivitySummary> summaries = new LinkedHashMap<String, ActivitySummary>();
+        for (int i = 0; i < activityIDs.size(); i++) {
+            List<String> events = getEvents(indexRows.get(i));
+            if (!events.isEmpty()) {
+                summaries.put(activityIDs.get(i), summarize(activityIDs.get(i), events, false));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * @return keys (rowKey:columnFamily) of the events having a status other than success. Events
+     * without a status are considered successful.
+     */
+    private Set<String> getFaultyEvents(Iterable<List<String>> activityEvents) throws CassandraSearchException {
+        Map<String, Set<String>> cfRowKeysMap = new LinkedHashMap<String, Set<String>>();
+        for (List<String> events : activityEvents) {
+            for (String event : events) {
+                int firstColon = event.indexOf(':');
+                int lastColon  = event.lastIndexOf(':');
+                String columnFamily = event.substring(lastColon + 1);
+
+                Set<String> rowKeys = cfRowKeysMap.get(columnFamily);
+                if (rowKeys == null) {
+                    rowKeys = new LinkedHashSet<String>();
+                    cfRowKeysMap.put(columnFamily, rowKeys);
+                }
+                rowKeys.add(event.substring(firstColon + 1, lastColon));
+            }
+        }
+
+        Set<String> faultyEvents = new HashSet<String>();
+        for (Map.Entry<String, Set<String>> entry : cfRowKeysMap.entrySet()) {
+            String columnFamily = entry.getKey();
+            List<String> rowKeys = new ArrayList<String>(entry.getValue());
+            List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList =
+                    eventFetcher.fetchColumns(columnFamily, rowKeys, STATUS_COLUMN_NAME.duplicate());
+
+            for (int i = 0; i < rowKeys.size(); i++) {
+                for (HColumn<ByteBuffer, ByteBuffer> hColumn : rowColumnsList.get(i)) {
+                    String status = STRING_SERIALIZER.fromByteBuffer(hColumn.getValueBytes());
+                    if (!SearchConstants.STATUS_SUCCESS.equals(status)) {
+                        faultyEvents.add(rowKeys.get(i) + ":" + columnFamily);
+                    }
+                }
+            }
+        }
+        return faultyEvents;
+    }
+
+    private static List<String> getEvents(List<HColumn<ByteBuffer, ByteBuffer>> indexColumns) {
+        List<String> events = new ArrayList<String>(indexColumns.size());
+        for (HColumn<ByteBuffer, ByteBuffer> hColumn : indexColumns) {
+            events.add(STRING_SERIALIZER.fromByteBuffer(hColumn.getNameBytes()));
+        }
+        return events;
+    }
+
+    private static String getEventKey(String event) {
+        return event.substring(event.indexOf(':') + 1);
+    }
+
+    /**
+     * @param events index columns of the activity, in time order
+     */
+    private static ActivitySummary summarize(String activityID, List<String> events, boolean faulty) {
+        String startingColumn = events.get(0);
+        String endingColumn   = events.get(events.size() - 1);
+        long startTime = Long.parseLong(startingColumn.substring(0, startingColumn.indexOf(':')));
+        long endTime   = Long.parseLong(endingColumn.substring(0, endingColumn.indexOf(':')));
+        return new ActivitySummary(activityID, events.size(), startTime, endTime, faulty);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceQuery;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Walks the columns of an index row page by page instead of reading a whole range with a single
+ * slice, so that a broad filter neither pulls the entire index row into the heap nor times out
+ * the Thrift call.
+ *
+ * A scan stops as soon as the requested number of columns has been accepted by the handler. The
+ * size of the next page is derived from the selectivity observed so far: pages shrink to the
+ * number of columns still needed while every column is accepted, and grow while the handler
+ * rejects most of them, within the configured bounds.
+ *
+ * A scanner is used for the scans of a single query, whose counters it accumulates. It is not
+ * thread safe.
+ */
+public class AdaptiveIndexScanner {
+
+    /**
+     * Receives the columns of a scan in index order
+     */
+    public interface ColumnHandler {
+        /**
+         * @return true if the column is accepted and counts towards the limit of the scan
+         */
+        boolean handleColumn(HColumn<ByteBuffer, String> column) throws CassandraSearchException;
+    }
+
+    private static final StringSerializer STRING_SERIALIZER          = StringSerializer.get();
+    private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = ByteBufferSerializer.get();
+
+    private final Keyspace keyspace;
+    private final int minPageSize;
+    private final int maxPageSize;
+
+    private int sliceCount;
+    private long scannedColumnCount;
+    private long acceptedColumnCount;
+
+    /**
+     * @param minPageSize smallest page read once columns are being rejected
+     * @param maxPageSize largest number of columns read with a single slice
+     */
+    public AdaptiveIndexScanner(Keyspace keyspace, int minPageSize, int maxPageSize) {
+        if (minPageSize <= 0 || maxPageSize < minPageSize) {
+            throw new IllegalArgumentException("Invalid page size bounds: " + minPageSize + ", " + maxPageSize);
+        }
+        this.keyspace = keyspace;
+        this.minPageSize = minPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Scans the columns of the row between start and end, both inclusive.
+     *
+     * @param startAfterColumn column to continue after instead of starting at start, may be null
+     * @param limit            number of columns to accept before the scan stops
+     * @return number of accepted columns. Less than limit only if the range was exhausted.
+     */
+    public int scan(String columnFamily,
+                    String rowKey,
+                    ByteBuffer start,
+                    ByteBuffer end,
+                    ByteBuffer startAfterColumn,
+                    int limit,
+                    ColumnHandler handler) throws CassandraSearchException {
+        int accepted = 0;
+        long scanned = 0;
+        int pageSize = 0;
+        ByteBuffer lastColumn = startAfterColumn;
+
+        while (accepted < limit) {
+            pageSize = getPageSize(limit - accepted, scanned, accepted, pageSize);
+            //start column is inclusive, so one more column is read when continuing after a column
+            int count = lastColumn != null ? pageSize + 1 : pageSize;
+
+            SliceQuery<String, ByteBuffer, String> sliceQuery =
+                    HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER, STRING_SERIALIZER);
+            sliceQuery.setColumnFamily(columnFamily);
+            sliceQuery.setKey(rowKey);
+            sliceQuery.setRange(lastColumn != null ? lastColumn.duplicate() : start.duplicate(), end.duplicate(),
+                    false, count);
+
+            List<HColumn<ByteBuffer, String>> columns;
+            try {
+                columns = sliceQuery.execute().get().getColumns();
+            } catch (HectorException e) {
+                throw new CassandraSearchException(e.getMessage(), e);
+            }
+            sliceCount++;
+
+            for (HColumn<ByteBuffer, String> column : columns) {
+                if (lastColumn != null && lastColumn.equals(column.getName())) {
+                    continue;
+                }
+                scanned++;
+                scannedColumnCount++;
+                if (handler.handleColumn(column)) {
+                    acceptedColumnCount++;
+                    if (++accepted >= limit) {
+                        break;
+                    }
+                }
+            }
+
+            if (columns.size() < count) {
+                break;
+            }
+            lastColumn = columns.get(columns.size() - 1).getName();
+        }
+        return accepted;
+    }
+
+    /**
+     * @param remaining        columns still to be accepted
+     * @param scanned          columns scanned so far by the current scan
+     * @param accepted         columns accepted so far by the current scan
+     * @param previousPageSize size of the previous page of the current scan
+     */
+    private int getPageSize(int remaining, long scanned, long accepted, int previousPageSize) {
+        //the first page of a scan is sized by what the previous scans of the query observed
+        if (scanned == 0) {
+            scanned  = scannedColumnCount;
+            accepted = acceptedColumnCount;
+        }
+
+        long pageSize;
+        if (scanned == 0) {
+            pageSize = remaining;
+        } else if (accepted == 0) {
+            pageSize = Math.max((long) previousPageSize * 2, minPageSize);
+        } else {
+            pageSize = (long) Math.ceil((double) remaining * scanned / accepted);
+            if (pageSize > remaining) {
+                pageSize = Math.max(pageSize, minPageSize);
+            }
+        }
+        return (int) Math.max(1, Math.min(pageSize, maxPageSize));
+    }
+
+    /**
+     * @return number of slice queries issued by the scans of this scanner
+     */
+    public int getSliceCount() {
+        return sliceCount;
+    }
+
+    public long getScannedColumnCount() {
+        return scannedColumnCount;
+    }
+
+    public long getAcceptedColumnCount() {
+        return acceptedColumnCount;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import org.wso2.carbon.cassandra.search.utils.ComparisonOperator;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+
+/**
+ * A single <stream>.<property> <operator> <value> condition of a parsed search statement.
+ */
+public final class Condition {
+    private final String streamName;
+    private final String property;
+    private final ComparisonOperator operator;
+    private final String value;
+    private final OperationType joinOp;
+
+    /**
+     * @param joinOp operation joining the condition with the previous one, null for the first condition
+     */
+    public Condition(String streamName, String property, ComparisonOperator operator, String value,
+                     OperationType joinOp) {
+        this.streamName = streamName;
+        this.property = property;
+        this.operator = operator;
+        this.value = value;
+        this.joinOp = joinOp;
+    }
+
+    public String getStreamName() {
+        return streamName;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public ComparisonOperator getOperator() {
+        return operator;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public OperationType getJoinOp() {
+        return joinOp;
+    }
+
+    public Filter toFilter() {
+        return new Filter(property, operator.getSymbol(), value, joinOp);
+    }
+
+    @Override
+    public String toString() {
+        return (joinOp != null ? joinOp + " " : "") + streamName + "." + property + " " + operator.getSymbol()
+                + " " + value;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import org.wso2.carbon.cassandra.search.data.IndexScanStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index columns scanned against rows returned, summed over the stream searches, to spot queries
+ * whose filters are too broad for the indexes they are answered from.
+ */
+public class IndexScanMetrics {
+    private static final IndexScanMetrics INSTANCE = new IndexScanMetrics();
+
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicLong sliceCount = new AtomicLong();
+    private final AtomicLong scannedColumnCount = new AtomicLong();
+    private final AtomicLong returnedRowCount = new AtomicLong();
+    private final AtomicLong maxScannedColumnCount = new AtomicLong();
+
+    public static IndexScanMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the counters of the index scans of a query
+     *
+     * @param returnedRows number of rows the query returned after joins and contains filters
+     */
+    public void record(AdaptiveIndexScanner scanner, int returnedRows) {
+        long scannedColumns = scanner.getScannedColumnCount();
+        queryCount.incrementAndGet();
+        sliceCount.addAndGet(scanner.getSliceCount());
+        scannedColumnCount.addAndGet(scannedColumns);
+        returnedRowCount.addAndGet(returnedRows);
+
+        long max = maxScannedColumnCount.get();
+        while (scannedColumns > max && !maxScannedColumnCount.compareAndSet(max, scannedColumns)) {
+            max = maxScannedColumnCount.get();
+        }
+    }
+
+    public IndexScanStatistics getStatistics() {
+        IndexScanStatistics statistics = new IndexScanStatistics();
+        statistics.setQueryCount(queryCount.get());
+        statistics.setSliceCount(sliceCount.get());
+        statistics.setScannedColumnCount(scannedColumnCount.get());
+        statistics.setReturnedRowCount(returnedRowCount.get());
+        statistics.setMaxScannedColumnCount(maxScannedColumnCount.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the search of each stream of a query concurrently and merges the per stream results into
+ * a single list holding the first N results of all streams in the given order.
+ *
+ * Every stream is searched with the full limit, so that streams with few matches do not waste
+ * their share of the limit. The merged results are the first N of all streams only if each stream
+ * search returns the first N results of its stream in the given order; a stream search which finds
+ * its results in a different order, such as the order of an index on another property, has to
+ * reorder them before returning them. Streams which fail or do not complete within the timeout are
+ * left out of the merged results and reported in the returned {@link Result}.
+ */
+public class MultiStreamSearchExecutor<T> {
+    private static final Log log = LogFactory.getLog(MultiStreamSearchExecutor.class);
+
+    /**
+     * Search of a single stream
+     */
+    public interface StreamSearch<T> {
+        List<T> search(String streamName, List<Filter> filters, int limit) throws CassandraSearchException;
+    }
+
+    private final ExecutorService executor;
+    private final long streamTimeout;
+
+    /**
+     * @param executor      pool to run the stream searches on. Streams are searched sequentially on the
+     *                      calling thread if null, in which case a stream search already running is not
+     *                      interrupted, but the streams not yet searched when the timeout expires are
+     *                      reported as timed out.
+     * @param streamTimeout maximum time in milliseconds to wait for the results of the streams
+     */
+    public MultiStreamSearchExecutor(ExecutorService executor, long streamTimeout) {
+        this.executor = executor;
+        this.streamTimeout = streamTimeout;
+    }
+
+    public Result<T> execute(Map<String, List<Filter>> streamFiltersMap,
+                             final StreamSearch<T> streamSearch,
+                             Comparator<? super T> order,
+                             final int limit) throws CassandraSearchException {
+        Map<String, List<T>> streamResults = new LinkedHashMap<String, List<T>>();
+        Result<T> result = new Result<T>();
+        CassandraSearchException firstError = null;
+
+        if (executor == null) {
+            long deadline = System.currentTimeMillis() + streamTimeout;
+            for (Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+                String streamName = entry.getKey();
+                if (System.currentTimeMillis() >= deadline) {
+                    result.timedOutStreams.add(streamName);
+                    log.warn("Search on stream " + streamName + " was not started within " + streamTimeout + "ms");
+                    continue;
+                }
+                List<T> resultsForStream = streamSearch.search(streamName, entry.getValue(), limit);
+                if (resultsForStream != null) {
+                    streamResults.put(streamName, resultsForStream);
+                }
+            }
+        } else {
+            Map<String, Future<List<T>>> futures = new LinkedHashMap<String, Future<List<T>>>();
+            for (final Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+                futures.put(entry.getKey(), SearchTasks.submit(executor, new Callable<List<T>>() {
+                    public List<T> call() throws Exception {
+                        return streamSearch.search(entry.getKey(), entry.getValue(), limit);
+                    }
+                }));
+            }
+
+            long deadline = System.currentTimeMillis() + streamTimeout;
+            for (Map.Entry<String, Future<List<T>>> entry : futures.entrySet()) {
+                String streamName = entry.getKey();
+                Future<List<T>> future = entry.getValue();
+                try {
+                    long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                    List<T> resultsForStream = future.get(remaining, TimeUnit.MILLISECONDS);
+                    if (resultsForStream != null) {
+                        streamResults.put(streamName, resultsForStream);
+                    }
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    result.timedOutStreams.add(streamName);
+                    log.warn("Search on stream " + streamName + " did not complete within " + streamTimeout + "ms");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    result.failedStreams.add(streamName);
+                    log.warn("Search on stream " + streamName + " failed: " + cause.getMessage());
+                    if (log.isDebugEnabled()) {
+                        log.debug("Search on stream " + streamName + " failed", cause);
+                    }
+                    if (firstError == null) {
+                        firstError = cause instanceof CassandraSearchException ?
+                                (CassandraSearchException) cause :
+                                new CassandraSearchException(cause.getMessage(), cause);
+                    }
+                } catch (InterruptedException e) {
+                    for (Future<List<T>> pending : futures.values()) {
+                        pending.cancel(true);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new CassandraSearchException("Interrupted while searching streams", e);
+                }
+            }
+
+            //nothing to return but errors, keep the behaviour of a failing single stream search
+            if (firstError != null && streamResults.isEmpty() && result.timedOutStreams.isEmpty()) {
+                throw firstError;
+            }
+        }
+
+        result.streamResults = Collections.unmodifiableMap(streamResults);
+        result.results = merge(streamResults, order, limit);
+        return result;
+    }
+
+    /**
+     * k-way merge of the per stream results. Results of a stream are sorted first, since a stream
+     * returns them in index order. Ties are resolved by the order of the streams.
+     */
+    static <T> List<T> merge(Map<String, List<T>> streamResults, Comparator<? super T> order, int limit) {
+        List<T> mergedList = new ArrayList<T>(Math.max(0, Math.min(limit, 1024)));
+        PriorityQueue<Cursor<T>> queue = new PriorityQueue<Cursor<T>>(Math.max(1, streamResults.size()),
+                new CursorComparator<T>(order));
+
+        int streamIndex = 0;
+        for (List<T> resultsForStream : streamResults.values()) {
+            List<T> sortedResults = new ArrayList<T>(resultsForStream);
+            Collections.sort(sortedResults, order);
+            if (!sortedResults.isEmpty()) {
+                queue.add(new Cursor<T>(sortedResults, streamIndex));
+            }
+            streamIndex++;
+        }
+
+        while (mergedList.size() < limit && !queue.isEmpty()) {
+            Cursor<T> cursor = queue.poll();
+            mergedList.add(cursor.current());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return mergedList;
+    }
+
+    private static final class Cursor<T> {
+        private final List<T> results;
+        private final int streamIndex;
+        private int position;
+
+        private Cursor(List<T> results, int streamIndex) {
+            this.results = results;
+            this.streamIndex = streamIndex;
+        }
+
+        private T current() {
+            return results.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < results.size();
+        }
+    }
+
+    private static final class CursorComparator<T> implements Comparator<Cursor<T>> {
+        private final Comparator<? super T> order;
+
+        private CursorComparator(Comparator<? super T> order) {
+            this.order = order;
+        }
+
+        public int compare(Cursor<T> cursor1, Cursor<T> cursor2) {
+            int result = order.compare(cursor1.current(), cursor2.current());
+            return result != 0 ? result : cursor1.streamIndex - cursor2.streamIndex;
+        }
+    }
+
+    /**
+     * Merged results of a multi stream search together with the streams missing from the results
+     */
+    public static class Result<T> {
+        private List<T> results = new ArrayList<T>();
+        private Map<String, List<T>> streamResults = Collections.emptyMap();
+        private final List<String> timedOutStreams = new ArrayList<String>();
+        private final List<String> failedStreams = new ArrayList<String>();
+
+        public List<T> getResults() {
+            return results;
+        }
+
+        /**
+         * @return results of each stream which completed, in the order returned by the stream search
+         */
+        public Map<String, List<T>> getStreamResults() {
+            return streamResults;
+        }
+
+        public List<String> getTimedOutStreams() {
+            return timedOutStreams;
+        }
+
+        public List<String> getFailedStreams() {
+            return failedStreams;
+        }
+
+        public boolean isPartial() {
+            return !timedOutStreams.isEmpty() || !failedStreams.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.DoubleSerializer;
+import me.prettyprint.cassandra.serializers.DynamicCompositeSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.Serializer;
+import me.prettyprint.hector.api.beans.AbstractComposite;
+import me.prettyprint.hector.api.beans.DynamicComposite;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.CountQuery;
+import org.wso2.carbon.cassandra.search.data.QueryPlan;
+import org.wso2.carbon.cassandra.search.data.QueryPlanStep;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.NGramIndex;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.cassandra.search.utils.TimestampCodec;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.IndexDefinition;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Estimates the cost of the search of a stream by the number of index columns its filters match,
+ * and orders the joins of the filters by the estimates.
+ *
+ * Columns are counted by Cassandra up to a sample limit, so an estimate reads at most that many
+ * columns of an index row. The count of a filter covers the values of the fixed properties and,
+ * for a single equality filter, the value of the filter. Range filters are counted between their
+ * bounds. Other filters are counted over all their values, so their estimates are upper bounds.
+ */
+public class QueryCostEstimator {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = ByteBufferSerializer.get();
+    private static final DynamicCompositeSerializer DYNAMIC_COMPOSITE_SERIALIZER = new DynamicCompositeSerializer();
+    private static final ByteBuffer EMPTY_RANGE = ByteBuffer.allocate(0);
+
+    private final Keyspace indexKeyspace;
+    private final int sampleLimit;
+
+    /**
+     * @param sampleLimit number of index columns at which counting stops
+     */
+    public QueryCostEstimator(Keyspace indexKeyspace, int sampleLimit) {
+        this.indexKeyspace = indexKeyspace;
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * Plans the search of a stream. The index lookups are listed in the order they are joined.
+     *
+     * @param searchQuery query with organized filters
+     * @param limit       number of rows the search returns
+     * @param orderJoins  true to reorder the sub filters of the query, so that a join of filters which
+     *                    are all joined by AND starts with the filter matching the fewest rows
+     */
+    public QueryPlan plan(String streamName, SearchQuery searchQuery, IndexDefinition indexDef,
+                          int limit, boolean orderJoins) throws CassandraSearchException {
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        List<QueryPlanStep> steps = new ArrayList<QueryPlanStep>();
+        long cost = 0;
+
+        if (!searchQuery.isNGramOnlyQuery()) {
+            List<String> fixedProperties = searchQuery.getMandatoryProperties();
+            int fixedPropertyCount = fixedProperties != null ? fixedProperties.size() : 0;
+            //the property searched by its own index is not part of the range of the fixed properties
+            int prefixLength = searchQuery.isHasNonFixProps() ? fixedPropertyCount : fixedPropertyCount - 1;
+
+            if (!searchQuery.isMultiQuery()) {
+                String property = searchQuery.isHasNonFixProps() ? searchQuery.getSearchProperties().get(0) :
+                        fixedProperties.get(fixedPropertyCount - 1);
+                QueryPlanStep step = estimateStep(primaryCFName, searchQuery.getAllFiltersMap().get(property),
+                        searchQuery, indexDef, prefixLength);
+                steps.add(step);
+                //the scan stops at the limit unless contains filters drop some of the rows
+                cost += searchQuery.isContainsSearchExists() ? step.getEstimatedRowCount() :
+                        Math.min(step.getEstimatedRowCount(), limit);
+            } else {
+                List<List<Filter>> subFilters = searchQuery.getSubFilters();
+                List<QueryPlanStep> joinSteps = new ArrayList<QueryPlanStep>(subFilters.size());
+                for (List<Filter> subFilter : subFilters) {
+                    QueryPlanStep step = estimateStep(primaryCFName, subFilter, searchQuery, indexDef, prefixLength);
+                    joinSteps.add(step);
+                    cost += step.getEstimatedRowCount();
+                }
+                if (orderJoins && searchQuery.isConjunctive()) {
+                    orderByEstimate(subFilters, joinSteps);
+                }
+                for (int i = 1; i < subFilters.size(); i++) {
+                    joinSteps.get(i).setJoinOperation(
+                            subFilters.get(i).get(0).getJoinOp() == OperationType.OR ? "OR" : "AND");
+                }
+                steps.addAll(joinSteps);
+            }
+        }
+
+        for (Filter filter : searchQuery.getNGramFilters()) {
+            QueryPlanStep step = estimateNGramStep(primaryCFName, filter);
+            if (!steps.isEmpty()) {
+                step.setJoinOperation(OperationType.AND.name());
+            }
+            steps.add(step);
+            cost += step.getEstimatedRowCount();
+        }
+
+        QueryPlan plan = new QueryPlan();
+        plan.setStreamName(streamName);
+        plan.setValid(true);
+        plan.setSteps(steps.toArray(new QueryPlanStep[steps.size()]));
+        plan.setEstimatedCost(cost);
+        for (QueryPlanStep step : steps) {
+            if (step.isEstimateLimited()) {
+                plan.setEstimateLimited(true);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * A search of a single filter without contains filters stops scanning at the limit, so its cost
+     * never exceeds the limit and does not need to be estimated.
+     */
+    public static boolean isCostBoundedByLimit(SearchQuery searchQuery) {
+        return !searchQuery.isNGramOnlyQuery() && !searchQuery.isMultiQuery() && !searchQuery.isContainsSearchExists();
+    }
+
+    /**
+     * @return the filters as they are written in a query
+     */
+    public static String describe(List<Filter> filters) {
+        StringBuilder description = new StringBuilder();
+        for (Filter filter : filters) {
+            if (description.length() > 0) {
+                description.append(' ').append(filter.getJoinOp() != null ? filter.getJoinOp() : OperationType.AND)
+                        .append(' ');
+            }
+            description.append(filter.getProperty()).append(' ').append(filter.getOperator()).append(' ')
+                    .append(filter.getValue());
+        }
+        return description.toString();
+    }
+
+    private QueryPlanStep estimateStep(String primaryCFName, List<Filter> filters, SearchQuery searchQuery,
+                                       IndexDefinition indexDef, int prefixLength) throws CassandraSearchException {
+        String property = filters.get(0).getProperty();
+        List<Object> values = new ArrayList<Object>();
+        List<AttributeType> types = new ArrayList<AttributeType>();
+
+        for (int i = 0; i < prefixLength; i++) {
+            String fixedProperty = searchQuery.getMandatoryProperties().get(i);
+            AttributeType attributeType = indexDef.getAttributeTypeforFixedProperty(fixedProperty);
+            if (attributeType == null) {
+                throw new CassandraSearchException(SearchConstants.ERR_INVALID_SEARCH_QUERY);
+            }
+            values.add(CassandraUtils.getValue(searchQuery.getAllFiltersMap().get(fixedProperty).get(0).getValue(),
+                    attributeType));
+            types.add(attributeType);
+        }
+
+        AttributeType attributeType = indexDef.getAttributeTypeforProperty(property);
+        List<Object> startValues = new ArrayList<Object>(values);
+        List<AttributeType> startTypes = new ArrayList<AttributeType>(types);
+        AbstractComposite.ComponentEquality startEquality = AbstractComposite.ComponentEquality.EQUAL;
+        //the end of the range takes all the columns having the values as prefix
+        AbstractComposite.ComponentEquality endEquality = AbstractComposite.ComponentEquality.GREATER_THAN_EQUAL;
+
+        if (attributeType != null && filters.size() == 1 && !property.equals(SearchConstants.TIMESTAMP_PROPERTY)
+                && filters.get(0).getOperator().equals(SearchConstants.EQ)) {
+            values.add(CassandraUtils.getValue(filters.get(0).getValue(), attributeType));
+            types.add(attributeType);
+            startValues = values;
+            startTypes = types;
+        } else if (attributeType != null && isRange(filters)) {
+            //the values of the timestamp index are stored as longs
+            AttributeType valueType = property.equals(SearchConstants.TIMESTAMP_PROPERTY) ?
+                    AttributeType.LONG : attributeType;
+            for (Filter filter : filters) {
+                String operator = filter.getOperator();
+                Object value = getRangeValue(filter, property, valueType);
+                if (operator.equals(SearchConstants.GT) || operator.equals(SearchConstants.GE)) {
+                    startValues = new ArrayList<Object>(values);
+                    startTypes = new ArrayList<AttributeType>(types);
+                    startValues.add(value);
+                    startTypes.add(valueType);
+                    startEquality = operator.equals(SearchConstants.GT) ?
+                            AbstractComposite.ComponentEquality.GREATER_THAN_EQUAL :
+                            AbstractComposite.ComponentEquality.EQUAL;
+                }
+            }
+            for (Filter filter : filters) {
+                String operator = filter.getOperator();
+                if (operator.equals(SearchConstants.LT) || operator.equals(SearchConstants.LE)) {
+                    values.add(getRangeValue(filter, property, valueType));
+                    types.add(valueType);
+                    endEquality = operator.equals(SearchConstants.LT) ?
+                            AbstractComposite.ComponentEquality.LESS_THAN_EQUAL :
+                            AbstractComposite.ComponentEquality.GREATER_THAN_EQUAL;
+                    break;
+                }
+            }
+        }
+
+        String indexCFName = CassandraUtils.getCustomIndexCFName(primaryCFName, property);
+        int count = countColumns(indexCFName, SearchConstants.CUSTOM_INDEX_ROWS_KEY,
+                toRangeBound(startValues, startTypes, startEquality), toRangeBound(values, types, endEquality));
+        return createStep(property, describe(filters), indexCFName, count);
+    }
+
+    /**
+     * @return true if the filters only bound the values of their property from below or above
+     */
+    private static boolean isRange(List<Filter> filters) {
+        for (int i = 0; i < filters.size(); i++) {
+            Filter filter = filters.get(i);
+            String operator = filter.getOperator();
+            if (!(operator.equals(SearchConstants.GT) || operator.equals(SearchConstants.GE) ||
+                    operator.equals(SearchConstants.LT) || operator.equals(SearchConstants.LE))) {
+                return false;
+            }
+            //the join operation of the first filter joins the sub filter to the previous one
+            if (i > 0 && filter.getJoinOp() == OperationType.OR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object getRangeValue(Filter filter, String property, AttributeType valueType)
+            throws CassandraSearchException {
+        return property.equals(SearchConstants.TIMESTAMP_PROPERTY) ? TimestampCodec.parse(filter.getValue()) :
+                CassandraUtils.getValue(filter.getValue(), valueType);
+    }
+
+    /**
+     * @param lastEquality equality of the last value, the others have to be equal
+     * @return the composite of the values, or an empty bound if there are none
+     */
+    private static ByteBuffer toRangeBound(List<Object> values, List<AttributeType> types,
+                                           AbstractComposite.ComponentEquality lastEquality) {
+        if (values.isEmpty()) {
+            return EMPTY_RANGE;
+        }
+        DynamicComposite bound = new DynamicComposite();
+        for (int i = 0; i < values.size(); i++) {
+            addComponent(bound, values.get(i), types.get(i), i == values.size() - 1 ? lastEquality :
+                    AbstractComposite.ComponentEquality.EQUAL);
+        }
+        return DYNAMIC_COMPOSITE_SERIALIZER.toByteBuffer(bound);
+    }
+
+    /**
+     * The rows of a contains filter are the intersection of the rows of its n-grams, so there are
+     * at most as many as the rows of the least frequent n-gram.
+     */
+    private QueryPlanStep estimateNGramStep(String primaryCFName, Filter filter) throws CassandraSearchException {
+        NGramIndex nGramIndex = new NGramIndex(indexKeyspace, primaryCFName, filter.getProperty());
+        int count = Integer.MAX_VALUE;
+        for (String nGram : NGramIndex.getNGrams(filter.getValue())) {
+            count = Math.min(count, countColumns(nGramIndex.getColumnFamily(), nGram, EMPTY_RANGE, EMPTY_RANGE));
+            if (count == 0) {
+                break;
+            }
+        }
+        return createStep(filter.getProperty(), describe(Collections.singletonList(filter)),
+                nGramIndex.getColumnFamily(), count);
+    }
+
+    private QueryPlanStep createStep(String property, String filters, String indexCFName, int count) {
+        QueryPlanStep step = new QueryPlanStep();
+        step.setProperty(property);
+        step.setFilters(filters);
+        step.setIndexColumnFamily(indexCFName);
+        step.setEstimatedRowCount(count);
+        step.setEstimateLimited(count >= sampleLimit);
+        return step;
+    }
+
+    private int countColumns(String columnFamily, String rowKey, ByteBuffer start, ByteBuffer end)
+            throws CassandraSearchException {
+        try {
+            CountQuery<String, ByteBuffer> countQuery = HFactory.createCountQuery(indexKeyspace,
+                    STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER);
+            countQuery.setColumnFamily(columnFamily).setKey(rowKey).setRange(start, end, sampleLimit);
+            Integer count = countQuery.execute().get();
+            return count != null ? count : 0;
+        } catch (HectorException e) {
+            throw new CassandraSearchException(e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addComponent(DynamicComposite composite, Object value, AttributeType attributeType,
+                                     AbstractComposite.ComponentEquality equality) {
+        String comparator = CassandraUtils.getComparator(attributeType);
+        Serializer serializer = CassandraUtils.getSerializer(comparator);
+        if (!(serializer instanceof DoubleSerializer)) {
+            composite.addComponent(composite.size(), value, serializer, comparator, equality);
+        } else {
+            composite.addComponent(composite.size(), DoubleSerializer.get().toByteBuffer((Double) value),
+                    CassandraUtils.getSerializer(CassandraUtils.BYTESTYPE), CassandraUtils.BYTESTYPE, equality);
+        }
+    }
+
+    /**
+     * Sorts the sub filters and their steps by the estimated rows, keeping the order of equal estimates
+     */
+    private static void orderByEstimate(List<List<Filter>> subFilters, final List<QueryPlanStep> steps) {
+        List<Integer> order = new ArrayList<Integer>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer index1, Integer index2) {
+                long count1 = steps.get(index1).getEstimatedRowCount();
+                long count2 = steps.get(index2).getEstimatedRowCount();
+                return count1 < count2 ? -1 : (count1 == count2 ? 0 : 1);
+            }
+        });
+
+        List<List<Filter>> orderedSubFilters = new ArrayList<List<Filter>>(subFilters.size());
+        List<QueryPlanStep> orderedSteps = new ArrayList<QueryPlanStep>(steps.size());
+        for (Integer index : order) {
+            orderedSubFilters.add(subFilters.get(index));
+            orderedSteps.add(steps.get(index));
+        }
+        subFilters.clear();
+        subFilters.addAll(orderedSubFilters);
+        steps.clear();
+        steps.addAll(orderedSteps);
+    }
+}
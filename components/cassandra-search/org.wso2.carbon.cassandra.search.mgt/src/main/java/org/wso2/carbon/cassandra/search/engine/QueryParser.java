@@ -0,0 +1,286 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.ComparisonOperator;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of search statements.
+ *
+ * <pre>
+ * statement := condition ( joinOp condition )*
+ * condition := reference operator value
+ * reference := name ( '.' name )+          the last name is the property, the others form the stream name
+ * name      := quoted | [^\s.'=&lt;&gt;%!]+
+ * operator  := '&gt;=' | '&lt;=' | '=' | '&lt;' | '&gt;' | '%' | '!'
+ * value     := quoted | any text up to the next joinOp
+ * joinOp    := 'AND' | 'and' | 'OR' | 'or'   surrounded by whitespace
+ * quoted    := '\'' ( [^'] | '\'\'' )* '\''
+ * </pre>
+ *
+ * Values are taken as they are, so operator characters within a value are not mistaken for the
+ * operator of the condition. A value containing a join keyword has to be quoted.
+ */
+public class QueryParser {
+    private static final String OPERATOR_CHARS = "=<>%!";
+    private static final char QUOTE = '\'';
+
+    private final String statement;
+    private int position;
+
+    private QueryParser(String statement) {
+        this.statement = statement;
+    }
+
+    public static SearchStatement parse(String statement) throws CassandraSearchException {
+        if (statement == null || statement.trim().isEmpty()) {
+            throw new CassandraSearchException("Null or Empty search query..");
+        }
+        return new QueryParser(statement).parseStatement();
+    }
+
+    /**
+     * Trims the statement, collapses whitespace between the tokens and surrounds the operators with a
+     * single space, so that statements differing only in formatting have the same normalized form. Quoted names and values and the text of
+     * unquoted values are kept as they are, as whitespace within them is part of the value.
+     */
+    public static String normalize(String statement) {
+        String trimmed = statement.trim();
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        boolean quoted = false;
+        boolean whitespace = false;
+        boolean valueExpected = false;
+        int i = 0;
+
+        while (i < trimmed.length()) {
+            char c = trimmed.charAt(i);
+            if (!quoted && Character.isWhitespace(c)) {
+                whitespace = true;
+                i++;
+                continue;
+            }
+            boolean operator = !quoted && !valueExpected && OPERATOR_CHARS.indexOf(c) >= 0;
+            if ((whitespace || operator) && normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            whitespace = false;
+            if (quoted || c == QUOTE) {
+                if (c == QUOTE) {
+                    quoted = !quoted;
+                }
+                valueExpected = false;
+                normalized.append(c);
+                i++;
+            } else if (valueExpected) {
+                //an unquoted value runs up to the next join operator, as in parseValue
+                int start = i;
+                while (i < trimmed.length() && !(Character.isWhitespace(trimmed.charAt(i)) &&
+                        getJoinOperatorEnd(trimmed, i) >= 0)) {
+                    i++;
+                }
+                normalized.append(trimmed, start, i);
+                valueExpected = false;
+            } else if (operator) {
+                String symbol = String.valueOf(c);
+                for (ComparisonOperator comparisonOperator : ComparisonOperator.values()) {
+                    if (trimmed.startsWith(comparisonOperator.getSymbol(), i)) {
+                        symbol = comparisonOperator.getSymbol();
+                        break;
+                    }
+                }
+                normalized.append(symbol);
+                i += symbol.length();
+                //operators are always surrounded by a single space
+                whitespace = true;
+                valueExpected = true;
+            } else {
+                normalized.append(c);
+                i++;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private SearchStatement parseStatement() throws CassandraSearchException {
+        List<Condition> conditions = new ArrayList<Condition>();
+
+        conditions.add(parseCondition(null));
+        skipWhitespace();
+        while (!atEnd()) {
+            OperationType joinOp = parseJoinOperator();
+            conditions.add(parseCondition(joinOp));
+            skipWhitespace();
+        }
+        return new SearchStatement(conditions);
+    }
+
+    private Condition parseCondition(OperationType joinOp) throws CassandraSearchException {
+        skipWhitespace();
+        List<String> names = parseReference();
+        skipWhitespace();
+        ComparisonOperator operator = parseOperator();
+        skipWhitespace();
+        String value = parseValue();
+
+        StringBuilder streamName = new StringBuilder(names.get(0));
+        for (int i = 1; i < names.size() - 1; i++) {
+            streamName.append('.').append(names.get(i));
+        }
+        return new Condition(streamName.toString(), names.get(names.size() - 1), operator, value, joinOp);
+    }
+
+    private List<String> parseReference() throws CassandraSearchException {
+        List<String> names = new ArrayList<String>();
+        names.add(parseName());
+
+        skipWhitespace();
+        while (!atEnd() && statement.charAt(position) == '.') {
+            position++;
+            skipWhitespace();
+            names.add(parseName());
+            skipWhitespace();
+        }
+
+        if (names.size() < 2) {
+            throw error("Expected <stream>.<property>");
+        }
+        return names;
+    }
+
+    private String parseName() throws CassandraSearchException {
+        if (!atEnd() && statement.charAt(position) == QUOTE) {
+            return parseQuoted();
+        }
+
+        int start = position;
+        while (!atEnd() && isNameChar(statement.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected a stream or property name");
+        }
+        return statement.substring(start, position);
+    }
+
+    private ComparisonOperator parseOperator() throws CassandraSearchException {
+        for (ComparisonOperator operator : ComparisonOperator.values()) {
+            if (statement.startsWith(operator.getSymbol(), position)) {
+                position += operator.getSymbol().length();
+                return operator;
+            }
+        }
+        throw error("Expected an operator");
+    }
+
+    private String parseValue() throws CassandraSearchException {
+        if (!atEnd() && statement.charAt(position) == QUOTE) {
+            return parseQuoted();
+        }
+
+        int start = position;
+        while (!atEnd()) {
+            if (Character.isWhitespace(statement.charAt(position)) && getJoinOperatorEnd(position) >= 0) {
+                break;
+            }
+            position++;
+        }
+
+        String value = statement.substring(start, position).trim();
+        if (value.isEmpty()) {
+            throw error("Expected a value");
+        }
+        return value;
+    }
+
+    private OperationType parseJoinOperator() throws CassandraSearchException {
+        int start = position;
+        int end = getJoinOperatorEnd(position);
+        if (end < 0) {
+            throw error("Expected AND or OR");
+        }
+        position = end;
+        return OperationType.valueOf(statement.substring(start, end).toUpperCase());
+    }
+
+    /**
+     * @param from position of the join keyword or of the whitespace preceding it
+     * @return end position of the join keyword, or -1 if there is none at the given position
+     */
+    private int getJoinOperatorEnd(int from) {
+        return getJoinOperatorEnd(statement, from);
+    }
+
+    private static int getJoinOperatorEnd(String statement, int from) {
+        int start = from;
+        while (start < statement.length() && Character.isWhitespace(statement.charAt(start))) {
+            start++;
+        }
+        for (String keyword : new String[]{"AND", "and", "OR", "or"}) {
+            int end = start + keyword.length();
+            if (statement.startsWith(keyword, start) &&
+                    (end == statement.length() || Character.isWhitespace(statement.charAt(end)))) {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    private String parseQuoted() throws CassandraSearchException {
+        StringBuilder quoted = new StringBuilder();
+        position++;
+        while (true) {
+            if (atEnd()) {
+                throw error("Unterminated quote");
+            }
+            char c = statement.charAt(position++);
+            if (c != QUOTE) {
+                quoted.append(c);
+            } else if (!atEnd() && statement.charAt(position) == QUOTE) {
+                quoted.append(QUOTE);
+                position++;
+            } else {
+                return quoted.toString();
+            }
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return !Character.isWhitespace(c) && c != '.' && c != QUOTE && OPERATOR_CHARS.indexOf(c) < 0;
+    }
+
+    private void skipWhitespace() {
+        while (!atEnd() && Character.isWhitespace(statement.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean atEnd() {
+        return position >= statement.length();
+    }
+
+    private CassandraSearchException error(String message) {
+        return new CassandraSearchException("Unable to extract Filters from the search query: " + message +
+                " at position " + position + " of '" + statement + "'");
+    }
+}
@@ -0,0 +1,300 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.beans.Rows;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.MultigetSliceQuery;
+import me.prettyprint.hector.api.query.QueryResult;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Fetches the columns of a list of rows using MultigetSliceQuery batches instead of one
+ * SliceQuery per row key. Batches are dispatched on the given executor when one is available,
+ * and the returned column lists are always aligned with the order of the requested row keys.
+ */
+public class RowBatchFetcher {
+
+    /**
+     * Receives the fetched batches of a streaming fetch, in the order of the requested rows
+     */
+    public interface BatchHandler {
+        /**
+         * @param offset  position of the first row of the batch in the requested rows
+         * @param columns column lists of the rows of the batch. Missing rows map to an empty list.
+         * @return false to stop fetching the remaining batches
+         */
+        boolean handleBatch(int offset, List<List<HColumn<ByteBuffer, ByteBuffer>>> columns)
+                throws CassandraSearchException;
+    }
+
+    private static final StringSerializer STRING_SERIALIZER          = StringSerializer.get();
+    private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = ByteBufferSerializer.get();
+    private static final ByteBuffer EMPTY_BYTE_BUFFER = ByteBuffer.wrap(new byte[0]);
+
+    private final Keyspace keyspace;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public RowBatchFetcher(Keyspace keyspace, int batchSize, ExecutorService executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be a positive value: " + batchSize);
+        }
+        this.keyspace  = keyspace;
+        this.batchSize = batchSize;
+        this.executor  = executor;
+    }
+
+    /**
+     * Fetches only the given columns of each row.
+     *
+     * @return column lists in the same order as rowKeys. Missing rows map to an empty list.
+     */
+    public List<List<HColumn<ByteBuffer, ByteBuffer>>> fetchColumns(String columnFamily,
+                                                                    List<String> rowKeys,
+                                                                    ByteBuffer... columnNames)
+            throws CassandraSearchException {
+        return fetch(columnFamily, rowKeys, columnNames);
+    }
+
+    /**
+     * Fetches every column of each row.
+     *
+     * @return column lists in the same order as rowKeys. Missing rows map to an empty list.
+     */
+    public List<List<HColumn<ByteBuffer, ByteBuffer>>> fetchAllColumns(String columnFamily,
+                                                                       List<String> rowKeys)
+            throws CassandraSearchException {
+        return fetch(columnFamily, rowKeys, null);
+    }
+
+    /**
+     * Fetches every column of the given rows batch by batch and hands each batch to the handler as
+     * soon as it and the batches before it are available, so that only the batches which are being
+     * fetched or waiting to be handled are kept in memory.
+     *
+     * @param columnFamilies    column family of each row, aligned with rowKeys
+     * @param maxPendingBatches number of batches fetched ahead of the batch being handled
+     */
+    public void fetchAllColumns(final List<String> columnFamilies,
+                                final List<String> rowKeys,
+                                int maxPendingBatches,
+                                BatchHandler handler) throws CassandraSearchException {
+        if (executor == null) {
+            for (int offset = 0; offset < rowKeys.size(); offset += batchSize) {
+                int end = Math.min(offset + batchSize, rowKeys.size());
+                if (!handler.handleBatch(offset, fetchBatch(columnFamilies.subList(offset, end),
+                        rowKeys.subList(offset, end)))) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        LinkedList<Future<List<List<HColumn<ByteBuffer, ByteBuffer>>>>> pendingBatches =
+                new LinkedList<Future<List<List<HColumn<ByteBuffer, ByteBuffer>>>>>();
+        int nextOffset = 0;
+        int handledOffset = 0;
+        try {
+            while (handledOffset < rowKeys.size()) {
+                while (nextOffset < rowKeys.size() && pendingBatches.size() < Math.max(1, maxPendingBatches)) {
+                    final int start = nextOffset;
+                    final int end = Math.min(start + batchSize, rowKeys.size());
+                    pendingBatches.add(SearchTasks.submit(executor,
+                            new Callable<List<List<HColumn<ByteBuffer, ByteBuffer>>>>() {
+                                public List<List<HColumn<ByteBuffer, ByteBuffer>>> call() throws Exception {
+                                    return fetchBatch(columnFamilies.subList(start, end),
+                                            rowKeys.subList(start, end));
+                                }
+                            }));
+                    nextOffset = end;
+                }
+
+                List<List<HColumn<ByteBuffer, ByteBuffer>>> columns = pendingBatches.removeFirst().get();
+                if (!handler.handleBatch(handledOffset, columns)) {
+                    return;
+                }
+                handledOffset += columns.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraSearchException("Interrupted while fetching rows", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CassandraSearchException) {
+                throw (CassandraSearchException) cause;
+            }
+            throw new CassandraSearchException(cause.getMessage(), cause);
+        } finally {
+            cancelAll(pendingBatches);
+        }
+    }
+
+    /**
+     * Fetches every column of a batch of rows of one or more column families
+     */
+    private List<List<HColumn<ByteBuffer, ByteBuffer>>> fetchBatch(List<String> columnFamilies,
+                                                                   List<String> rowKeys)
+            throws CassandraSearchException {
+        Map<String, List<String>> cfRowKeys = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < rowKeys.size(); i++) {
+            List<String> keys = cfRowKeys.get(columnFamilies.get(i));
+            if (keys == null) {
+                keys = new ArrayList<String>();
+                cfRowKeys.put(columnFamilies.get(i), keys);
+            }
+            keys.add(rowKeys.get(i));
+        }
+
+        Map<String, Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>> cfRows =
+                new HashMap<String, Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>>();
+        for (Map.Entry<String, List<String>> entry : cfRowKeys.entrySet()) {
+            cfRows.put(entry.getKey(), executeBatch(entry.getKey(), entry.getValue(), null));
+        }
+
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> resultList =
+                new ArrayList<List<HColumn<ByteBuffer, ByteBuffer>>>(rowKeys.size());
+        for (int i = 0; i < rowKeys.size(); i++) {
+            List<HColumn<ByteBuffer, ByteBuffer>> columns = cfRows.get(columnFamilies.get(i)).get(rowKeys.get(i));
+            if (columns == null) {
+                columns = Collections.emptyList();
+            }
+            resultList.add(columns);
+        }
+        return resultList;
+    }
+
+    private List<List<HColumn<ByteBuffer, ByteBuffer>>> fetch(String columnFamily,
+                                                              List<String> rowKeys,
+                                                              ByteBuffer[] columnNames)
+            throws CassandraSearchException {
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> resultList =
+                new ArrayList<List<HColumn<ByteBuffer, ByteBuffer>>>(rowKeys.size());
+        if (rowKeys.isEmpty()) {
+            return resultList;
+        }
+
+        List<List<String>> batches = new ArrayList<List<String>>();
+        for (int i = 0; i < rowKeys.size(); i += batchSize) {
+            batches.add(rowKeys.subList(i, Math.min(i + batchSize, rowKeys.size())));
+        }
+
+        Map<String, List<HColumn<ByteBuffer, ByteBuffer>>> fetchedRows =
+                new HashMap<String, List<HColumn<ByteBuffer, ByteBuffer>>>(rowKeys.size() * 2);
+
+        if (executor == null || batches.size() == 1) {
+            for (List<String> batch : batches) {
+                fetchedRows.putAll(executeBatch(columnFamily, batch, columnNames));
+            }
+        } else {
+            List<Future<Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>>> futures =
+                    new ArrayList<Future<Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>>>(batches.size());
+            for (final List<String> batch : batches) {
+                final String cfName = columnFamily;
+                final ByteBuffer[] names = columnNames;
+                futures.add(SearchTasks.submit(executor,
+                        new Callable<Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>>() {
+                            public Map<String, List<HColumn<ByteBuffer, ByteBuffer>>> call() throws Exception {
+                                return executeBatch(cfName, batch, names);
+                            }
+                        }));
+            }
+            try {
+                for (Future<Map<String, List<HColumn<ByteBuffer, ByteBuffer>>>> future : futures) {
+                    fetchedRows.putAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                cancelAll(futures);
+                Thread.currentThread().interrupt();
+                throw new CassandraSearchException("Interrupted while fetching rows of " + columnFamily, e);
+            } catch (ExecutionException e) {
+                cancelAll(futures);
+                Throwable cause = e.getCause();
+                if (cause instanceof CassandraSearchException) {
+                    throw (CassandraSearchException) cause;
+                }
+                throw new CassandraSearchException(cause.getMessage(), cause);
+            }
+        }
+
+        for (String rowKey : rowKeys) {
+            List<HColumn<ByteBuffer, ByteBuffer>> columns = fetchedRows.get(rowKey);
+            if (columns == null) {
+                columns = Collections.emptyList();
+            }
+            resultList.add(columns);
+        }
+        return resultList;
+    }
+
+    private Map<String, List<HColumn<ByteBuffer, ByteBuffer>>> executeBatch(String columnFamily,
+                                                                          List<String> batch,
+                                                                          ByteBuffer[] columnNames)
+            throws CassandraSearchException {
+        MultigetSliceQuery<String, ByteBuffer, ByteBuffer> multigetSliceQuery =
+                HFactory.createMultigetSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
+                        BYTE_BUFFER_SERIALIZER);
+        multigetSliceQuery.setColumnFamily(columnFamily);
+        multigetSliceQuery.setKeys(batch.toArray(new String[batch.size()]));
+        if (columnNames != null) {
+            multigetSliceQuery.setColumnNames(columnNames);
+        } else {
+            multigetSliceQuery.setRange(EMPTY_BYTE_BUFFER, EMPTY_BYTE_BUFFER, false, Integer.MAX_VALUE);
+        }
+
+        QueryResult<Rows<String, ByteBuffer, ByteBuffer>> result;
+        try {
+            result = multigetSliceQuery.execute();
+        } catch (HectorException exception) {
+            throw new CassandraSearchException(exception.getMessage(), exception);
+        }
+
+        Map<String, List<HColumn<ByteBuffer, ByteBuffer>>> rowMap =
+                new HashMap<String, List<HColumn<ByteBuffer, ByteBuffer>>>(batch.size() * 2);
+        for (Row<String, ByteBuffer, ByteBuffer> row : result.get()) {
+            rowMap.put(row.getKey(), row.getColumnSlice().getColumns());
+        }
+        return rowMap;
+    }
+
+    private void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
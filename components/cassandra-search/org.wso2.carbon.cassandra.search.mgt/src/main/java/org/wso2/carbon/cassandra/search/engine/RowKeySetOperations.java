@@ -0,0 +1,84 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hash based set operations over the row key lists returned by index filters.
+ * All operations run in O(n + m) and keep the order of the input lists.
+ */
+public final class RowKeySetOperations {
+
+    private RowKeySetOperations() {
+    }
+
+    /**
+     * Row keys present in both lists. The keys are returned in the order of the smaller list.
+     */
+    public static List<String> intersection(List<String> list1, List<String> list2) {
+        List<String> smaller = list1.size() < list2.size() ? list1 : list2;
+        List<String> larger  = smaller == list1 ? list2 : list1;
+
+        List<String> list = new ArrayList<String>(smaller.size());
+        if (smaller.isEmpty()) {
+            return list;
+        }
+
+        Set<String> lookup = new HashSet<String>(larger);
+        for (String rowKey : smaller) {
+            if (lookup.contains(rowKey)) {
+                list.add(rowKey);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Distinct row keys of both lists, the keys of list1 first followed by the new keys of list2.
+     */
+    public static List<String> union(List<String> list1, List<String> list2) {
+        Set<String> set = new LinkedHashSet<String>(list1.size() + list2.size());
+        set.addAll(list1);
+        set.addAll(list2);
+        return new ArrayList<String>(set);
+    }
+
+    /**
+     * Row keys of list1 which are not in list2, in the order of list1.
+     */
+    public static List<String> difference(List<String> list1, List<String> list2) {
+        if (list2.isEmpty()) {
+            return new ArrayList<String>(list1);
+        }
+
+        Set<String> lookup = new HashSet<String>(list2);
+        List<String> list = new ArrayList<String>(list1.size());
+        for (String rowKey : list1) {
+            if (!lookup.contains(rowKey)) {
+                list.add(rowKey);
+            }
+        }
+        return list;
+    }
+}
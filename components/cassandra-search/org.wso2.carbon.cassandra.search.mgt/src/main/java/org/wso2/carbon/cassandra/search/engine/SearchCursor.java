@@ -0,0 +1,132 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import com.google.common.io.BaseEncoding;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque position of a paged search. A cursor holds the normalized statement it was created for
+ * and, for every stream which may still have results, the position to continue the index scan of
+ * that stream from. Streams missing from the cursor have no further results.
+ *
+ * The cursor is passed to the clients as an URL safe string created by {@link #encode()}.
+ */
+public class SearchCursor implements Serializable {
+    private static final long serialVersionUID = -3563915405785046573L;
+
+    private static final Gson GSON = new Gson();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private String query;
+    private LinkedHashMap<String, StreamPosition> streams = new LinkedHashMap<String, StreamPosition>();
+
+    public SearchCursor() {
+    }
+
+    public SearchCursor(String query) {
+        this.query = query;
+    }
+
+    public static SearchCursor decode(String cursor) throws CassandraSearchException {
+        try {
+            SearchCursor searchCursor = GSON.fromJson(new String(BaseEncoding.base64Url().decode(cursor), UTF8),
+                    SearchCursor.class);
+            if (searchCursor == null || searchCursor.query == null) {
+                throw new CassandraSearchException("Invalid search cursor.");
+            }
+            return searchCursor;
+        } catch (IllegalArgumentException e) {
+            throw new CassandraSearchException("Invalid search cursor.", e);
+        } catch (JsonParseException e) {
+            throw new CassandraSearchException("Invalid search cursor.", e);
+        }
+    }
+
+    public String encode() {
+        return BaseEncoding.base64Url().encode(GSON.toJson(this).getBytes(UTF8));
+    }
+
+    /**
+     * @return normalized statement of the search the cursor belongs to
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    public Map<String, StreamPosition> getStreams() {
+        return Collections.unmodifiableMap(streams);
+    }
+
+    public StreamPosition getStreamPosition(String streamName) {
+        return streams.get(streamName);
+    }
+
+    public void setStreamPosition(String streamName, StreamPosition position) {
+        streams.put(streamName, position);
+    }
+
+    /**
+     * Position of the index scan of a single stream
+     */
+    public static class StreamPosition implements Serializable {
+        private static final long serialVersionUID = 2730496915447853227L;
+
+        private int valueIndex;
+        private String lastColumn;
+
+        /**
+         * Position at the start of the index scan
+         */
+        public StreamPosition() {
+        }
+
+        /**
+         * Position of an index scan, after the given index column of the value at valueIndex of the
+         * property range.
+         */
+        public StreamPosition(int valueIndex, ByteBuffer lastColumn) {
+            this.valueIndex = valueIndex;
+            ByteBuffer column = lastColumn.duplicate();
+            byte[] bytes = new byte[column.remaining()];
+            column.get(bytes);
+            this.lastColumn = BaseEncoding.base64Url().encode(bytes);
+        }
+
+        public int getValueIndex() {
+            return valueIndex;
+        }
+
+        /**
+         * @return name of the last index column returned, or null if the scan starts at the value
+         */
+        public ByteBuffer getLastColumn() {
+            return lastColumn != null ? ByteBuffer.wrap(BaseEncoding.base64Url().decode(lastColumn)) : null;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.wso2.carbon.cassandra.search.engine;
 
 import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.NGramIndex;
 import org.wso2.carbon.cassandra.search.utils.OperationType;
 import org.wso2.carbon.cassandra.search.utils.SearchConstants;
 import org.wso2.carbon.databridge.commons.Attribute;
@@ -40,6 +41,8 @@ public final class SearchQuery {
     private boolean isContainsSearchExists = false;
     private Map<String, List<Filter>> containsFiltersMap = null;
     private List<Filter> containOpSubFilters = new ArrayList<Filter>();
+    private Set<String> nGramIndexedProperties = Collections.emptySet();
+    private List<Filter> nGramFilters = new ArrayList<Filter>();
 
     public SearchQuery() {
         allFiltersMap    = new LinkedHashMap<String, List<Filter>>();
@@ -166,6 +169,10 @@ public final class SearchQuery {
         try {
             boolean isTimeStampPropExists=allFiltersMap.containsKey(SearchConstants.TIMESTAMP_PROPERTY);
             boolean isTimeStampIndexed   =indexDefinition.getAttributeTypeforProperty(SearchConstants.TIMESTAMP_PROPERTY) != null;
+            if(mandatoryProperties == null && allFiltersMap.isEmpty() && !getNGramFilters(getContainsFilters()).isEmpty()) {
+                //contains filters only, answered by the n-gram indexes
+                return true;
+            }
             if(mandatoryProperties == null) {
                 if(searchProperties.isEmpty()) {
                     if(!isTimeStampPropExists) {
@@ -265,19 +272,43 @@ public final class SearchQuery {
 
             if(!containsFiltersMap.isEmpty()) {
                 isContainsSearchExists = true;
-                for(Map.Entry<String, List<Filter>> entry : containsFiltersMap.entrySet()) {
-                    List<Filter> filterList = entry.getValue();
-
-                    for(Filter filter : filterList) {
-                        containOpSubFilters.add(filter);
-                    }
-                }
+                containOpSubFilters.addAll(getContainsFilters());
+                //contains filters which can be looked up in an n-gram index. The contains filters are
+                //still verified against the property values of the rows found in the index.
+                nGramFilters = getNGramFilters(containOpSubFilters);
             }
         } catch (Exception e) {
             throw new CassandraSearchException("Error while organizing query filters.", e);
         }
     }
 
+    private List<Filter> getContainsFilters() {
+        List<Filter> containsFilters = new ArrayList<Filter>();
+        for(List<Filter> filterList : containsFiltersMap.values()) {
+            containsFilters.addAll(filterList);
+        }
+        return containsFilters;
+    }
+
+    /**
+     * The n-gram index narrows down the rows only if every row of the result has to match each
+     * contains filter, so n-gram lookups are used only when all contains filters are joined by AND.
+     */
+    private List<Filter> getNGramFilters(List<Filter> containsFilters) {
+        List<Filter> filters = new ArrayList<Filter>();
+        for(Filter filter : containsFilters) {
+            if(filter.getJoinOp() != null && !filter.getJoinOp().equals(OperationType.AND)) {
+                return new ArrayList<Filter>();
+            }
+            if(filter.getOperator().equals(SearchConstants.CONTAINS)
+                    && nGramIndexedProperties.contains(filter.getProperty())
+                    && NGramIndex.isIndexable(filter.getValue())) {
+                filters.add(filter);
+            }
+        }
+        return filters;
+    }
+
     public void constructSubFiltersForSearchFilters() {
         for(String searchProp : searchProperties) {
             List<Filter> filters = allFiltersMap.get(searchProp);
@@ -325,6 +356,26 @@ public final class SearchQuery {
         return false;
     }
 
+    /**
+     * @return true if no filter of the query is joined by OR, so that the sub filters can be joined
+     * in any order
+     */
+    public boolean isConjunctive() {
+        List<List<Filter>> filterLists = new ArrayList<List<Filter>>(allFiltersMap.values());
+        filterLists.addAll(containsFiltersMap.values());
+        if(timestampFilter != null) {
+            filterLists.add(timestampFilter);
+        }
+        for(List<Filter> filterList : filterLists) {
+            for(Filter filter : filterList) {
+                if(filter.getJoinOp() == OperationType.OR) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public Map<String, List<Filter>> getAllFiltersMap() {
         return allFiltersMap;
     }
@@ -376,4 +427,67 @@ public final class SearchQuery {
     public List<Filter> getContainOpSubFilters() {
         return containOpSubFilters;
     }
+
+    /**
+     * @param nGramIndexedProperties properties of the stream having an n-gram index. Has to be set
+     *                               before the query is validated and organized.
+     */
+    public void setNGramIndexedProperties(Set<String> nGramIndexedProperties) {
+        this.nGramIndexedProperties = nGramIndexedProperties;
+    }
+
+    /**
+     * @return contains filters to be looked up in the n-gram indexes
+     */
+    public List<Filter> getNGramFilters() {
+        return nGramFilters;
+    }
+
+    /**
+     * @return true if the row keys are found by a single index scan, which a paged search can
+     * continue after the last index column returned
+     */
+    public boolean isIndexScanContinuable() {
+        return !isMultiQuery && !isContainsSearchExists;
+    }
+
+    /**
+     * Index columns are ordered by the indexed values and then by the timestamps of the events, so
+     * the row keys of a single index are found in time order if a single value of it is searched,
+     * or if the index is on the timestamp itself.
+     *
+     * @return true if the row keys found for the query are in the order of their timestamps
+     */
+    public boolean isTimestampOrdered() {
+        if (isMultiQuery || !nGramFilters.isEmpty()) {
+            return false;
+        }
+
+        String property;
+        if (hasNonFixProps) {
+            if (searchProperties.size() != 1) {
+                return false;
+            }
+            property = searchProperties.get(0);
+        } else if (mandatoryProperties != null) {
+            property = mandatoryProperties.get(mandatoryProperties.size() - 1);
+        } else {
+            return false;
+        }
+
+        if (SearchConstants.TIMESTAMP_PROPERTY.equals(property)) {
+            return true;
+        }
+        List<Filter> filters = allFiltersMap.get(property);
+        return filters != null && filters.size() == 1 && SearchConstants.EQ.equals(filters.get(0).getOperator());
+    }
+
+    /**
+     * @return true if the query has no filters other than contains filters, so that the row keys
+     * are found by the n-gram indexes alone
+     */
+    public boolean isNGramOnlyQuery() {
+        return !nGramFilters.isEmpty() && allFiltersMap.isEmpty() && timestampFilter == null
+                && mandatoryProperties == null;
+    }
 }
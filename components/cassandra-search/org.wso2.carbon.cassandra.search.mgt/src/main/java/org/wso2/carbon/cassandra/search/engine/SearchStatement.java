@@ -0,0 +1,57 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed form of a search statement. Instances are immutable and shared between the searches
+ * running the same statement.
+ */
+public final class SearchStatement {
+    private final List<Condition> conditions;
+
+    public SearchStatement(List<Condition> conditions) {
+        this.conditions = Collections.unmodifiableList(new ArrayList<Condition>(conditions));
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * @return a new map of the filters of each stream, in the order the streams appear in the statement
+     */
+    public Map<String, List<Filter>> getStreamFilters() {
+        Map<String, List<Filter>> streamFilters = new LinkedHashMap<String, List<Filter>>();
+        for (Condition condition : conditions) {
+            List<Filter> filtersList = streamFilters.get(condition.getStreamName());
+            if (filtersList == null) {
+                filtersList = new ArrayList<Filter>();
+                streamFilters.put(condition.getStreamName(), filtersList);
+            }
+            filtersList.add(condition.toFilter());
+        }
+        return streamFilters;
+    }
+}
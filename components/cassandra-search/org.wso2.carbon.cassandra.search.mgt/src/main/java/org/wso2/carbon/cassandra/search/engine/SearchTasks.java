@@ -0,0 +1,46 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Submits search tasks to the shared search pools. A pool which has been shut down, for example
+ * while the search component is being stopped, rejects new tasks; those are run on the calling
+ * thread instead, so that searches still in progress complete rather than fail.
+ */
+final class SearchTasks {
+
+    private SearchTasks() {
+    }
+
+    static <V> Future<V> submit(ExecutorService executor, Callable<V> task) {
+        FutureTask<V> futureTask = new FutureTask<V>(task);
+        try {
+            executor.execute(futureTask);
+        } catch (RejectedExecutionException e) {
+            futureTask.run();
+        }
+        return futureTask;
+    }
+}
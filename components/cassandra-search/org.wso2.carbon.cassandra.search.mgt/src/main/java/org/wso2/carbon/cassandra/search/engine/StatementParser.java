@@ -18,123 +18,22 @@
  */
 package org.wso2.carbon.cassandra.search.engine;
 
+import org.wso2.carbon.cassandra.search.cache.CompiledQueryCache;
 import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
-import org.wso2.carbon.cassandra.search.utils.OperationType;
-import org.wso2.carbon.cassandra.search.utils.SearchConstants;
 
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Extracts the filters of each stream from a search statement. Statements are parsed by
+ * {@link QueryParser} and the parsed statements are cached in the {@link CompiledQueryCache}.
+ */
 public class StatementParser {
-    private Map<String, List<Filter>> streamFilters;
-    private Map<String, List<Filter>> allFiltersMap = null;
-
-    public StatementParser() {
-        this.streamFilters = new LinkedHashMap<String, List<Filter>>();
-        allFiltersMap      = new HashMap<String, List<Filter>>();
-    }
 
-    //todo - use proper query parser
+    /**
+     * @return a new map of the filters of each stream, which the caller may modify
+     */
     public Map<String, List<Filter>> extractFilters(String searchQuery) throws CassandraSearchException {
-        if(searchQuery == null || searchQuery.isEmpty()) {
-            throw new CassandraSearchException("Null or Empty search query..");
-        }
-
-        String query;
-
-        query = searchQuery.replaceAll(" AND | and ", "|AND|");
-        query = query.replaceAll(" OR | or ", "|OR|");
-
-        String[] conditions = query.split("\\|");
-        try {
-            for (int i = 0; i < conditions.length; i++) {
-                OperationType joinOp = null;
-
-                if (i != 0) {
-                    try {
-                        joinOp = OperationType.valueOf(conditions[i++]);
-                    } catch (Exception e) {
-                        --i;
-                    }
-                }
-
-                String operator = getOperator(conditions[i]);
-
-                if(operator == null) {
-                    throw new CassandraSearchException("Unable to extract Filters from the search query..");
-                }
-
-                int operatorPos = conditions[i].indexOf(operator);
-                String streamAndProperty = conditions[i].substring(0, operatorPos).trim();
-                String value = !(operator.equals(SearchConstants.GE) || operator.equals(SearchConstants.LE)) ?
-                        conditions[i].substring(operatorPos + 1).trim() : conditions[i].substring(operatorPos + 2).trim();
-
-                String streamName = "";
-                String property = "";
-                String [] streamPropData = null;
-
-                if(!streamAndProperty.contains("'")) {
-                    int streamSeparatorPos = streamAndProperty.lastIndexOf('.');
-                    streamName = streamAndProperty.substring(0, streamSeparatorPos).trim();
-                    property = streamAndProperty.substring(streamSeparatorPos + 1).trim();
-                } else {
-                    if(streamAndProperty.contains("'.'")) {
-                        streamPropData = streamAndProperty.split("'\\.'");
-
-                        streamName = streamPropData[0].replaceAll("'", "").trim();
-                        property   = streamPropData[1].replaceAll("'", "").trim();
-                    } else if(streamAndProperty.contains(".'")) {
-                        streamPropData = streamAndProperty.split("\\.'");
-
-                        streamName = streamPropData[0].replaceAll("'", "").trim();
-                        property = streamPropData[1].replaceAll("'", "").trim();
-                    } else if(streamAndProperty.contains("'.")) {
-                        streamPropData = streamAndProperty.split("'\\.");
-
-                        streamName = streamPropData[0].replaceAll("'", "").trim();
-                        property = streamPropData[1].replaceAll("'", "").trim();
-                    }
-                }
-
-                Filter searchFilter = new Filter(property, operator, value, joinOp);
-
-                List<Filter> filtersList = null;
-                if(!streamFilters.containsKey(streamName)) {
-                    filtersList = new ArrayList<Filter>();
-                    filtersList.add(searchFilter);
-                    streamFilters.put(streamName, filtersList);
-                } else {
-                    streamFilters.get(streamName).add(searchFilter);
-                }
-            }
-        } catch (Exception e) {
-            throw new CassandraSearchException("Unable to extract Filters from the search query: " + e.getMessage());
-        }
-
-        return streamFilters;
-    }
-
-    public String getOperator(String criteria) {
-        if(criteria.indexOf(SearchConstants.GE) > 0) {
-            return SearchConstants.GE;
-        }
-        if(criteria.indexOf(SearchConstants.LE) > 0) {
-            return SearchConstants.LE;
-        }
-        if(criteria.indexOf(SearchConstants.EQ) > 0) {
-            return SearchConstants.EQ;
-        }
-        if(criteria.indexOf(SearchConstants.LT) > 0) {
-            return SearchConstants.LT;
-        }
-        if(criteria.indexOf(SearchConstants.GT) > 0) {
-            return SearchConstants.GT;
-        }
-        if(criteria.indexOf(SearchConstants.CONTAINS) > 0) {
-            return SearchConstants.CONTAINS;
-        }
-        if(criteria.indexOf(SearchConstants.NOT_CONTAIN) > 0) {
-            return SearchConstants.NOT_CONTAIN;
-        }
-        return null;
+        return CompiledQueryCache.getInstance().getStatement(searchQuery).getStreamFilters();
     }
 }
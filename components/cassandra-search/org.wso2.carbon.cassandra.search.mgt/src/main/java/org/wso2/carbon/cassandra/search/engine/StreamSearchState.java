@@ -0,0 +1,64 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paging state of the search of a single stream. Holds the position the search starts from and
+ * records the position after each row key returned, so that the next cursor can be placed after
+ * the last result of the stream which made it into the page.
+ */
+public class StreamSearchState {
+    private final SearchCursor.StreamPosition startPosition;
+    private final Map<String, SearchCursor.StreamPosition> rowKeyPositions =
+            new HashMap<String, SearchCursor.StreamPosition>();
+    private boolean exhausted;
+
+    /**
+     * @param startPosition position to continue from, null to start from the beginning
+     */
+    public StreamSearchState(SearchCursor.StreamPosition startPosition) {
+        this.startPosition = startPosition;
+    }
+
+    public SearchCursor.StreamPosition getStartPosition() {
+        return startPosition;
+    }
+
+    public void setRowKeyPosition(String rowKey, SearchCursor.StreamPosition position) {
+        rowKeyPositions.put(rowKey, position);
+    }
+
+    public SearchCursor.StreamPosition getRowKeyPosition(String rowKey) {
+        return rowKeyPositions.get(rowKey);
+    }
+
+    /**
+     * @return true if the stream has no results after the row keys returned
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    public void setExhausted(boolean exhausted) {
+        this.exhausted = exhausted;
+    }
+}
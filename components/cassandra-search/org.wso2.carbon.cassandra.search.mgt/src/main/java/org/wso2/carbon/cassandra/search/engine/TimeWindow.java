@@ -0,0 +1,101 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.cassandra.search.utils.TimestampCodec;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time range of the events a search can return, taken from the Timestamp filters of its streams.
+ * Query timestamps have second precision, so bounds are widened to whole seconds.
+ */
+public class TimeWindow {
+    public static final long UNBOUNDED_START = Long.MIN_VALUE;
+    public static final long UNBOUNDED_END = Long.MAX_VALUE;
+
+    private final long start;
+    private final long end;
+
+    public TimeWindow(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return window covering the windows of all the streams of the search
+     */
+    public static TimeWindow of(Map<String, List<Filter>> streamFiltersMap) throws CassandraSearchException {
+        long start = UNBOUNDED_END;
+        long end = UNBOUNDED_START;
+        for (List<Filter> filters : streamFiltersMap.values()) {
+            TimeWindow streamWindow = ofStream(filters);
+            start = Math.min(start, streamWindow.start);
+            end = Math.max(end, streamWindow.end);
+        }
+        return streamFiltersMap.isEmpty() ? new TimeWindow(UNBOUNDED_START, UNBOUNDED_END) : new TimeWindow(start, end);
+    }
+
+    public static TimeWindow ofStream(List<Filter> filters) throws CassandraSearchException {
+        long start = UNBOUNDED_START;
+        long end = UNBOUNDED_END;
+        for (Filter filter : filters) {
+            if (!SearchConstants.TIMESTAMP_PROPERTY.equals(filter.getProperty())) {
+                continue;
+            }
+            String operator = filter.getOperator();
+            long value = TimestampCodec.parse(filter.getValue());
+            if (operator.equals(SearchConstants.GT) || operator.equals(SearchConstants.GE)) {
+                start = Math.max(start, value);
+            } else if (operator.equals(SearchConstants.LT)) {
+                end = Math.min(end, value - 1);
+            } else if (operator.equals(SearchConstants.LE)) {
+                end = Math.min(end, value + 999);
+            } else if (operator.equals(SearchConstants.EQ)) {
+                start = Math.max(start, value);
+                end = Math.min(end, value + 999);
+            }
+        }
+        return new TimeWindow(start, end);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return true if no event at or after the given time can be in the window
+     */
+    public boolean isClosedBefore(long time) {
+        return end < time;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (start == UNBOUNDED_START ? "*" : String.valueOf(start)) + ", " +
+                (end == UNBOUNDED_END ? "*" : String.valueOf(end)) + "]";
+    }
+}
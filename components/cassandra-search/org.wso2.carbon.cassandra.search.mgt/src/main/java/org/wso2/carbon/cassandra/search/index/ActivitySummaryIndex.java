@@ -0,0 +1,154 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.wso2.carbon.cassandra.search.engine.ActivitySummary;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column family of the index keyspace holding a summary row per activity, so that activities can be
+ * listed without reading the status of each of their events.
+ *
+ * A stored summary is only valid while its event count matches the activity index row. The fault
+ * status is final, so the event writer can mark an activity as faulty without knowing the rest of
+ * the summary.
+ */
+public class ActivitySummaryIndex {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+
+    private static final String EVENT_COUNT_COLUMN = "event_count";
+    private static final String START_TIME_COLUMN  = "start_time";
+    private static final String END_TIME_COLUMN    = "end_time";
+    private static final String STATUS_COLUMN      = "status";
+
+    private static final Set<String> CREATED_COLUMN_FAMILIES =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public String getColumnFamily() {
+        return SearchConstants.ACTIVITY_SUMMARY_CF;
+    }
+
+    /**
+     * Creates the summary column family in the index keyspace if it does not exist yet
+     */
+    public static void createColumnFamilyIfAbsent(Cluster cluster, Keyspace indexKeyspace)
+            throws CassandraSearchException {
+        String key = CassandraUtils.getClusterKey(cluster) + "/" + indexKeyspace.getKeyspaceName();
+        if (CREATED_COLUMN_FAMILIES.contains(key)) {
+            return;
+        }
+        try {
+            KeyspaceDefinition keyspaceDef = cluster.describeKeyspace(indexKeyspace.getKeyspaceName());
+            boolean exists = false;
+            for (ColumnFamilyDefinition cfDef : keyspaceDef.getCfDefs()) {
+                if (cfDef.getName().equals(SearchConstants.ACTIVITY_SUMMARY_CF)) {
+                    exists = true;
+                    break;
+                }
+            }
+            if (!exists) {
+                cluster.addColumnFamily(HFactory.createColumnFamilyDefinition(indexKeyspace.getKeyspaceName(),
+                        SearchConstants.ACTIVITY_SUMMARY_CF, ComparatorType.UTF8TYPE), true);
+            }
+        } catch (HectorException e) {
+            throw new CassandraSearchException(e.getMessage(), e);
+        }
+        CREATED_COLUMN_FAMILIES.add(key);
+    }
+
+    public void addSummary(Mutator<String> mutator, ActivitySummary summary) {
+        String activityID = summary.getActivityID();
+        String columnFamily = getColumnFamily();
+        mutator.addInsertion(activityID, columnFamily, HFactory.createStringColumn(EVENT_COUNT_COLUMN,
+                String.valueOf(summary.getEventCount())));
+        mutator.addInsertion(activityID, columnFamily, HFactory.createStringColumn(START_TIME_COLUMN,
+                String.valueOf(summary.getStartTime())));
+        mutator.addInsertion(activityID, columnFamily, HFactory.createStringColumn(END_TIME_COLUMN,
+                String.valueOf(summary.getEndTime())));
+        mutator.addInsertion(activityID, columnFamily, HFactory.createStringColumn(STATUS_COLUMN,
+                summary.isFaulty() ? SearchConstants.STATUS_FAULT : SearchConstants.STATUS_SUCCESS));
+    }
+
+    /**
+     * To be called when an event of the activity is stored. Only faults are recorded, an activity
+     * with new successful events is summarized again once its event count has changed.
+     */
+    public void addEvent(Mutator<String> mutator, String activityID, String status) {
+        if (status != null && !SearchConstants.STATUS_SUCCESS.equals(status)) {
+            mutator.addInsertion(activityID, getColumnFamily(),
+                    HFactory.createStringColumn(STATUS_COLUMN, SearchConstants.STATUS_FAULT));
+        }
+    }
+
+    public void removeSummary(Mutator<String> mutator, String activityID) {
+        mutator.addDeletion(activityID, getColumnFamily());
+    }
+
+    /**
+     * @param columns columns of the summary row of the activity
+     * @return the stored summary with an event count of -1 if only the status has been recorded,
+     * or null if nothing has been stored for the activity
+     */
+    public static ActivitySummary decode(String activityID, List<HColumn<ByteBuffer, ByteBuffer>> columns) {
+        if (columns.isEmpty()) {
+            return null;
+        }
+        int eventCount = -1;
+        long startTime = 0;
+        long endTime = 0;
+        boolean faulty = false;
+        try {
+            for (HColumn<ByteBuffer, ByteBuffer> column : columns) {
+                String name = STRING_SERIALIZER.fromByteBuffer(column.getNameBytes());
+                String value = STRING_SERIALIZER.fromByteBuffer(column.getValueBytes());
+                if (name.equals(EVENT_COUNT_COLUMN)) {
+                    eventCount = Integer.parseInt(value);
+                } else if (name.equals(START_TIME_COLUMN)) {
+                    startTime = Long.parseLong(value);
+                } else if (name.equals(END_TIME_COLUMN)) {
+                    endTime = Long.parseLong(value);
+                } else if (name.equals(STATUS_COLUMN)) {
+                    faulty = SearchConstants.STATUS_FAULT.equals(value);
+                }
+            }
+        } catch (NumberFormatException e) {
+            //a corrupted summary is summarized again
+            eventCount = -1;
+        }
+        return new ActivitySummary(activityID, eventCount, startTime, endTime, faulty);
+    }
+}
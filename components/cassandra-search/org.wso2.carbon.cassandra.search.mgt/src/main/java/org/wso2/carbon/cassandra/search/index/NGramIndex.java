@@ -0,0 +1,158 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.ColumnSliceIterator;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.ColumnSlice;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.SliceQuery;
+import org.wso2.carbon.cassandra.search.engine.RowKeySetOperations;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * N-gram index of a string property of a stream, used to answer contains searches without reading
+ * the property of every candidate row.
+ *
+ * Every distinct n-gram of a property value is a row of the index column family, holding one
+ * column per event row key having the n-gram in the value. The row keys of a contains search are
+ * the intersection of the rows of the n-grams of the search value. Since the n-grams do not keep
+ * their positions the result is a superset of the matching rows, which has to be verified against
+ * the property values.
+ */
+public class NGramIndex {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+
+    private final Keyspace indexKeyspace;
+    private final String columnFamily;
+
+    public NGramIndex(Keyspace indexKeyspace, String primaryCFName, String propertyName) {
+        this.indexKeyspace = indexKeyspace;
+        this.columnFamily = CassandraUtils.getNGramIndexCFName(primaryCFName, propertyName);
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    /**
+     * @return distinct n-grams of the value, empty if the value is shorter than an n-gram
+     */
+    public static Set<String> getNGrams(String value) {
+        Set<String> nGrams = new LinkedHashSet<String>();
+        if (value == null) {
+            return nGrams;
+        }
+        for (int i = 0; i + SearchConstants.N_GRAM_LENGTH <= value.length(); i++) {
+            nGrams.add(value.substring(i, i + SearchConstants.N_GRAM_LENGTH));
+        }
+        return nGrams;
+    }
+
+    /**
+     * @return true if contains searches for the value can be answered by the index
+     */
+    public static boolean isIndexable(String searchValue) {
+        return searchValue != null && searchValue.length() >= SearchConstants.N_GRAM_LENGTH;
+    }
+
+    public void addValue(Mutator<String> mutator, String rowKey, String value) {
+        for (String nGram : getNGrams(value)) {
+            mutator.addInsertion(nGram, columnFamily, HFactory.createStringColumn(rowKey, ""));
+        }
+    }
+
+    public void removeValue(Mutator<String> mutator, String rowKey, String value) {
+        for (String nGram : getNGrams(value)) {
+            mutator.addDeletion(nGram, columnFamily, rowKey, STRING_SERIALIZER);
+        }
+    }
+
+    /**
+     * @return row keys which may contain the search value, in row key order
+     */
+    public List<String> getCandidateRowKeys(String searchValue) throws CassandraSearchException {
+        if (!isIndexable(searchValue)) {
+            throw new CassandraSearchException("Search value is shorter than the n-gram length: " + searchValue);
+        }
+
+        List<String> candidates = null;
+        try {
+            for (String nGram : getNGrams(searchValue)) {
+                if (candidates == null) {
+                    candidates = getRowKeys(nGram);
+                } else if (candidates.size() <= SearchConstants.N_GRAM_INDEX_PAGE_SIZE) {
+                    //few candidates left, look them up instead of reading the whole n-gram row
+                    candidates = getExistingRowKeys(nGram, candidates);
+                } else {
+                    candidates = RowKeySetOperations.intersection(candidates, getRowKeys(nGram));
+                }
+
+                if (candidates.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (HectorException e) {
+            throw new CassandraSearchException(e.getMessage(), e);
+        }
+        return candidates;
+    }
+
+    private List<String> getRowKeys(String nGram) {
+        SliceQuery<String, String, String> sliceQuery = HFactory.createSliceQuery(indexKeyspace,
+                STRING_SERIALIZER, STRING_SERIALIZER, STRING_SERIALIZER);
+        sliceQuery.setColumnFamily(columnFamily).setKey(nGram);
+
+        List<String> rowKeys = new ArrayList<String>();
+        ColumnSliceIterator<String, String, String> columns = new ColumnSliceIterator<String, String, String>(
+                sliceQuery, null, (String) null, false, SearchConstants.N_GRAM_INDEX_PAGE_SIZE);
+        while (columns.hasNext()) {
+            rowKeys.add(columns.next().getName());
+        }
+        return rowKeys;
+    }
+
+    private List<String> getExistingRowKeys(String nGram, List<String> candidates) {
+        SliceQuery<String, String, String> sliceQuery = HFactory.createSliceQuery(indexKeyspace,
+                STRING_SERIALIZER, STRING_SERIALIZER, STRING_SERIALIZER);
+        sliceQuery.setColumnFamily(columnFamily).setKey(nGram);
+        sliceQuery.setColumnNames(candidates.toArray(new String[candidates.size()]));
+
+        ColumnSlice<String, String> columnSlice = sliceQuery.execute().get();
+        List<String> rowKeys = new ArrayList<String>(columnSlice.getColumns().size());
+        for (String rowKey : candidates) {
+            HColumn<String, String> column = columnSlice.getColumnByName(rowKey);
+            if (column != null) {
+                rowKeys.add(rowKey);
+            }
+        }
+        return rowKeys;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.RangeSlicesIterator;
+import me.prettyprint.cassandra.service.ThriftCluster;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.RangeSlicesQuery;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.cache.IndexDefinitionCache;
+import org.wso2.carbon.cassandra.search.connection.ConnectionManager;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CFInfo;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.databridge.commons.IndexDefinition;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool building the n-gram indexes of stream properties from the events already stored in
+ * the event keyspace. The events are read in batches of rows and the index columns of each batch
+ * are written with a single mutation.
+ *
+ * Usage: NGramIndexBackfill connectionUrl username password streamName property[,property...]
+ */
+public class NGramIndexBackfill {
+    private static final Log log = LogFactory.getLog(NGramIndexBackfill.class);
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = ByteBufferSerializer.get();
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final Cluster cluster;
+    private final Keyspace eventKeyspace;
+    private final Keyspace indexKeyspace;
+    private final int batchSize;
+
+    public NGramIndexBackfill(Cluster cluster, Keyspace eventKeyspace, Keyspace indexKeyspace, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be a positive value: " + batchSize);
+        }
+        this.cluster = cluster;
+        this.eventKeyspace = eventKeyspace;
+        this.indexKeyspace = indexKeyspace;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Defines n-gram indexes for the properties of the stream and indexes the existing events.
+     *
+     * @return number of events read
+     */
+    public long backfill(String streamName, List<String> properties) throws CassandraSearchException {
+        IndexDefinition indexDef = IndexDefinitionCache.getInstance(cluster, indexKeyspace)
+                .getIndexDefinition(indexKeyspace, streamName);
+        if (indexDef == null) {
+            throw new CassandraSearchException("No index definition found for stream " + streamName);
+        }
+
+        NGramIndexer indexer = new NGramIndexer(cluster, indexKeyspace);
+        indexer.defineIndexes(streamName, properties);
+
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, eventKeyspace, primaryCFName);
+
+        Map<ByteBuffer, NGramIndex> columnIndexes = new HashMap<ByteBuffer, NGramIndex>();
+        for (String property : properties) {
+            String propertyNameInCF = indexDef.getAttributeNameforProperty(property);
+            columnIndexes.put(STRING_SERIALIZER.toByteBuffer(propertyNameInCF != null ? propertyNameInCF : property),
+                    new NGramIndex(indexKeyspace, primaryCFName, property));
+        }
+
+        RangeSlicesQuery<String, ByteBuffer, ByteBuffer> rangeSlicesQuery = HFactory.createRangeSlicesQuery(
+                eventKeyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER, BYTE_BUFFER_SERIALIZER);
+        rangeSlicesQuery.setColumnFamily(primaryCFName);
+        rangeSlicesQuery.setColumnNames(columnIndexes.keySet().toArray(new ByteBuffer[columnIndexes.size()]));
+        rangeSlicesQuery.setRowCount(batchSize);
+
+        //events stored after this time may be missed by the scan, they have to be indexed by the writer
+        long backfillStartTime = System.currentTimeMillis();
+        long rowCount = 0;
+        try {
+            Mutator<String> mutator = HFactory.createMutator(indexKeyspace, STRING_SERIALIZER);
+            RangeSlicesIterator<String, ByteBuffer, ByteBuffer> rows =
+                    new RangeSlicesIterator<String, ByteBuffer, ByteBuffer>(rangeSlicesQuery, "", "");
+            while (rows.hasNext()) {
+                Row<String, ByteBuffer, ByteBuffer> row = rows.next();
+                for (HColumn<ByteBuffer, ByteBuffer> hColumn : row.getColumnSlice().getColumns()) {
+                    String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                            getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
+                    columnIndexes.get(hColumn.getNameBytes()).addValue(mutator, row.getKey(), value);
+                }
+
+                if (++rowCount % batchSize == 0) {
+                    mutator.execute();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Indexed " + rowCount + " events of " + streamName);
+                    }
+                }
+            }
+            for (String property : properties) {
+                mutator.addInsertion(streamName, SearchConstants.INDEX_DEF_CF, HFactory.createStringColumn(
+                        NGramIndexState.getBackfilledUntilColumn(property), String.valueOf(backfillStartTime)));
+            }
+            IndexDefinitionCache.addVersionUpdate(mutator);
+            mutator.execute();
+        } catch (HectorException e) {
+            throw new CassandraSearchException(e.getMessage(), e);
+        }
+        IndexDefinitionCache.getInstance(cluster, indexKeyspace).invalidate();
+
+        NGramIndexState state = indexer.getIndexState(streamName);
+        for (String property : properties) {
+            if (!state.isComplete(property)) {
+                log.warn("The n-gram index of " + streamName + "." + property + " is not maintained by the " +
+                        "event writer since before the backfill, contains searches keep scanning the property " +
+                        "values until the backfill is run again once the writer indexes it");
+            }
+        }
+
+        log.info("Built n-gram indexes of " + properties + " for " + rowCount + " events of " + streamName);
+        return rowCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 5) {
+            System.err.println("Usage: " + NGramIndexBackfill.class.getName() +
+                    " connectionUrl username password streamName property[,property...]");
+            System.exit(1);
+        }
+
+        Map<String, String> credentials = new HashMap<String, String>();
+        credentials.put("username", args[1]);
+        credentials.put("password", args[2]);
+        Cluster cluster = new ThriftCluster("NGramIndexBackfill", new CassandraHostConfigurator(args[0]),
+                credentials);
+        try {
+            NGramIndexBackfill backfill = new NGramIndexBackfill(cluster,
+                    ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName()),
+                    ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName()),
+                    DEFAULT_BATCH_SIZE);
+            long rowCount = backfill.backfill(args[3], Arrays.asList(args[4].split(",")));
+            System.out.println("Indexed " + rowCount + " events of " + args[3]);
+        } finally {
+            HFactory.shutdownCluster(cluster);
+        }
+    }
+}
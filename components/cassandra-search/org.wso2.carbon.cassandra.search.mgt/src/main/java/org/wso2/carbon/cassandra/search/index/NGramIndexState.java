@@ -0,0 +1,81 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tells whether the n-gram index of a property holds every event of the stream.
+ *
+ * The event writer records when it started indexing a property, and {@link NGramIndexBackfill}
+ * records when it started reading the events it indexed. Every event stored before the backfill
+ * started has been read by it, and every event stored after the writer started has been indexed by
+ * the writer, so the index is complete once a backfill started after the writer. Until then contains
+ * filters on the property are answered by scanning the property values.
+ */
+public class NGramIndexState {
+    public static final NGramIndexState EMPTY =
+            new NGramIndexState(Collections.<String, Long>emptyMap(), Collections.<String, Long>emptyMap());
+
+    private final Map<String, Long> maintainedSince;
+    private final Map<String, Long> backfilledUntil;
+
+    public NGramIndexState(Map<String, Long> maintainedSince, Map<String, Long> backfilledUntil) {
+        this.maintainedSince = new HashMap<String, Long>(maintainedSince);
+        this.backfilledUntil = new HashMap<String, Long>(backfilledUntil);
+    }
+
+    /**
+     * @return name of the index definition column holding the time the writer started indexing the property
+     */
+    public static String getMaintainedSinceColumn(String property) {
+        return SearchConstants.N_GRAM_INDEX_MAINTAINED_SINCE + property;
+    }
+
+    /**
+     * @return name of the index definition column holding the time the last backfill of the property started
+     */
+    public static String getBackfilledUntilColumn(String property) {
+        return SearchConstants.N_GRAM_INDEX_BACKFILLED_UNTIL + property;
+    }
+
+    /**
+     * @return time the event writer started indexing the property, or null if it does not index it yet
+     */
+    public Long getMaintainedSince(String property) {
+        return maintainedSince.get(property);
+    }
+
+    /**
+     * @return time the last backfill of the property started, or null if it has not been backfilled
+     */
+    public Long getBackfilledUntil(String property) {
+        return backfilledUntil.get(property);
+    }
+
+    public boolean isComplete(String property) {
+        Long since = maintainedSince.get(property);
+        Long until = backfilledUntil.get(property);
+        return since != null && until != null && until >= since;
+    }
+}
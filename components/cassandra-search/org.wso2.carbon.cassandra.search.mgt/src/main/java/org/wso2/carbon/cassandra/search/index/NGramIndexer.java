@@ -0,0 +1,189 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import com.google.common.base.Joiner;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.ColumnQuery;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.cache.IndexDefinitionCache;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the n-gram indexes of the string properties of streams.
+ *
+ * The n-gram indexed properties of a stream are kept in the index definition row of the stream,
+ * next to its secondary and custom index definitions. Writers of events call
+ * {@link #indexEvent(Mutator, String, String, Map)} to keep the indexes up to date, existing events
+ * are indexed with {@link NGramIndexBackfill}. An index is only used by searches once it is known to
+ * hold every event, see {@link NGramIndexState}.
+ *
+ * No event writer in this component calls {@link #indexEvent(Mutator, String, String, Map)}, the
+ * events are stored by the Cassandra event writer of the data bridge. The indexes therefore ship
+ * disabled: searches only use them when nGramIndexEnabled is set in streamdefn.xml, which should
+ * only be done once the event writer indexes the events it stores.
+ */
+public class NGramIndexer {
+    private static final Log log = LogFactory.getLog(NGramIndexer.class);
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+
+    private final Cluster cluster;
+    private final Keyspace indexKeyspace;
+    /* stream.property of the indexes known to be maintained, so the index state is read once per property */
+    private final Set<String> maintainedProperties =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public NGramIndexer(Cluster cluster, Keyspace indexKeyspace) {
+        this.cluster = cluster;
+        this.indexKeyspace = indexKeyspace;
+    }
+
+    /**
+     * Creates the index column families of the properties and adds the properties to the n-gram
+     * indexed properties of the stream.
+     */
+    public void defineIndexes(String streamName, Collection<String> properties) throws CassandraSearchException {
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        try {
+            KeyspaceDefinition keyspaceDefinition = cluster.describeKeyspace(indexKeyspace.getKeyspaceName());
+            Set<String> columnFamilies = new HashSet<String>();
+            for (ColumnFamilyDefinition cfDef : keyspaceDefinition.getCfDefs()) {
+                columnFamilies.add(cfDef.getName());
+            }
+
+            for (String property : properties) {
+                String indexCFName = CassandraUtils.getNGramIndexCFName(primaryCFName, property);
+                if (!columnFamilies.contains(indexCFName)) {
+                    ColumnFamilyDefinition cfDef = HFactory.createColumnFamilyDefinition(
+                            indexKeyspace.getKeyspaceName(), indexCFName, ComparatorType.UTF8TYPE);
+                    cfDef.setKeyValidationClass(ComparatorType.UTF8TYPE.getClassName());
+                    cfDef.setDefaultValidationClass(ComparatorType.UTF8TYPE.getClassName());
+                    cluster.addColumnFamily(cfDef, true);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Created n-gram index " + indexCFName + " for " + streamName + "." + property);
+                    }
+                }
+            }
+
+            Set<String> indexedProperties = getDefinedProperties(streamName);
+            if (indexedProperties.addAll(properties)) {
+                Mutator<String> mutator = HFactory.createMutator(indexKeyspace, STRING_SERIALIZER);
+                mutator.addInsertion(streamName, SearchConstants.INDEX_DEF_CF, HFactory.createStringColumn(
+                        SearchConstants.N_GRAM_INDEX_DEF, Joiner.on(',').join(indexedProperties)));
+                IndexDefinitionCache.addVersionUpdate(mutator);
+                mutator.execute();
+            }
+        } catch (HectorException e) {
+            throw new CassandraSearchException(e.getMessage(), e);
+        }
+        IndexDefinitionCache.getInstance(cluster, indexKeyspace).invalidate();
+    }
+
+    /**
+     * To be called by the event writer with the mutator storing the event, adds the values of the
+     * n-gram indexed properties of the event to the indexes. The first time a property is indexed
+     * the writer is recorded as maintaining its index, see {@link NGramIndexState}.
+     *
+     * @param propertyValues values of the properties of the event, keyed by property name
+     */
+    public void indexEvent(Mutator<String> mutator, String streamName, String rowKey,
+                           Map<String, String> propertyValues) throws CassandraSearchException {
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        NGramIndexState state = null;
+        for (String property : getIndexedProperties(streamName)) {
+            if (!maintainedProperties.contains(streamName + "." + property)) {
+                if (state == null) {
+                    state = getIndexState(streamName);
+                }
+                if (state.getMaintainedSince(property) == null) {
+                    mutator.addInsertion(streamName, SearchConstants.INDEX_DEF_CF, HFactory.createStringColumn(
+                            NGramIndexState.getMaintainedSinceColumn(property),
+                            String.valueOf(System.currentTimeMillis())));
+                    IndexDefinitionCache.addVersionUpdate(mutator);
+                }
+                maintainedProperties.add(streamName + "." + property);
+            }
+            String value = propertyValues.get(property);
+            if (value != null) {
+                new NGramIndex(indexKeyspace, primaryCFName, property).addValue(mutator, rowKey, value);
+            }
+        }
+    }
+
+    /**
+     * To be called by the event writer with the mutator deleting or overwriting the event, removes
+     * the previous values of the n-gram indexed properties of the event from the indexes
+     */
+    public void removeEvent(Mutator<String> mutator, String streamName, String rowKey,
+                            Map<String, String> propertyValues) throws CassandraSearchException {
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        for (String property : getIndexedProperties(streamName)) {
+            String value = propertyValues.get(property);
+            if (value != null) {
+                new NGramIndex(indexKeyspace, primaryCFName, property).removeValue(mutator, rowKey, value);
+            }
+        }
+    }
+
+    public Set<String> getIndexedProperties(String streamName) throws CassandraSearchException {
+        return IndexDefinitionCache.getInstance(cluster, indexKeyspace)
+                .getNGramIndexedProperties(indexKeyspace, streamName);
+    }
+
+    public NGramIndexState getIndexState(String streamName) throws CassandraSearchException {
+        return IndexDefinitionCache.getInstance(cluster, indexKeyspace).getNGramIndexState(indexKeyspace, streamName);
+    }
+
+    private Set<String> getDefinedProperties(String streamName) {
+        ColumnQuery<String, String, String> columnQuery = HFactory.createStringColumnQuery(indexKeyspace);
+        columnQuery.setColumnFamily(SearchConstants.INDEX_DEF_CF).setKey(streamName)
+                .setName(SearchConstants.N_GRAM_INDEX_DEF);
+        HColumn<String, String> column = columnQuery.execute().get();
+
+        Set<String> properties = new LinkedHashSet<String>();
+        if (column != null) {
+            for (String property : column.getValue().split(",")) {
+                if (!property.trim().isEmpty()) {
+                    properties.add(property.trim());
+                }
+            }
+        }
+        return properties;
+    }
+}
@@ -23,6 +23,7 @@ import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.cassandra.search.internal.util.ServiceHolder;
 import org.wso2.carbon.cassandra.search.service.CassandraSearchAdmin;
+import org.wso2.carbon.cassandra.search.service.SearchExecutors;
 import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
 import org.wso2.carbon.identity.authentication.AuthenticationService;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
@@ -62,6 +63,7 @@ public class CassandraSearchServiceComponent {
         if (serviceRegistration != null) {
             serviceRegistration.unregister();
         }
+        SearchExecutors.shutdown();
         if (log.isDebugEnabled()) {
             log.debug("Stopped Cassandra Search component");
         }
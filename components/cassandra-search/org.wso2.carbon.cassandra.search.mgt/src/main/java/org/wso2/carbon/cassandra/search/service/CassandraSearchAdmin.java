@@ -32,21 +32,39 @@ import me.prettyprint.hector.api.query.*;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.cache.ColumnFamilyInfoCache;
+import org.wso2.carbon.cassandra.search.cache.CompiledQueryCache;
+import org.wso2.carbon.cassandra.search.cache.IndexDefinitionCache;
+import org.wso2.carbon.cassandra.search.cache.SearchResultCache;
 import org.wso2.carbon.cassandra.search.connection.ConnectionManager;
 import org.wso2.carbon.cassandra.search.data.*;
 import org.wso2.carbon.cassandra.search.data.json.*;
+import org.wso2.carbon.cassandra.search.engine.ActivitySummary;
+import org.wso2.carbon.cassandra.search.engine.ActivitySummaryResolver;
+import org.wso2.carbon.cassandra.search.engine.AdaptiveIndexScanner;
 import org.wso2.carbon.cassandra.search.engine.Filter;
+import org.wso2.carbon.cassandra.search.engine.IndexScanMetrics;
+import org.wso2.carbon.cassandra.search.engine.MultiStreamSearchExecutor;
+import org.wso2.carbon.cassandra.search.engine.QueryCostEstimator;
+import org.wso2.carbon.cassandra.search.engine.QueryParser;
+import org.wso2.carbon.cassandra.search.engine.RowBatchFetcher;
+import org.wso2.carbon.cassandra.search.engine.RowKeySetOperations;
+import org.wso2.carbon.cassandra.search.engine.SearchCursor;
 import org.wso2.carbon.cassandra.search.engine.StatementParser;
 import org.wso2.carbon.cassandra.search.engine.SearchQuery;
+import org.wso2.carbon.cassandra.search.engine.StreamSearchState;
+import org.wso2.carbon.cassandra.search.engine.TimeWindow;
 import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.ActivitySummaryIndex;
+import org.wso2.carbon.cassandra.search.index.NGramIndex;
 import org.wso2.carbon.cassandra.search.utils.*;
 import org.wso2.carbon.core.AbstractAdmin;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.IndexDefinition;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.ByteBuffer;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -58,11 +76,22 @@ public class CassandraSearchAdmin extends AbstractAdmin {
     private static final StringSerializer STRING_SERIALIZER          = new StringSerializer();
     private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = new ByteBufferSerializer();
     private static final DynamicCompositeSerializer DYNAMIC_COMPOSITE_SERIALIZER = new DynamicCompositeSerializer();
-    private ByteBuffer emptyByteBuffer = ByteBufferUtil.bytes("");
 
-    private final SimpleDateFormat eventTimeFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-    private final SimpleDateFormat queryTimeFormatter = new SimpleDateFormat("yyyyMMddHHmmss");
-    private final List<String> dateFormats = Arrays.asList("yyyyMMddHHmmss", "MM/dd/yyyy hh:mm:ss a", "yyyyMMdd");
+    private static final Comparator<org.wso2.carbon.cassandra.search.data.Row> ROW_TIMESTAMP_ORDER =
+            new Comparator<org.wso2.carbon.cassandra.search.data.Row>() {
+                public int compare(org.wso2.carbon.cassandra.search.data.Row row1,
+                                   org.wso2.carbon.cassandra.search.data.Row row2) {
+                    return row1.getTimestamp() < row2.getTimestamp() ? -1 :
+                            (row1.getTimestamp() == row2.getTimestamp() ? 0 : 1);
+                }
+            };
+    private static final Comparator<Event> EVENT_TIMESTAMP_ORDER = new Comparator<Event>() {
+        public int compare(Event event1, Event event2) {
+            return event1.getTimestampMillis() < event2.getTimestampMillis() ? -1 :
+                    (event1.getTimestampMillis() == event2.getTimestampMillis() ? 0 : 1);
+        }
+    };
+    private ByteBuffer emptyByteBuffer = ByteBufferUtil.bytes("");
 
     public boolean connectToCassandraCluster(String clusterName, String connectionUrl,
                                              String userName, String password)
@@ -119,15 +148,12 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                                                                                         String lastSearchRowKey,
                                                                                         int sizeLimit)
             throws CassandraSearchException {
-        int limit;
         String lastSearchRowKeyMod;
 
         if (cluster == null) {
             throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
         }
 
-        List<org.wso2.carbon.cassandra.search.data.Row> rowList =
-                new ArrayList<org.wso2.carbon.cassandra.search.data.Row>();
         StatementParser statementParser = new StatementParser();
         Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
 
@@ -135,34 +161,17 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
         if(streamFiltersMap.containsKey("*")) {
-            modifyStreamFiltersMap(indexKeyspace, streamFiltersMap);
+            modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
         }
 
-        List<org.wso2.carbon.cassandra.search.data.Row> rowListForStream = null;
         int noOFStreams= streamFiltersMap.size();
+        lastSearchRowKeyMod = noOFStreams > 0 ? null : lastSearchRowKey;
 
-        //todo : handling multiple stream result sizes properly
-        if(noOFStreams > 0) {
-            limit = sizeLimit/noOFStreams;
-            lastSearchRowKeyMod = null;
-        } else {
-            limit = sizeLimit;
-            lastSearchRowKeyMod = lastSearchRowKey;
-        }
-
-        for(Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
-            //todo - now just adding all results - discuss about intersection depending on correlation
-            String streamName= entry.getKey();
-            rowListForStream = (List<org.wso2.carbon.cassandra.search.data.Row>)getResultsRowsForStream(
-                    cluster, eventKeyspace,  indexKeyspace, streamName,
-                    lastSearchRowKeyMod, limit, streamFiltersMap.get(streamName), SearchType.ROW);
-
-            if (rowListForStream == null) {
-                continue;
-            }
-
-            rowList.addAll(rowListForStream.size() > limit ? rowListForStream.subList(0, limit) : rowListForStream);
-        }
+        //todo - now just adding all results - discuss about intersection depending on correlation
+        MultiStreamSearchExecutor.Result<org.wso2.carbon.cassandra.search.data.Row> result =
+                searchStreams(cluster, eventKeyspace, indexKeyspace, streamFiltersMap, lastSearchRowKeyMod,
+                        sizeLimit, SearchType.ROW, ROW_TIMESTAMP_ORDER, null);
+        List<org.wso2.carbon.cassandra.search.data.Row> rowList = result.getResults();
 
         if (rowList.isEmpty()) {
             return null;
@@ -189,14 +198,12 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                                               int sizeLimit)
             throws CassandraSearchException {
         try {
-            int limit;
             String lastSearchRowKeyMod;
 
             if (cluster == null) {
                 throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
             }
 
-            List<Event> eventList = new ArrayList<Event>();
             StatementParser statementParser = new StatementParser();
             Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
 
@@ -204,42 +211,294 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
             if(streamFiltersMap.containsKey("*")) {
-                modifyStreamFiltersMap(indexKeyspace, streamFiltersMap);
+                modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
             }
 
-            List<Event> eventListForStream = null;
             int noOFStreams= streamFiltersMap.size();
+            lastSearchRowKeyMod = noOFStreams > 0 ? null : lastSearchRowKey;
 
-            //todo : handling multiple stream result sizes properly
-            if(noOFStreams > 0) {
-                limit = sizeLimit/noOFStreams;
-                lastSearchRowKeyMod = null;
-            } else {
-                limit = sizeLimit;
-                lastSearchRowKeyMod = lastSearchRowKey;
+            SearchResultCache resultCache = SearchResultCache.getInstance();
+            String tenant = getResultCacheTenant(cluster);
+            TimeWindow timeWindow = TimeWindow.of(streamFiltersMap);
+            String cacheKey = QueryParser.normalize(query) + "\n" + new TreeSet<String>(streamFiltersMap.keySet()) +
+                    "\n" + timeWindow + "\n" + sizeLimit;
+            long searchedTime = System.currentTimeMillis();
+            SearchResultCache.Entry cachedEntry = resultCache.get(tenant, cacheKey);
+            if (cachedEntry != null && !cachedEntry.isExpired(searchedTime)) {
+                return cachedEntry.getJson();
             }
 
-            for(Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
-                //todo - now just adding all results - discuss about intersection depending on correlation
-                String streamName= entry.getKey();
-                eventListForStream = (List<Event>)getResultsRowsForStream(
-                        cluster, eventKeyspace,  indexKeyspace, streamName,
-                        lastSearchRowKeyMod, limit, streamFiltersMap.get(streamName), SearchType.EVENT);
+            //todo - now just adding all results - discuss about intersection depending on correlation
+            MultiStreamSearchExecutor.Result<Event> result = null;
+            List<Event> results = null;
+            if (cachedEntry != null && isTopUpPossible(cluster, indexKeyspace, cachedEntry, streamFiltersMap)) {
+                //only the events which may have arrived since the cached search are searched
+                try {
+                    result = searchStreams(cluster, eventKeyspace, indexKeyspace,
+                            getTopUpStreamFiltersMap(streamFiltersMap, cachedEntry), lastSearchRowKeyMod,
+                            sizeLimit, SearchType.EVENT, EVENT_TIMESTAMP_ORDER, null);
+                } catch (CassandraSearchException e) {
+                    log.debug("Unable to top up the cached results of " + query, e);
+                } catch (HectorException e) {
+                    log.debug("Unable to top up the cached results of " + query, e);
+                }
+                if (result != null && !result.isPartial()) {
+                    results = mergeTopUpResults(cachedEntry.getResults(), result.getResults(), sizeLimit);
+                } else {
+                    //the cached results can not be completed, they are searched again
+                    resultCache.remove(tenant, cacheKey);
+                }
+            }
+            if (results == null) {
+                result = searchStreams(cluster, eventKeyspace, indexKeyspace, streamFiltersMap, lastSearchRowKeyMod,
+                        sizeLimit, SearchType.EVENT, EVENT_TIMESTAMP_ORDER, null);
+                results = result.getResults();
+            }
 
-                if (eventListForStream == null) {
-                    continue;
+            String json = getEventsAsJson(results, result);
+            if (!result.isPartial()) {
+                resultCache.put(tenant, cacheKey, new SearchResultCache.Entry(results, json,
+                        results.size() < sizeLimit,
+                        timeWindow.isClosedBefore(searchedTime - SearchConstants.SEARCH_RESULT_LATE_EVENT_WINDOW),
+                        searchedTime, SearchConstants.SEARCH_RESULT_CACHE_TTL));
+            }
+            return json;
+        } catch (CassandraSearchException e) {
+            log.debug(e.getMessage(), e);
+            return gson.toJson(new Events());
+        }
+    }
+
+    /**
+     * Writes the events with a byte limited {@link JsonResultWriter}, which leaves out the events
+     * beyond the limit and marks the results as truncated
+     */
+    private String getEventsAsJson(List<Event> results, MultiStreamSearchExecutor.Result<Event> result)
+            throws CassandraSearchException {
+        StringWriter writer = new StringWriter();
+        JsonResultWriter resultWriter = new JsonResultWriter(writer, CassandraUtils.getJsonResultByteLimit());
+        try {
+            resultWriter.beginObject();
+            resultWriter.beginResults("results");
+            for (Event event : results) {
+                if (!resultWriter.writeResult(event)) {
+                    break;
+                }
+            }
+            resultWriter.endResults();
+            if (result.isPartial()) {
+                resultWriter.writeProperty("timedOutStreams", result.getTimedOutStreams());
+                resultWriter.writeProperty("failedStreams", result.getFailedStreams());
+            }
+            resultWriter.endObject();
+        } catch (IOException e) {
+            throw new CassandraSearchException("Unable to write the search results", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Results are cached per tenant, identified by the user the cluster is connected as and by the
+     * name and configured hosts of the cluster, which stay the same across connections
+     */
+    private String getResultCacheTenant(Cluster cluster) {
+        Map<String, String> credentials = cluster.getCredentials();
+        String userName = credentials != null ? credentials.get("username") : null;
+        return CassandraUtils.getClusterKey(cluster) + "/" + (userName != null ? userName : "");
+    }
+
+    /**
+     * Newer events can only be added to cached results which were not cut at the limit, and only
+     * when every condition has to hold, so that the events of the cached results still match. The
+     * newer events are searched by their timestamp, so every stream needs a Timestamp index.
+     */
+    private boolean isTopUpPossible(Cluster cluster, Keyspace indexKeyspace, SearchResultCache.Entry cachedEntry,
+                                    Map<String, List<Filter>> streamFiltersMap) throws CassandraSearchException {
+        if (!cachedEntry.isComplete() || cachedEntry.isImmutable()) {
+            return false;
+        }
+        for (Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+            IndexDefinition indexDefinition = getIndexDefinition(cluster, indexKeyspace, entry.getKey());
+            if (indexDefinition == null ||
+                    indexDefinition.getAttributeTypeforProperty(SearchConstants.TIMESTAMP_PROPERTY) == null) {
+                return false;
+            }
+            for (Filter filter : entry.getValue()) {
+                if (OperationType.OR.equals(filter.getJoinOp()) ||
+                        (SearchConstants.TIMESTAMP_PROPERTY.equals(filter.getProperty()) &&
+                                SearchConstants.EQ.equals(filter.getOperator()))) {
+                    return false;
                 }
+            }
+        }
+        return true;
+    }
 
-                eventList.addAll(eventListForStream.size() > limit ? eventListForStream.subList(0, limit) : eventListForStream);
+    /**
+     * @return filters of the streams with the lower time bound raised to the events which may have
+     * arrived since the cached results were searched, allowing for events arriving late
+     */
+    private Map<String, List<Filter>> getTopUpStreamFiltersMap(Map<String, List<Filter>> streamFiltersMap,
+                                                               SearchResultCache.Entry cachedEntry)
+            throws CassandraSearchException {
+        long topUpStart = Math.min(cachedEntry.getNewestTimestamp(),
+                cachedEntry.getSearchedTime() - SearchConstants.SEARCH_RESULT_LATE_EVENT_WINDOW);
+
+        Map<String, List<Filter>> topUpFiltersMap = new LinkedHashMap<String, List<Filter>>();
+        for (Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+            List<Filter> filters = entry.getValue();
+            if (topUpStart <= TimeWindow.ofStream(filters).getStart()) {
+                topUpFiltersMap.put(entry.getKey(), filters);
+                continue;
+            }
+
+            List<Filter> topUpFilters = new ArrayList<Filter>(filters.size() + 1);
+            for (Filter filter : filters) {
+                if (!(SearchConstants.TIMESTAMP_PROPERTY.equals(filter.getProperty()) &&
+                        (SearchConstants.GT.equals(filter.getOperator()) ||
+                                SearchConstants.GE.equals(filter.getOperator())))) {
+                    topUpFilters.add(filter);
+                }
             }
+            topUpFilters.add(new Filter(SearchConstants.TIMESTAMP_PROPERTY, SearchConstants.GE,
+                    TimestampCodec.formatForQuery(topUpStart), OperationType.AND));
+            topUpFiltersMap.put(entry.getKey(), topUpFilters);
+        }
+        return topUpFiltersMap;
+    }
+
+    private List<Event> mergeTopUpResults(List<Event> cachedResults, List<Event> topUpResults, int limit) {
+        Map<String, Event> mergedEvents = new LinkedHashMap<String, Event>();
+        for (Event event : cachedResults) {
+            mergedEvents.put(event.getStream() + "\n" + event.getRowId(), event);
+        }
+        for (Event event : topUpResults) {
+            mergedEvents.put(event.getStream() + "\n" + event.getRowId(), event);
+        }
 
-            Events events = new Events();
-            events.setResults(eventList);
-            return gson.toJson(events);
+        List<Event> mergedResults = new ArrayList<Event>(mergedEvents.values());
+        Collections.sort(mergedResults, EVENT_TIMESTAMP_ORDER);
+        return mergedResults.size() > limit ? new ArrayList<Event>(mergedResults.subList(0, limit)) : mergedResults;
+    }
+
+    /**
+     * Returns a page of event search results. The first page is requested without a cursor, the
+     * following pages with the cursor returned with the previous page.
+     */
+    public RowPage getEventSearchResultPageFromCluster(Cluster cluster,
+                                                       String query,
+                                                       String cursor,
+                                                       int sizeLimit)
+            throws CassandraSearchException {
+        SearchPage<org.wso2.carbon.cassandra.search.data.Row> searchPage =
+                searchPage(cluster, query, cursor, sizeLimit, SearchType.ROW, ROW_TIMESTAMP_ORDER);
+        List<org.wso2.carbon.cassandra.search.data.Row> rowList = searchPage.result.getResults();
+
+        RowPage rowPage = new RowPage();
+        rowPage.setRows(rowList.toArray(new org.wso2.carbon.cassandra.search.data.Row[rowList.size()]));
+        rowPage.setNextCursor(searchPage.getNextCursor(rowList));
+        return rowPage;
+    }
+
+    public RowPage getEventSearchResultPage(String query,
+                                            String cursor,
+                                            int sizeLimit)
+            throws CassandraSearchException {
+        Cluster cluster = ConnectionManager.getClusterFromSession();
+
+        return getEventSearchResultPageFromCluster(cluster, query, cursor, sizeLimit);
+    }
+
+    public String getEventSearchResultPageAsJson(Cluster cluster,
+                                                 String query,
+                                                 String cursor,
+                                                 int sizeLimit)
+            throws CassandraSearchException {
+        try {
+            StringWriter writer = new StringWriter();
+            writeEventSearchResultPageAsJson(cluster, query, cursor, sizeLimit,
+                    new JsonResultWriter(writer, CassandraUtils.getJsonResultByteLimit()));
+            return writer.toString();
         } catch (CassandraSearchException e) {
             log.debug(e.getMessage(), e);
             return gson.toJson(new Events());
+        } catch (IOException e) {
+            log.debug(e.getMessage(), e);
+            return gson.toJson(new Events());
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #getEventSearchResultPageAsJson(Cluster, String, String, int)}.
+     * The page is merged on the row keys and timestamps of the matching events, and the events are
+     * then fetched in batches and written as each batch arrives. The next cursor continues after the
+     * last event written, also when the output has been truncated.
+     */
+    public void writeEventSearchResultPageAsJson(Cluster cluster,
+                                                 String query,
+                                                 String cursor,
+                                                 int sizeLimit,
+                                                 final JsonResultWriter resultWriter)
+            throws CassandraSearchException, IOException {
+        SearchPage<org.wso2.carbon.cassandra.search.data.Row> searchPage =
+                searchPage(cluster, query, cursor, sizeLimit, SearchType.ROW, ROW_TIMESTAMP_ORDER);
+        final List<org.wso2.carbon.cassandra.search.data.Row> rowList = searchPage.result.getResults();
+
+        Map<org.wso2.carbon.cassandra.search.data.Row, String> rowColumnFamilies =
+                new IdentityHashMap<org.wso2.carbon.cassandra.search.data.Row, String>();
+        for (Map.Entry<String, List<org.wso2.carbon.cassandra.search.data.Row>> entry :
+                searchPage.result.getStreamResults().entrySet()) {
+            String primaryCFName = CassandraUtils.convertStreamNameToCFName(entry.getKey());
+            for (org.wso2.carbon.cassandra.search.data.Row row : entry.getValue()) {
+                rowColumnFamilies.put(row, primaryCFName);
+            }
+        }
+
+        final List<String> columnFamilies = new ArrayList<String>(rowList.size());
+        List<String> rowKeys = new ArrayList<String>(rowList.size());
+        for (org.wso2.carbon.cassandra.search.data.Row row : rowList) {
+            columnFamilies.add(rowColumnFamilies.get(row));
+            rowKeys.add(row.getRowId());
+        }
+
+        final Cluster eventCluster = cluster;
+        final Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        final List<org.wso2.carbon.cassandra.search.data.Row> writtenRows =
+                new ArrayList<org.wso2.carbon.cassandra.search.data.Row>(rowList.size());
+
+        resultWriter.beginObject();
+        resultWriter.beginResults("results");
+        getRowBatchFetcher(eventKeyspace).fetchAllColumns(columnFamilies, rowKeys,
+                CassandraUtils.getRowFetchThreadPoolSize(), new RowBatchFetcher.BatchHandler() {
+            public boolean handleBatch(int offset, List<List<HColumn<ByteBuffer, ByteBuffer>>> columns)
+                    throws CassandraSearchException {
+                try {
+                    for (int i = 0; i < columns.size(); i++) {
+                        org.wso2.carbon.cassandra.search.data.Row row = rowList.get(offset + i);
+                        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(eventCluster, eventKeyspace,
+                                columnFamilies.get(offset + i));
+                        if (!resultWriter.writeResult(getEvent(columnFamilyInfo, row.getRowId(), columns.get(i)))) {
+                            return false;
+                        }
+                        writtenRows.add(row);
+                    }
+                } catch (IOException e) {
+                    throw new CassandraSearchException("Unable to write the search results", e);
+                }
+                return resultWriter.isAcceptingResults();
+            }
+        });
+        if (writtenRows.size() < rowList.size()) {
+            resultWriter.markTruncated();
         }
+        resultWriter.endResults();
+
+        resultWriter.writeProperty("nextCursor", searchPage.getNextCursor(writtenRows));
+        if (searchPage.result.isPartial()) {
+            resultWriter.writeProperty("timedOutStreams", searchPage.result.getTimedOutStreams());
+            resultWriter.writeProperty("failedStreams", searchPage.result.getFailedStreams());
+        }
+        resultWriter.endObject();
     }
 
     public Activity[] getActivitySearchResultsFromCluster(Cluster cluster,
@@ -265,7 +524,7 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
         if(streamFiltersMap.containsKey("*")) {
-            modifyStreamFiltersMap(indexKeyspace, streamFiltersMap);
+            modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
         }
 
         int streamFiltersCount = 0;
@@ -278,7 +537,7 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                     (Set<String>) getResultsRowsForStream(ConnectionManager.getClusterFromSession(),
                             eventKeyspace, indexKeyspace,
                             streamName, null, Integer.MAX_VALUE,
-                            streamFiltersMap.get(streamName), SearchType.ACTIVITY);
+                            streamFiltersMap.get(streamName), SearchType.ACTIVITY, null, false);
 
             if (resultRowSet != null) {
                 if(streamFiltersCount == 0) {
@@ -295,8 +554,12 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             allActivityIDList = allActivityIDList.subList(0, limit);
         }
 
+        Map<String, ActivitySummary> summaries = getActivitySummaryResolver(cluster, eventKeyspace, indexKeyspace)
+                .resolveTimeSpans(allActivityIDList);
         for(String activityID : allActivityIDList) {
-            activityList.add(getActivity(indexKeyspace, activityID));
+            ActivitySummary summary = summaries.get(activityID);
+            activityList.add(summary != null ?
+                    new Activity(activityID, summary.getStartTime(), summary.getEndTime()) : new Activity(activityID));
         }
 
         Activity activities[] = new Activity[allActivityIDSet.size()];
@@ -317,72 +580,112 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                                                  int sizeLimit)
             throws CassandraSearchException {
         try {
-            int limit;
-            boolean isSuccessStatusSearch = false;
-            limit = sizeLimit < SearchConstants.MAX_ACTIVITY_SEARCH_RESULTS ?
-                    sizeLimit : SearchConstants.MAX_ACTIVITY_SEARCH_RESULTS;
-            List<ActivityInfo> activityList= new ArrayList<ActivityInfo>();
-            Set<String> allActivityIDSet   = new LinkedHashSet<String>();
-            List<String> allActivityIDList = new ArrayList<String>();
+            StringWriter writer = new StringWriter();
+            writeActivitySearchResultsAsJson(cluster, query, sizeLimit,
+                    new JsonResultWriter(writer, CassandraUtils.getJsonResultByteLimit()));
+            return writer.toString();
+        } catch (Exception e) {
+            log.debug(e.getMessage(), e);
+            return gson.toJson(new Activities());
+        }
+    }
 
-            StatementParser statementParser = new StatementParser();
-            Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
+    /**
+     * Streaming variant of {@link #getActivitySearchResultsAsJson(Cluster, String, int)} which
+     * writes every activity as soon as it has been looked up.
+     */
+    public void writeActivitySearchResultsAsJson(Cluster cluster,
+                                                 String query,
+                                                 int sizeLimit,
+                                                 JsonResultWriter resultWriter)
+            throws CassandraSearchException, IOException {
+        int limit = sizeLimit < SearchConstants.MAX_ACTIVITY_SEARCH_RESULTS ?
+                sizeLimit : SearchConstants.MAX_ACTIVITY_SEARCH_RESULTS;
 
-            if (cluster == null) {
-                throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
-            }
+        List<String> allActivityIDList = searchActivityIDs(cluster, query);
 
-            Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
-            Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
+        Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
-            if(streamFiltersMap.containsKey("*")) {
-                isSuccessStatusSearch = isSuccessActivityLookup(streamFiltersMap.get("*"));
-                modifyStreamFiltersMap(indexKeyspace, streamFiltersMap);
+        int end = Math.min(limit, allActivityIDList.size());
+
+        ActivitySummaryResolver summaryResolver = getActivitySummaryResolver(cluster, eventKeyspace, indexKeyspace);
+
+        resultWriter.beginObject();
+        resultWriter.beginResults("activities");
+        int position = 0;
+        while (position < end && resultWriter.isAcceptingResults()) {
+            //activities are summarized batch by batch, so that a truncated page does not read them all
+            List<String> batch = allActivityIDList.subList(position,
+                    Math.min(position + CassandraUtils.getRowFetchBatchSize(), end));
+            Map<String, ActivitySummary> summaries = summaryResolver.resolve(batch);
+            for (String activityID : batch) {
+                if (!resultWriter.isAcceptingResults()) {
+                    break;
+                }
+                resultWriter.writeResult(getActivityInfo(activityID, summaries.get(activityID)));
+                position++;
             }
+        }
+        if (position < end) {
+            resultWriter.markTruncated();
+        }
+        resultWriter.endResults();
+        resultWriter.endObject();
+    }
 
-            int streamFiltersCount = 0;
+    /**
+     * @return IDs of the activities matching the query
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> searchActivityIDs(Cluster cluster, String query) throws CassandraSearchException {
+        boolean isSuccessStatusSearch = false;
+        Set<String> allActivityIDSet   = new LinkedHashSet<String>();
+        List<String> allActivityIDList = new ArrayList<String>();
 
-            for(Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
-                //todo - now just adding all results - discuss about intersection depending on correlation
-                String streamName   = entry.getKey();
-                OperationType joinOp= streamFiltersMap.get(streamName).get(0).getJoinOp();
-
-                Set<String> resultRowSet =
-                        (Set<String>) getResultsRowsForStream(cluster,
-                                eventKeyspace, indexKeyspace,
-                                streamName, null, Integer.MAX_VALUE,
-                                streamFiltersMap.get(streamName), SearchType.ACTIVITY);
-
-                if (resultRowSet != null) {
-                    if(streamFiltersCount == 0) {
-                        allActivityIDSet = resultRowSet;
-                    } else {
-                        allActivityIDSet = getMergedActivitySet(allActivityIDSet, resultRowSet, joinOp);
-                    }
-                }
-                streamFiltersCount++;
-            }
-            allActivityIDList.addAll(allActivityIDSet);
+        StatementParser statementParser = new StatementParser();
+        Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
 
-            if(isSuccessStatusSearch) {
-                allActivityIDList = dropFaultyActivities(cluster, allActivityIDList);
-            }
+        if (cluster == null) {
+            throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
+        }
 
-            if(allActivityIDList.size() > limit) {
-                allActivityIDList = allActivityIDList.subList(0, limit);
-            }
+        Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
+
+        if(streamFiltersMap.containsKey("*")) {
+            isSuccessStatusSearch = isSuccessActivityLookup(streamFiltersMap.get("*"));
+            modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
+        }
+
+        int streamFiltersCount = 0;
 
-            for(String activityID : allActivityIDList) {
-                activityList.add(getActivityInfo(eventKeyspace, indexKeyspace, activityID));
+        for(Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+            //todo - now just adding all results - discuss about intersection depending on correlation
+            String streamName   = entry.getKey();
+            OperationType joinOp= streamFiltersMap.get(streamName).get(0).getJoinOp();
+
+            Set<String> resultRowSet =
+                    (Set<String>) getResultsRowsForStream(cluster,
+                            eventKeyspace, indexKeyspace,
+                            streamName, null, Integer.MAX_VALUE,
+                            streamFiltersMap.get(streamName), SearchType.ACTIVITY, null, false);
+
+            if (resultRowSet != null) {
+                if(streamFiltersCount == 0) {
+                    allActivityIDSet = resultRowSet;
+                } else {
+                    allActivityIDSet = getMergedActivitySet(allActivityIDSet, resultRowSet, joinOp);
+                }
             }
+            streamFiltersCount++;
+        }
+        allActivityIDList.addAll(allActivityIDSet);
 
-            Activities activities = new Activities();
-            activities.setActivities(activityList);
-            return gson.toJson(activities);
-        } catch (Exception e) {
-            log.debug(e.getMessage(), e);
-            return gson.toJson(new Activities());
+        if(isSuccessStatusSearch) {
+            allActivityIDList = dropFaultyActivities(cluster, allActivityIDList);
         }
+        return allActivityIDList;
     }
 
     public org.wso2.carbon.cassandra.search.data.Row[] getEventsForActivityFromCluster(Cluster cluster, String activityID)
@@ -398,40 +701,23 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
-        SliceQuery<String, String, String> sliceQuery =
-                HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF).setKey(activityID);
-        sliceQuery.setRange(null, null, false, Integer.MAX_VALUE);
-
-        QueryResult<ColumnSlice<String,String>> result = null;
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException e) {
-            throw new CassandraSearchException(e.getMessage(), e);
-        }
-
-        for (HColumn<String, String> column : result.get().getColumns()) {
-            resultEvents.add(column.getName());
-        }
+        resultEvents.addAll(getActivityIndexColumns(indexKeyspace, activityID));
 
         if(resultEvents.isEmpty()) {
             return null;
         }
 
-        List<String> resultRowKeys = new ArrayList<String>();
-        for(String event : resultEvents) {
-            int firstColon = event.indexOf(':');
-            int lastColon  = event.lastIndexOf(':');
-            String rowKey  = event.substring(firstColon + 1, lastColon);
-            String columnFamily = event.substring(lastColon + 1);
-            if(resultRowKeys.size() > 0) {
-                resultRowKeys.set(0, rowKey);
-            } else {
-                resultRowKeys.add(rowKey);
-            }
+        //group the row keys by column family so that each column family is fetched in batches
+        Map<String, List<String>> cfRowKeysMap = getRowKeysByColumnFamily(resultEvents);
+        Map<String, Iterator<org.wso2.carbon.cassandra.search.data.Row>> cfRowsMap =
+                new HashMap<String, Iterator<org.wso2.carbon.cassandra.search.data.Row>>();
+        for (Map.Entry<String, List<String>> entry : cfRowKeysMap.entrySet()) {
+            cfRowsMap.put(entry.getKey(), getRowsFromRowKeys(cluster, eventKeyspace, entry.getKey(),
+                    entry.getValue()).iterator());
+        }
 
-            rowList.addAll(getRowsFromRowKeys(cluster, eventKeyspace, columnFamily, resultRowKeys));
+        for(String event : resultEvents) {
+            rowList.add(cfRowsMap.get(event.substring(event.lastIndexOf(':') + 1)).next());
         }
         org.wso2.carbon.cassandra.search.data.Row rows[] =
                 new org.wso2.carbon.cassandra.search.data.Row[rowList.size()];
@@ -450,16 +736,85 @@ public class CassandraSearchAdmin extends AbstractAdmin {
     public String getEventsForActivityAsJson(Cluster cluster,
                                              String activityID)
             throws CassandraSearchException {
+        StringWriter writer = new StringWriter();
+        try {
+            writeEventsForActivityAsJson(cluster, activityID,
+                    new JsonResultWriter(writer, CassandraUtils.getJsonResultByteLimit()));
+        } catch (IOException e) {
+            throw new CassandraSearchException("Unable to write the events of the activity", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Streaming variant of {@link #getEventsForActivityAsJson(Cluster, String)} which fetches the
+     * events of the activity in batches and writes them as each batch arrives.
+     */
+    public void writeEventsForActivityAsJson(Cluster cluster,
+                                             String activityID,
+                                             final JsonResultWriter resultWriter)
+            throws CassandraSearchException, IOException {
         if (cluster == null) {
             throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
         }
 
-        List<String> resultEvents = new ArrayList<String>();
-        List<ActivityEvent> events = new ArrayList<ActivityEvent>();
-
-        Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        final Cluster eventCluster = cluster;
+        final Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
+        List<String> resultEvents = getActivityIndexColumns(indexKeyspace, activityID);
+        final List<String> columnFamilies = new ArrayList<String>(resultEvents.size());
+        final List<String> rowKeys = new ArrayList<String>(resultEvents.size());
+        for (String event : resultEvents) {
+            rowKeys.add(event.substring(event.indexOf(':') + 1, event.lastIndexOf(':')));
+            columnFamilies.add(event.substring(event.lastIndexOf(':') + 1));
+        }
+
+        resultWriter.beginObject();
+        resultWriter.writeProperty("id", activityID);
+        String startTime = "";
+        String endTime = "";
+        if (!resultEvents.isEmpty()) {
+            String startingColumn = resultEvents.get(0);
+            String endingColumn   = resultEvents.get(resultEvents.size() - 1);
+            startTime = getTimestampString(Long.parseLong(startingColumn.substring(0, startingColumn.indexOf(':'))));
+            endTime = getTimestampString(Long.parseLong(endingColumn.substring(0, endingColumn.indexOf(':'))));
+        }
+        resultWriter.writeProperty("startTime", startTime);
+        resultWriter.writeProperty("endTime", endTime);
+
+        resultWriter.beginResults("events");
+        getRowBatchFetcher(eventKeyspace).fetchAllColumns(columnFamilies, rowKeys,
+                CassandraUtils.getRowFetchThreadPoolSize(), new RowBatchFetcher.BatchHandler() {
+            public boolean handleBatch(int offset, List<List<HColumn<ByteBuffer, ByteBuffer>>> columns)
+                    throws CassandraSearchException {
+                try {
+                    for (int i = 0; i < columns.size(); i++) {
+                        ActivityEvent activityEvent = getDetailedEventOfActivity(eventCluster, eventKeyspace,
+                                columnFamilies.get(offset + i), rowKeys.get(offset + i), columns.get(i));
+                        activityEvent.setIndex(offset + i);
+                        if (!resultWriter.writeResult(activityEvent)) {
+                            return false;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new CassandraSearchException("Unable to write the events of the activity", e);
+                }
+                return resultWriter.isAcceptingResults();
+            }
+        });
+        if (resultWriter.getResultCount() < resultEvents.size()) {
+            resultWriter.markTruncated();
+        }
+        resultWriter.endResults();
+        resultWriter.endObject();
+    }
+
+    /**
+     * @return the activity index columns (timestamp:rowKey:columnFamily) of the activity, in time order
+     */
+    private List<String> getActivityIndexColumns(Keyspace indexKeyspace, String activityID)
+            throws CassandraSearchException {
         SliceQuery<String, String, String> sliceQuery =
                 HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
                         STRING_SERIALIZER);
@@ -473,35 +828,11 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             throw new CassandraSearchException(e.getMessage(), e);
         }
 
-        ActivityEvents activityEvents = new ActivityEvents(activityID);
-
-        if (result.get().getColumns().size() > 0) {
-            String startingColumn = result.get().getColumns().get(0).getName();
-            String endingColumn   = result.get().getColumns().get(result.get().getColumns().size() - 1).getName();
-            activityEvents.setStartTime(getTimestampString
-                    (Long.parseLong(startingColumn.substring(0, startingColumn.indexOf(':')))));
-            activityEvents.setEndTime(getTimestampString
-                    (Long.parseLong(endingColumn.substring(0, startingColumn.indexOf(':')))));
-
-            for (HColumn<String, String> column : result.get().getColumns()) {
-                resultEvents.add(column.getName());
-            }
-        }
-
-        for(int i = 0; i < resultEvents.size(); i++) {
-            String event = resultEvents.get(i);
-            int firstColon = event.indexOf(':');
-            int lastColon  = event.lastIndexOf(':');
-            String rowKey  = event.substring(firstColon + 1, lastColon);
-            String columnFamily = event.substring(lastColon + 1);
-            ActivityEvent activityEvent = getDetailedEventOfActivity(cluster, eventKeyspace, columnFamily, rowKey);
-            activityEvent.setIndex(i);
-            events.add(activityEvent);
+        List<String> indexColumns = new ArrayList<String>(result.get().getColumns().size());
+        for (HColumn<String, String> column : result.get().getColumns()) {
+            indexColumns.add(column.getName());
         }
-
-        activityEvents.setEvents(events);
-
-        return gson.toJson(activityEvents);
+        return indexColumns;
     }
 
     public Column[] getColumnInformationForRowFromCluster(Cluster cluster,
@@ -562,8 +893,8 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
                     getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
 
-            key = cleanNonXmlChars(key);
-            value = cleanNonXmlChars(value);
+            key = CassandraUtils.cleanNonXmlChars(key);
+            value = CassandraUtils.cleanNonXmlChars(value);
 
             column.setName(key);
             column.setValue(value);
@@ -591,7 +922,7 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
             if(streamFiltersMap.containsKey("*")) {
-                modifyStreamFiltersMap(indexKeyspace, streamFiltersMap);
+                modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
             }
             if(streamFiltersMap.isEmpty()) {
                 return false;
@@ -601,12 +932,14 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                 String streamName= entry.getKey();
                 List<Filter> filterList = streamFiltersMap.get(streamName);
 
-                IndexDefinition indexDef   = getIndexDefinition(indexKeyspace, streamName);
+                IndexDefinition indexDef   = getIndexDefinition(cluster, indexKeyspace, streamName);
                 if(indexDef == null) {
                     return false;
                 }
 
                 SearchQuery searchQuery = new SearchQuery(indexDef);
+                searchQuery.setNGramIndexedProperties(getSearchableNGramIndexedProperties(cluster, indexKeyspace,
+                        streamName));
                 searchQuery.buildQuery(filterList);
 
                 if(!searchQuery.isValidQuery()) {
@@ -625,6 +958,115 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return isValidQuery(cluster, query);
     }
 
+    /**
+     * Returns the plan of the search of each stream of the query, with the index lookups in the
+     * order they are joined and the estimated number of index columns each one scans. Nothing
+     * but index columns is read.
+     *
+     * @param limit number of results the query would be run with
+     */
+    public QueryPlan[] explainQueryFromCluster(Cluster cluster, String query, int limit)
+            throws CassandraSearchException {
+        if (cluster == null) {
+            throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
+        }
+
+        StatementParser statementParser = new StatementParser();
+        Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
+        Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
+
+        if(streamFiltersMap.containsKey("*")) {
+            modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
+        }
+
+        int costLimit = CassandraUtils.getQueryCostLimit();
+        QueryCostEstimator estimator = new QueryCostEstimator(indexKeyspace,
+                Math.max(SearchConstants.QUERY_COST_SAMPLE_LIMIT, getQueryCostSampleLimit(costLimit)));
+
+        List<QueryPlan> plans = new ArrayList<QueryPlan>();
+        for (Map.Entry<String, List<Filter>> entry : streamFiltersMap.entrySet()) {
+            String streamName = entry.getKey();
+            List<Filter> filterList = entry.getValue();
+
+            IndexDefinition indexDef = getIndexDefinition(cluster, indexKeyspace, streamName);
+            SearchQuery searchQuery = null;
+            if (indexDef != null) {
+                searchQuery = new SearchQuery(indexDef);
+                searchQuery.setNGramIndexedProperties(getSearchableNGramIndexedProperties(cluster, indexKeyspace,
+                        streamName));
+                searchQuery.buildQuery(filterList);
+            }
+
+            QueryPlan plan;
+            if (searchQuery != null && searchQuery.isValidQuery()) {
+                searchQuery.organizeSearchFilters();
+                plan = estimator.plan(streamName, searchQuery, indexDef, limit,
+                        searchQuery.isMultiQuery() && searchQuery.isConjunctive());
+                plan.setRejected(costLimit > 0 && plan.getEstimatedCost() > costLimit);
+            } else {
+                plan = new QueryPlan();
+                plan.setStreamName(streamName);
+            }
+
+            String[] filters = new String[filterList.size()];
+            for (int i = 0; i < filterList.size(); i++) {
+                filters[i] = QueryCostEstimator.describe(Collections.singletonList(filterList.get(i)));
+            }
+            plan.setFilters(filters);
+            plan.setCostLimit(costLimit);
+            plans.add(plan);
+        }
+        return plans.toArray(new QueryPlan[plans.size()]);
+    }
+
+    public QueryPlan[] explainQuery(String query, int limit) throws CassandraSearchException {
+        Cluster cluster = ConnectionManager.getClusterFromSession();
+        return explainQueryFromCluster(cluster, query, limit);
+    }
+
+    /**
+     * Drops the cached index definitions of all clusters, so that the next search reloads them.
+     */
+    public void invalidateIndexDefinitionCache() {
+        IndexDefinitionCache.invalidateAll();
+    }
+
+    /**
+     * Drops the cached column family metadata of all keyspaces, so that it is described again.
+     */
+    public void invalidateColumnFamilyCache() {
+        ColumnFamilyInfoCache.invalidateAll();
+    }
+
+    public CacheStatistics[] getIndexDefinitionCacheStatistics() {
+        List<CacheStatistics> statisticsList = IndexDefinitionCache.getAllStatistics();
+        return statisticsList.toArray(new CacheStatistics[statisticsList.size()]);
+    }
+
+    public CacheStatistics[] getColumnFamilyCacheStatistics() {
+        List<CacheStatistics> statisticsList = ColumnFamilyInfoCache.getAllStatistics();
+        return statisticsList.toArray(new CacheStatistics[statisticsList.size()]);
+    }
+
+    /**
+     * Drops the cached event search results of all tenants
+     */
+    public void invalidateSearchResultCache() {
+        SearchResultCache.getInstance().invalidate();
+    }
+
+    public CacheStatistics getSearchResultCacheStatistics() {
+        return SearchResultCache.getInstance().getStatistics();
+    }
+
+    public CacheStatistics getCompiledQueryCacheStatistics() {
+        return CompiledQueryCache.getInstance().getStatistics();
+    }
+
+    public IndexScanStatistics getIndexScanStatistics() {
+        return IndexScanMetrics.getInstance().getStatistics();
+    }
+
     public String getStreamDefinitionsListAsJson(Cluster cluster) throws CassandraSearchException {
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
@@ -649,7 +1091,9 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
         for (Row<String, String, String> cassandraRow : result.get().getList()) {
             String streamName = cassandraRow.getKey();
-            streams.addStream(streamName);
+            if (!streamName.equals(SearchConstants.INDEX_DEF_VERSION_ROW_KEY)) {
+                streams.addStream(streamName);
+            }
         }
         return gson.toJson(streams);
     }
@@ -741,12 +1185,175 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return gson.toJson(streamProperties);
     }
 
-    private void modifyStreamFiltersMap(Keyspace indexKeyspace,
+    /**
+     * Searches the streams of the query concurrently and merges their results into the first
+     * sizeLimit results of all streams in the given order. Unless paged, each stream of a multi
+     * stream search returns its first results in time, so that the merged results are the first
+     * results in time over all streams. Pages keep the index order of each stream, so the pages of
+     * streams searched on an index other than the timestamp are merged in time only page by page.
+     *
+     * @param states paging state of each stream for cursor based paging, null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private <T> MultiStreamSearchExecutor.Result<T> searchStreams(final Cluster cluster,
+                                                                  final Keyspace eventKeyspace,
+                                                                  final Keyspace indexKeyspace,
+                                                                  Map<String, List<Filter>> streamFiltersMap,
+                                                                  final String lastSearchRowKey,
+                                                                  int sizeLimit,
+                                                                  final SearchType searchType,
+                                                                  Comparator<T> order,
+                                                                  final Map<String, StreamSearchState> states)
+            throws CassandraSearchException {
+        final boolean timestampOrder = states == null && lastSearchRowKey == null && streamFiltersMap.size() > 1;
+        MultiStreamSearchExecutor<T> searchExecutor = new MultiStreamSearchExecutor<T>(
+                SearchExecutors.getStreamSearchExecutor(), CassandraUtils.getStreamSearchTimeout());
+
+        MultiStreamSearchExecutor.Result<T> result = searchExecutor.execute(streamFiltersMap,
+                new MultiStreamSearchExecutor.StreamSearch<T>() {
+                    public List<T> search(String streamName, List<Filter> filters, int limit)
+                            throws CassandraSearchException {
+                        List<T> resultsForStream = (List<T>) getResultsRowsForStream(cluster, eventKeyspace,
+                                indexKeyspace, streamName, lastSearchRowKey, limit, filters, searchType,
+                                states != null ? states.get(streamName) : null, timestampOrder);
+                        if (resultsForStream != null && resultsForStream.size() > limit) {
+                            return resultsForStream.subList(0, limit);
+                        }
+                        return resultsForStream;
+                    }
+                }, order, sizeLimit);
+
+        if (result.isPartial()) {
+            log.warn("Returning partial search results. Timed out streams: " + result.getTimedOutStreams()
+                    + ", failed streams: " + result.getFailedStreams());
+        }
+        return result;
+    }
+
+    /**
+     * Runs a cursor based event search. Only the streams which still have results according to the
+     * cursor are searched, each continuing the index scan from its position in the cursor. Joined
+     * searches and searches with contains filters can not continue an index scan, so they are
+     * rejected rather than searched again in full for every page.
+     */
+    private <T> SearchPage<T> searchPage(Cluster cluster,
+                                         String query,
+                                         String cursor,
+                                         int sizeLimit,
+                                         SearchType searchType,
+                                         Comparator<T> order) throws CassandraSearchException {
+        if (cluster == null) {
+            throw new CassandraSearchException(SearchConstants.ERR_NO_CLUSTER_AVAILABLE);
+        }
+
+        StatementParser statementParser = new StatementParser();
+        Map<String, List<Filter>> streamFiltersMap = statementParser.extractFilters(query);
+        SearchCursor searchCursor = getSearchCursor(query, cursor);
+
+        Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
+
+        if(streamFiltersMap.containsKey("*")) {
+            modifyStreamFiltersMap(cluster, indexKeyspace, streamFiltersMap);
+        }
+
+        Map<String, StreamSearchState> states = new LinkedHashMap<String, StreamSearchState>();
+        Iterator<String> streamNames = streamFiltersMap.keySet().iterator();
+        while (streamNames.hasNext()) {
+            String streamName = streamNames.next();
+            IndexDefinition indexDef = getIndexDefinition(cluster, indexKeyspace, streamName);
+            if (indexDef != null && !getSearchQuery(cluster, indexKeyspace, streamName, indexDef,
+                    streamFiltersMap.get(streamName)).isIndexScanContinuable()) {
+                throw new CassandraSearchException("Search on stream " + streamName + " can not be paged with a " +
+                        "cursor, since it joins several filters or has contains filters. Search without a cursor.");
+            }
+
+            if (searchCursor == null) {
+                states.put(streamName, new StreamSearchState(null));
+            } else if (searchCursor.getStreamPosition(streamName) != null) {
+                states.put(streamName, new StreamSearchState(searchCursor.getStreamPosition(streamName)));
+            } else {
+                //no more results for the stream
+                streamNames.remove();
+            }
+        }
+
+        MultiStreamSearchExecutor.Result<T> result = searchStreams(cluster, eventKeyspace, indexKeyspace,
+                streamFiltersMap, null, sizeLimit, searchType, order, states);
+
+        return new SearchPage<T>(QueryParser.normalize(query), result, states);
+    }
+
+    private SearchCursor getSearchCursor(String query, String cursor) throws CassandraSearchException {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        SearchCursor searchCursor = SearchCursor.decode(cursor);
+        if (!searchCursor.getQuery().equals(QueryParser.normalize(query))) {
+            throw new CassandraSearchException("Search cursor does not belong to the search query.");
+        }
+        return searchCursor;
+    }
+
+    /**
+     * Places the position of each stream after its last result in the page. Results of a stream
+     * are returned in index order, so the position is moved only over the results which made it
+     * into the returned page. Failed and timed out streams are reported with the page and are not
+     * searched again.
+     *
+     * @param returnedResults results of the merged page which have been returned to the client
+     * @return the cursor of the next page, or null if none of the streams has further results
+     */
+    private static <T> SearchCursor getNextSearchCursor(String query,
+                                                        MultiStreamSearchExecutor.Result<T> result,
+                                                        Map<String, StreamSearchState> states,
+                                                        List<T> returnedResults) {
+        Set<Object> pageResults = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        pageResults.addAll(returnedResults);
+
+        SearchCursor nextSearchCursor = new SearchCursor(query);
+        for (Map.Entry<String, StreamSearchState> entry : states.entrySet()) {
+            String streamName = entry.getKey();
+            StreamSearchState state = entry.getValue();
+            List<T> resultsForStream = result.getStreamResults().get(streamName);
+
+            if (resultsForStream == null || resultsForStream.isEmpty()) {
+                continue;
+            }
+
+            SearchCursor.StreamPosition position = state.getStartPosition() != null ?
+                    state.getStartPosition() : new SearchCursor.StreamPosition();
+            boolean allResultsReturned = true;
+            for (T streamResult : resultsForStream) {
+                if (!pageResults.contains(streamResult)) {
+                    allResultsReturned = false;
+                    break;
+                }
+                SearchCursor.StreamPosition rowKeyPosition = state.getRowKeyPosition(getRowKey(streamResult));
+                if (rowKeyPosition != null) {
+                    position = rowKeyPosition;
+                }
+            }
+
+            if (!(allResultsReturned && state.isExhausted())) {
+                nextSearchCursor.setStreamPosition(streamName, position);
+            }
+        }
+        return nextSearchCursor.getStreams().isEmpty() ? null : nextSearchCursor;
+    }
+
+    private static String getRowKey(Object searchResult) {
+        return searchResult instanceof Event ? ((Event) searchResult).getRowId() :
+                ((org.wso2.carbon.cassandra.search.data.Row) searchResult).getRowId();
+    }
+
+    private void modifyStreamFiltersMap(Cluster cluster,
+                                        Keyspace indexKeyspace,
                                         Map<String, List<Filter>> streamFiltersMap)
             throws CassandraSearchException {
         List<Filter> allStreamFiltersList = streamFiltersMap.remove("*");
-        //todo : add this info to cache(with expiration) to avoid loading every time.
-        Map<String, IndexDefinition> indexDefinitionMap = getAllIndexDefinitionsFromCassandra(indexKeyspace);
+        Map<String, IndexDefinition> indexDefinitionMap = getAllIndexDefinitionsFromCassandra(cluster, indexKeyspace);
 
         for(Map.Entry<String, IndexDefinition> entry : indexDefinitionMap.entrySet()) {
             String streamName = entry.getKey();
@@ -793,6 +1400,10 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
     }
 
+    /**
+     * @param timestampOrder true to return the first rows in time rather than the first rows in the
+     *                       order of the index searched
+     */
     private Object getResultsRowsForStream(Cluster cluster,
                                            Keyspace eventKeyspace,
                                            Keyspace indexKeyspace,
@@ -800,11 +1411,13 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                                            String lastSearchRowKey,
                                            int limit,
                                            List<Filter> filterList,
-                                           SearchType searchType)
+                                           SearchType searchType,
+                                           StreamSearchState state,
+                                           boolean timestampOrder)
             throws CassandraSearchException {
         List<String> resultRowKeys = null;
 
-        IndexDefinition indexDef   = getIndexDefinition(indexKeyspace, streamName);
+        IndexDefinition indexDef   = getIndexDefinition(cluster, indexKeyspace, streamName);
 
         //todo proper exception handling
         if(indexDef == null) {
@@ -813,13 +1426,21 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
         String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
 
-        SearchQuery searchQuery = new SearchQuery(indexDef);
-        searchQuery.buildQuery(filterList);
+        SearchQuery searchQuery = getSearchQuery(cluster, indexKeyspace, streamName, indexDef, filterList);
 
-        if(!searchQuery.isValidQuery()) {
-            throw new CassandraSearchException(SearchConstants.ERR_INVALID_SEARCH_QUERY);
-        } else {
-            searchQuery.organizeSearchFilters();
+        //rows found in another order are searched up to a bound and then ordered by their timestamps
+        int rowsInIndexOrder = limit;
+        if (timestampOrder && !searchQuery.isTimestampOrdered()) {
+            limit = Math.max(limit, SearchConstants.TIMESTAMP_ORDER_ROW_LIMIT + 1);
+        }
+        planStreamSearch(indexKeyspace, streamName, searchQuery, indexDef, limit, state);
+
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(indexKeyspace,
+                CassandraUtils.getIndexScanMinPageSize(), CassandraUtils.getIndexScanMaxPageSize());
+
+        List<String> nGramRowKeys = null;
+        if(!searchQuery.getNGramFilters().isEmpty()) {
+            nGramRowKeys = getRowKeysForNGramFilters(indexKeyspace, primaryCFName, searchQuery.getNGramFilters());
         }
 
         List<String> nonFixedProperties = searchQuery.getSearchProperties();
@@ -827,7 +1448,9 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         DynamicComposite startRange = new DynamicComposite();
         DynamicComposite endRange   = new DynamicComposite();
 
-        if(!searchQuery.isHasNonFixProps()) {
+        if(searchQuery.isNGramOnlyQuery()) {
+            resultRowKeys = nGramRowKeys;
+        } else if(!searchQuery.isHasNonFixProps()) {
             if(fixedSearchProperties == null ) {
                 throw new CassandraSearchException(SearchConstants.ERR_INVALID_SEARCH_QUERY);
             }
@@ -838,13 +1461,14 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                 String propertyName = fixedSearchProperties.get(fixedSearchProperties.size() - 1);
                 String indexCFName  = CassandraUtils.getCustomIndexCFName(primaryCFName, propertyName);
                 List<Filter> filtersList = searchQuery.getAllFiltersMap().get(propertyName);
-                resultRowKeys = getSearchRowKeysForFilter(indexKeyspace, eventKeyspace, indexCFName,
+                resultRowKeys = getSearchRowKeysForFilter(eventKeyspace, indexCFName,
                         primaryCFName, filtersList,indexDef, searchQuery, startRange, endRange,
                         !searchQuery.isContainsSearchExists() ? limit : Integer.MAX_VALUE,
-                        fixedSearchProperties, lastSearchRowKey);
+                        fixedSearchProperties, lastSearchRowKey,
+                        !searchQuery.isContainsSearchExists() ? state : null, scanner, null);
             } else {
-                resultRowKeys = getJoinedResultList(indexKeyspace, primaryCFName, indexDef,
-                        searchQuery, startRange,endRange, fixedSearchProperties);
+                resultRowKeys = getJoinedResultList(primaryCFName, indexDef, searchQuery, startRange, endRange,
+                        fixedSearchProperties, getJoinedResultLimit(searchQuery, limit), scanner);
             }
 
         } else {
@@ -859,22 +1483,47 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                 String indexCFName  = CassandraUtils.getCustomIndexCFName(primaryCFName, propertyName);
                 List<Filter> filtersList = searchQuery.getAllFiltersMap().get(propertyName);
 
-                resultRowKeys = getSearchRowKeysForFilter(indexKeyspace, eventKeyspace, indexCFName,
+                resultRowKeys = getSearchRowKeysForFilter(eventKeyspace, indexCFName,
                         primaryCFName, filtersList,indexDef, searchQuery, startRange, endRange,
                         !searchQuery.isContainsSearchExists() ? limit : Integer.MAX_VALUE,
-                        fixedSearchProperties, lastSearchRowKey);
+                        fixedSearchProperties, lastSearchRowKey,
+                        !searchQuery.isContainsSearchExists() ? state : null, scanner, null);
             } else {
-                resultRowKeys = getJoinedResultList(indexKeyspace, primaryCFName, indexDef,
-                        searchQuery, startRange,endRange, fixedSearchProperties);
+                resultRowKeys = getJoinedResultList(primaryCFName, indexDef, searchQuery, startRange, endRange,
+                        fixedSearchProperties, getJoinedResultLimit(searchQuery, limit), scanner);
             }
 
         }
 
+        if(nGramRowKeys != null && resultRowKeys != null && !searchQuery.isNGramOnlyQuery()) {
+            resultRowKeys = RowKeySetOperations.intersection(resultRowKeys, nGramRowKeys);
+        }
+
         if(searchQuery.isContainsSearchExists()) {
             resultRowKeys = getJoinedResultListForContainsSearch(cluster, eventKeyspace, primaryCFName,
                     indexDef, searchQuery, resultRowKeys);
         }
 
+        if (limit > rowsInIndexOrder) {
+            if (resultRowKeys != null && resultRowKeys.size() > SearchConstants.TIMESTAMP_ORDER_ROW_LIMIT) {
+                log.warn("Search on stream " + streamName + " matches more than " +
+                        SearchConstants.TIMESTAMP_ORDER_ROW_LIMIT + " rows, returning its first rows in index order " +
+                        "instead of its first rows in time");
+                resultRowKeys = new ArrayList<String>(resultRowKeys.subList(0, rowsInIndexOrder));
+            } else if (resultRowKeys != null && resultRowKeys.size() > rowsInIndexOrder) {
+                resultRowKeys = getFirstRowKeysInTime(cluster, eventKeyspace, primaryCFName, resultRowKeys,
+                        rowsInIndexOrder);
+            }
+            limit = rowsInIndexOrder;
+        }
+
+        IndexScanMetrics.getInstance().record(scanner, resultRowKeys != null ? resultRowKeys.size() : 0);
+        if (log.isDebugEnabled()) {
+            log.debug("Search on stream " + streamName + " scanned " + scanner.getScannedColumnCount() +
+                    " index columns in " + scanner.getSliceCount() + " slices for " +
+                    (resultRowKeys != null ? resultRowKeys.size() : 0) + " rows");
+        }
+
         if(resultRowKeys != null && !resultRowKeys.isEmpty()) {
             switch (searchType) {
                 case ROW:
@@ -887,7 +1536,109 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                     return null;
             }
         }
-        return null;
+        return null;
+    }
+
+    private SearchQuery getSearchQuery(Cluster cluster,
+                                       Keyspace indexKeyspace,
+                                       String streamName,
+                                       IndexDefinition indexDef,
+                                       List<Filter> filterList) throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery(indexDef);
+        searchQuery.setNGramIndexedProperties(getSearchableNGramIndexedProperties(cluster, indexKeyspace, streamName));
+        searchQuery.buildQuery(filterList);
+
+        if(!searchQuery.isValidQuery()) {
+            throw new CassandraSearchException(SearchConstants.ERR_INVALID_SEARCH_QUERY);
+        } else {
+            searchQuery.organizeSearchFilters();
+        }
+        return searchQuery;
+    }
+
+    /**
+     * @return the first limit row keys by the timestamps of their rows, rows of the same time in
+     * the given order
+     */
+    private List<String> getFirstRowKeysInTime(Cluster cluster,
+                                               Keyspace keyspace,
+                                               String primaryCFName,
+                                               List<String> rowKeys,
+                                               int limit) throws CassandraSearchException {
+        CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace, primaryCFName);
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList = getRowBatchFetcher(keyspace).fetchColumns(
+                primaryCFName, rowKeys, STRING_SERIALIZER.toByteBuffer(SearchConstants.TIMESTAMP_PROPERTY));
+
+        final long[] timestamps = new long[rowKeys.size()];
+        List<Integer> positions = new ArrayList<Integer>(rowKeys.size());
+        for (int i = 0; i < rowKeys.size(); i++) {
+            //rows without a timestamp are placed last
+            timestamps[i] = Long.MAX_VALUE;
+            for (HColumn<ByteBuffer, ByteBuffer> hColumn : rowColumnsList.get(i)) {
+                timestamps[i] = Long.parseLong(CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                        getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes()));
+            }
+            positions.add(i);
+        }
+
+        Collections.sort(positions, new Comparator<Integer>() {
+            public int compare(Integer position1, Integer position2) {
+                return timestamps[position1] < timestamps[position2] ? -1 :
+                        (timestamps[position1] == timestamps[position2] ? 0 : 1);
+            }
+        });
+
+        List<String> firstRowKeys = new ArrayList<String>(Math.min(limit, rowKeys.size()));
+        for (Integer position : positions.subList(0, Math.min(limit, positions.size()))) {
+            firstRowKeys.add(rowKeys.get(position));
+        }
+        return firstRowKeys;
+    }
+
+    /**
+     * Orders the joins of the filters by their estimated rows and rejects searches estimated to scan
+     * more index columns than the configured limit. Paged searches keep the order of the filters,
+     * since the order of the joined row keys depends on it. Searches which can not scan more than
+     * the limit are not estimated.
+     */
+    private void planStreamSearch(Keyspace indexKeyspace,
+                                  String streamName,
+                                  SearchQuery searchQuery,
+                                  IndexDefinition indexDef,
+                                  int limit,
+                                  StreamSearchState state) throws CassandraSearchException {
+        int costLimit = CassandraUtils.getQueryCostLimit();
+        boolean checkCost = costLimit > 0 &&
+                !(limit <= costLimit && QueryCostEstimator.isCostBoundedByLimit(searchQuery));
+        boolean orderJoins = state == null && searchQuery.isMultiQuery() && searchQuery.getSubFilters().size() > 1
+                && searchQuery.isConjunctive();
+        if (!checkCost && !orderJoins) {
+            return;
+        }
+
+        //the join order only needs the relative sizes of the filters
+        int sampleLimit = checkCost ? getQueryCostSampleLimit(costLimit) : SearchConstants.JOIN_ORDER_SAMPLE_LIMIT;
+        QueryPlan plan = new QueryCostEstimator(indexKeyspace, sampleLimit).plan(streamName, searchQuery, indexDef,
+                limit, orderJoins);
+        if (checkCost && plan.getEstimatedCost() > costLimit) {
+            throw new CassandraSearchException("Search on stream " + streamName + " is estimated to scan more than "
+                    + costLimit + " index columns. Narrow down the query.");
+        }
+    }
+
+    /**
+     * @return number of index columns to count for estimates, enough to tell whether the cost limit is exceeded
+     */
+    private static int getQueryCostSampleLimit(int costLimit) {
+        return costLimit < Integer.MAX_VALUE ? costLimit + 1 : costLimit;
+    }
+
+    /**
+     * @return number of row keys a joined search has to find
+     */
+    private int getJoinedResultLimit(SearchQuery searchQuery, int limit) {
+        //contains filters are applied after the joins and may drop any of the joined row keys
+        return searchQuery.isContainsSearchExists() ? Integer.MAX_VALUE : limit;
     }
 
     private void prepareRangeQueries(DynamicComposite startRange,
@@ -935,8 +1686,7 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
     }
 
-    private List<String> getSearchRowKeysForFilter(Keyspace indexKeyspace,
-                                                   Keyspace eventKeyspace,
+    private List<String> getSearchRowKeysForFilter(Keyspace eventKeyspace,
                                                    String indexCFName,
                                                    String primaryCFName,
                                                    List<Filter> filterList,
@@ -946,7 +1696,10 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                                                    DynamicComposite endRange,
                                                    int limit,
                                                    List<String> fixedSearchProperties,
-                                                   String lastSearchRowKey) throws CassandraSearchException {
+                                                   String lastSearchRowKey,
+                                                   StreamSearchState state,
+                                                   AdaptiveIndexScanner scanner,
+                                                   Set<String> rowKeyFilter) throws CassandraSearchException {
         String propertyName = filterList.get(0).getProperty();
         List<String> resultRowKeys = new ArrayList<String>();
         List<Filter> timestampFilters = searchQuery.getTimestampFilter();
@@ -957,6 +1710,8 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         }
 
         boolean isLastRowKeyProvided = lastSearchRowKey != null && !lastSearchRowKey.isEmpty();
+        SearchCursor.StreamPosition startPosition = state != null ? state.getStartPosition() : null;
+        ByteBuffer startAfterColumn = startPosition != null ? startPosition.getLastColumn() : null;
 
         //Has only one operation on property. Equality Operation found. So we can directly add to above range query
         if(filterList.size() == 1 && filterList.get(0).getOperator().equals(SearchConstants.EQ)) {
@@ -998,15 +1753,14 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                 addTimeStampFilterForPaging(timestampFilters, startRange, endRange, timeStart, startRange.size());
             }
 
-            addResultRowKeys(indexKeyspace, indexCFName, startRange, endRange, limit,
-                    indexDef, fixedSearchProperties, attributeType, resultRowKeys);
+            addResultRowKeys(scanner, indexCFName, startRange, endRange, limit,
+                    resultRowKeys, rowKeyFilter, startAfterColumn, 0, state);
 
         } else {
             //range query on property has to be performed. So another range should be defined
             String comparator     = CassandraUtils.getComparator(attributeType);
             Serializer serializer = CassandraUtils.getSerializer(comparator);
-            List<Object> valueList= getRangeValueListForFilter(indexKeyspace, indexCFName, propertyName, filterList, attributeType);
-            int resultCount       = 0;
+            List<Object> valueList= getRangeValueListForFilter(scanner, indexCFName, propertyName, filterList, attributeType);
             int nextComponentPosition = startRange.size();
 
             if (!isLastRowKeyProvided) {
@@ -1014,7 +1768,9 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                         AbstractComposite.ComponentEquality.EQUAL :
                         AbstractComposite.ComponentEquality.GREATER_THAN_EQUAL;
 
-                for(Object val : valueList) {
+                int firstValueIndex = startPosition != null ? startPosition.getValueIndex() : 0;
+                for(int i = firstValueIndex; i < valueList.size(); i++) {
+                    Object val = valueList.get(i);
                     if(!(serializer instanceof DoubleSerializer)) {
                         startRange.setComponent(nextComponentPosition,
                                 val,
@@ -1039,10 +1795,11 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
                     addTimeStampFilters(timestampFilters, startRange, endRange, nextComponentPosition + 1);
 
-                    addResultRowKeys(indexKeyspace, indexCFName, startRange, endRange,
-                            limit - resultRowKeys.size(), indexDef, fixedSearchProperties, attributeType, resultRowKeys);
+                    addResultRowKeys(scanner, indexCFName, startRange, endRange,
+                            limit - resultRowKeys.size(), resultRowKeys, rowKeyFilter,
+                            i == firstValueIndex ? startAfterColumn : null, i, state);
 
-                    if(resultCount >= resultRowKeys.size()) {
+                    if(resultRowKeys.size() >= limit) {
                         break;
                     }
                 }
@@ -1087,61 +1844,59 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                     addTimeStampFilterForPaging(timestampFilters, startRange, endRange,
                             timeStart, nextComponentPosition + 1);
 
-                    addResultRowKeys(indexKeyspace, indexCFName, startRange, endRange,
-                            limit - resultRowKeys.size(), indexDef, fixedSearchProperties, attributeType, resultRowKeys);
-                    if(resultCount >= resultRowKeys.size()) {
+                    addResultRowKeys(scanner, indexCFName, startRange, endRange,
+                            limit - resultRowKeys.size(), resultRowKeys, rowKeyFilter, null, i, null);
+                    if(resultRowKeys.size() >= limit) {
                         break;
                     }
                 }
             }
         }
+
+        if (state != null) {
+            state.setExhausted(resultRowKeys.size() < limit);
+        }
         return resultRowKeys;
     }
 
-    //todo remove unwanted method parameters after testing completed
-    private List<String> addResultRowKeys(Keyspace indexKeyspace,
+    /**
+     * Adds the row keys of the index columns in the given range to resultRowKeys. If startAfterColumn
+     * is given the scan continues after that index column instead of the start of the range.
+     *
+     * @param rowKeyFilter row keys to accept, null to accept all. Rejected row keys do not count
+     *                     towards the limit.
+     */
+    private List<String> addResultRowKeys(AdaptiveIndexScanner scanner,
                                           String indexCFName,
                                           DynamicComposite startRange,
                                           DynamicComposite endRange,
                                           int limit,
-                                          IndexDefinition indexDef,
-                                          List<String> fixedSearchProperties,
-                                          AttributeType attributeType,
-                                          List<String> resultRowKeys) throws CassandraSearchException{
-        SliceQuery<String, DynamicComposite, String> sliceQuery =
-                HFactory.createSliceQuery(indexKeyspace,
-                        STRING_SERIALIZER,
-                        DYNAMIC_COMPOSITE_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(indexCFName);
-        sliceQuery.setKey(SearchConstants.CUSTOM_INDEX_ROWS_KEY);
-
-        sliceQuery.setRange(startRange, endRange, false, limit);
-
-        QueryResult<ColumnSlice<DynamicComposite, String>> result = null;
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException e) {
-            throw new CassandraSearchException(e.getMessage(), e);
-        }
-        ColumnSlice<DynamicComposite, String> dcs = result.get();
-        for ( HColumn<DynamicComposite, String> col: dcs.getColumns() ) {
-//            int columnKeyPosition = 0;
-            String columnValue = col.getValue();
-//            StringBuilder columnKey = new StringBuilder();
-//
-//            for(String fixProperty : fixedSearchProperties) {
-//                columnKey.append(col.getName().get(columnKeyPosition++,
-//                        CassandraUtils.getSerializer(CassandraUtils.getComparator
-//                                (indexDef.getAttributeTypeforProperty(fixProperty))
-//                        ))).append(":");
-//            }
-//            columnKey.append(col.getName().get(columnKeyPosition++,
-//                    CassandraUtils.getSerializer(CassandraUtils.getComparator(attributeType)))).append(":");
-//            columnKey.append(col.getName().get(columnKeyPosition++, LongSerializer.get()));
-
-            resultRowKeys.add(columnValue);
-        }
+                                          final List<String> resultRowKeys,
+                                          final Set<String> rowKeyFilter,
+                                          ByteBuffer startAfterColumn,
+                                          final int valueIndex,
+                                          final StreamSearchState state) throws CassandraSearchException {
+        if (limit <= 0) {
+            return resultRowKeys;
+        }
+
+        scanner.scan(indexCFName, SearchConstants.CUSTOM_INDEX_ROWS_KEY,
+                DYNAMIC_COMPOSITE_SERIALIZER.toByteBuffer(startRange),
+                DYNAMIC_COMPOSITE_SERIALIZER.toByteBuffer(endRange),
+                startAfterColumn, limit, new AdaptiveIndexScanner.ColumnHandler() {
+                    public boolean handleColumn(HColumn<ByteBuffer, String> column) {
+                        String columnValue = column.getValue();
+                        if (rowKeyFilter != null && !rowKeyFilter.contains(columnValue)) {
+                            return false;
+                        }
+                        resultRowKeys.add(columnValue);
+                        if (state != null) {
+                            state.setRowKeyPosition(columnValue,
+                                    new SearchCursor.StreamPosition(valueIndex, column.getName()));
+                        }
+                        return true;
+                    }
+                });
         return resultRowKeys;
     }
 
@@ -1216,7 +1971,7 @@ public class CassandraSearchAdmin extends AbstractAdmin {
                         AbstractComposite.ComponentEquality.GREATER_THAN_EQUAL);
     }
 
-    private List<Object> getRangeValueListForFilter(Keyspace indexKeyspace,
+    private List<Object> getRangeValueListForFilter(AdaptiveIndexScanner scanner,
                                                     String indexCFName,
                                                     String propertyName,
                                                     List<Filter> filterList,
@@ -1286,28 +2041,19 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             }
 
             //search here
-            SliceQuery<String, DynamicComposite, String> sliceQuery =
-                    HFactory.createSliceQuery(indexKeyspace,
-                            STRING_SERIALIZER,
-                            DYNAMIC_COMPOSITE_SERIALIZER,
-                            STRING_SERIALIZER);
-            sliceQuery.setColumnFamily(indexCFName);
-            sliceQuery.setKey(SearchConstants.CUSTOM_INDEX_VALUE_ROW_KEY);
-
-            sliceQuery.setRange(startRange, endRange, false, Integer.MAX_VALUE);
-
-            QueryResult<ColumnSlice<DynamicComposite, String>> result = null;
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraSearchException(exception.getMessage(), exception);
-            }
-
-            ColumnSlice<DynamicComposite, String> dcs = result.get();
-            valueList = new ArrayList<Object>();
-            for (HColumn<DynamicComposite, String> col: dcs.getColumns()) {
-                valueList.add(col.getName().get(0, serializer)) ;
-            }
+            final Serializer valueSerializer = serializer;
+            final List<Object> values = new ArrayList<Object>();
+            scanner.scan(indexCFName, SearchConstants.CUSTOM_INDEX_VALUE_ROW_KEY,
+                    DYNAMIC_COMPOSITE_SERIALIZER.toByteBuffer(startRange),
+                    DYNAMIC_COMPOSITE_SERIALIZER.toByteBuffer(endRange),
+                    null, Integer.MAX_VALUE, new AdaptiveIndexScanner.ColumnHandler() {
+                        public boolean handleColumn(HColumn<ByteBuffer, String> column) {
+                            values.add(DYNAMIC_COMPOSITE_SERIALIZER.fromByteBuffer(column.getName())
+                                    .get(0, valueSerializer));
+                            return true;
+                        }
+                    });
+            valueList = values;
         } catch (CassandraSearchException e) {
             throw new CassandraSearchException(e.getMessage(), e);
         } catch (ClassCastException e) {
@@ -1317,34 +2063,48 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return valueList;
     }
 
-    private List<String> getJoinedResultList(Keyspace indexKeyspace,
-                                             String primaryCFName,
+    /**
+     * Joins the row keys of the sub filters from left to right. Sub filters joined by AND only
+     * accept the row keys joined so far, so the scan of the last one can stop at the limit.
+     *
+     * @param limit number of row keys needed after the joins
+     */
+    private List<String> getJoinedResultList(String primaryCFName,
                                              IndexDefinition indexDef,
                                              SearchQuery searchQuery,
                                              DynamicComposite startRange,
                                              DynamicComposite endRange,
-                                             List<String> fixedSearchProperties)
+                                             List<String> fixedSearchProperties,
+                                             int limit,
+                                             AdaptiveIndexScanner scanner)
             throws CassandraSearchException {
-        int subFilterCount = 0;
+        List<List<Filter>> subFilters = searchQuery.getSubFilters();
         List<String> allResultRowKeys = new ArrayList<String>();
         int originalRangeSize = startRange.size();
-        for(List<Filter> subFilter : searchQuery.getSubFilters()) {
+        for(int subFilterCount = 0; subFilterCount < subFilters.size(); subFilterCount++) {
+            List<Filter> subFilter = subFilters.get(subFilterCount);
             String propertyName  = subFilter.get(0).getProperty();
             String indexCFName   = CassandraUtils.getCustomIndexCFName(primaryCFName, propertyName);
             OperationType joinOp = subFilter.get(0).getJoinOp();
+            //the first filter of a query has no join operation, it is intersected when the joins are reordered
+            boolean isIntersection = subFilterCount > 0 && joinOp != OperationType.OR;
+
+            if(isIntersection && allResultRowKeys.isEmpty()) {
+                continue;
+            }
 
-            List<String> resultRowKeys = getSearchRowKeysForFilter(indexKeyspace, null, indexCFName, null, subFilter,
-                    indexDef, searchQuery, startRange, endRange, Integer.MAX_VALUE, fixedSearchProperties, null);
+            Set<String> rowKeyFilter = isIntersection ? new HashSet<String>(allResultRowKeys) : null;
+            boolean isLastSubFilter = subFilterCount == subFilters.size() - 1;
+            List<String> resultRowKeys = getSearchRowKeysForFilter(null, indexCFName, null, subFilter,
+                    indexDef, searchQuery, startRange, endRange,
+                    isIntersection && isLastSubFilter ? limit : Integer.MAX_VALUE,
+                    fixedSearchProperties, null, null, scanner, rowKeyFilter);
 
-            if(subFilterCount == 0) {
+            if(subFilterCount == 0 || isIntersection) {
                 allResultRowKeys = resultRowKeys;
             } else {
-                allResultRowKeys = joinOp == OperationType.AND
-                        ? intersection(allResultRowKeys, resultRowKeys)
-                        : union(allResultRowKeys, resultRowKeys);
-
+                allResultRowKeys = RowKeySetOperations.union(allResultRowKeys, resultRowKeys);
             }
-            subFilterCount++;
 
             int newRangeSize = startRange.size();
             for(int i = newRangeSize; i > originalRangeSize; i--) {
@@ -1369,35 +2129,6 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return resultsKeySet;
     }
 
-    private List<String> union(List<String> list1, List<String> list2) {
-        Set<String> set = new HashSet<String>();
-
-        set.addAll(list1);
-        set.addAll(list2);
-
-        return new ArrayList<String>(set);
-    }
-
-    private List<String> intersection(List<String> list1, List<String> list2) {
-        List<String> list = new ArrayList<String>();
-
-        if (list1.size() < list2.size()) {
-            for (String t : list1) {
-                if(list2.contains(t)) {
-                    list.add(t);
-                }
-            }
-        } else {
-            for (String t : list2) {
-                if(list1.contains(t)) {
-                    list.add(t);
-                }
-            }
-        }
-
-        return list;
-    }
-
     private List<Filter> getModifiedTimeRangeFilters(List<Filter> originalFilters) {
         List<Filter> modifiedFilter = new ArrayList<Filter>();
         Filter filter1 = null;
@@ -1470,74 +2201,19 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return modifiedFilter;
     }
 
-    private Activity getActivity(Keyspace indexKeyspace, String activityID)
-            throws CassandraSearchException {
-        Activity activity = new Activity(activityID);
-
-        SliceQuery<String, String, String> sliceQuery =
-                HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF).setKey(activityID);
-        sliceQuery.setRange(null, null, false, Integer.MAX_VALUE);
-
-        QueryResult<ColumnSlice<String,String>> result = null;
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException e) {
-            throw new CassandraSearchException(e.getMessage(), e);
-        }
-
-        //TODO handle if results are empty
-        String startingColumn = result.get().getColumns().get(0).getName();
-        String endingColumn   = result.get().getColumns().get(result.get().getColumns().size() - 1).getName();
-        activity.setStartTime(Long.parseLong(startingColumn.substring(0, startingColumn.indexOf(':'))));
-        activity.setEndTime(Long.parseLong(endingColumn.substring(0, startingColumn.indexOf(':'))));
-
-        return activity;
-    }
-
-    private ActivityInfo getActivityInfo(Keyspace eventKeyspace, Keyspace indexKeyspace, String activityID)
+    private ActivityInfo getActivityInfo(String activityID, ActivitySummary summary)
             throws CassandraSearchException {
         ActivityInfo activityInfo = new ActivityInfo(activityID);
-
-        SliceQuery<String, String, String> sliceQuery =
-                HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF).setKey(activityID);
-        sliceQuery.setRange(null, null, false, Integer.MAX_VALUE);
-
-        QueryResult<ColumnSlice<String,String>> result = null;
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException e) {
-            throw new CassandraSearchException(e.getMessage(), e);
+        if (summary == null) {
+            activityInfo.setEventsCount("0");
+            return activityInfo;
         }
 
-        //TODO handle if results are empty
-        int eventsCount = result.get().getColumns().size();
-        String startingColumn = result.get().getColumns().get(0).getName();
-        String endingColumn   = result.get().getColumns().get(eventsCount - 1).getName();
-        long startTime        = Long.parseLong(startingColumn.substring(0, startingColumn.indexOf(':')));
-        long endTime          = Long.parseLong(endingColumn.substring(0, startingColumn.indexOf(':')));
-
-        activityInfo.setEventsCount(String.valueOf(eventsCount));
-        activityInfo.setStartTime(getTimestampString(startTime));
-        activityInfo.setEndTime(getTimestampString(endTime));
-        activityInfo.setElapsedTime(String.valueOf(endTime - startTime));
-
-        boolean isFaultyActivity = false;
-        for (HColumn<String, String> column : result.get().getColumns()) {
-            String event   = column.getName();
-            int firstColon = event.indexOf(':');
-            int lastColon  = event.lastIndexOf(':');
-            String rowKey  = event.substring(firstColon + 1, lastColon);
-            String columnFamily = event.substring(lastColon + 1);
-            if(!isStatusSuccessEvent(eventKeyspace, columnFamily, rowKey)) {
-                isFaultyActivity = true;
-                break;
-            }
-        }
-        activityInfo.setStatus(isFaultyActivity ? SearchConstants.STATUS_FAULT
+        activityInfo.setEventsCount(String.valueOf(summary.getEventCount()));
+        activityInfo.setStartTime(getTimestampString(summary.getStartTime()));
+        activityInfo.setEndTime(getTimestampString(summary.getEndTime()));
+        activityInfo.setElapsedTime(String.valueOf(summary.getEndTime() - summary.getStartTime()));
+        activityInfo.setStatus(summary.isFaulty() ? SearchConstants.STATUS_FAULT
                 : SearchConstants.STATUS_SUCCESS);
 
         return activityInfo;
@@ -1554,22 +2230,10 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
         Set<String> activitySet = new LinkedHashSet<String>();
 
-        SliceQuery<String, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
-                        BYTE_BUFFER_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-        sliceQuery.setColumnNames(STRING_SERIALIZER.toByteBuffer(SearchConstants.BAM_ACTIVITY_ID));
-
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result = null;
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList = getRowBatchFetcher(keyspace).fetchColumns(
+                primaryCFName, rowKeys, STRING_SERIALIZER.toByteBuffer(SearchConstants.BAM_ACTIVITY_ID));
 
-        for(String rowKey : rowKeys) {
-            sliceQuery.setKey(rowKey);
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraSearchException(exception.getMessage(), exception);
-            }
-            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = result.get().getColumns();
+        for(List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList : rowColumnsList) {
             for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
                 String columnName = STRING_SERIALIZER.fromByteBuffer(hColumn.getNameBytes());
 
@@ -1594,35 +2258,25 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         List<org.wso2.carbon.cassandra.search.data.Row> rowList =
                 new ArrayList<org.wso2.carbon.cassandra.search.data.Row>();
 
-        SliceQuery<String, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
-                        BYTE_BUFFER_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-        sliceQuery.setColumnNames(STRING_SERIALIZER.toByteBuffer(SearchConstants.TIMESTAMP_PROPERTY),
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList = getRowBatchFetcher(keyspace).fetchColumns(
+                primaryCFName, rowKeys,
+                STRING_SERIALIZER.toByteBuffer(SearchConstants.TIMESTAMP_PROPERTY),
                 STRING_SERIALIZER.toByteBuffer(SearchConstants.NAME_PROPERTY),
                 STRING_SERIALIZER.toByteBuffer(SearchConstants.VERSION_PROPERTY));
 
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result = null;
-
-        for(String rowKey : rowKeys) {
+        for(int i = 0; i < rowKeys.size(); i++) {
             org.wso2.carbon.cassandra.search.data.Row row =
                     new org.wso2.carbon.cassandra.search.data.Row();
-            row.setRowId(rowKey);
+            row.setRowId(rowKeys.get(i));
 
-            sliceQuery.setKey(rowKey);
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraSearchException(exception.getMessage(), exception);
-            }
-            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = result.get().getColumns();
+            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = rowColumnsList.get(i);
             for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
                 Column column = new Column();
-                column.setName(cleanNonXmlChars(CassandraUtils.getStringDeserialization(
+                column.setName(CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(
                         columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes())));
                 String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
                         getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
-                column.setValue(cleanNonXmlChars(value));
+                column.setValue(CassandraUtils.cleanNonXmlChars(value));
                 column.setTimeStamp(hColumn.getClock());
 
                 if (column.getName().equals(SearchConstants.TIMESTAMP_PROPERTY)) {
@@ -1649,91 +2303,66 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
         List<Event> eventList = new ArrayList<Event>();
 
-        SliceQuery<String, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
-                        BYTE_BUFFER_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-//        sliceQuery.setColumnNames(STRING_SERIALIZER.toByteBuffer(SearchConstants.TIMESTAMP_PROPERTY),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.NAME_PROPERTY),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.VERSION_PROPERTY),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.HOST_PROPERTY),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.BAM_ACTIVITY_ID),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.MESSAGE_PROPERTY),
-//                STRING_SERIALIZER.toByteBuffer(SearchConstants.MESSAGE_TYPE_PROPERTY));
-        sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, Integer.MAX_VALUE);
-
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result = null;
-
-        for(String rowKey : rowKeys) {
-            Event event = new Event();
-            event.setRowId(rowKey);
-
-            sliceQuery.setKey(rowKey);
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraSearchException(exception.getMessage(), exception);
-            }
-            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = result.get().getColumns();
-            for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
-                String columnName = cleanNonXmlChars(CassandraUtils.getStringDeserialization(
-                        columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes()));
-                String value = cleanNonXmlChars(CassandraUtils.getStringDeserialization(columnFamilyInfo.
-                        getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes()));
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList =
+                getRowBatchFetcher(keyspace).fetchAllColumns(primaryCFName, rowKeys);
 
-                if (columnName.equals(SearchConstants.TIMESTAMP_PROPERTY)) {
-                    event.setTimestamp(getTimestampString(Long.parseLong(value)));
-                } else if (columnName.equals(SearchConstants.NAME_PROPERTY)) {
-                    event.setStream(value);
-                } else if (columnName.equals(SearchConstants.VERSION_PROPERTY)) {
-                    event.setVersion(value);
-                } else if (columnName.equals(SearchConstants.HOST_PROPERTY)) {
-                    event.setHost(value);
-                } else if (columnName.equals(SearchConstants.BAM_ACTIVITY_ID)) {
-                    event.setActivityId(value);
-                } else if (columnName.equals(SearchConstants.MESSAGE_PROPERTY)) {
-                    event.setMessageBody(value);
-                } else if (columnName.equals(SearchConstants.MESSAGE_TYPE_PROPERTY)) {
-                    event.setMessageBodyType(value);
-                } else {
-                    //uncommenting below line will add every attribute to event obj
-//                    event.addColumnValue(columnName, value);
-                }
-            }
-            eventList.add(event);
+        for(int i = 0; i < rowKeys.size(); i++) {
+            eventList.add(getEvent(columnFamilyInfo, rowKeys.get(i), rowColumnsList.get(i)));
         }
         return eventList;
     }
 
+    private Event getEvent(CFInfo columnFamilyInfo,
+                           String rowKey,
+                           List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList)
+            throws CassandraSearchException {
+        Event event = new Event();
+        event.setRowId(rowKey);
+
+        for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
+            String columnName = CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(
+                    columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes()));
+            String value = CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(columnFamilyInfo.
+                    getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes()));
+
+            if (columnName.equals(SearchConstants.TIMESTAMP_PROPERTY)) {
+                event.setTimestampMillis(Long.parseLong(value));
+                event.setTimestamp(getTimestampString(event.getTimestampMillis()));
+            } else if (columnName.equals(SearchConstants.NAME_PROPERTY)) {
+                event.setStream(value);
+            } else if (columnName.equals(SearchConstants.VERSION_PROPERTY)) {
+                event.setVersion(value);
+            } else if (columnName.equals(SearchConstants.HOST_PROPERTY)) {
+                event.setHost(value);
+            } else if (columnName.equals(SearchConstants.BAM_ACTIVITY_ID)) {
+                event.setActivityId(value);
+            } else if (columnName.equals(SearchConstants.MESSAGE_PROPERTY)) {
+                event.setMessageBody(value);
+            } else if (columnName.equals(SearchConstants.MESSAGE_TYPE_PROPERTY)) {
+                event.setMessageBodyType(value);
+            } else {
+                //uncommenting below line will add every attribute to event obj
+//                event.addColumnValue(columnName, value);
+            }
+        }
+        return event;
+    }
+
     private ActivityEvent getDetailedEventOfActivity(Cluster cluster,
                                                      Keyspace keyspace,
                                                      String primaryCFName,
-                                                     String rowKey)
+                                                     String rowKey,
+                                                     List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList)
             throws CassandraSearchException {
         CFInfo columnFamilyInfo = CassandraUtils.getColumnFamilyInfo(cluster, keyspace,
                 primaryCFName);
 
         ActivityEvent activityEvent = new ActivityEvent(rowKey);
 
-        SliceQuery<String, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
-                        BYTE_BUFFER_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-        sliceQuery.setRange(emptyByteBuffer, emptyByteBuffer, false, Integer.MAX_VALUE);
-        sliceQuery.setKey(rowKey);
-
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result = null;
-
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException exception) {
-            throw new CassandraSearchException(exception.getMessage(), exception);
-        }
-        List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = result.get().getColumns();
         for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
-            String columnName = cleanNonXmlChars(CassandraUtils.getStringDeserialization(
+            String columnName = CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(
                     columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes()));
-            String value = cleanNonXmlChars(CassandraUtils.getStringDeserialization(columnFamilyInfo.
+            String value = CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(columnFamilyInfo.
                     getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes()));
 
             //todo:more conditions added with the requirement of displaying more columns in events screen. This should be handled in optimized manner
@@ -1794,8 +2423,8 @@ public class CassandraSearchAdmin extends AbstractAdmin {
             String value = CassandraUtils.getStringDeserialization(columnFamilyInfo.
                     getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
 
-            key = cleanNonXmlChars(key);
-            value = cleanNonXmlChars(value);
+            key = CassandraUtils.cleanNonXmlChars(key);
+            value = CassandraUtils.cleanNonXmlChars(value);
 
             if(key.equals(property) || key.equals(SearchConstants.TIMESTAMP_PROPERTY)) {
                 valueMap.put(key, value);
@@ -1805,111 +2434,14 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return valueMap;
     }
 
-    private Map<String, IndexDefinition> getAllIndexDefinitionsFromCassandra(Keyspace keyspace)
+    private Map<String, IndexDefinition> getAllIndexDefinitionsFromCassandra(Cluster cluster, Keyspace keyspace)
             throws CassandraSearchException {
-        boolean incrementalIndex = false;
-        Map<String, IndexDefinition> indexDefinitionMap = new HashMap<String, IndexDefinition>();
-
-        RangeSlicesQuery<String, String, String> rangeSlicesQuery =
-                HFactory.createRangeSlicesQuery(keyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        rangeSlicesQuery.setColumnFamily(SearchConstants.INDEX_DEF_CF);
-        rangeSlicesQuery.setKeys("", "");
-        rangeSlicesQuery.setColumnNames(SearchConstants.SECONDARY_INDEX_DEF,
-                SearchConstants.CUSTOM_INDEX_DEF, SearchConstants.FIXED_SEARCH_DEF,
-                SearchConstants.ARBITRARY_INDEX_DEF);
-        rangeSlicesQuery.setRowCount(Integer.MAX_VALUE);
-
-        QueryResult<OrderedRows<String, String, String>> result;
-
-        try {
-            result = rangeSlicesQuery.execute();
-        } catch (HectorException exception) {
-            throw new CassandraSearchException(exception.getMessage(), exception);
-        }
-
-        for (Row<String, String, String> cassandraRow : result.get().getList()) {
-            StringBuilder indexSB = new StringBuilder();
-            String secIndex  = "";
-            String custIndex = "";
-            String fixedIndex= "";
-            String arbitraryIndex= "";
-            String streamName = cassandraRow.getKey();
-
-            List<HColumn<String, String>> hColumnsList = cassandraRow.
-                    getColumnSlice().getColumns();
-            for (HColumn<String, String> hColumn : hColumnsList) {
-                String columnName = hColumn.getName();
-                if(columnName.equals(SearchConstants.SECONDARY_INDEX_DEF)) {
-                    secIndex = hColumn.getValue();
-                } else if(columnName.equals(SearchConstants.CUSTOM_INDEX_DEF)) {
-                    custIndex= hColumn.getValue();
-                } else if(columnName.equals(SearchConstants.FIXED_SEARCH_DEF)) {
-                    fixedIndex= hColumn.getValue();
-                } else if(columnName.equals(SearchConstants.ARBITRARY_INDEX_DEF)) {
-                    arbitraryIndex= hColumn.getValue();
-                }
-            }
-            if(secIndex.isEmpty() && custIndex.isEmpty()
-                    && fixedIndex.isEmpty() && arbitraryIndex.isEmpty()) {
-                continue;
-            }
-
-            IndexDefinition indexDefinition = new IndexDefinition();
-            indexDefinition.setIndexDataFromStore(indexSB.append(secIndex).append("|").
-                    append(custIndex).append("|").append(fixedIndex).append("|").
-                    append(incrementalIndex).append("|").append(arbitraryIndex).toString());
-            indexDefinitionMap.put(streamName, indexDefinition);
-        }
-
-        return indexDefinitionMap;
+        return IndexDefinitionCache.getInstance(cluster, keyspace).getAllIndexDefinitions(keyspace);
     }
 
-    private IndexDefinition getIndexDefinition(Keyspace indexKeyspace, String streamName)
+    private IndexDefinition getIndexDefinition(Cluster cluster, Keyspace indexKeyspace, String streamName)
             throws CassandraSearchException {
-        boolean incrementalIndex = false;
-        StringBuilder indexSB = new StringBuilder();
-        String secIndex  = "";
-        String custIndex = "";
-        String fixedIndex= "";
-        String arbitraryIndex= "";
-
-        SliceQuery<String, String, String> sliceQuery =
-                HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(SearchConstants.INDEX_DEF_CF).setKey(streamName);
-        sliceQuery.setColumnNames(SearchConstants.SECONDARY_INDEX_DEF,
-                SearchConstants.CUSTOM_INDEX_DEF,
-                SearchConstants.FIXED_SEARCH_DEF,
-                SearchConstants.ARBITRARY_INDEX_DEF);
-
-        QueryResult<ColumnSlice<String,String>> result = null;
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException e) {
-            throw new CassandraSearchException(e.getMessage(), e);
-        }
-
-        for (HColumn<String, String> column : result.get().getColumns()) {
-            if(column.getName().equals(SearchConstants.SECONDARY_INDEX_DEF)) {
-                secIndex = column.getValue();
-            } else if(column.getName().equals(SearchConstants.CUSTOM_INDEX_DEF)) {
-                custIndex= column.getValue();
-            } else if(column.getName().equals(SearchConstants.FIXED_SEARCH_DEF)) {
-                fixedIndex= column.getValue();
-            } else if(column.getName().equals(SearchConstants.ARBITRARY_INDEX_DEF)) {
-                arbitraryIndex= column.getValue();
-            }
-        }
-
-        if(secIndex.isEmpty() && custIndex.isEmpty()) {
-            return null;
-        }
-        IndexDefinition indexDefinition = new IndexDefinition();
-        indexDefinition.setIndexDataFromStore(indexSB.append(secIndex).append("|").
-                append(custIndex).append("|").append(fixedIndex).
-                append("|").append(incrementalIndex).append("|").append(arbitraryIndex).toString());
-        return indexDefinition;
+        return IndexDefinitionCache.getInstance(cluster, indexKeyspace).getIndexDefinition(indexKeyspace, streamName);
     }
 
     private List<String> getCustomIndexColumnsForStream(Keyspace indexKeyspace, String streamName)
@@ -1959,71 +2491,16 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         Keyspace eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
         Keyspace indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
 
-        outerLoop:
-        for(String activityID : allActivityIDList) {
-            SliceQuery<String, String, String> sliceQuery =
-                    HFactory.createSliceQuery(indexKeyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                            STRING_SERIALIZER);
-            sliceQuery.setColumnFamily(SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF).setKey(activityID);
-            sliceQuery.setRange(null, null, false, Integer.MAX_VALUE);
-
-            QueryResult<ColumnSlice<String,String>> result = null;
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException e) {
-                throw new CassandraSearchException(e.getMessage(), e);
-            }
-
-            if (result.get().getColumns().size() > 0) {
-                for (HColumn<String, String> column : result.get().getColumns()) {
-                    String event = column.getName();
-                    int firstColon = event.indexOf(':');
-                    int lastColon  = event.lastIndexOf(':');
-                    String rowKey  = event.substring(firstColon + 1, lastColon);
-                    String columnFamily = event.substring(lastColon + 1);
-                    if(!isStatusSuccessEvent(eventKeyspace, columnFamily, rowKey)) {
-                        continue outerLoop;
-                    }
-                }
-                modList.add(activityID);
+        Map<String, ActivitySummary> summaries =
+                getActivitySummaryResolver(cluster, eventKeyspace, indexKeyspace).resolve(allActivityIDList);
+        for (ActivitySummary summary : summaries.values()) {
+            if (!summary.isFaulty()) {
+                modList.add(summary.getActivityID());
             }
-
         }
         return modList;
     }
 
-    private boolean isStatusSuccessEvent(Keyspace keyspace,
-                                         String primaryCFName,
-                                         String rowKey)
-            throws CassandraSearchException {
-
-        SliceQuery<String, String, String> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, STRING_SERIALIZER,
-                        STRING_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-        sliceQuery.setRange(null, null, false, Integer.MAX_VALUE);
-        sliceQuery.setKey(rowKey);
-        sliceQuery.setColumnNames(SearchConstants.MESSAGE_TYPE_STATUS);
-
-        QueryResult<ColumnSlice<String, String>> result = null;
-
-        try {
-            result = sliceQuery.execute();
-        } catch (HectorException exception) {
-            throw new CassandraSearchException(exception.getMessage(), exception);
-        }
-        List<HColumn<String, String>> hColumnsList = result.get().getColumns();
-        for (HColumn<String, String> hColumn : hColumnsList) {
-            String columnName = hColumn.getName();
-
-            if (columnName.equals(SearchConstants.MESSAGE_TYPE_STATUS) ) {
-                return hColumn.getValue().equals(SearchConstants.STATUS_SUCCESS);
-            }
-        }
-
-        return true; //return true for events that are not having a status. Double check
-    }
-
     private List<String> getJoinedResultListForContainsSearch(Cluster cluster,
                                                               Keyspace keyspace,
                                                               String primaryCFName,
@@ -2045,9 +2522,10 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 //            if(subFilterCount == 0) {
 //                resultRowKeys = originalRowKeys;
 //            }
-            resultRowKeys = subFilter.getJoinOp().equals(OperationType.AND)
-                    ? intersection(intermediateRowKeys, resultRowKeys)
-                    : union(intermediateRowKeys, resultRowKeys);
+            //the first condition of a query has no join operation
+            resultRowKeys = !OperationType.OR.equals(subFilter.getJoinOp())
+                    ? RowKeySetOperations.intersection(intermediateRowKeys, resultRowKeys)
+                    : RowKeySetOperations.union(intermediateRowKeys, resultRowKeys);
 //            subFilterCount++;
         }
 
@@ -2055,6 +2533,40 @@ public class CassandraSearchAdmin extends AbstractAdmin {
 
     }
 
+    /**
+     * @return properties of the stream whose contains filters are answered from n-gram indexes, none
+     * unless the indexes have been enabled
+     */
+    private Set<String> getSearchableNGramIndexedProperties(Cluster cluster, Keyspace indexKeyspace,
+                                                            String streamName)
+            throws CassandraSearchException {
+        if (!CassandraUtils.isNGramIndexEnabled()) {
+            return Collections.emptySet();
+        }
+        return IndexDefinitionCache.getInstance(cluster, indexKeyspace)
+                .getSearchableNGramIndexedProperties(indexKeyspace, streamName);
+    }
+
+    /**
+     * @return row keys found in the n-gram indexes of all the filters. The rows still have to be
+     * verified against the filters since n-gram lookups return a superset of the matching rows.
+     */
+    private List<String> getRowKeysForNGramFilters(Keyspace indexKeyspace,
+                                                   String primaryCFName,
+                                                   List<Filter> nGramFilters)
+            throws CassandraSearchException {
+        List<String> resultRowKeys = null;
+        for(Filter filter : nGramFilters) {
+            List<String> rowKeys = new NGramIndex(indexKeyspace, primaryCFName, filter.getProperty())
+                    .getCandidateRowKeys(filter.getValue());
+            resultRowKeys = resultRowKeys == null ? rowKeys : RowKeySetOperations.intersection(resultRowKeys, rowKeys);
+            if(resultRowKeys.isEmpty()) {
+                break;
+            }
+        }
+        return resultRowKeys;
+    }
+
     private List<String> getResultRowsForContainsSearch(Keyspace keyspace,
                                                         String primaryCFName,
                                                         IndexDefinition indexDef,
@@ -2068,28 +2580,14 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         OperationType joinOp = subFilter.getJoinOp();
         String searchValue   = subFilter.getValue();
 
-        SliceQuery<String, ByteBuffer, ByteBuffer> sliceQuery =
-                HFactory.createSliceQuery(keyspace, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER,
-                        BYTE_BUFFER_SERIALIZER);
-        sliceQuery.setColumnFamily(primaryCFName);
-        sliceQuery.setColumnNames(STRING_SERIALIZER.toByteBuffer(propertyNameInCF));
-
-        QueryResult<ColumnSlice<ByteBuffer, ByteBuffer>> result = null;
-
-        for(String rowKey : originalRowKeys) {
-            org.wso2.carbon.cassandra.search.data.Row row =
-                    new org.wso2.carbon.cassandra.search.data.Row();
-            row.setRowId(rowKey);
+        List<List<HColumn<ByteBuffer, ByteBuffer>>> rowColumnsList = getRowBatchFetcher(keyspace).fetchColumns(
+                primaryCFName, originalRowKeys, STRING_SERIALIZER.toByteBuffer(propertyNameInCF));
 
-            sliceQuery.setKey(rowKey);
-            try {
-                result = sliceQuery.execute();
-            } catch (HectorException exception) {
-                throw new CassandraSearchException(exception.getMessage(), exception);
-            }
-            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = result.get().getColumns();
+        for(int i = 0; i < originalRowKeys.size(); i++) {
+            String rowKey = originalRowKeys.get(i);
+            List<HColumn<ByteBuffer, ByteBuffer>> hColumnsList = rowColumnsList.get(i);
             for (HColumn<ByteBuffer, ByteBuffer> hColumn : hColumnsList) {
-                String name = cleanNonXmlChars(CassandraUtils.getStringDeserialization(
+                String name = CassandraUtils.cleanNonXmlChars(CassandraUtils.getStringDeserialization(
                         columnFamilyInfo.getColumnCassandraSerializer(), hColumn.getNameBytes()));
                 String columnValue = CassandraUtils.getStringDeserialization(columnFamilyInfo.
                         getColumnValueCassandraSerializer(hColumn.getNameBytes()), hColumn.getValueBytes());
@@ -2110,42 +2608,74 @@ public class CassandraSearchAdmin extends AbstractAdmin {
         return resultRowKeys;
     }
 
-    private String cleanNonXmlChars(String value) {
-        String parsedString = "";
-        if (value != null) {
-            parsedString = value.replaceAll("[\\x00-\\x09\\x0B\\x0C\\x0E-\\x1F\\x7F]", " ");
+    private RowBatchFetcher getRowBatchFetcher(Keyspace keyspace) {
+        return new RowBatchFetcher(keyspace, CassandraUtils.getRowFetchBatchSize(),
+                SearchExecutors.getRowFetchExecutor());
+    }
+
+    private ActivitySummaryResolver getActivitySummaryResolver(Cluster cluster,
+                                                               Keyspace eventKeyspace,
+                                                               Keyspace indexKeyspace)
+            throws CassandraSearchException {
+        ActivitySummaryIndex summaryIndex = null;
+        if (CassandraUtils.isActivitySummaryEnabled()) {
+            ActivitySummaryIndex.createColumnFamilyIfAbsent(cluster, indexKeyspace);
+            summaryIndex = new ActivitySummaryIndex();
         }
-        if (parsedString.trim().isEmpty()) {
-            parsedString = "***Non displayable value***";
+        return new ActivitySummaryResolver(eventKeyspace, indexKeyspace, CassandraUtils.getRowFetchBatchSize(),
+                SearchExecutors.getRowFetchExecutor(), summaryIndex);
+    }
+
+    /**
+     * Groups the row keys of activity index columns (timestamp:rowKey:columnFamily) by column family,
+     * keeping the order in which the row keys appear.
+     */
+    private Map<String, List<String>> getRowKeysByColumnFamily(List<String> activityEvents) {
+        Map<String, List<String>> cfRowKeysMap = new LinkedHashMap<String, List<String>>();
+        for(String event : activityEvents) {
+            int firstColon = event.indexOf(':');
+            int lastColon  = event.lastIndexOf(':');
+            String rowKey  = event.substring(firstColon + 1, lastColon);
+            String columnFamily = event.substring(lastColon + 1);
+
+            List<String> rowKeys = cfRowKeysMap.get(columnFamily);
+            if(rowKeys == null) {
+                rowKeys = new ArrayList<String>();
+                cfRowKeysMap.put(columnFamily, rowKeys);
+            }
+            rowKeys.add(rowKey);
         }
-        return parsedString;
+        return cfRowKeysMap;
     }
 
     public String getTimestampString(long val) throws CassandraSearchException {
-        Date date = null;
-        date = new Date(val);
-        return eventTimeFormatter.format(date);
+        return TimestampCodec.format(val);
     }
 
     public long getTimestampFromString(String val) throws CassandraSearchException {
-        Date date = null;
-        boolean isDateSet = false;
-        for(String format: dateFormats){
-            SimpleDateFormat sdf = new SimpleDateFormat(format);
-            try{
-                date = sdf.parse(val);
-                isDateSet = true;
-                break;
-            } catch (ParseException e) {
-                //intentionally empty
-            }
-        }
+        return TimestampCodec.parse(val);
+    }
 
-        if(!isDateSet) {
-            throw new CassandraSearchException("Invalid timestamp format");
+    private static final class SearchPage<T> {
+        private final String query;
+        private final MultiStreamSearchExecutor.Result<T> result;
+        private final Map<String, StreamSearchState> states;
+
+        private SearchPage(String query,
+                           MultiStreamSearchExecutor.Result<T> result,
+                           Map<String, StreamSearchState> states) {
+            this.query = query;
+            this.result = result;
+            this.states = states;
         }
 
-        return date.getTime();
+        /**
+         * @param returnedResults results of the page which have been returned, in merged order
+         */
+        private String getNextCursor(List<T> returnedResults) {
+            SearchCursor nextSearchCursor = getNextSearchCursor(query, result, states, returnedResults);
+            return nextSearchCursor != null ? nextSearchCursor.encode() : null;
+        }
     }
 
 }
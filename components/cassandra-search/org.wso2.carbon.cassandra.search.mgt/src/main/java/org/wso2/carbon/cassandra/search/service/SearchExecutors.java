@@ -0,0 +1,70 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thread pools shared by the searches of {@link CassandraSearchAdmin}. The pools are created on
+ * first use with the sizes read from streamdefn.xml and shut down when the search component is
+ * deactivated. They are kept out of the admin service so that their lifecycle is not exposed as
+ * service operations.
+ */
+public final class SearchExecutors {
+    private static ExecutorService rowFetchExecutor;
+    private static ExecutorService streamSearchExecutor;
+
+    private SearchExecutors() {
+    }
+
+    static synchronized ExecutorService getRowFetchExecutor() {
+        if (rowFetchExecutor == null) {
+            rowFetchExecutor = Executors.newFixedThreadPool(CassandraUtils.getRowFetchThreadPoolSize(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cassandra-search-row-fetch-%d").build());
+        }
+        return rowFetchExecutor;
+    }
+
+    static synchronized ExecutorService getStreamSearchExecutor() {
+        if (streamSearchExecutor == null) {
+            streamSearchExecutor = Executors.newFixedThreadPool(CassandraUtils.getStreamSearchThreadPoolSize(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cassandra-search-stream-%d").build());
+        }
+        return streamSearchExecutor;
+    }
+
+    /**
+     * Stop the row fetch and stream search threads, searches still running are interrupted. Called
+     * when the search component is deactivated.
+     */
+    public static synchronized void shutdown() {
+        if (rowFetchExecutor != null) {
+            rowFetchExecutor.shutdownNow();
+            rowFetchExecutor = null;
+        }
+        if (streamSearchExecutor != null) {
+            streamSearchExecutor.shutdownNow();
+            streamSearchExecutor = null;
+        }
+    }
+}
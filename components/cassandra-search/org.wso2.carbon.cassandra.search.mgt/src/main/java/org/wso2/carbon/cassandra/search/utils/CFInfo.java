@@ -37,23 +37,26 @@ public class CFInfo {
 
     private String columnFamilyName;
 
-    private CassandraSerializer keySerializer = new CassandraSerializer(new ByteBufferSerializer());
+    private static final Serializer STRING_SERIALIZER = StringSerializer.get();
 
-    private CassandraSerializer columnSerializer = new CassandraSerializer(new ByteBufferSerializer());
+    private CassandraSerializer keySerializer = new CassandraSerializer(ByteBufferSerializer.get());
 
-    private CassandraSerializer defaultValidationSerializer = new CassandraSerializer(new ByteBufferSerializer());
+    private CassandraSerializer columnSerializer = new CassandraSerializer(ByteBufferSerializer.get());
+
+    private CassandraSerializer defaultValidationSerializer = new CassandraSerializer(ByteBufferSerializer.get());
 
     private Map<ByteBuffer, CassandraSerializer> valueSerializerMap = new HashMap<ByteBuffer, CassandraSerializer>();
 
     public CFInfo(Cluster cluster, Keyspace keyspace, String name) {
-        this.setKeyspace(keyspace.getKeyspaceName());
-        this.setColumnFamilyName(name);
+        this(keyspace.getKeyspaceName(), ConnectionManager.getColumnFamilyDefinition(cluster, keyspace, name));
+    }
 
-        ColumnFamilyDefinition cfDef = ConnectionManager.getColumnFamilyDefinition(
-                cluster, keyspace, getColumnFamilyName());
+    public CFInfo(String keyspaceName, ColumnFamilyDefinition cfDef) {
+        this.setKeyspace(keyspaceName);
+        this.setColumnFamilyName(cfDef.getName());
 
         Serializer tmpKeySerializer = CassandraUtils.getSerializer(cfDef.getKeyValidationClass());
-        this.keySerializer.setSerializer(tmpKeySerializer != null ? tmpKeySerializer : new StringSerializer());
+        this.keySerializer.setSerializer(tmpKeySerializer != null ? tmpKeySerializer : STRING_SERIALIZER);
 
         if(this.keySerializer.getSerializer() instanceof CompositeSerializer) {
             this.keySerializer.setCompositeSerializerList(cfDef.getKeyValidationClass());
@@ -65,7 +68,7 @@ public class CFInfo {
         columnMetaData = cfDef.getColumnMetadata();
 
         Serializer tmpColumnSerializer = CassandraUtils.getSerializer(comparatorType.getClassName());
-        this.columnSerializer.setSerializer(tmpColumnSerializer != null ? tmpColumnSerializer : new StringSerializer());
+        this.columnSerializer.setSerializer(tmpColumnSerializer != null ? tmpColumnSerializer : STRING_SERIALIZER);
 
         if(this.columnSerializer.getSerializer() instanceof CompositeSerializer) {
             this.columnSerializer.setCompositeSerializerList(comparatorType.getClassName());
@@ -74,7 +77,7 @@ public class CFInfo {
         for (ColumnDefinition columnDefinition : columnMetaData) {
             Serializer tmpValueSerializer = CassandraUtils.getSerializer(columnDefinition.getValidationClass());
             CassandraSerializer valueSerializer =  new CassandraSerializer(tmpValueSerializer != null ?
-                    tmpValueSerializer : new StringSerializer());
+                    tmpValueSerializer : STRING_SERIALIZER);
             if(valueSerializer.getSerializer() instanceof CompositeSerializer) {
                 valueSerializer.setCompositeSerializerList(columnDefinition.getValidationClass());
             }
@@ -84,7 +87,7 @@ public class CFInfo {
 
         Serializer tmpDefaultValidationSerializer = CassandraUtils.getSerializer(cfDef.getDefaultValidationClass());
         this.defaultValidationSerializer.setSerializer(tmpDefaultValidationSerializer != null ?
-                tmpDefaultValidationSerializer : new StringSerializer());
+                tmpDefaultValidationSerializer : STRING_SERIALIZER);
 
         if(this.defaultValidationSerializer.getSerializer() instanceof CompositeSerializer) {
             this.defaultValidationSerializer.setCompositeSerializerList(cfDef.getDefaultValidationClass());
@@ -15,6 +15,7 @@
  */
 package org.wso2.carbon.cassandra.search.utils;
 
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Serializer;
 
@@ -22,12 +23,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class CassandraSerializer {
+    private static final Serializer STRING_SERIALIZER = StringSerializer.get();
+
     private Serializer serializer = null;
+    private Serializer displaySerializer = null;
     private boolean isCompositeSerializer = false;
     private List<Serializer> compositeSerializerList = null;
 
     public CassandraSerializer(Serializer serializer) {
-        this.serializer = serializer;
+        setSerializer(serializer);
     }
 
     public Serializer getSerializer() {
@@ -36,6 +40,14 @@ public class CassandraSerializer {
 
     public void setSerializer(Serializer serializer) {
         this.serializer = serializer;
+        this.displaySerializer = serializer instanceof ByteBufferSerializer ? STRING_SERIALIZER : serializer;
+    }
+
+    /**
+     * @return serializer to deserialize values to be displayed, raw bytes are displayed as strings
+     */
+    public Serializer getDisplaySerializer() {
+        return displaySerializer;
     }
 
     public boolean isCompositeSerializer() {
@@ -58,7 +70,7 @@ public class CassandraSerializer {
 
         for(String className : serializeStrArr) {
             Serializer tempSerializer = CassandraUtils.getSerializer(className);
-            compositeSerializerList.add(tempSerializer != null ? tempSerializer : new StringSerializer());
+            compositeSerializerList.add(tempSerializer != null ? tempSerializer : STRING_SERIALIZER);
         }
     }
 }
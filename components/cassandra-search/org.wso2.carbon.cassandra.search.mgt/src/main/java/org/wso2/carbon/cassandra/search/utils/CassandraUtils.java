@@ -16,6 +16,8 @@
 package org.wso2.carbon.cassandra.search.utils;
 
 import me.prettyprint.cassandra.serializers.*;
+import me.prettyprint.cassandra.service.AbstractCluster;
+import me.prettyprint.cassandra.service.CassandraHost;
 import me.prettyprint.hector.api.Cluster;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.Serializer;
@@ -25,6 +27,9 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMXMLBuilderFactory;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.search.cache.ColumnFamilyInfoCache;
 import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.utils.CarbonUtils;
@@ -34,16 +39,33 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public final class CassandraUtils {
+    private static final Log log = LogFactory.getLog(CassandraUtils.class);
+
     private static final String STREAMDEFN_XML = "streamdefn.xml";
     private static final String KEY_SPACE_NAME_ELEMENT = "keySpaceName";
     private static final String INDEX_KEY_SPACE_NAME_ELEMENT = "eventIndexKeySpaceName";
+    private static final String INDEX_SCAN_MIN_PAGE_SIZE_ELEMENT = "indexScanMinPageSize";
+    private static final String INDEX_SCAN_MAX_PAGE_SIZE_ELEMENT = "indexScanMaxPageSize";
+    private static final String ROW_FETCH_BATCH_SIZE_ELEMENT = "rowFetchBatchSize";
+    private static final String ROW_FETCH_THREAD_POOL_SIZE_ELEMENT = "rowFetchThreadPoolSize";
+    private static final String STREAM_SEARCH_THREAD_POOL_SIZE_ELEMENT = "streamSearchThreadPoolSize";
+    private static final String STREAM_SEARCH_TIMEOUT_ELEMENT = "streamSearchTimeout";
+    private static final String JSON_RESULT_BYTE_LIMIT_ELEMENT = "jsonResultByteLimit";
+    private static final String ACTIVITY_SUMMARY_ENABLED_ELEMENT = "activitySummaryEnabled";
+    private static final String N_GRAM_INDEX_ENABLED_ELEMENT = "nGramIndexEnabled";
+    private static final String QUERY_COST_LIMIT_ELEMENT = "queryCostLimit";
 
     public static final String BYTESTYPE  = ComparatorType.BYTESTYPE.getClassName();
 
+    private static final String NON_DISPLAYABLE_VALUE = "***Non displayable value***";
+
     private static final StringSerializer STRING_SERIALIZER   = StringSerializer.get();
     private static final IntegerSerializer INTEGER_SERIALIZER = IntegerSerializer.get();
     private static final LongSerializer LONG_SERIALIZER       = LongSerializer.get();
@@ -59,9 +81,16 @@ public final class CassandraUtils {
 
     private static String keySpaceName;
     private static String indexKeySpaceName;
-
-    private static final Map<String, CFInfo> COLUMN_FAMILY_CACHE = new HashMap<String, CFInfo>();
-    // TODO Make this a bounded LRU cache to handle large cf number scenarios
+    private static int indexScanMinPageSize = SearchConstants.INDEX_SCAN_MIN_PAGE_SIZE;
+    private static int indexScanMaxPageSize = SearchConstants.INDEX_SCAN_MAX_PAGE_SIZE;
+    private static int rowFetchBatchSize = SearchConstants.ROW_FETCH_BATCH_SIZE;
+    private static int rowFetchThreadPoolSize = SearchConstants.ROW_FETCH_THREAD_POOL_SIZE;
+    private static int streamSearchThreadPoolSize = SearchConstants.STREAM_SEARCH_THREAD_POOL_SIZE;
+    private static long streamSearchTimeout = SearchConstants.STREAM_SEARCH_TIMEOUT;
+    private static long jsonResultByteLimit = SearchConstants.JSON_RESULT_BYTE_LIMIT;
+    private static boolean activitySummaryEnabled = false;
+    private static boolean nGramIndexEnabled = false;
+    private static int queryCostLimit = 0;
 
     static {
 
@@ -184,6 +213,10 @@ public final class CassandraUtils {
         return String.valueOf(Math.abs((primaryCFName + indexColumnName).hashCode()));
     }
 
+    public static String getNGramIndexCFName(String primaryCFName, String indexColumnName) {
+        return "ngram_" + getCustomIndexCFName(primaryCFName, indexColumnName);
+    }
+
     public static String getComparator(AttributeType attributeType) {
         return ATTRIBUTE_TYPE_COMPARATOR_TYPE_MAP.get(attributeType);
     }
@@ -192,32 +225,99 @@ public final class CassandraUtils {
         return SERIALIZER_MAP.get(comparatorClass);
     }
 
+    /**
+     * Key identifying a cluster across sessions, since a new Cluster instance is created per connection.
+     * The configured hosts are used rather than the pooled ones, which change as hosts go down or are
+     * discovered.
+     */
+    public static String getClusterKey(Cluster cluster) {
+        List<String> hosts = new ArrayList<String>();
+        if (cluster instanceof AbstractCluster) {
+            for (CassandraHost host : ((AbstractCluster) cluster).getConfigurator().buildCassandraHosts()) {
+                hosts.add(host.getName());
+            }
+            Collections.sort(hosts);
+        }
+        return cluster.getName() + hosts;
+    }
+
+    /**
+     * @return metadata of the column family, cached per keyspace until the schema of the cluster changes
+     * @throws CassandraSearchException if the column family does not exist in the keyspace
+     */
     public static CFInfo getColumnFamilyInfo(Cluster cluster, Keyspace keyspace,
-                                             String columnFamilyName) {
-        CFInfo cfInfo = COLUMN_FAMILY_CACHE.get(keyspace + "-" + columnFamilyName);
+                                             String columnFamilyName) throws CassandraSearchException {
+        return ColumnFamilyInfoCache.getInstance(cluster, keyspace).getColumnFamilyInfo(cluster, columnFamilyName);
+    }
 
-        if (cfInfo == null) {
-            cfInfo = new CFInfo(cluster, keyspace, columnFamilyName);
-            COLUMN_FAMILY_CACHE.put(keyspace + "-" + columnFamilyName, cfInfo);
+    /**
+     * Replaces the control characters which are not allowed in XML by spaces, so that values can be
+     * returned by the admin service. Values without such characters are returned as they are.
+     *
+     * @return the cleaned value, or a placeholder if the value is null or blank after cleaning
+     */
+    public static String cleanNonXmlChars(String value) {
+        return cleanNonXmlChars(value, false);
+    }
+
+    /**
+     * @param replaceUnpairedSurrogates also replace surrogate chars which are not part of a surrogate
+     *                                  pair, as they can not be encoded in XML either
+     * @see #cleanNonXmlChars(String)
+     */
+    public static String cleanNonXmlChars(String value, boolean replaceUnpairedSurrogates) {
+        if (value == null) {
+            return NON_DISPLAYABLE_VALUE;
         }
 
-        return cfInfo;
+        int length = value.length();
+        char[] cleaned = null;
+        boolean blank = true;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            boolean invalid;
+            if (c < ' ') {
+                invalid = c != '\n' && c != '\r';
+            } else if (c == '\u007F') {
+                invalid = true;
+            } else if (replaceUnpairedSurrogates && c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    blank = false;
+                    i++;
+                    continue;
+                }
+                invalid = true;
+            } else {
+                invalid = false;
+            }
+
+            if (invalid) {
+                //copy only once the first invalid char is found, clean values are not copied at all
+                if (cleaned == null) {
+                    cleaned = value.toCharArray();
+                }
+                cleaned[i] = ' ';
+            } else if (c > ' ') {
+                blank = false;
+            }
+        }
+
+        if (blank) {
+            return NON_DISPLAYABLE_VALUE;
+        }
+        return cleaned == null ? value : new String(cleaned);
     }
 
     public static String getStringDeserialization(Serializer serializer, ByteBuffer data) {
         if(serializer instanceof ByteBufferSerializer){
-            serializer = new StringSerializer();
+            serializer = STRING_SERIALIZER;
         }
         Object columnName = serializer.fromByteBuffer(data);
         return columnName.toString();
     }
 
     public static String getStringDeserialization(CassandraSerializer cassandraSerializer, ByteBuffer data) {
-        Serializer serializer = cassandraSerializer.getSerializer();
-        if(serializer instanceof ByteBufferSerializer){
-            serializer = new StringSerializer();
-        }
-        Object columnName = serializer.fromByteBuffer(data);
+        Object columnName = cassandraSerializer.getDisplaySerializer().fromByteBuffer(data);
 
         if(columnName == null) {
             return "";
@@ -269,6 +369,50 @@ public final class CassandraUtils {
         }else {
             indexKeySpaceName = SearchConstants.DEFAULT_INDEX_KEYSPACE_NAME;
         }
+
+        indexScanMinPageSize = getPositiveInt(documentElement, INDEX_SCAN_MIN_PAGE_SIZE_ELEMENT,
+                SearchConstants.INDEX_SCAN_MIN_PAGE_SIZE);
+        indexScanMaxPageSize = Math.max(indexScanMinPageSize, getPositiveInt(documentElement,
+                INDEX_SCAN_MAX_PAGE_SIZE_ELEMENT, SearchConstants.INDEX_SCAN_MAX_PAGE_SIZE));
+
+        rowFetchBatchSize = getPositiveInt(documentElement, ROW_FETCH_BATCH_SIZE_ELEMENT,
+                SearchConstants.ROW_FETCH_BATCH_SIZE);
+        rowFetchThreadPoolSize = getPositiveInt(documentElement, ROW_FETCH_THREAD_POOL_SIZE_ELEMENT,
+                SearchConstants.ROW_FETCH_THREAD_POOL_SIZE);
+        streamSearchThreadPoolSize = getPositiveInt(documentElement, STREAM_SEARCH_THREAD_POOL_SIZE_ELEMENT,
+                SearchConstants.STREAM_SEARCH_THREAD_POOL_SIZE);
+        streamSearchTimeout = getPositiveInt(documentElement, STREAM_SEARCH_TIMEOUT_ELEMENT,
+                (int) SearchConstants.STREAM_SEARCH_TIMEOUT);
+        jsonResultByteLimit = getPositiveInt(documentElement, JSON_RESULT_BYTE_LIMIT_ELEMENT,
+                (int) SearchConstants.JSON_RESULT_BYTE_LIMIT);
+
+        OMElement activitySummaryElement =
+                documentElement.getFirstChildWithName(new QName(ACTIVITY_SUMMARY_ENABLED_ELEMENT));
+        activitySummaryEnabled = activitySummaryElement != null &&
+                Boolean.parseBoolean(activitySummaryElement.getText().trim());
+
+        OMElement nGramIndexElement = documentElement.getFirstChildWithName(new QName(N_GRAM_INDEX_ENABLED_ELEMENT));
+        nGramIndexEnabled = nGramIndexElement != null && Boolean.parseBoolean(nGramIndexElement.getText().trim());
+
+        queryCostLimit = documentElement.getFirstChildWithName(new QName(QUERY_COST_LIMIT_ELEMENT)) != null ?
+                getPositiveInt(documentElement, QUERY_COST_LIMIT_ELEMENT, SearchConstants.QUERY_COST_SAMPLE_LIMIT) : 0;
+    }
+
+    private static int getPositiveInt(OMElement documentElement, String elementName, int defaultValue) {
+        OMElement element = documentElement.getFirstChildWithName(new QName(elementName));
+        if (element == null) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(element.getText().trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            //fall back to the default below
+        }
+        log.warn("Invalid value for " + elementName + " in " + STREAMDEFN_XML + ", using " + defaultValue);
+        return defaultValue;
     }
 
     public static String getKeySpaceName() {
@@ -279,5 +423,76 @@ public final class CassandraUtils {
         return indexKeySpaceName != null ? indexKeySpaceName : SearchConstants.DEFAULT_INDEX_KEYSPACE_NAME;
     }
 
+    /**
+     * @return smallest page read by index scans once columns are being rejected
+     */
+    public static int getIndexScanMinPageSize() {
+        return indexScanMinPageSize;
+    }
+
+    /**
+     * @return largest number of index columns read with a single slice
+     */
+    public static int getIndexScanMaxPageSize() {
+        return indexScanMaxPageSize;
+    }
+
+    /**
+     * @return number of row keys read with a single multiget slice query
+     */
+    public static int getRowFetchBatchSize() {
+        return rowFetchBatchSize;
+    }
+
+    /**
+     * @return number of threads fetching result rows, also the number of batches fetched at a time
+     */
+    public static int getRowFetchThreadPoolSize() {
+        return rowFetchThreadPoolSize;
+    }
+
+    /**
+     * @return number of threads searching streams in parallel
+     */
+    public static int getStreamSearchThreadPoolSize() {
+        return streamSearchThreadPoolSize;
+    }
+
+    /**
+     * @return time in milliseconds within which the streams of a search have to return their results
+     */
+    public static long getStreamSearchTimeout() {
+        return streamSearchTimeout;
+    }
+
+    /**
+     * @return number of bytes of JSON search results written before the results are truncated
+     */
+    public static long getJsonResultByteLimit() {
+        return jsonResultByteLimit;
+    }
+
+    /**
+     * @return true if activity summaries are stored in the index keyspace for listing activities
+     */
+    public static boolean isActivitySummaryEnabled() {
+        return activitySummaryEnabled;
+    }
+
+    /**
+     * @return true if contains filters may be answered from n-gram indexes, which are only kept up
+     * to date by event writers calling NGramIndexer
+     */
+    public static boolean isNGramIndexEnabled() {
+        return nGramIndexEnabled;
+    }
+
+    /**
+     * @return largest estimated number of index columns a stream search may scan, 0 if searches are not limited
+     */
+    public static int getQueryCostLimit() {
+        return queryCostLimit;
+    }
+
 }
 
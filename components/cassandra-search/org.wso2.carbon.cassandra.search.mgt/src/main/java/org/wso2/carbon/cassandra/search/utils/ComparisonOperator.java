@@ -0,0 +1,43 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.utils;
+
+/**
+ * Comparison operators of a search condition. The declaration order is the order in which the
+ * parser tries to match the symbols, so that two character operators are matched first.
+ */
+public enum ComparisonOperator {
+    GE(SearchConstants.GE),
+    LE(SearchConstants.LE),
+    EQ(SearchConstants.EQ),
+    LT(SearchConstants.LT),
+    GT(SearchConstants.GT),
+    CONTAINS(SearchConstants.CONTAINS),
+    NOT_CONTAIN(SearchConstants.NOT_CONTAIN);
+
+    private final String symbol;
+
+    private ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -39,6 +39,11 @@ public class SearchConstants {
     public static final String CUSTOM_INDEX_DEF    = "CUSTOM_INDEXES";
     public static final String ARBITRARY_INDEX_DEF = "ARBITRARY_INDEXES";
     public static final String FIXED_SEARCH_DEF    = "FIXED_SEARCH_PROPERTIES";
+    public static final String N_GRAM_INDEX_DEF    = "N_GRAM_INDEXES";
+    public static final String N_GRAM_INDEX_MAINTAINED_SINCE = "N_GRAM_INDEX_MAINTAINED_SINCE:";
+    public static final String N_GRAM_INDEX_BACKFILLED_UNTIL = "N_GRAM_INDEX_BACKFILLED_UNTIL:";
+    public static final String INDEX_DEF_VERSION_ROW_KEY = "_INDEX_DEFINITION_VERSION_";
+    public static final String INDEX_DEF_LAST_MODIFIED   = "LAST_MODIFIED";
 
     public static final String TIMESTAMP_PROPERTY  = "Timestamp";
     public static final String NAME_PROPERTY       = "Name";
@@ -55,6 +60,7 @@ public class SearchConstants {
     public static final String SERVICE_NAME_PROPERTY   = "payload_service_name";
 
     public static final String GLOBAL_ACTIVITY_MONITORING_INDEX_CF = "global_index_activity_monitoring";
+    public static final String ACTIVITY_SUMMARY_CF = "activity_summary";
 
     public static final String EQ = "=";
     public static final String GT = ">";
@@ -69,6 +75,36 @@ public class SearchConstants {
 
     public static final int EVENT_SEARCH = 1000;
 
+    public static final int ROW_FETCH_BATCH_SIZE = 100;
+    public static final int ROW_FETCH_THREAD_POOL_SIZE = 4;
+
+    public static final long JSON_RESULT_BYTE_LIMIT = 8 * 1024 * 1024;
+
+    public static final int STREAM_SEARCH_THREAD_POOL_SIZE = 4;
+    public static final long STREAM_SEARCH_TIMEOUT = 60 * 1000;
+    public static final int TIMESTAMP_ORDER_ROW_LIMIT = 10000;
+
+    public static final long INDEX_DEFINITION_CACHE_TTL = 10 * 60 * 1000;
+    public static final long INDEX_DEFINITION_VERSION_CHECK_INTERVAL = 30 * 1000;
+    public static final long SCHEMA_VERSION_CHECK_INTERVAL = 30 * 1000;
+    public static final int KEYSPACE_CACHE_SIZE = 32;
+
+    public static final int COMPILED_QUERY_CACHE_SIZE = 256;
+
+    public static final long SEARCH_RESULT_CACHE_MAX_BYTES = 64 * 1024 * 1024;
+    public static final long SEARCH_RESULT_CACHE_MAX_TENANT_BYTES = 16 * 1024 * 1024;
+    public static final long SEARCH_RESULT_CACHE_TTL = 5 * 1000;
+    public static final long SEARCH_RESULT_LATE_EVENT_WINDOW = 60 * 1000;
+
+    public static final int INDEX_SCAN_MIN_PAGE_SIZE = 100;
+    public static final int INDEX_SCAN_MAX_PAGE_SIZE = 5000;
+
+    public static final int QUERY_COST_SAMPLE_LIMIT = 100000;
+    public static final int JOIN_ORDER_SAMPLE_LIMIT = 10000;
+
+    public static final int N_GRAM_LENGTH = 3;
+    public static final int N_GRAM_INDEX_PAGE_SIZE = 1000;
+
     public static final String TYPE_STATUS = "status";
     public static final String STATUS_SUCCESS = "success";
     public static final String STATUS_FAULT   = "fault";
@@ -0,0 +1,198 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.utils;
+
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Thread safe formatting of event timestamps and parsing of query timestamps.
+ *
+ * SimpleDateFormat is neither thread safe nor cheap to create, so each thread keeps its own
+ * calendar and formatters. The fixed display and query patterns are handled on a fast path which
+ * writes the digits directly, and the last formatted second is reused, since consecutive events
+ * mostly share their second. Anything else falls back to the SimpleDateFormat of the thread, so
+ * the results are the same as the results of SimpleDateFormat with the default time zone.
+ */
+public final class TimestampCodec {
+    public static final String DISPLAY_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * Accepted query timestamp formats, in the order they are tried
+     */
+    public static final String[] QUERY_FORMATS = {"yyyyMMddHHmmss", "MM/dd/yyyy hh:mm:ss a", "yyyyMMdd"};
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    private TimestampCodec() {
+    }
+
+    /**
+     * @return the timestamp in yyyy-MM-dd HH:mm:ss format
+     */
+    public static String format(long millis) {
+        return STATE.get().format(millis);
+    }
+
+    /**
+     * @return the timestamp in the first query format, yyyyMMddHHmmss, to be used in search statements
+     */
+    public static String formatForQuery(long millis) {
+        String displayValue = format(millis);
+        StringBuilder queryValue = new StringBuilder(QUERY_FORMATS[0].length());
+        for (int i = 0; i < displayValue.length(); i++) {
+            char c = displayValue.charAt(i);
+            if (c >= '0' && c <= '9') {
+                queryValue.append(c);
+            }
+        }
+        return queryValue.toString();
+    }
+
+    /**
+     * @return milliseconds of a timestamp given in one of the query formats
+     */
+    public static long parse(String value) throws CassandraSearchException {
+        if (value == null) {
+            throw new CassandraSearchException("Invalid timestamp format");
+        }
+        return STATE.get().parse(value);
+    }
+
+    private static final class State {
+        private final Calendar calendar = new GregorianCalendar();
+        private final char[] buffer = new char[DISPLAY_FORMAT.length()];
+        private long cachedSecond = Long.MIN_VALUE;
+        private String cachedValue;
+
+        private SimpleDateFormat displayFormat;
+        private SimpleDateFormat[] queryFormats;
+
+        private String format(long millis) {
+            long second = millis / 1000;
+            if (millis % 1000 < 0) {
+                second--;
+            }
+            if (second == cachedSecond) {
+                return cachedValue;
+            }
+
+            calendar.setTimeInMillis(millis);
+            int year = calendar.get(Calendar.YEAR);
+            String value;
+            if (year < 1000 || year > 9999 || calendar.get(Calendar.ERA) != GregorianCalendar.AD) {
+                value = getDisplayFormat().format(new Date(millis));
+            } else {
+                writeDigits(year, 0, 4);
+                buffer[4] = '-';
+                writeDigits(calendar.get(Calendar.MONTH) + 1, 5, 2);
+                buffer[7] = '-';
+                writeDigits(calendar.get(Calendar.DAY_OF_MONTH), 8, 2);
+                buffer[10] = ' ';
+                writeDigits(calendar.get(Calendar.HOUR_OF_DAY), 11, 2);
+                buffer[13] = ':';
+                writeDigits(calendar.get(Calendar.MINUTE), 14, 2);
+                buffer[16] = ':';
+                writeDigits(calendar.get(Calendar.SECOND), 17, 2);
+                value = new String(buffer);
+            }
+
+            cachedSecond = second;
+            cachedValue = value;
+            return value;
+        }
+
+        private void writeDigits(int value, int offset, int length) {
+            for (int i = offset + length - 1; i >= offset; i--) {
+                buffer[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+
+        private long parse(String value) throws CassandraSearchException {
+            //yyyyMMddHHmmss and yyyyMMdd
+            if ((value.length() == 14 || value.length() == 8) && isDigits(value)) {
+                calendar.clear();
+                calendar.set(Calendar.YEAR, parseDigits(value, 0, 4));
+                calendar.set(Calendar.MONTH, parseDigits(value, 4, 2) - 1);
+                calendar.set(Calendar.DAY_OF_MONTH, parseDigits(value, 6, 2));
+                if (value.length() == 14) {
+                    calendar.set(Calendar.HOUR_OF_DAY, parseDigits(value, 8, 2));
+                    calendar.set(Calendar.MINUTE, parseDigits(value, 10, 2));
+                    calendar.set(Calendar.SECOND, parseDigits(value, 12, 2));
+                }
+                return calendar.getTimeInMillis();
+            }
+
+            for (SimpleDateFormat queryFormat : getQueryFormats()) {
+                try {
+                    return queryFormat.parse(value).getTime();
+                } catch (ParseException e) {
+                    //intentionally empty, try the next format
+                }
+            }
+            throw new CassandraSearchException("Invalid timestamp format");
+        }
+
+        private boolean isDigits(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int parseDigits(String value, int offset, int length) {
+            int result = 0;
+            for (int i = offset; i < offset + length; i++) {
+                result = result * 10 + (value.charAt(i) - '0');
+            }
+            return result;
+        }
+
+        private SimpleDateFormat getDisplayFormat() {
+            if (displayFormat == null) {
+                displayFormat = new SimpleDateFormat(DISPLAY_FORMAT);
+            }
+            return displayFormat;
+        }
+
+        private SimpleDateFormat[] getQueryFormats() {
+            if (queryFormats == null) {
+                queryFormats = new SimpleDateFormat[QUERY_FORMATS.length];
+                for (int i = 0; i < QUERY_FORMATS.length; i++) {
+                    queryFormats[i] = new SimpleDateFormat(QUERY_FORMATS[i]);
+                }
+            }
+            return queryFormats;
+        }
+    }
+}
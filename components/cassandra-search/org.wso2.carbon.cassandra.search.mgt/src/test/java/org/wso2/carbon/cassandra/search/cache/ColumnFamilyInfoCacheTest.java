@@ -0,0 +1,149 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.ThriftKsDef;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import me.prettyprint.hector.api.factory.HFactory;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CFInfo;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ColumnFamilyInfoCacheTest extends TestCase {
+    private static final String KEYSPACE = "EVENT_KS";
+
+    private SchemaHandler schema;
+    private Cluster cluster;
+
+    protected void setUp() {
+        schema = new SchemaHandler();
+        schema.columnFamilies.add(HFactory.createColumnFamilyDefinition(KEYSPACE, "stream_a",
+                ComparatorType.UTF8TYPE));
+        cluster = (Cluster) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Cluster.class}, schema);
+    }
+
+    public void testInfoIsCachedUntilSchemaVersionChanges() throws CassandraSearchException {
+        ColumnFamilyInfoCache cache = new ColumnFamilyInfoCache("test", KEYSPACE, 0);
+
+        CFInfo cfInfo = cache.getColumnFamilyInfo(cluster, "stream_a");
+        assertSame(cfInfo, cache.getColumnFamilyInfo(cluster, "stream_a"));
+        assertEquals(1, schema.describeCount);
+        assertEquals(1, cache.getStatistics().getHitCount());
+
+        //a node which can not be reached does not change the schema version
+        schema.schemaVersions.put("UNREACHABLE", Arrays.asList("10.0.0.3"));
+        assertSame(cfInfo, cache.getColumnFamilyInfo(cluster, "stream_a"));
+        assertEquals(1, schema.describeCount);
+
+        schema.schemaVersions.remove("v1");
+        schema.schemaVersions.put("v2", Arrays.asList("10.0.0.1"));
+        CFInfo reloadedInfo = cache.getColumnFamilyInfo(cluster, "stream_a");
+        assertNotSame(cfInfo, reloadedInfo);
+        assertEquals(2, schema.describeCount);
+        assertEquals(1, cache.getStatistics().getInvalidationCount());
+    }
+
+    public void testNewColumnFamilyIsDescribedOnMiss() throws CassandraSearchException {
+        ColumnFamilyInfoCache cache = new ColumnFamilyInfoCache("test", KEYSPACE, 60 * 1000);
+        cache.getColumnFamilyInfo(cluster, "stream_a");
+
+        ColumnFamilyDefinition cfDef = HFactory.createColumnFamilyDefinition(KEYSPACE, "stream_b",
+                ComparatorType.LONGTYPE);
+        schema.columnFamilies.add(cfDef);
+        CFInfo cfInfo = cache.getColumnFamilyInfo(cluster, "stream_b");
+        assertEquals("stream_b", cfInfo.getColumnFamilyName());
+        assertTrue(cfInfo.getColumnSerializer() instanceof LongSerializer);
+        assertEquals(2, schema.describeCount);
+
+        try {
+            cache.getColumnFamilyInfo(cluster, "stream_c");
+            fail("Expected a missing column family to be reported");
+        } catch (CassandraSearchException e) {
+            assertEquals("Column family stream_c does not exist in keyspace " + KEYSPACE, e.getMessage());
+        }
+    }
+
+    public void testRawBytesAreDisplayedAsStrings() throws CassandraSearchException {
+        ColumnFamilyInfoCache cache = new ColumnFamilyInfoCache("test", KEYSPACE, 60 * 1000);
+        CFInfo cfInfo = cache.getColumnFamilyInfo(cluster, "stream_a");
+
+        //default validation class of the column family is BytesType
+        assertSame(StringSerializer.get(), cfInfo.getColumnValueCassandraSerializer(
+                StringSerializer.get().toByteBuffer("payload_content")).getDisplaySerializer());
+    }
+
+    public void testLeastRecentlyUsedCachesAreDropped() {
+        ColumnFamilyInfoCache first = ColumnFamilyInfoCache.getInstance(cluster, createKeyspace("ks_0"));
+        assertSame(first, ColumnFamilyInfoCache.getInstance(cluster, createKeyspace("ks_0")));
+
+        for (int i = 1; i <= SearchConstants.KEYSPACE_CACHE_SIZE; i++) {
+            ColumnFamilyInfoCache.getInstance(cluster, createKeyspace("ks_" + i));
+        }
+        assertNotSame(first, ColumnFamilyInfoCache.getInstance(cluster, createKeyspace("ks_0")));
+    }
+
+    private Keyspace createKeyspace(final String keyspaceName) {
+        return (Keyspace) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Keyspace.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return method.getName().equals("getKeyspaceName") ? keyspaceName : null;
+                    }
+                });
+    }
+
+    private static class SchemaHandler implements InvocationHandler {
+        private final List<ColumnFamilyDefinition> columnFamilies = new ArrayList<ColumnFamilyDefinition>();
+        private final Map<String, List<String>> schemaVersions = new HashMap<String, List<String>>();
+        private int describeCount;
+
+        private SchemaHandler() {
+            schemaVersions.put("v1", Arrays.asList("10.0.0.1", "10.0.0.2"));
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("describeKeyspace")) {
+                describeCount++;
+                return new ThriftKsDef(KEYSPACE, ThriftKsDef.DEF_STRATEGY_CLASS, 1,
+                        new ArrayList<ColumnFamilyDefinition>(columnFamilies));
+            } else if (method.getName().equals("describeSchemaVersions")) {
+                return new HashMap<String, List<String>>(schemaVersions);
+            } else if (method.getName().equals("getName")) {
+                return "TestCluster";
+            }
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.cache;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.data.json.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class SearchResultCacheTest extends TestCase {
+
+    public void testTenantsAreIsolatedAndBudgeted() {
+        //every entry weighs 400 bytes
+        SearchResultCache cache = new SearchResultCache(2000, 800);
+        cache.put("t1", "q1", entry(false, 0));
+        cache.put("t1", "q2", entry(false, 0));
+        cache.put("t2", "q1", entry(false, 0));
+
+        assertNotNull(cache.get("t1", "q1"));
+        assertNull(cache.get("t3", "q1"));
+
+        //t1 is over its budget, its least recently used entry goes
+        cache.put("t1", "q3", entry(false, 0));
+        assertNull(cache.get("t1", "q2"));
+        assertNotNull(cache.get("t1", "q1"));
+        assertNotNull(cache.get("t2", "q1"));
+        assertEquals(1200, cache.getTotalBytes());
+
+        //the global budget evicts the least recently used entries of any tenant
+        cache.put("t2", "q2", entry(false, 0));
+        cache.put("t3", "q1", entry(false, 0));
+        assertEquals(2000, cache.getTotalBytes());
+        cache.put("t3", "q2", entry(false, 0));
+        assertNull(cache.get("t1", "q3"));
+        assertEquals(2000, cache.getTotalBytes());
+    }
+
+    public void testRemovedEntryReleasesItsBytes() {
+        SearchResultCache cache = new SearchResultCache(2000, 800);
+        cache.put("t1", "q1", entry(false, 0));
+        cache.put("t2", "q1", entry(false, 0));
+
+        cache.remove("t1", "q1");
+        assertNull(cache.get("t1", "q1"));
+        assertNotNull(cache.get("t2", "q1"));
+        assertEquals(400, cache.getTotalBytes());
+    }
+
+    public void testExpiryOfOpenTimeWindows() {
+        SearchResultCache cache = new SearchResultCache(10000, 10000);
+        long now = System.currentTimeMillis();
+        cache.put("t", "open", entry(false, now - 10000));
+        cache.put("t", "closed", entry(true, now - 10000));
+
+        assertTrue(cache.get("t", "open").isExpired(now));
+        assertFalse(cache.get("t", "closed").isExpired(now));
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(1, cache.getStatistics().getMissCount());
+
+        cache.invalidate();
+        assertNull(cache.get("t", "closed"));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    public void testNewestTimestamp() {
+        Event event1 = new Event("s", "r1", "1.0.0", "2014-01-01 00:00:01");
+        event1.setTimestampMillis(1000);
+        Event event2 = new Event("s", "r2", "1.0.0", "2014-01-01 00:00:05");
+        event2.setTimestampMillis(5000);
+
+        assertEquals(5000, new SearchResultCache.Entry(Arrays.asList(event2, event1), "[]", true, false, 9000, 10)
+                .getNewestTimestamp());
+        assertEquals(9000, new SearchResultCache.Entry(new ArrayList<Event>(), "[]", true, false, 9000, 10)
+                .getNewestTimestamp());
+    }
+
+    private static SearchResultCache.Entry entry(boolean immutable, long searchedTime) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            json.append('x');
+        }
+        return new SearchResultCache.Entry(new ArrayList<Event>(), json.toString(), true, immutable,
+                searchedTime, 5000);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.data.json;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class JsonResultWriterTest extends TestCase {
+
+    public void testWritesResultsIncrementally() throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonResultWriter resultWriter = new JsonResultWriter(writer, 1024);
+
+        resultWriter.beginObject();
+        resultWriter.beginResults("results");
+        assertTrue(resultWriter.writeResult(new ActivityEvent("row1")));
+        assertTrue(writer.toString().contains("row1"));
+        assertTrue(resultWriter.writeResult(new ActivityEvent("row2")));
+        resultWriter.endResults();
+        resultWriter.writeProperty("nextCursor", "abc");
+        resultWriter.writeProperty("failedStreams", null);
+        resultWriter.endObject();
+
+        String json = writer.toString();
+        assertEquals(2, resultWriter.getResultCount());
+        assertEquals(json.length(), resultWriter.getByteCount());
+        assertFalse(resultWriter.isTruncated());
+        assertTrue(json.endsWith(",\"nextCursor\":\"abc\"}"));
+        assertFalse(json.contains("failedStreams"));
+        assertFalse(json.contains("truncated"));
+    }
+
+    public void testByteLimitTruncatesResults() throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonResultWriter resultWriter = new JsonResultWriter(writer, 10);
+
+        resultWriter.beginObject();
+        resultWriter.beginResults("results");
+        assertTrue(resultWriter.writeResult(new ActivityEvent("row1")));
+        assertFalse(resultWriter.isAcceptingResults());
+        assertFalse(resultWriter.writeResult(new ActivityEvent("row2")));
+        resultWriter.endResults();
+        resultWriter.endObject();
+
+        assertEquals(1, resultWriter.getResultCount());
+        assertTrue(resultWriter.isTruncated());
+        assertFalse(writer.toString().contains("row2"));
+        assertTrue(writer.toString().endsWith("],\"truncated\":true}"));
+    }
+
+    public void testTerminateStopsResults() throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonResultWriter resultWriter = new JsonResultWriter(writer, Long.MAX_VALUE);
+
+        resultWriter.beginObject();
+        resultWriter.beginResults("results");
+        resultWriter.terminate();
+        assertFalse(resultWriter.writeResult(new ActivityEvent("row1")));
+        resultWriter.endResults();
+        resultWriter.endObject();
+
+        assertEquals(0, resultWriter.getResultCount());
+        assertEquals("{\"results\":[],\"truncated\":true}", writer.toString());
+    }
+
+    public void testByteCountOfMultiByteCharacters() throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonResultWriter resultWriter = new JsonResultWriter(writer, Long.MAX_VALUE);
+
+        resultWriter.beginObject();
+        resultWriter.writeProperty("value", "\u00e9\u20ac\ud83d\ude00");
+        resultWriter.endObject();
+
+        assertEquals(writer.toString().getBytes("UTF-8").length, resultWriter.getByteCount());
+    }
+}
@@ -0,0 +1,232 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.QuorumAllConsistencyLevelPolicy;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.exceptions.HectorTransportException;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.thrift.protocol.TProtocol;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.index.ActivitySummaryIndex;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ActivitySummaryResolverTest extends TestCase {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final String ACTIVITY_INDEX_CF = SearchConstants.GLOBAL_ACTIVITY_MONITORING_INDEX_CF;
+
+    private InMemoryClient client;
+    private ExecutingKeyspace keyspace;
+
+    protected void setUp() {
+        client = new InMemoryClient();
+        keyspace = new ExecutingKeyspace("EVENT_KS", new StubConnectionManager(client),
+                new QuorumAllConsistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE);
+
+        client.put(ACTIVITY_INDEX_CF, "a1", "1000:r1:cf1", "");
+        client.put(ACTIVITY_INDEX_CF, "a1", "2000:r2:cf2", "");
+        client.put(ACTIVITY_INDEX_CF, "a2", "1500:r3:cf1", "");
+        client.put("cf1", "r1", SearchConstants.MESSAGE_TYPE_STATUS, SearchConstants.STATUS_SUCCESS);
+        client.put("cf1", "r1", SearchConstants.MESSAGE_PROPERTY, "payload");
+        client.put("cf1", "r3", SearchConstants.MESSAGE_TYPE_STATUS, SearchConstants.STATUS_FAULT);
+        client.put("cf2", "r2", SearchConstants.MESSAGE_PROPERTY, "payload");
+    }
+
+    public void testStatusesAreReadInOneBatchPerColumnFamily() throws CassandraSearchException {
+        ActivitySummaryResolver resolver = new ActivitySummaryResolver(keyspace, keyspace, 100, null, null);
+        Map<String, ActivitySummary> summaries = resolver.resolve(Arrays.asList("a2", "a3", "a1"));
+
+        assertEquals(Arrays.asList("a2", "a1"), new ArrayList<String>(summaries.keySet()));
+        ActivitySummary summary = summaries.get("a1");
+        assertEquals(2, summary.getEventCount());
+        assertEquals(1000, summary.getStartTime());
+        assertEquals(2000, summary.getEndTime());
+        assertFalse(summary.isFaulty());
+        assertTrue(summaries.get("a2").isFaulty());
+
+        assertEquals(Arrays.asList(ACTIVITY_INDEX_CF, "cf1", "cf2"), client.multigetColumnFamilies);
+        //only the status column is requested from the event rows
+        assertEquals(1, client.requestedColumnCounts.get(1).intValue());
+    }
+
+    public void testStoredSummariesAreUsedWhileEventCountMatches() throws CassandraSearchException {
+        ActivitySummaryResolver resolver = new ActivitySummaryResolver(keyspace, keyspace, 100, null,
+                new ActivitySummaryIndex());
+        resolver.resolve(Arrays.asList("a1", "a2"));
+
+        client.multigetColumnFamilies.clear();
+        Map<String, ActivitySummary> summaries = resolver.resolve(Arrays.asList("a1", "a2"));
+        assertFalse(summaries.get("a1").isFaulty());
+        assertTrue(summaries.get("a2").isFaulty());
+        assertEquals(Arrays.asList(ACTIVITY_INDEX_CF, SearchConstants.ACTIVITY_SUMMARY_CF),
+                client.multigetColumnFamilies);
+
+        //a new event invalidates the stored summary of the activity
+        client.put(ACTIVITY_INDEX_CF, "a1", "3000:r4:cf1", "");
+        client.put("cf1", "r4", SearchConstants.MESSAGE_TYPE_STATUS, SearchConstants.STATUS_FAULT);
+        client.multigetColumnFamilies.clear();
+        summaries = resolver.resolve(Arrays.asList("a1", "a2"));
+        assertTrue(summaries.get("a1").isFaulty());
+        assertEquals(3, summaries.get("a1").getEventCount());
+        assertEquals(3000, summaries.get("a1").getEndTime());
+        assertEquals(Arrays.asList(ACTIVITY_INDEX_CF, SearchConstants.ACTIVITY_SUMMARY_CF, "cf1", "cf2"),
+                client.multigetColumnFamilies);
+    }
+
+    public void testFaultRecordedOnWriteIsFinal() throws CassandraSearchException {
+        ActivitySummaryIndex summaryIndex = new ActivitySummaryIndex();
+        Mutator<String> mutator = HFactory.createMutator(keyspace, STRING_SERIALIZER);
+        summaryIndex.addEvent(mutator, "a1", SearchConstants.STATUS_SUCCESS);
+        summaryIndex.addEvent(mutator, "a1", SearchConstants.STATUS_FAULT);
+        mutator.execute();
+
+        ActivitySummaryResolver resolver = new ActivitySummaryResolver(keyspace, keyspace, 100, null, summaryIndex);
+        ActivitySummary summary = resolver.resolve(Arrays.asList("a1")).get("a1");
+        assertTrue(summary.isFaulty());
+        assertEquals(2, summary.getEventCount());
+        assertEquals(Arrays.asList(ACTIVITY_INDEX_CF, SearchConstants.ACTIVITY_SUMMARY_CF),
+                client.multigetColumnFamilies);
+    }
+
+    private static class StubConnectionManager extends HConnectionManager {
+        private final Cassandra.Client client;
+
+        private StubConnectionManager(Cassandra.Client client) {
+            super("test", createConfigurator());
+            this.client = client;
+        }
+
+        private static CassandraHostConfigurator createConfigurator() {
+            CassandraHostConfigurator configurator = new CassandraHostConfigurator();
+            configurator.setHosts("");
+            configurator.setRetryDownedHosts(false);
+            configurator.setAutoDiscoverHosts(false);
+            return configurator;
+        }
+
+        @Override
+        public void operateWithFailover(Operation<?> operation) throws HectorException {
+            try {
+                operation.executeAndSetResult(client, null);
+            } catch (Exception e) {
+                throw new HectorTransportException(e);
+            }
+        }
+    }
+
+    /**
+     * Column families of string columns, recording the multiget requests
+     */
+    private static class InMemoryClient extends Cassandra.Client {
+        private final Map<String, Map<ByteBuffer, TreeMap<ByteBuffer, ByteBuffer>>> columnFamilies =
+                new HashMap<String, Map<ByteBuffer, TreeMap<ByteBuffer, ByteBuffer>>>();
+        private final List<String> multigetColumnFamilies = new ArrayList<String>();
+        private final List<Integer> requestedColumnCounts = new ArrayList<Integer>();
+
+        private InMemoryClient() {
+            super((TProtocol) null);
+        }
+
+        private void put(String columnFamily, String rowKey, String name, String value) {
+            put(columnFamily, STRING_SERIALIZER.toByteBuffer(rowKey), STRING_SERIALIZER.toByteBuffer(name),
+                    STRING_SERIALIZER.toByteBuffer(value));
+        }
+
+        private void put(String columnFamily, ByteBuffer rowKey, ByteBuffer name, ByteBuffer value) {
+            Map<ByteBuffer, TreeMap<ByteBuffer, ByteBuffer>> rows = columnFamilies.get(columnFamily);
+            if (rows == null) {
+                rows = new HashMap<ByteBuffer, TreeMap<ByteBuffer, ByteBuffer>>();
+                columnFamilies.put(columnFamily, rows);
+            }
+            TreeMap<ByteBuffer, ByteBuffer> columns = rows.get(rowKey);
+            if (columns == null) {
+                columns = new TreeMap<ByteBuffer, ByteBuffer>();
+                rows.put(rowKey, columns);
+            }
+            columns.put(name, value);
+        }
+
+        @Override
+        public Map<ByteBuffer, List<ColumnOrSuperColumn>> multiget_slice(List<ByteBuffer> keys,
+                                                                        ColumnParent columnParent,
+                                                                        SlicePredicate predicate,
+                                                                        ConsistencyLevel consistencyLevel) {
+            multigetColumnFamilies.add(columnParent.getColumn_family());
+            requestedColumnCounts.add(predicate.isSetColumn_names() ? predicate.getColumn_names().size() : -1);
+
+            Map<ByteBuffer, TreeMap<ByteBuffer, ByteBuffer>> rows = columnFamilies.get(columnParent.getColumn_family());
+            Map<ByteBuffer, List<ColumnOrSuperColumn>> result = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+            for (ByteBuffer key : keys) {
+                List<ColumnOrSuperColumn> slice = new ArrayList<ColumnOrSuperColumn>();
+                TreeMap<ByteBuffer, ByteBuffer> columns = rows != null ? rows.get(key) : null;
+                if (columns != null) {
+                    Iterable<ByteBuffer> names = predicate.isSetColumn_names() ?
+                            predicate.getColumn_names() : columns.keySet();
+                    for (ByteBuffer name : names) {
+                        ByteBuffer value = columns.get(name);
+                        if (value != null) {
+                            Column column = new Column(name.duplicate());
+                            column.setValue(value.duplicate());
+                            column.setTimestamp(0);
+                            slice.add(new ColumnOrSuperColumn().setColumn(column));
+                        }
+                    }
+                }
+                result.put(key, slice);
+            }
+            return result;
+        }
+
+        @Override
+        public void batch_mutate(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+                                 ConsistencyLevel consistencyLevel) {
+            for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> rowEntry : mutationMap.entrySet()) {
+                for (Map.Entry<String, List<Mutation>> cfEntry : rowEntry.getValue().entrySet()) {
+                    for (Mutation mutation : cfEntry.getValue()) {
+                        Column column = mutation.getColumn_or_supercolumn().getColumn();
+                        put(cfEntry.getKey(), rowEntry.getKey(), column.bufferForName(), column.bufferForValue());
+                    }
+                }
+            }
+        }
+    }
+}
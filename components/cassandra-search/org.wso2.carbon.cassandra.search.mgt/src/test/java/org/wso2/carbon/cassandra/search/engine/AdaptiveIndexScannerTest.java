@@ -0,0 +1,192 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.QuorumAllConsistencyLevelPolicy;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.exceptions.HectorTransportException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.SliceRange;
+import org.apache.thrift.protocol.TProtocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class AdaptiveIndexScannerTest extends TestCase {
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final ByteBuffer START = STRING_SERIALIZER.toByteBuffer("");
+    private static final ByteBuffer END = STRING_SERIALIZER.toByteBuffer("~");
+
+    private IndexRowClient client;
+    private ExecutingKeyspace keyspace;
+
+    protected void setUp() {
+        client = new IndexRowClient(1000);
+        keyspace = new ExecutingKeyspace("EVENT_INDEX_KS", new StubConnectionManager(client),
+                new QuorumAllConsistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE);
+    }
+
+    public void testScanStopsAtLimitWithBoundedPages() throws Exception {
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(keyspace, 10, 100);
+        List<String> rowKeys = new ArrayList<String>();
+
+        assertEquals(250, scanner.scan("cf", "INDEX_ROW", START, END, null, 250, collect(rowKeys, 1)));
+        assertEquals(250, rowKeys.size());
+        assertEquals("row0249", rowKeys.get(249));
+        assertEquals(250, scanner.getScannedColumnCount());
+        assertEquals(3, scanner.getSliceCount());
+        for (int count : client.requestedCounts) {
+            assertTrue(count <= 101);
+        }
+    }
+
+    public void testScanReadsWholeRangeInPages() throws Exception {
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(keyspace, 10, 300);
+        List<String> rowKeys = new ArrayList<String>();
+
+        assertEquals(1000, scanner.scan("cf", "INDEX_ROW", START, END, null, Integer.MAX_VALUE,
+                collect(rowKeys, 1)));
+        assertEquals(1000, rowKeys.size());
+        assertEquals("row0999", rowKeys.get(999));
+        assertEquals(4, scanner.getSliceCount());
+    }
+
+    public void testScanContinuesAfterColumn() throws Exception {
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(keyspace, 10, 100);
+        List<String> rowKeys = new ArrayList<String>();
+
+        scanner.scan("cf", "INDEX_ROW", START, END, STRING_SERIALIZER.toByteBuffer("col0009"), 3, collect(rowKeys, 1));
+        assertEquals("[row0010, row0011, row0012]", rowKeys.toString());
+    }
+
+    public void testPagesGrowWithLowSelectivity() throws Exception {
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(keyspace, 10, 1000);
+        List<String> rowKeys = new ArrayList<String>();
+
+        assertEquals(5, scanner.scan("cf", "INDEX_ROW", START, END, null, 5, collect(rowKeys, 10)));
+        assertEquals("[row0000, row0010, row0020, row0030, row0040]", rowKeys.toString());
+        assertEquals(5, scanner.getAcceptedColumnCount());
+        assertTrue(scanner.getScannedColumnCount() < 100);
+        assertTrue(client.requestedCounts.get(1) > client.requestedCounts.get(0));
+    }
+
+    public void testPagesDoubleWhileNothingIsAccepted() throws Exception {
+        AdaptiveIndexScanner scanner = new AdaptiveIndexScanner(keyspace, 10, 1000);
+        List<String> rowKeys = new ArrayList<String>();
+
+        assertEquals(0, scanner.scan("cf", "INDEX_ROW", START, END, null, 1, collect(rowKeys, 0)));
+        assertEquals(1000, scanner.getScannedColumnCount());
+        assertTrue(scanner.getSliceCount() <= 8);
+    }
+
+    /**
+     * @param every accept only the row keys of every n-th column, 0 to reject all
+     */
+    private static AdaptiveIndexScanner.ColumnHandler collect(final List<String> rowKeys, final int every) {
+        return new AdaptiveIndexScanner.ColumnHandler() {
+            private int position;
+
+            public boolean handleColumn(HColumn<ByteBuffer, String> column) {
+                if (every == 0 || position++ % every != 0) {
+                    return false;
+                }
+                rowKeys.add(column.getValue());
+                return true;
+            }
+        };
+    }
+
+    private static class StubConnectionManager extends HConnectionManager {
+        private final Cassandra.Client client;
+
+        private StubConnectionManager(Cassandra.Client client) {
+            super("test", createConfigurator());
+            this.client = client;
+        }
+
+        private static CassandraHostConfigurator createConfigurator() {
+            CassandraHostConfigurator configurator = new CassandraHostConfigurator();
+            configurator.setHosts("");
+            configurator.setRetryDownedHosts(false);
+            configurator.setAutoDiscoverHosts(false);
+            return configurator;
+        }
+
+        @Override
+        public void operateWithFailover(Operation<?> operation) throws HectorException {
+            try {
+                operation.executeAndSetResult(client, null);
+            } catch (Exception e) {
+                throw new HectorTransportException(e);
+            }
+        }
+    }
+
+    /**
+     * Index row of columns col0000.. holding the row keys row0000..
+     */
+    private static class IndexRowClient extends Cassandra.Client {
+        private final TreeMap<ByteBuffer, ByteBuffer> columns = new TreeMap<ByteBuffer, ByteBuffer>();
+        private final List<Integer> requestedCounts = new ArrayList<Integer>();
+
+        private IndexRowClient(int columnCount) {
+            super((TProtocol) null);
+            for (int i = 0; i < columnCount; i++) {
+                columns.put(STRING_SERIALIZER.toByteBuffer(String.format("col%04d", i)),
+                        STRING_SERIALIZER.toByteBuffer(String.format("row%04d", i)));
+            }
+        }
+
+        @Override
+        public List<ColumnOrSuperColumn> get_slice(ByteBuffer key, ColumnParent columnParent,
+                                                   SlicePredicate predicate, ConsistencyLevel consistencyLevel) {
+            SliceRange range = predicate.getSlice_range();
+            requestedCounts.add(range.getCount());
+
+            List<ColumnOrSuperColumn> slice = new ArrayList<ColumnOrSuperColumn>();
+            for (Map.Entry<ByteBuffer, ByteBuffer> entry :
+                    columns.subMap(range.bufferForStart(), true, range.bufferForFinish(), true).entrySet()) {
+                if (slice.size() == range.getCount()) {
+                    break;
+                }
+                Column column = new Column(entry.getKey().duplicate());
+                column.setValue(entry.getValue().duplicate());
+                column.setTimestamp(0);
+                slice.add(new ColumnOrSuperColumn().setColumn(column));
+            }
+            return slice;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MultiStreamSearchExecutorTest extends TestCase {
+    private static final Comparator<Long> ASCENDING = new Comparator<Long>() {
+        public int compare(Long value1, Long value2) {
+            return value1.compareTo(value2);
+        }
+    };
+
+    private ExecutorService executor;
+
+    protected void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    protected void tearDown() {
+        executor.shutdownNow();
+    }
+
+    public void testMergeReturnsGlobalTopN() {
+        Map<String, List<Long>> streamResults = new LinkedHashMap<String, List<Long>>();
+        streamResults.put("s1", Arrays.asList(9L, 1L, 5L));
+        streamResults.put("s2", Arrays.asList(2L, 3L));
+        streamResults.put("s3", new ArrayList<Long>());
+        streamResults.put("s4", Arrays.asList(4L, 8L, 0L));
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L),
+                MultiStreamSearchExecutor.merge(streamResults, ASCENDING, 5));
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 8L, 9L),
+                MultiStreamSearchExecutor.merge(streamResults, ASCENDING, 100));
+    }
+
+    public void testParallelSearchReportsTimedOutAndFailedStreams() throws CassandraSearchException {
+        Map<String, List<Filter>> streams = new LinkedHashMap<String, List<Filter>>();
+        streams.put("fast", new ArrayList<Filter>());
+        streams.put("slow", new ArrayList<Filter>());
+        streams.put("broken", new ArrayList<Filter>());
+
+        MultiStreamSearchExecutor<Long> searchExecutor = new MultiStreamSearchExecutor<Long>(executor, 500);
+        MultiStreamSearchExecutor.Result<Long> result = searchExecutor.execute(streams,
+                new MultiStreamSearchExecutor.StreamSearch<Long>() {
+                    public List<Long> search(String streamName, List<Filter> filters, int limit)
+                            throws CassandraSearchException {
+                        if (streamName.equals("slow")) {
+                            try {
+                                Thread.sleep(10000);
+                            } catch (InterruptedException ignored) {
+                                Thread.currentThread().interrupt();
+                            }
+                        } else if (streamName.equals("broken")) {
+                            throw new CassandraSearchException("broken stream");
+                        }
+                        return Arrays.asList(3L, 1L, 2L);
+                    }
+                }, ASCENDING, 2);
+
+        assertEquals(Arrays.asList(1L, 2L), result.getResults());
+        assertTrue(result.isPartial());
+        assertEquals(Arrays.asList("slow"), result.getTimedOutStreams());
+        assertEquals(Arrays.asList("broken"), result.getFailedStreams());
+    }
+
+    public void testStreamsAreSearchedOnCallerThreadAfterShutdown() throws CassandraSearchException {
+        Map<String, List<Filter>> streams = new LinkedHashMap<String, List<Filter>>();
+        streams.put("s1", new ArrayList<Filter>());
+        streams.put("s2", new ArrayList<Filter>());
+        executor.shutdown();
+
+        final Thread callerThread = Thread.currentThread();
+        MultiStreamSearchExecutor<Long> searchExecutor = new MultiStreamSearchExecutor<Long>(executor, 5000);
+        MultiStreamSearchExecutor.Result<Long> result = searchExecutor.execute(streams,
+                new MultiStreamSearchExecutor.StreamSearch<Long>() {
+                    public List<Long> search(String streamName, List<Filter> filters, int limit) {
+                        assertSame(callerThread, Thread.currentThread());
+                        return streamName.equals("s1") ? Arrays.asList(1L, 3L) : Arrays.asList(2L);
+                    }
+                }, ASCENDING, 10);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), result.getResults());
+        assertFalse(result.isPartial());
+    }
+
+    public void testSequentialSearchSkipsStreamsAfterTimeout() throws CassandraSearchException {
+        Map<String, List<Filter>> streams = new LinkedHashMap<String, List<Filter>>();
+        streams.put("slow", new ArrayList<Filter>());
+        streams.put("late", new ArrayList<Filter>());
+
+        final List<String> searchedStreams = new ArrayList<String>();
+        MultiStreamSearchExecutor<Long> searchExecutor = new MultiStreamSearchExecutor<Long>(null, 100);
+        MultiStreamSearchExecutor.Result<Long> result = searchExecutor.execute(streams,
+                new MultiStreamSearchExecutor.StreamSearch<Long>() {
+                    public List<Long> search(String streamName, List<Filter> filters, int limit) {
+                        searchedStreams.add(streamName);
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException ignored) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return Arrays.asList(2L, 1L);
+                    }
+                }, ASCENDING, 10);
+
+        assertEquals(Arrays.asList("slow"), searchedStreams);
+        assertEquals(Arrays.asList(1L, 2L), result.getResults());
+        assertEquals(Arrays.asList("late"), result.getTimedOutStreams());
+        assertTrue(result.isPartial());
+    }
+
+    public void testSingleStreamIsBoundByTimeout() throws CassandraSearchException {
+        Map<String, List<Filter>> streams = new LinkedHashMap<String, List<Filter>>();
+        streams.put("slow", new ArrayList<Filter>());
+
+        MultiStreamSearchExecutor<Long> searchExecutor = new MultiStreamSearchExecutor<Long>(executor, 100);
+        MultiStreamSearchExecutor.Result<Long> result = searchExecutor.execute(streams,
+                new MultiStreamSearchExecutor.StreamSearch<Long>() {
+                    public List<Long> search(String streamName, List<Filter> filters, int limit) {
+                        try {
+                            Thread.sleep(10000);
+                        } catch (InterruptedException ignored) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return Arrays.asList(1L);
+                    }
+                }, ASCENDING, 10);
+
+        assertTrue(result.getResults().isEmpty());
+        assertEquals(Arrays.asList("slow"), result.getTimedOutStreams());
+    }
+
+    public void testFailureOfAllStreamsIsThrown() {
+        Map<String, List<Filter>> streams = new LinkedHashMap<String, List<Filter>>();
+        streams.put("s1", new ArrayList<Filter>());
+        streams.put("s2", new ArrayList<Filter>());
+
+        MultiStreamSearchExecutor<Long> searchExecutor = new MultiStreamSearchExecutor<Long>(executor, 5000);
+        try {
+            searchExecutor.execute(streams, new MultiStreamSearchExecutor.StreamSearch<Long>() {
+                public List<Long> search(String streamName, List<Filter> filters, int limit)
+                        throws CassandraSearchException {
+                    throw new CassandraSearchException("failed " + streamName);
+                }
+            }, ASCENDING, 10);
+            fail("Expected the stream failure to be thrown");
+        } catch (CassandraSearchException e) {
+            assertEquals("failed s1", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.QuorumAllConsistencyLevelPolicy;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import me.prettyprint.hector.api.exceptions.HectorTransportException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.SliceRange;
+import org.apache.thrift.protocol.TProtocol;
+import org.wso2.carbon.cassandra.search.data.QueryPlan;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.IndexDefinition;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class QueryCostEstimatorTest extends TestCase {
+    private static final String STREAM = "org.wso2.test";
+    private static final IndexDefinition INDEX_DEFINITION = new IndexDefinition() {
+        public AttributeType getAttributeTypeforProperty(String property) {
+            return property.equals("host") || property.equals("service") ? AttributeType.STRING : null;
+        }
+
+        public List<Attribute> getFixedSearchData() {
+            return null;
+        }
+    };
+
+    private CountingClient client;
+    private ExecutingKeyspace keyspace;
+
+    protected void setUp() {
+        client = new CountingClient();
+        client.counts.put(getIndexCFName("host"), 5000);
+        client.counts.put(getIndexCFName("service"), 20);
+        keyspace = new ExecutingKeyspace("EVENT_INDEX_KS", new StubConnectionManager(client),
+                new QuorumAllConsistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE);
+    }
+
+    public void testConjunctiveJoinStartsWithSmallestFilter() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("service", SearchConstants.EQ, "echo", OperationType.AND));
+
+        QueryPlan plan = new QueryCostEstimator(keyspace, 100000).plan(STREAM, searchQuery, INDEX_DEFINITION,
+                100, true);
+
+        assertEquals("service", searchQuery.getSubFilters().get(0).get(0).getProperty());
+        assertEquals("host", searchQuery.getSubFilters().get(1).get(0).getProperty());
+        assertEquals(2, plan.getSteps().length);
+        assertEquals(getIndexCFName("service"), plan.getSteps()[0].getIndexColumnFamily());
+        assertEquals(20, plan.getSteps()[0].getEstimatedRowCount());
+        assertEquals("", plan.getSteps()[0].getJoinOperation());
+        assertEquals("AND", plan.getSteps()[1].getJoinOperation());
+        assertEquals(5020, plan.getEstimatedCost());
+        assertFalse(plan.isEstimateLimited());
+        //equality filters are counted over the columns of their value only
+        assertEquals(2, client.rangedCounts);
+    }
+
+    public void testDisjunctiveJoinKeepsOrder() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("service", SearchConstants.EQ, "echo", OperationType.OR));
+
+        QueryPlan plan = new QueryCostEstimator(keyspace, 100000).plan(STREAM, searchQuery, INDEX_DEFINITION,
+                100, true);
+
+        assertEquals("host", searchQuery.getSubFilters().get(0).get(0).getProperty());
+        assertEquals("OR", plan.getSteps()[1].getJoinOperation());
+    }
+
+    public void testCountingStopsAtSampleLimit() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(new Filter("host", SearchConstants.GT, "node1", null));
+
+        QueryPlan plan = new QueryCostEstimator(keyspace, 1000).plan(STREAM, searchQuery, INDEX_DEFINITION,
+                10000, true);
+
+        assertEquals(1, plan.getSteps().length);
+        assertEquals(1000, plan.getSteps()[0].getEstimatedRowCount());
+        assertTrue(plan.isEstimateLimited());
+        assertEquals("host > node1", plan.getSteps()[0].getFilters());
+        //range filters are counted from their bound
+        assertEquals(1, client.rangedCounts);
+    }
+
+    public void testSelectiveRangeJoinIsCountedBetweenItsBounds() throws Exception {
+        client.boundedCounts.put(getIndexCFName("host"), 30);
+        SearchQuery searchQuery = newSearchQuery(
+                new Filter("host", SearchConstants.GT, "node1", null),
+                new Filter("host", SearchConstants.LT, "node3", OperationType.AND),
+                new Filter("service", SearchConstants.EQ, "echo", OperationType.AND));
+
+        //a cost limit of 100 index columns samples one more column than the limit
+        QueryPlan plan = new QueryCostEstimator(keyspace, 101).plan(STREAM, searchQuery, INDEX_DEFINITION,
+                100, true);
+
+        assertEquals(50, plan.getEstimatedCost());
+        assertFalse(plan.isEstimateLimited());
+        assertEquals("service", searchQuery.getSubFilters().get(0).get(0).getProperty());
+        assertEquals(30, plan.getSteps()[1].getEstimatedRowCount());
+        assertTrue(contains(client.starts.get(getIndexCFName("host")), "node1"));
+        assertTrue(contains(client.finishes.get(getIndexCFName("host")), "node3"));
+    }
+
+    public void testSingleFilterCostIsBoundedByLimit() throws CassandraSearchException {
+        assertTrue(QueryCostEstimator.isCostBoundedByLimit(
+                newSearchQuery(new Filter("host", SearchConstants.GT, "node1", null))));
+        assertFalse(QueryCostEstimator.isCostBoundedByLimit(newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("service", SearchConstants.EQ, "echo", OperationType.AND))));
+    }
+
+    private static boolean contains(ByteBuffer composite, String value) throws UnsupportedEncodingException {
+        byte[] bytes = new byte[composite.remaining()];
+        composite.duplicate().get(bytes);
+        return new String(bytes, "UTF-8").contains(value);
+    }
+
+    private static String getIndexCFName(String property) {
+        return CassandraUtils.getCustomIndexCFName(CassandraUtils.convertStreamNameToCFName(STREAM), property);
+    }
+
+    private static SearchQuery newSearchQuery(Filter... filters) throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery(INDEX_DEFINITION);
+        searchQuery.buildQuery(Arrays.asList(filters));
+        assertTrue(searchQuery.isValidQuery());
+        searchQuery.organizeSearchFilters();
+        return searchQuery;
+    }
+
+    private static class StubConnectionManager extends HConnectionManager {
+        private final Cassandra.Client client;
+
+        private StubConnectionManager(Cassandra.Client client) {
+            super("test", createConfigurator());
+            this.client = client;
+        }
+
+        private static CassandraHostConfigurator createConfigurator() {
+            CassandraHostConfigurator configurator = new CassandraHostConfigurator();
+            configurator.setHosts("");
+            configurator.setRetryDownedHosts(false);
+            configurator.setAutoDiscoverHosts(false);
+            return configurator;
+        }
+
+        @Override
+        public void operateWithFailover(Operation<?> operation) throws HectorException {
+            try {
+                operation.executeAndSetResult(client, null);
+            } catch (Exception e) {
+                throw new HectorTransportException(e);
+            }
+        }
+    }
+
+    /**
+     * Index column families holding a fixed number of columns
+     */
+    private static class CountingClient extends Cassandra.Client {
+        private final Map<String, Integer> counts = new HashMap<String, Integer>();
+        private final Map<String, Integer> boundedCounts = new HashMap<String, Integer>();
+        private final Map<String, ByteBuffer> starts = new HashMap<String, ByteBuffer>();
+        private final Map<String, ByteBuffer> finishes = new HashMap<String, ByteBuffer>();
+        private int rangedCounts;
+
+        private CountingClient() {
+            super((TProtocol) null);
+        }
+
+        @Override
+        public int get_count(ByteBuffer key, ColumnParent columnParent, SlicePredicate predicate,
+                             ConsistencyLevel consistencyLevel) {
+            SliceRange range = predicate.getSlice_range();
+            String columnFamily = columnParent.getColumn_family();
+            Integer count = counts.get(columnFamily);
+            if (range.bufferForStart().hasRemaining()) {
+                rangedCounts++;
+                starts.put(columnFamily, range.bufferForStart());
+                finishes.put(columnFamily, range.bufferForFinish());
+                if (boundedCounts.containsKey(columnFamily)) {
+                    count = boundedCounts.get(columnFamily);
+                }
+            }
+            return Math.min(count != null ? count : 0, range.getCount());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.cache.CompiledQueryCache;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.ComparisonOperator;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class QueryParserTest extends TestCase {
+
+    public void testConditionsAndJoinOperators() throws CassandraSearchException {
+        List<Condition> conditions = QueryParser.parse(
+                "org.wso2.bam.stream.meta_host = localhost AND org.wso2.bam.stream.Timestamp >= 2013-09-01 " +
+                        "or other_stream.tenant_id<50").getConditions();
+
+        assertEquals(3, conditions.size());
+        assertCondition(conditions.get(0), "org.wso2.bam.stream", "meta_host", ComparisonOperator.EQ,
+                "localhost", null);
+        assertCondition(conditions.get(1), "org.wso2.bam.stream", "Timestamp", ComparisonOperator.GE,
+                "2013-09-01", OperationType.AND);
+        assertCondition(conditions.get(2), "other_stream", "tenant_id", ComparisonOperator.LT, "50",
+                OperationType.OR);
+    }
+
+    public void testQuotedNames() throws CassandraSearchException {
+        List<Condition> conditions = QueryParser.parse(
+                "'stream.with.dots'.'prop' = 1 AND stream.'prop.with.dot' = 2 AND 'stream'.prop = 3").getConditions();
+
+        assertCondition(conditions.get(0), "stream.with.dots", "prop", ComparisonOperator.EQ, "1", null);
+        assertCondition(conditions.get(1), "stream", "prop.with.dot", ComparisonOperator.EQ, "2", OperationType.AND);
+        assertCondition(conditions.get(2), "stream", "prop", ComparisonOperator.EQ, "3", OperationType.AND);
+    }
+
+    public void testOperatorsWithinValues() throws CassandraSearchException {
+        List<Condition> conditions = QueryParser.parse(
+                "s.payload_content % a>=b AND s.expr = x<=y!z AND s.text % 'rock and roll' AND s.q = 'it''s'")
+                .getConditions();
+
+        assertCondition(conditions.get(0), "s", "payload_content", ComparisonOperator.CONTAINS, "a>=b", null);
+        assertCondition(conditions.get(1), "s", "expr", ComparisonOperator.EQ, "x<=y!z", OperationType.AND);
+        assertCondition(conditions.get(2), "s", "text", ComparisonOperator.CONTAINS, "rock and roll",
+                OperationType.AND);
+        assertCondition(conditions.get(3), "s", "q", ComparisonOperator.EQ, "it's", OperationType.AND);
+    }
+
+    public void testValuesWithSpaces() throws CassandraSearchException {
+        List<Condition> conditions = QueryParser.parse("s.message % hello world OR s.operation ! getQuote")
+                .getConditions();
+
+        assertCondition(conditions.get(0), "s", "message", ComparisonOperator.CONTAINS, "hello world", null);
+        assertCondition(conditions.get(1), "s", "operation", ComparisonOperator.NOT_CONTAIN, "getQuote",
+                OperationType.OR);
+    }
+
+    public void testStreamFilters() throws CassandraSearchException {
+        Map<String, List<Filter>> streamFilters = QueryParser.parse(
+                "*.Timestamp > 1 AND s1.a = 1 AND s2.b = 2 AND s1.c <= 3").getStreamFilters();
+
+        assertEquals(Arrays.asList("*", "s1", "s2"), Arrays.asList(streamFilters.keySet().toArray()));
+        assertEquals(2, streamFilters.get("s1").size());
+        assertEquals("<=", streamFilters.get("s1").get(1).getOperator());
+        assertNull(streamFilters.get("*").get(0).getJoinOp());
+    }
+
+    public void testInvalidStatements() {
+        for (String statement : new String[]{"", "   ", "stream = 1", "s.p 1", "s.p =", "s.p = 1 AND",
+                "s.p = 1 AND OR s.q = 2", "'s.p = 1", "s.p = 'x' y"}) {
+            try {
+                QueryParser.parse(statement);
+                fail("Expected parsing of '" + statement + "' to fail");
+            } catch (CassandraSearchException expected) {
+                //expected
+            }
+        }
+    }
+
+    public void testNormalize() {
+        assertEquals("s.p = 1 AND s.q % 'a  b'", QueryParser.normalize("  s.p  =\t1\n AND s.q %  'a  b' "));
+    }
+
+    public void testNormalizeKeepsWhitespaceWithinValues() throws CassandraSearchException {
+        assertEquals("bam_stream.message_body % foo   bar AND s.q >= a\tb",
+                QueryParser.normalize(" bam_stream.message_body  %  foo   bar \n AND s.q>=a\tb"));
+        assertFalse(QueryParser.normalize("s.p % foo bar").equals(QueryParser.normalize("s.p % foo   bar")));
+
+        CompiledQueryCache cache = new CompiledQueryCache(2);
+        assertEquals("foo   bar", cache.getStatement("bam_stream.message_body % foo   bar").getConditions()
+                .get(0).getValue());
+        assertEquals("foo bar", cache.getStatement("bam_stream.message_body % foo bar").getConditions()
+                .get(0).getValue());
+        assertEquals(0, cache.getStatistics().getHitCount());
+    }
+
+    public void testCompiledQueryCacheReturnsNewFilterMaps() throws CassandraSearchException {
+        CompiledQueryCache cache = new CompiledQueryCache(2);
+
+        SearchStatement statement = cache.getStatement("s.p = 1");
+        assertSame(statement, cache.getStatement("  s.p   = 1 "));
+        assertEquals(1, cache.getStatistics().getHitCount());
+
+        Map<String, List<Filter>> streamFilters = statement.getStreamFilters();
+        streamFilters.remove("s");
+        assertEquals(1, statement.getStreamFilters().size());
+
+        cache.getStatement("s.p = 2");
+        cache.getStatement("s.p = 3");
+        assertEquals(2, cache.getStatistics().getSize());
+    }
+
+    private void assertCondition(Condition condition, String streamName, String property,
+                                 ComparisonOperator operator, String value, OperationType joinOp) {
+        assertEquals(streamName, condition.getStreamName());
+        assertEquals(property, condition.getProperty());
+        assertEquals(operator, condition.getOperator());
+        assertEquals(value, condition.getValue());
+        assertEquals(joinOp, condition.getJoinOp());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class RowKeySetOperationsTest extends TestCase {
+    private static final int ITERATIONS = 200;
+
+    private final Random random = new Random(20140312L);
+
+    public void testIntersectionMatchesListContainsImplementation() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> list1 = randomRowKeys();
+            List<String> list2 = randomRowKeys();
+
+            assertEquals(referenceIntersection(list1, list2), RowKeySetOperations.intersection(list1, list2));
+        }
+    }
+
+    public void testUnionMatchesHashSetImplementation() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> list1 = randomRowKeys();
+            List<String> list2 = randomRowKeys();
+
+            List<String> union = RowKeySetOperations.union(list1, list2);
+            List<String> expected = referenceUnion(list1, list2);
+
+            assertEquals(expected.size(), union.size());
+            assertEquals(new HashSet<String>(expected), new HashSet<String>(union));
+        }
+    }
+
+    public void testUnionKeepsInputOrder() {
+        List<String> union = RowKeySetOperations.union(Arrays.asList("c", "a", "b"), Arrays.asList("d", "a", "e"));
+
+        assertEquals(Arrays.asList("c", "a", "b", "d", "e"), union);
+    }
+
+    public void testDifference() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> list1 = randomRowKeys();
+            List<String> list2 = randomRowKeys();
+
+            List<String> expected = new ArrayList<String>();
+            for (String rowKey : list1) {
+                if (!list2.contains(rowKey)) {
+                    expected.add(rowKey);
+                }
+            }
+            assertEquals(expected, RowKeySetOperations.difference(list1, list2));
+        }
+    }
+
+    public void testEmptyInputs() {
+        List<String> empty = new ArrayList<String>();
+        List<String> rowKeys = Arrays.asList("a", "b");
+
+        assertTrue(RowKeySetOperations.intersection(empty, rowKeys).isEmpty());
+        assertTrue(RowKeySetOperations.intersection(rowKeys, empty).isEmpty());
+        assertEquals(rowKeys, RowKeySetOperations.union(empty, rowKeys));
+        assertEquals(rowKeys, RowKeySetOperations.difference(rowKeys, empty));
+        assertTrue(RowKeySetOperations.difference(empty, rowKeys).isEmpty());
+    }
+
+    private List<String> randomRowKeys() {
+        int size = random.nextInt(500);
+        Set<String> rowKeys = new HashSet<String>();
+        while (rowKeys.size() < size) {
+            rowKeys.add(random.nextInt(1000) + "::" + random.nextInt(10));
+        }
+        return new ArrayList<String>(rowKeys);
+    }
+
+    /**
+     * Intersection as implemented by CassandraSearchAdmin before the set operations were introduced.
+     */
+    private List<String> referenceIntersection(List<String> list1, List<String> list2) {
+        List<String> list = new ArrayList<String>();
+
+        if (list1.size() < list2.size()) {
+            for (String t : list1) {
+                if(list2.contains(t)) {
+                    list.add(t);
+                }
+            }
+        } else {
+            for (String t : list2) {
+                if(list1.contains(t)) {
+                    list.add(t);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Union as implemented by CassandraSearchAdmin before the set operations were introduced.
+     */
+    private List<String> referenceUnion(List<String> list1, List<String> list2) {
+        Set<String> set = new HashSet<String>();
+
+        set.addAll(list1);
+        set.addAll(list2);
+        return new ArrayList<String>(set);
+    }
+}
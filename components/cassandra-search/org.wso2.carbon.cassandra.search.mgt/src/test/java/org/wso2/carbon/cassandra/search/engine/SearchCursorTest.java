@@ -0,0 +1,57 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SearchCursorTest extends TestCase {
+
+    public void testEncodeAndDecode() throws CassandraSearchException {
+        ByteBuffer column = ByteBuffer.wrap(new byte[]{0, 1, (byte) 0xff, 'a', '/', '+'});
+        SearchCursor cursor = new SearchCursor("s.p = 'a b' AND s2.q > 1");
+        cursor.setStreamPosition("s", new SearchCursor.StreamPosition(3, column));
+        cursor.setStreamPosition("s2", new SearchCursor.StreamPosition());
+
+        String encoded = cursor.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_=-]+"));
+
+        SearchCursor decoded = SearchCursor.decode(encoded);
+        assertEquals(cursor.getQuery(), decoded.getQuery());
+        assertEquals(Arrays.asList("s", "s2"), Arrays.asList(decoded.getStreams().keySet().toArray()));
+        assertEquals(3, decoded.getStreamPosition("s").getValueIndex());
+        assertEquals(column, decoded.getStreamPosition("s").getLastColumn());
+        assertEquals(0, decoded.getStreamPosition("s2").getValueIndex());
+        assertNull(decoded.getStreamPosition("s2").getLastColumn());
+    }
+
+    public void testInvalidCursor() {
+        for (String cursor : new String[]{"not a cursor", "e30", "bm90IGpzb24"}) {
+            try {
+                SearchCursor.decode(cursor);
+                fail("Expected decoding of '" + cursor + "' to fail");
+            } catch (CassandraSearchException expected) {
+                //expected
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.engine;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+import org.wso2.carbon.cassandra.search.utils.OperationType;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.IndexDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class SearchQueryTest extends TestCase {
+    private static final IndexDefinition INDEX_DEFINITION = new IndexDefinition() {
+        public AttributeType getAttributeTypeforProperty(String property) {
+            return property.equals("host") ? AttributeType.STRING : null;
+        }
+
+        public List<Attribute> getFixedSearchData() {
+            return null;
+        }
+    };
+
+    public void testContainsOnlyQueryUsesNGramIndex() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(new Filter("payload", SearchConstants.CONTAINS, "WSO2", null));
+
+        assertTrue(searchQuery.isValidQuery());
+        searchQuery.organizeSearchFilters();
+        assertTrue(searchQuery.isNGramOnlyQuery());
+        assertEquals(1, searchQuery.getNGramFilters().size());
+        assertEquals(1, searchQuery.getContainOpSubFilters().size());
+    }
+
+    public void testContainsOnlyQueryWithoutNGramIndexIsInvalid() throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery(INDEX_DEFINITION);
+        searchQuery.buildQuery(Arrays.asList(new Filter("payload", SearchConstants.CONTAINS, "WSO2", null)));
+
+        assertFalse(searchQuery.isValidQuery());
+    }
+
+    public void testIndexedFilterWithContainsFilterIsNarrowedByNGramIndex() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("payload", SearchConstants.CONTAINS, "WSO2", OperationType.AND),
+                new Filter("payload", SearchConstants.CONTAINS, "ab", OperationType.AND),
+                new Filter("payload", SearchConstants.NOT_CONTAIN, "IBM", OperationType.AND));
+
+        assertTrue(searchQuery.isValidQuery());
+        searchQuery.organizeSearchFilters();
+        assertFalse(searchQuery.isNGramOnlyQuery());
+        assertEquals(1, searchQuery.getNGramFilters().size());
+        assertEquals("WSO2", searchQuery.getNGramFilters().get(0).getValue());
+        assertEquals(3, searchQuery.getContainOpSubFilters().size());
+    }
+
+    public void testNGramIndexIsNotUsedForOrJoinedContainsFilters() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("payload", SearchConstants.CONTAINS, "WSO2", OperationType.OR));
+
+        searchQuery.organizeSearchFilters();
+        assertTrue(searchQuery.getNGramFilters().isEmpty());
+        assertTrue(searchQuery.isContainsSearchExists());
+    }
+
+    public void testSingleValueOfIndexIsTimestampOrdered() throws CassandraSearchException {
+        SearchQuery searchQuery = newSearchQuery(new Filter("host", SearchConstants.EQ, "node1", null));
+
+        searchQuery.organizeSearchFilters();
+        assertTrue(searchQuery.isTimestampOrdered());
+    }
+
+    public void testRangeOrJoinOfIndexIsNotTimestampOrdered() throws CassandraSearchException {
+        SearchQuery rangeQuery = newSearchQuery(new Filter("host", SearchConstants.GT, "node1", null));
+        rangeQuery.organizeSearchFilters();
+        assertFalse(rangeQuery.isTimestampOrdered());
+
+        SearchQuery joinedQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("host", SearchConstants.EQ, "node2", OperationType.OR));
+        joinedQuery.organizeSearchFilters();
+        assertFalse(joinedQuery.isTimestampOrdered());
+
+        SearchQuery nGramQuery = newSearchQuery(new Filter("payload", SearchConstants.CONTAINS, "WSO2", null));
+        nGramQuery.organizeSearchFilters();
+        assertFalse(nGramQuery.isTimestampOrdered());
+    }
+
+    public void testTimestampRangeIsTimestampOrdered() throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery(new IndexDefinition() {
+            public AttributeType getAttributeTypeforProperty(String property) {
+                return property.equals(SearchConstants.TIMESTAMP_PROPERTY) ? AttributeType.LONG : null;
+            }
+
+            public List<Attribute> getFixedSearchData() {
+                return null;
+            }
+        });
+        searchQuery.buildQuery(Arrays.asList(
+                new Filter(SearchConstants.TIMESTAMP_PROPERTY, SearchConstants.GT, "100", null),
+                new Filter(SearchConstants.TIMESTAMP_PROPERTY, SearchConstants.LT, "200", OperationType.AND)));
+
+        assertTrue(searchQuery.isValidQuery());
+        searchQuery.organizeSearchFilters();
+        assertTrue(searchQuery.isTimestampOrdered());
+    }
+
+    public void testOnlySingleIndexScanIsContinuable() throws CassandraSearchException {
+        SearchQuery singleQuery = newSearchQuery(new Filter("host", SearchConstants.EQ, "node1", null));
+        singleQuery.organizeSearchFilters();
+        assertTrue(singleQuery.isIndexScanContinuable());
+
+        SearchQuery joinedQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("host", SearchConstants.EQ, "node2", OperationType.OR));
+        joinedQuery.organizeSearchFilters();
+        assertFalse(joinedQuery.isIndexScanContinuable());
+
+        SearchQuery containsQuery = newSearchQuery(
+                new Filter("host", SearchConstants.EQ, "node1", null),
+                new Filter("payload", SearchConstants.CONTAINS, "WSO2", OperationType.AND));
+        containsQuery.organizeSearchFilters();
+        assertFalse(containsQuery.isIndexScanContinuable());
+    }
+
+    private SearchQuery newSearchQuery(Filter... filters) throws CassandraSearchException {
+        SearchQuery searchQuery = new SearchQuery(INDEX_DEFINITION);
+        searchQuery.setNGramIndexedProperties(new HashSet<String>(Collections.singletonList("payload")));
+        searchQuery.buildQuery(Arrays.asList(filters));
+        return searchQuery;
+    }
+}
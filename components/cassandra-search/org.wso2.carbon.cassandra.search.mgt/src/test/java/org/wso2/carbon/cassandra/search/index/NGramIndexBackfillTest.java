@@ -0,0 +1,235 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import junit.framework.TestCase;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.RangeSlicesIterator;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.RangeSlicesQuery;
+import org.apache.cassandra.service.CassandraDaemon;
+import org.apache.commons.io.FileUtils;
+import org.wso2.carbon.cassandra.search.cache.IndexDefinitionCache;
+import org.wso2.carbon.cassandra.search.connection.ConnectionManager;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Backfills n-gram indexes on an embedded Cassandra server and checks that the contains results
+ * found through the indexes are the ones found by scanning the property values.
+ */
+public class NGramIndexBackfillTest extends TestCase {
+    private static final String CASSANDRA_YAML_PATH = "src/test/resources/cassandra.yaml";
+    private static final String CASSANDRA_DATA_PATH = "target/cassandra";
+    private static final String CASSANDRA_HOST = "localhost:19160";
+    private static final String PROPERTY = "payload_content";
+    private static final String HOST_PROPERTY = "meta_host";
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+    private static final String[] WORDS = {"getQuote", "WSO2", "IBM", "order", "placed", "cancelled",
+            "Quoter", "ws", "o2", "a"};
+
+    private static Cluster cluster;
+
+    private Keyspace eventKeyspace;
+    private Keyspace indexKeyspace;
+
+    protected void setUp() throws Exception {
+        startCassandra();
+        eventKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getKeySpaceName());
+        indexKeyspace = ConnectionManager.getKeyspace(cluster, CassandraUtils.getIndexKeySpaceName());
+    }
+
+    public void testContainsResultsMatchValueScan() throws Exception {
+        String streamName = "org.wso2.bam.backfill.matches";
+        defineStream(streamName);
+        List<String> rowKeys = storeEvents(streamName, 0, 450, null);
+
+        NGramIndexer indexer = new NGramIndexer(cluster, indexKeyspace);
+        indexer.defineIndexes(streamName, Collections.singletonList(PROPERTY));
+        //the event writer indexes the events stored from now on
+        rowKeys.addAll(storeEvents(streamName, 450, 10, indexer));
+        Thread.sleep(5);
+
+        NGramIndexBackfill backfill = new NGramIndexBackfill(cluster, eventKeyspace, indexKeyspace, 100);
+        assertEquals(460, backfill.backfill(streamName, Collections.singletonList(PROPERTY)));
+        rowKeys.addAll(storeEvents(streamName, 460, 10, indexer));
+
+        IndexDefinitionCache.getInstance(cluster, indexKeyspace).invalidate();
+        assertEquals(Collections.singleton(PROPERTY), IndexDefinitionCache.getInstance(cluster, indexKeyspace)
+                .getSearchableNGramIndexedProperties(indexKeyspace, streamName));
+
+        Map<String, String> values = scanValues(streamName);
+        assertEquals(rowKeys.size(), values.size());
+        NGramIndex index = new NGramIndex(indexKeyspace, CassandraUtils.convertStreamNameToCFName(streamName),
+                PROPERTY);
+        for (String searchValue : new String[]{"WSO2", "getQuote", "Quote", "ote W", "IBM", "o2 a", "o2 IBM",
+                "cancelled order", "xyz"}) {
+            List<String> expected = new ArrayList<String>();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if (entry.getValue().contains(searchValue)) {
+                    expected.add(entry.getKey());
+                }
+            }
+
+            //n-gram lookups return a superset of the matching rows, which is verified against the values
+            List<String> found = new ArrayList<String>();
+            for (String rowKey : index.getCandidateRowKeys(searchValue)) {
+                if (values.get(rowKey).contains(searchValue)) {
+                    found.add(rowKey);
+                }
+            }
+            Collections.sort(expected);
+            Collections.sort(found);
+            assertEquals(searchValue, expected, found);
+        }
+    }
+
+    public void testIndexBackfilledBeforeWriterStartedIsNotSearchable() throws Exception {
+        String streamName = "org.wso2.bam.backfill.incomplete";
+        defineStream(streamName);
+        storeEvents(streamName, 0, 20, null);
+
+        NGramIndexBackfill backfill = new NGramIndexBackfill(cluster, eventKeyspace, indexKeyspace, 100);
+        assertEquals(20, backfill.backfill(streamName, Collections.singletonList(PROPERTY)));
+        Thread.sleep(5);
+        //events stored between the backfill and the writer start are missing from the index
+        storeEvents(streamName, 20, 5, new NGramIndexer(cluster, indexKeyspace));
+
+        IndexDefinitionCache.getInstance(cluster, indexKeyspace).invalidate();
+        assertTrue(IndexDefinitionCache.getInstance(cluster, indexKeyspace)
+                .getSearchableNGramIndexedProperties(indexKeyspace, streamName).isEmpty());
+    }
+
+    /**
+     * Stores events with random property values, indexing them with the indexer if there is one
+     *
+     * @return row keys of the events
+     */
+    private List<String> storeEvents(String streamName, int first, int count, NGramIndexer indexer)
+            throws Exception {
+        String primaryCFName = CassandraUtils.convertStreamNameToCFName(streamName);
+        Random random = new Random(first);
+        Mutator<String> eventMutator = HFactory.createMutator(eventKeyspace, STRING_SERIALIZER);
+        Mutator<String> indexMutator = HFactory.createMutator(indexKeyspace, STRING_SERIALIZER);
+        List<String> rowKeys = new ArrayList<String>();
+        for (int i = first; i < first + count; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int word = random.nextInt(6); word >= 0; word--) {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(word > 0 ? " " : "");
+            }
+            String rowKey = (1380000000000L + i) + "::10.100.0." + (i % 7) + "::" + i;
+            eventMutator.addInsertion(rowKey, primaryCFName, HFactory.createStringColumn(PROPERTY,
+                    content.toString()));
+            eventMutator.addInsertion(rowKey, primaryCFName, HFactory.createStringColumn(HOST_PROPERTY,
+                    "localhost"));
+            if (indexer != null) {
+                Map<String, String> propertyValues = new HashMap<String, String>();
+                propertyValues.put(PROPERTY, content.toString());
+                propertyValues.put(HOST_PROPERTY, "localhost");
+                indexer.indexEvent(indexMutator, streamName, rowKey, propertyValues);
+            }
+            rowKeys.add(rowKey);
+        }
+        eventMutator.execute();
+        if (indexer != null) {
+            indexMutator.execute();
+        }
+        return rowKeys;
+    }
+
+    /**
+     * @return values of the property of all the events of the stream, keyed by row key
+     */
+    private Map<String, String> scanValues(String streamName) {
+        RangeSlicesQuery<String, String, String> rangeSlicesQuery = HFactory.createRangeSlicesQuery(
+                eventKeyspace, STRING_SERIALIZER, STRING_SERIALIZER, STRING_SERIALIZER);
+        rangeSlicesQuery.setColumnFamily(CassandraUtils.convertStreamNameToCFName(streamName));
+        rangeSlicesQuery.setColumnNames(PROPERTY);
+        rangeSlicesQuery.setRowCount(100);
+
+        Map<String, String> values = new HashMap<String, String>();
+        RangeSlicesIterator<String, String, String> rows =
+                new RangeSlicesIterator<String, String, String>(rangeSlicesQuery, "", "");
+        while (rows.hasNext()) {
+            Row<String, String, String> row = rows.next();
+            HColumn<String, String> column = row.getColumnSlice().getColumnByName(PROPERTY);
+            if (column != null) {
+                values.put(row.getKey(), column.getValue());
+            }
+        }
+        return values;
+    }
+
+    private void defineStream(String streamName) {
+        cluster.addColumnFamily(newColumnFamily(eventKeyspace.getKeyspaceName(),
+                CassandraUtils.convertStreamNameToCFName(streamName)), true);
+
+        Mutator<String> mutator = HFactory.createMutator(indexKeyspace, STRING_SERIALIZER);
+        mutator.addInsertion(streamName, SearchConstants.INDEX_DEF_CF, HFactory.createStringColumn(
+                SearchConstants.SECONDARY_INDEX_DEF, HOST_PROPERTY + ":STRING"));
+        IndexDefinitionCache.addVersionUpdate(mutator);
+        mutator.execute();
+        IndexDefinitionCache.getInstance(cluster, indexKeyspace).invalidate();
+    }
+
+    private static ColumnFamilyDefinition newColumnFamily(String keyspaceName, String columnFamily) {
+        ColumnFamilyDefinition cfDef = HFactory.createColumnFamilyDefinition(keyspaceName, columnFamily,
+                ComparatorType.UTF8TYPE);
+        cfDef.setKeyValidationClass(ComparatorType.UTF8TYPE.getClassName());
+        cfDef.setDefaultValidationClass(ComparatorType.UTF8TYPE.getClassName());
+        return cfDef;
+    }
+
+    private static synchronized void startCassandra() throws Exception {
+        if (cluster != null) {
+            return;
+        }
+        //data of earlier runs is dropped, so that the streams are defined from scratch
+        FileUtils.deleteDirectory(new File(CASSANDRA_DATA_PATH));
+        System.setProperty("cassandra.config", "file:" + CASSANDRA_YAML_PATH);
+        CassandraDaemon cassandraDaemon = new CassandraDaemon();
+        cassandraDaemon.init(null);
+        cassandraDaemon.start();
+
+        cluster = HFactory.getOrCreateCluster("NGramIndexBackfillTest", CASSANDRA_HOST);
+        for (String keyspaceName : new String[]{CassandraUtils.getKeySpaceName(),
+                CassandraUtils.getIndexKeySpaceName()}) {
+            cluster.addKeyspace(HFactory.createKeyspaceDefinition(keyspaceName,
+                    "org.apache.cassandra.locator.SimpleStrategy", 1, new ArrayList<ColumnFamilyDefinition>()),
+                    true);
+        }
+        cluster.addColumnFamily(newColumnFamily(CassandraUtils.getIndexKeySpaceName(),
+                SearchConstants.INDEX_DEF_CF), true);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+public class NGramIndexTest extends TestCase {
+
+    public void testNGramsAreDistinctAndInOrder() {
+        assertEquals(new LinkedHashSet<String>(Arrays.asList("ban", "ana", "nan")), NGramIndex.getNGrams("banana"));
+        assertEquals(new LinkedHashSet<String>(Arrays.asList("abc")), NGramIndex.getNGrams("abc"));
+    }
+
+    public void testShortValuesHaveNoNGrams() {
+        assertTrue(NGramIndex.getNGrams("ab").isEmpty());
+        assertTrue(NGramIndex.getNGrams("").isEmpty());
+        assertTrue(NGramIndex.getNGrams(null).isEmpty());
+        assertFalse(NGramIndex.isIndexable("ab"));
+        assertFalse(NGramIndex.isIndexable(null));
+        assertTrue(NGramIndex.isIndexable("abc"));
+    }
+
+    public void testNGramsOfSearchValueAreContainedInMatchingValue() {
+        String value = "<soapenv:Body><getQuote symbol=\"WSO2\"/></soapenv:Body>";
+        String searchValue = "symbol=\"WSO2\"";
+
+        assertTrue(NGramIndex.getNGrams(value).containsAll(NGramIndex.getNGrams(searchValue)));
+        assertFalse(NGramIndex.getNGrams(value).containsAll(NGramIndex.getNGrams("symbol=\"IBM\"")));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.index;
+
+import junit.framework.TestCase;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.wso2.carbon.cassandra.search.utils.CassandraUtils;
+import org.wso2.carbon.cassandra.search.utils.SearchConstants;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NGramIndexerTest extends TestCase {
+    private static final String STREAM = "org.wso2.bam.stream";
+    private static final String PROPERTY = "payload_content";
+
+    private Map<String, Long> maintainedSince;
+    private Map<String, Long> backfilledUntil;
+    private TestIndexer indexer;
+    private RecordingMutator mutations;
+
+    protected void setUp() {
+        maintainedSince = new HashMap<String, Long>();
+        backfilledUntil = new HashMap<String, Long>();
+        indexer = new TestIndexer();
+        mutations = new RecordingMutator();
+    }
+
+    public void testEventIndexedAfterBackfillIsInIndex() throws Exception {
+        maintainedSince.put(PROPERTY, 100L);
+        backfilledUntil.put(PROPERTY, 200L);
+        assertTrue(state().isComplete(PROPERTY));
+
+        indexer.indexEvent(mutations.mutator(), STREAM, "300::event", values("getQuote WSO2"));
+
+        String indexCF = CassandraUtils.getNGramIndexCFName(CassandraUtils.convertStreamNameToCFName(STREAM),
+                PROPERTY);
+        for (String nGram : NGramIndex.getNGrams("WSO2")) {
+            assertTrue(nGram, mutations.insertions.contains(nGram + "/" + indexCF + "/300::event"));
+        }
+        //the writer already maintains the index, nothing else is written
+        assertEquals(NGramIndex.getNGrams("getQuote WSO2").size(), mutations.insertions.size());
+    }
+
+    public void testIndexIsCompleteOnceBackfilledAfterWriterStarted() throws Exception {
+        backfilledUntil.put(PROPERTY, 200L);
+        assertFalse("writer does not index new events yet", state().isComplete(PROPERTY));
+
+        long before = System.currentTimeMillis();
+        indexer.indexEvent(mutations.mutator(), STREAM, "300::event", values("getQuote WSO2"));
+        String marker = mutations.getValue(STREAM + "/" + SearchConstants.INDEX_DEF_CF + "/" +
+                NGramIndexState.getMaintainedSinceColumn(PROPERTY));
+        assertNotNull(marker);
+        assertTrue(Long.parseLong(marker) >= before);
+
+        maintainedSince.put(PROPERTY, Long.parseLong(marker));
+        assertFalse("events stored between the backfill and the writer start are missing",
+                state().isComplete(PROPERTY));
+        backfilledUntil.put(PROPERTY, Long.parseLong(marker) + 1);
+        assertTrue(state().isComplete(PROPERTY));
+
+        //the marker is only written for the first event
+        mutations = new RecordingMutator();
+        indexer.indexEvent(mutations.mutator(), STREAM, "301::event", values("getQuote IBM"));
+        assertNull(mutations.getValue(STREAM + "/" + SearchConstants.INDEX_DEF_CF + "/" +
+                NGramIndexState.getMaintainedSinceColumn(PROPERTY)));
+    }
+
+    public void testRemovedEventIsDeletedFromIndex() throws Exception {
+        indexer.removeEvent(mutations.mutator(), STREAM, "300::event", values("WSO2"));
+        assertEquals(NGramIndex.getNGrams("WSO2").size(), mutations.deletions.size());
+        assertTrue(mutations.insertions.isEmpty());
+    }
+
+    private NGramIndexState state() {
+        return new NGramIndexState(maintainedSince, backfilledUntil);
+    }
+
+    private static Map<String, String> values(String value) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(PROPERTY, value);
+        values.put("meta_host", "localhost");
+        return values;
+    }
+
+    private class TestIndexer extends NGramIndexer {
+        TestIndexer() {
+            super(null, null);
+        }
+
+        public Set<String> getIndexedProperties(String streamName) {
+            return new LinkedHashSet<String>(Collections.singletonList(PROPERTY));
+        }
+
+        public NGramIndexState getIndexState(String streamName) {
+            return state();
+        }
+    }
+
+    /**
+     * Records the insertions as key/columnFamily/columnName and the deletions of a mutator
+     */
+    private static class RecordingMutator implements InvocationHandler {
+        private final List<String> insertions = new ArrayList<String>();
+        private final Map<String, String> values = new HashMap<String, String>();
+        private final List<String> deletions = new ArrayList<String>();
+
+        @SuppressWarnings("unchecked")
+        Mutator<String> mutator() {
+            return (Mutator<String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{Mutator.class}, this);
+        }
+
+        String getValue(String insertion) {
+            return values.get(insertion);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("addInsertion")) {
+                HColumn column = (HColumn) args[2];
+                String insertion = args[0] + "/" + args[1] + "/" + column.getName();
+                insertions.add(insertion);
+                values.put(insertion, String.valueOf(column.getValue()));
+            } else if (method.getName().equals("addDeletion")) {
+                deletions.add(args[0] + "/" + args[1] + "/" + args[2]);
+            } else {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return proxy;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.utils;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class CassandraUtilsTest extends TestCase {
+    private static final String NON_DISPLAYABLE_VALUE = "***Non displayable value***";
+
+    //chars around the boundaries of the ranges handled by the sanitizer
+    private static final char[] ALPHABET = {'\u0000', '\u0001', '\u0008', '\t', '\n', '\u000B', '\u000C', '\r',
+            '\u000E', '\u001F', ' ', '!', 'a', 'Z', '~', '\u007F', '\u0080', '\u00E9', '\u4E2D', '\uD7FF',
+            '\uD800', '\uDBFF', '\uDC00', '\uDFFF', '\uE000', '\uFFFD', '\uFFFF'};
+
+    /**
+     * The regex based implementation the sanitizer replaced
+     */
+    private static String cleanWithRegex(String value) {
+        String parsedString = "";
+        if (value != null) {
+            parsedString = value.replaceAll("[\\x00-\\x09\\x0B\\x0C\\x0E-\\x1F\\x7F]", " ");
+        }
+        if (parsedString.trim().isEmpty()) {
+            parsedString = NON_DISPLAYABLE_VALUE;
+        }
+        return parsedString;
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(4) == 0) {
+                builder.append((char) random.nextInt(Character.MAX_VALUE + 1));
+            } else {
+                builder.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+        }
+        return builder.toString();
+    }
+
+    public void testCleanNonXmlCharsMatchesRegexOnRandomValues() {
+        Random random = new Random(20140407L);
+        for (int i = 0; i < 100000; i++) {
+            String value = randomString(random, i % 10 == 0 ? 512 : 12);
+            assertEquals("value #" + i, cleanWithRegex(value), CassandraUtils.cleanNonXmlChars(value));
+        }
+    }
+
+    public void testCleanNonXmlCharsMatchesRegexOnEdgeCases() {
+        String[] values = {null, "", " ", "\t", "\r\n", "\u0000", "\u007F", " \u0001 \n", "a", "\u0001a\u001F",
+                "tab\tseparated", "\uD800", "\uDBFF\uDC00"};
+        for (String value : values) {
+            assertEquals(cleanWithRegex(value), CassandraUtils.cleanNonXmlChars(value));
+        }
+    }
+
+    public void testCleanValueIsNotCopied() {
+        String value = "<soapenv:Envelope>\r\n  <in>\u00E9\u4E2D\uD83D\uDE00</in>\r\n</soapenv:Envelope>";
+        assertSame(value, CassandraUtils.cleanNonXmlChars(value));
+        assertSame(value, CassandraUtils.cleanNonXmlChars(value, true));
+    }
+
+    public void testUnpairedSurrogatesAreReplacedOnRequest() {
+        assertEquals("a\uD83D\uDE00b", CassandraUtils.cleanNonXmlChars("a\uD83D\uDE00b", true));
+        assertEquals("a b", CassandraUtils.cleanNonXmlChars("a\uD83Db", true));
+        assertEquals("a b", CassandraUtils.cleanNonXmlChars("a\uDE00b", true));
+        assertEquals("a  ", CassandraUtils.cleanNonXmlChars("a\uDE00\uD83D", true));
+        assertEquals(NON_DISPLAYABLE_VALUE, CassandraUtils.cleanNonXmlChars("\uDE00\u0001", true));
+        //left untouched unless requested, as by the regex
+        assertEquals("a\uD83Db", CassandraUtils.cleanNonXmlChars("a\uD83Db"));
+    }
+
+    public void testUnpairedSurrogateFuzz() {
+        Random random = new Random(7L);
+        for (int i = 0; i < 20000; i++) {
+            String cleaned = CassandraUtils.cleanNonXmlChars(randomString(random, 64), true);
+            for (int j = 0; j < cleaned.length(); j++) {
+                char c = cleaned.charAt(j);
+                if (Character.isHighSurrogate(c)) {
+                    assertTrue(j + 1 < cleaned.length() && Character.isLowSurrogate(cleaned.charAt(j + 1)));
+                    j++;
+                } else {
+                    assertFalse(Character.isLowSurrogate(c));
+                    assertTrue(c >= ' ' && c != '\u007F' || c == '\n' || c == '\r');
+                }
+            }
+        }
+    }
+}
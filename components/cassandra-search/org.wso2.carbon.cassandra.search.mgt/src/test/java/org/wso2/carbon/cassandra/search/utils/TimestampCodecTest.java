@@ -0,0 +1,126 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.cassandra.search.utils;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.search.exception.CassandraSearchException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TimestampCodecTest extends TestCase {
+    private final Random random = new Random(20140407L);
+
+    public void testFormatMatchesSimpleDateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat(TimestampCodec.DISPLAY_FORMAT);
+        for (int i = 0; i < 10000; i++) {
+            long millis = randomMillis();
+            assertEquals(format.format(new Date(millis)), TimestampCodec.format(millis));
+        }
+        assertEquals(format.format(new Date(-1)), TimestampCodec.format(-1));
+        assertEquals(format.format(new Date(Long.MAX_VALUE)), TimestampCodec.format(Long.MAX_VALUE));
+    }
+
+    public void testFormatOfSameSecond() {
+        long millis = 1396850000000L;
+        String value = TimestampCodec.format(millis);
+        assertEquals(value, TimestampCodec.format(millis + 999));
+        assertFalse(value.equals(TimestampCodec.format(millis + 1000)));
+    }
+
+    public void testParseMatchesSimpleDateFormat() throws Exception {
+        for (String pattern : TimestampCodec.QUERY_FORMATS) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            for (int i = 0; i < 1000; i++) {
+                String value = format.format(new Date(randomMillis()));
+                assertEquals(value, parseWithSimpleDateFormat(value), TimestampCodec.parse(value));
+            }
+        }
+        //lenient values are rolled over like SimpleDateFormat does
+        assertEquals(parseWithSimpleDateFormat("20131301250000"), TimestampCodec.parse("20131301250000"));
+        assertEquals(parseWithSimpleDateFormat("20130931"), TimestampCodec.parse("20130931"));
+    }
+
+    public void testParseOfInvalidTimestamp() {
+        try {
+            TimestampCodec.parse("yesterday");
+            fail("Expected the timestamp to be rejected");
+        } catch (CassandraSearchException e) {
+            assertEquals("Invalid timestamp format", e.getMessage());
+        }
+    }
+
+    public void testConcurrentFormatting() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        SimpleDateFormat format = new SimpleDateFormat(TimestampCodec.DISPLAY_FORMAT);
+                        SimpleDateFormat queryFormat = new SimpleDateFormat(TimestampCodec.QUERY_FORMATS[0]);
+                        Random threadRandom = new Random(seed);
+                        for (int i = 0; i < 20000; i++) {
+                            long millis = 1000000000000L + (long) (threadRandom.nextDouble() * 1000000000000L);
+                            String value = TimestampCodec.format(millis);
+                            String queryValue = queryFormat.format(new Date(millis));
+                            if (!value.equals(format.format(new Date(millis)))
+                                    || TimestampCodec.parse(queryValue) != queryFormat.parse(queryValue).getTime()) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long randomMillis() {
+        return (long) (random.nextDouble() * 4000000000000L);
+    }
+
+    /**
+     * Parsing as implemented by CassandraSearchAdmin before the codec was introduced.
+     */
+    private long parseWithSimpleDateFormat(String value) throws ParseException {
+        for (String pattern : TimestampCodec.QUERY_FORMATS) {
+            try {
+                return new SimpleDateFormat(pattern).parse(value).getTime();
+            } catch (ParseException e) {
+                //try the next format
+            }
+        }
+        throw new ParseException(value, 0);
+    }
+}
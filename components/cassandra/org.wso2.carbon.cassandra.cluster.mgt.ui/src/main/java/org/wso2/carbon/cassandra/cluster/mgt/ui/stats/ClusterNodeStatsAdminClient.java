@@ -111,6 +111,27 @@ public class ClusterNodeStatsAdminClient {
             throw new ClusterAdminClientException("Error while getting version",e, log);
         }  
     }
+
+    public long getStatsTimestamp(String host)
+    {
+        try{
+            return clusterStatsProxyAdminStub.getStatsTimestamp(host);
+        }catch (Exception e)
+        {
+            throw new ClusterAdminClientException("Error while getting statistics timestamp",e, log);
+        }
+    }
+
+    public long refreshStats(String host)
+    {
+        try{
+            return clusterStatsProxyAdminStub.refreshStats(host);
+        }catch (Exception e)
+        {
+            throw new ClusterAdminClientException("Error while refreshing statistics",e, log);
+        }
+    }
+
     public ProxyThreadPoolInfo getTpstats(String host)
             throws ClusterAdminClientException {
         try{
@@ -1643,6 +1643,31 @@ function showVersion(hostAddress)
                }, "json");
     return true;
 }
+function refreshStats(hostAddress)
+{
+    var url = 'refreshStats-ajaxprocessor.jsp?hostAddress='+hostAddress;
+    jQuery.get(url, ({}),
+               function(data, status) {
+                   if (status != "success") {
+                       CARBON.showErrorDialog(cassandrajsi18n["cassandra.cluster.node.fail"]);
+                       return false;
+                   }
+                   else
+                   {
+                       if(data.success=="yes")
+                       {
+                           location.reload();
+                           return true;
+                       }
+                       else
+                       {
+                           CARBON.showErrorDialog(cassandrajsi18n["cassandra.cluster.node.fail"]);
+                           return false;
+                       }
+                   }
+               }, "json");
+    return true;
+}
 function showGossipInfo(hostAddress,hostName)
 {
     location.href= 'showGossipInfo.jsp?hostAddress='+hostAddress+'&hostName='+hostName;
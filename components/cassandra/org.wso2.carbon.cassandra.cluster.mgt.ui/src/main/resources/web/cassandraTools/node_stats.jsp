@@ -1,6 +1,8 @@
 <%@ page import="java.util.Set" %>
 <%@ page import="java.util.List" %>
 <%@ page import="org.wso2.carbon.cassandra.cluster.mgt.ui.constants.ClusterUIConstants" %>
+<%@ page import="org.wso2.carbon.cassandra.cluster.mgt.ui.stats.ClusterNodeStatsAdminClient" %>
+<%@ page import="java.util.Date" %>
 <!--
 ~ Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
 ~
@@ -26,6 +28,16 @@
     String hostAddress=request.getParameter(ClusterUIConstants.HOST_ADDRESS);
     String hostName=request.getParameter(ClusterUIConstants.HOST_NAME);
     List<String> hosts=(List<String>)session.getAttribute(ClusterUIConstants.HOSTS);
+    Date statsTimestamp=null;
+    try{
+        ClusterNodeStatsAdminClient clusterNodeStatsAdminClient=new ClusterNodeStatsAdminClient(config.getServletContext(),session);
+        long timestamp=clusterNodeStatsAdminClient.getStatsTimestamp(hostAddress);
+        if(timestamp>0)
+        {
+            statsTimestamp=new Date(timestamp);
+        }
+    }catch (Exception e)
+    {}
 %>
 
 
@@ -70,6 +82,7 @@
                         <a href="#" onclick="showGossipInfo('<%=hostAddress%>','<%=hostName%>')" class="icon-link" style="background-image:url(images/info.jpg);"><fmt:message key="cassandra.cluster.node.stats.ginfo" /></a>
                         <a href="#" onclick="showNetstatForm()" class="icon-link" style="background-image:url(images/statI.jpg);"><fmt:message key="cassandra.cluster.node.stats.netstat" /></a>
                         <a href="#" onclick="rangeKeySample('<%=hostAddress%>','<%=hostName%>')" class="icon-link" style="background-image:url(images/range.png);"><fmt:message key="cassandra.cluster.node.stats.range" /></a>
+                        <a href="#" onclick="refreshStats('<%=hostAddress%>')" class="icon-link" style="background-image:url(images/refresh.png);"><fmt:message key="cassandra.cluster.node.stats.refresh" /></a>
                         <div style="clear:both">
                             <div id="netstatForm" style="display:none">
                                 <table cellpadding="0" cellspacing="0" class="styledLeft">
@@ -102,6 +115,11 @@
                 </tr>
                 </tbody>
             </table>
+            <p id="statsTimestamp"><fmt:message key="cassandra.cluster.node.stats.timestamp" />: <%if(statsTimestamp!=null){%>
+                <%=statsTimestamp%>
+                <%}else{%>
+                <fmt:message key="cassandra.cluster.node.stats.timestamp.unknown" />
+                <%}%></p>
             <table>
                 <tr>
                     <td><div style="margin-top:0px;">
@@ -26,6 +26,15 @@ public class ClusterMonitorConfig {
     private static  String secureUrl;
     private static  String cronExpression;
     private static  boolean isMonitoringEnable;
+    private static  long statsRefreshInterval = 30 * 1000;
+    private static  int eventQueueSize = 10000;
+    private static  int eventBatchSize = 200;
+    private static  long eventFlushInterval = 1000;
+    private static  String eventOverflowPolicy = "DROP_OLDEST";
+    private static  boolean changeDetectionEnable;
+    private static  double changeAbsoluteThreshold;
+    private static  double changeRelativeThreshold;
+    private static  long keyframeInterval = 5 * 60 * 1000;
 
     public static String getUsername() {
         return username;
@@ -82,5 +91,76 @@ public class ClusterMonitorConfig {
     public static void setNodeId(String nodeId) {
         ClusterMonitorConfig.nodeId = nodeId;
     }
-}
 
+    public static long getStatsRefreshInterval() {
+        return statsRefreshInterval;
+    }
+
+    public static void setStatsRefreshInterval(long statsRefreshInterval) {
+        ClusterMonitorConfig.statsRefreshInterval = statsRefreshInterval;
+    }
+
+    public static int getEventQueueSize() {
+        return eventQueueSize;
+    }
+
+    public static void setEventQueueSize(int eventQueueSize) {
+        ClusterMonitorConfig.eventQueueSize = eventQueueSize;
+    }
+
+    public static int getEventBatchSize() {
+        return eventBatchSize;
+    }
+
+    public static void setEventBatchSize(int eventBatchSize) {
+        ClusterMonitorConfig.eventBatchSize = eventBatchSize;
+    }
+
+    public static long getEventFlushInterval() {
+        return eventFlushInterval;
+    }
+
+    public static void setEventFlushInterval(long eventFlushInterval) {
+        ClusterMonitorConfig.eventFlushInterval = eventFlushInterval;
+    }
+
+    public static String getEventOverflowPolicy() {
+        return eventOverflowPolicy;
+    }
+
+    public static void setEventOverflowPolicy(String eventOverflowPolicy) {
+        ClusterMonitorConfig.eventOverflowPolicy = eventOverflowPolicy;
+    }
+
+    public static boolean isChangeDetectionEnable() {
+        return changeDetectionEnable;
+    }
+
+    public static void setChangeDetectionEnable(boolean changeDetectionEnable) {
+        ClusterMonitorConfig.changeDetectionEnable = changeDetectionEnable;
+    }
+
+    public static double getChangeAbsoluteThreshold() {
+        return changeAbsoluteThreshold;
+    }
+
+    public static void setChangeAbsoluteThreshold(double changeAbsoluteThreshold) {
+        ClusterMonitorConfig.changeAbsoluteThreshold = changeAbsoluteThreshold;
+    }
+
+    public static double getChangeRelativeThreshold() {
+        return changeRelativeThreshold;
+    }
+
+    public static void setChangeRelativeThreshold(double changeRelativeThreshold) {
+        ClusterMonitorConfig.changeRelativeThreshold = changeRelativeThreshold;
+    }
+
+    public static long getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public static void setKeyframeInterval(long keyframeInterval) {
+        ClusterMonitorConfig.keyframeInterval = keyframeInterval;
+    }
+}
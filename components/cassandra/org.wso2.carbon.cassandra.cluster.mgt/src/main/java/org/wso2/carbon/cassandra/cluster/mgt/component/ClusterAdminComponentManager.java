@@ -27,6 +27,9 @@ import org.wso2.carbon.cassandra.cluster.mgt.Util.ClusterConstants;
 import org.wso2.carbon.cassandra.cluster.mgt.Util.ClusterMonitorConfig;
 import org.wso2.carbon.cassandra.cluster.mgt.Util.NTaskConfiguration;
 import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
+import org.wso2.carbon.cassandra.cluster.mgt.publisher.ClusterDataPublisher;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterStatsSnapshotService;
 import org.wso2.carbon.ntask.common.TaskException;
 import org.wso2.carbon.ntask.core.TaskManager;
 import org.wso2.carbon.ntask.core.service.TaskService;
@@ -47,6 +50,7 @@ public final class ClusterAdminComponentManager {
     private ClusterMBeanDataAccess clusterMBeanDataAccess;
     private TaskService taskService;
     private TaskManager taskManager;
+    private ClusterStatsSnapshotService clusterStatsSnapshotService;
     private boolean initialized = false;
     private final String CONFIGURATION_LOCATION = CarbonUtils.getCarbonHome() + File.separator + "repository" + File.separator + "conf"
             + File.separator + "etc" + File.separator;
@@ -76,7 +80,9 @@ public final class ClusterAdminComponentManager {
         } catch (ClusterDataAdminException e) {
             log.error("Error while starting cluster monitoring", e);
         }
-
+        clusterStatsSnapshotService = new ClusterStatsSnapshotService(new ClusterMBeanServiceHandler(),
+                                                                      ClusterMonitorConfig.getStatsRefreshInterval());
+        clusterStatsSnapshotService.start();
     }
 
     public ClusterMBeanDataAccess getClusterMBeanDataAccess() throws
@@ -91,6 +97,12 @@ public final class ClusterAdminComponentManager {
         return taskService;
     }
 
+    public ClusterStatsSnapshotService getClusterStatsSnapshotService() throws
+            ClusterDataAdminException {
+        assertInitialized();
+        return clusterStatsSnapshotService;
+    }
+
     private void assertInitialized() throws ClusterDataAdminException {
         if (!initialized) {
             throw new ClusterDataAdminException("Cassandra Admin Component has not been initialized.... ", log);
@@ -101,6 +113,11 @@ public final class ClusterAdminComponentManager {
      * Cleanup resources
      */
     public void destroy() {
+        if (clusterStatsSnapshotService != null) {
+            clusterStatsSnapshotService.stop();
+            clusterStatsSnapshotService = null;
+        }
+        ClusterDataPublisher.shutdown();
         clusterMBeanDataAccess = null;
         try {
             if (taskManager.isTaskScheduled(ClusterConstants.CLUSTER_STATS)) {
@@ -168,6 +185,48 @@ public final class ClusterAdminComponentManager {
         OMElement cardinals = omEl.getFirstChildWithName((new QName("bam_authentiacation")));
         ClusterMonitorConfig.setUsername(cardinals.getFirstChildWithName(new QName("username")).getText());
         ClusterMonitorConfig.setPassword(cardinals.getFirstChildWithName(new QName("password")).getText());
+        OMElement statsRefreshInterval = omEl.getFirstChildWithName(new QName("stats_refresh_interval"));
+        if (statsRefreshInterval != null) {
+            ClusterMonitorConfig.setStatsRefreshInterval(Long.parseLong(statsRefreshInterval.getText().trim()) * 1000);
+        }
+        OMElement eventPublisher = omEl.getFirstChildWithName(new QName("event_publisher"));
+        if (eventPublisher != null) {
+            OMElement queueSize = eventPublisher.getFirstChildWithName(new QName("queue_size"));
+            if (queueSize != null) {
+                ClusterMonitorConfig.setEventQueueSize(Integer.parseInt(queueSize.getText().trim()));
+            }
+            OMElement batchSize = eventPublisher.getFirstChildWithName(new QName("batch_size"));
+            if (batchSize != null) {
+                ClusterMonitorConfig.setEventBatchSize(Integer.parseInt(batchSize.getText().trim()));
+            }
+            OMElement flushInterval = eventPublisher.getFirstChildWithName(new QName("flush_interval"));
+            if (flushInterval != null) {
+                ClusterMonitorConfig.setEventFlushInterval(Long.parseLong(flushInterval.getText().trim()));
+            }
+            OMElement overflowPolicy = eventPublisher.getFirstChildWithName(new QName("overflow_policy"));
+            if (overflowPolicy != null) {
+                ClusterMonitorConfig.setEventOverflowPolicy(overflowPolicy.getText().trim());
+            }
+        }
+        OMElement changeDetection = omEl.getFirstChildWithName(new QName("change_detection"));
+        if (changeDetection != null) {
+            OMElement enable = changeDetection.getFirstChildWithName(new QName("enable"));
+            if (enable != null) {
+                ClusterMonitorConfig.setChangeDetectionEnable(Boolean.parseBoolean(enable.getText().trim()));
+            }
+            OMElement absoluteThreshold = changeDetection.getFirstChildWithName(new QName("absolute_threshold"));
+            if (absoluteThreshold != null) {
+                ClusterMonitorConfig.setChangeAbsoluteThreshold(Double.parseDouble(absoluteThreshold.getText().trim()));
+            }
+            OMElement relativeThreshold = changeDetection.getFirstChildWithName(new QName("relative_threshold"));
+            if (relativeThreshold != null) {
+                ClusterMonitorConfig.setChangeRelativeThreshold(Double.parseDouble(relativeThreshold.getText().trim()));
+            }
+            OMElement keyframeInterval = changeDetection.getFirstChildWithName(new QName("keyframe_interval"));
+            if (keyframeInterval != null) {
+                ClusterMonitorConfig.setKeyframeInterval(Long.parseLong(keyframeInterval.getText().trim()) * 1000);
+            }
+        }
     }
 
     private String readFile(String filePath) throws IOException {
@@ -0,0 +1,404 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.mbean;
+
+import org.apache.cassandra.db.compaction.OperationType;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.cluster.mgt.component.ClusterAdminComponentManager;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CompactionProperties;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CompactionStats;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ThreadPoolProperties;
+import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reads Cassandra statistics with bulk JMX calls instead of one remote call per attribute.
+ * All ColumnFamilies MBeans are located with a single <code>queryNames</code> pattern and each
+ * of them is read with one <code>getAttributes</code> call, so collecting the stats of every
+ * column family costs two round trips per column family (attributes and key estimate) instead
+ * of one per getter on a <code>ColumnFamilyStoreMBean</code> proxy.
+ */
+public class ClusterBulkAttributeReader {
+    private static Log log = LogFactory.getLog(ClusterBulkAttributeReader.class);
+
+    private static final String COLUMN_FAMILIES_OBJECT_NAME = "org.apache.cassandra.db:type=ColumnFamilies";
+    private static final String REQUEST_THREAD_POOLS_OBJECT_NAME = "org.apache.cassandra.request:type=*";
+    private static final String INTERNAL_THREAD_POOLS_OBJECT_NAME = "org.apache.cassandra.internal:type=*";
+    private static final String COMPACTION_MANAGER_OBJECT_NAME = "org.apache.cassandra.db:type=CompactionManager";
+    private static final String STORAGE_SERVICE_OBJECT_NAME = "org.apache.cassandra.db:type=StorageService";
+    private static final String KEYSPACE_KEY = "keyspace";
+    private static final String COLUMN_FAMILY_KEY = "columnfamily";
+    private static final String TYPE_KEY = "type";
+    private static final String ESTIMATE_KEYS_OPERATION = "estimateKeys";
+
+    private static final String[] COLUMN_FAMILY_ATTRIBUTES = {
+            "ColumnFamilyName", "LiveSSTableCount", "LiveDiskSpaceUsed", "TotalDiskSpaceUsed",
+            "MemtableSwitchCount", "ReadCount", "RecentReadLatencyMicros", "WriteCount",
+            "RecentWriteLatencyMicros", "PendingTasks", "BloomFilterFalsePositives",
+            "RecentBloomFilterFalseRatio", "BloomFilterDiskSpaceUsed", "MinRowSize", "MaxRowSize",
+            "MeanRowSize", "TotalReadLatencyMicros", "TotalWriteLatencyMicros"};
+    private static final String[] THREAD_POOL_ATTRIBUTES = {
+            "ActiveCount", "PendingTasks", "CompletedTasks", "CurrentlyBlockedTasks", "TotalBlockedTasks"};
+    private static final String[] COMPACTION_MANAGER_ATTRIBUTES = {"PendingTasks", "Compactions"};
+    private static final String[] STORAGE_SERVICE_ATTRIBUTES = {"CompactionThroughputMbPerSec"};
+
+    private MBeanServerConnection mBeanServerConnection;
+
+    public ClusterBulkAttributeReader() throws ClusterDataAdminException {
+        try {
+            mBeanServerConnection = ClusterAdminComponentManager.getInstance().getClusterMBeanDataAccess().
+                    getmBeanServerConnection();
+        } catch (Exception e) {
+            throw new ClusterDataAdminException("Unable to get MBean server connection", e, log);
+        }
+    }
+
+    public ClusterBulkAttributeReader(MBeanServerConnection mBeanServerConnection) {
+        this.mBeanServerConnection = mBeanServerConnection;
+    }
+
+    /**
+     * Read the given attributes of every MBean matching the pattern
+     *
+     * @param pattern        object name or object name pattern
+     * @param attributeNames attributes to read
+     * @return attribute values keyed by object name, attributes that could not be read are absent
+     * @throws ClusterDataAdminException if the MBean server could not be queried
+     */
+    public Map<ObjectName, Map<String, Object>> readAttributes(ObjectName pattern, String[] attributeNames)
+            throws ClusterDataAdminException {
+        Set<ObjectName> objectNames;
+        try {
+            objectNames = mBeanServerConnection.queryNames(pattern, null);
+        } catch (IOException e) {
+            throw new ClusterDataAdminException("Unable to query MBeans for " + pattern, e, log);
+        }
+        Map<ObjectName, Map<String, Object>> result = new LinkedHashMap<ObjectName, Map<String, Object>>();
+        for (ObjectName objectName : objectNames) {
+            Map<String, Object> attributes = readAttributesOf(objectName, attributeNames);
+            // MBeans unregistered between the query and the read (dropped column families) are skipped
+            if (attributes != null) {
+                result.put(objectName, attributes);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the statistics of every keyspace, ordered by keyspace name
+     *
+     * @return keyspace statistics with their column family statistics
+     * @throws ClusterDataAdminException if the statistics could not be read
+     */
+    public KeyspaceInfo[] getKeyspaceStats() throws ClusterDataAdminException {
+        Map<String, List<Map<String, Object>>> keyspaces = groupByKeyspace(
+                readAttributes(getObjectName(COLUMN_FAMILIES_OBJECT_NAME + ",*"), COLUMN_FAMILY_ATTRIBUTES));
+        List<KeyspaceInfo> keyspaceInfos = new ArrayList<KeyspaceInfo>(keyspaces.size());
+        for (Map.Entry<String, List<Map<String, Object>>> entry : keyspaces.entrySet()) {
+            keyspaceInfos.add(toKeyspaceInfo(entry.getKey(), entry.getValue()));
+        }
+        return keyspaceInfos.toArray(new KeyspaceInfo[keyspaceInfos.size()]);
+    }
+
+    /**
+     * Get the statistics of a single keyspace
+     *
+     * @param keyspace keyspace name
+     * @return keyspace statistics, with no column families if the keyspace does not exist
+     * @throws ClusterDataAdminException if the statistics could not be read
+     */
+    public KeyspaceInfo getKeyspaceStats(String keyspace) throws ClusterDataAdminException {
+        Map<String, List<Map<String, Object>>> keyspaces = groupByKeyspace(
+                readAttributes(getKeyspacePattern(keyspace), COLUMN_FAMILY_ATTRIBUTES));
+        List<Map<String, Object>> columnFamilies = keyspaces.get(keyspace);
+        if (columnFamilies == null) {
+            columnFamilies = new ArrayList<Map<String, Object>>();
+        }
+        return toKeyspaceInfo(keyspace, columnFamilies);
+    }
+
+    /**
+     * Get the statistics of a single column family
+     *
+     * @param keyspace     keyspace name
+     * @param columnFamily column family name
+     * @return column family statistics or null if the column family does not exist
+     * @throws ClusterDataAdminException if the statistics could not be read
+     */
+    public ColumnFamilyInformation getColumnFamilyStats(String keyspace, String columnFamily)
+            throws ClusterDataAdminException {
+        ObjectName objectName = getObjectName(COLUMN_FAMILIES_OBJECT_NAME + "," + KEYSPACE_KEY + "=" + keyspace +
+                                              "," + COLUMN_FAMILY_KEY + "=" + columnFamily);
+        Map<String, Object> attributes = readAttributesOf(objectName, COLUMN_FAMILY_ATTRIBUTES);
+        if (attributes == null) {
+            return null;
+        }
+        attributes.put(ESTIMATE_KEYS_OPERATION, estimateKeys(objectName));
+        return toColumnFamilyInformation(attributes);
+    }
+
+    /**
+     * Get the names of the column families of a keyspace without reading any attribute
+     *
+     * @param keyspace keyspace name
+     * @return column family names
+     * @throws ClusterDataAdminException if the MBean server could not be queried
+     */
+    public String[] getColumnFamilyNames(String keyspace) throws ClusterDataAdminException {
+        Set<ObjectName> objectNames;
+        try {
+            objectNames = mBeanServerConnection.queryNames(getKeyspacePattern(keyspace), null);
+        } catch (IOException e) {
+            throw new ClusterDataAdminException("Unable to query column family MBeans of " + keyspace, e, log);
+        }
+        List<String> columnFamilies = new ArrayList<String>(objectNames.size());
+        for (ObjectName objectName : objectNames) {
+            columnFamilies.add(objectName.getKeyProperty(COLUMN_FAMILY_KEY));
+        }
+        return columnFamilies.toArray(new String[columnFamilies.size()]);
+    }
+
+    /**
+     * Get the statistics of the request and internal thread pools
+     *
+     * @return thread pool statistics
+     * @throws ClusterDataAdminException if the statistics could not be read
+     */
+    public ThreadPoolProperties[] getThreadPoolStats() throws ClusterDataAdminException {
+        Map<ObjectName, Map<String, Object>> threadPools = new LinkedHashMap<ObjectName, Map<String, Object>>();
+        threadPools.putAll(readAttributes(getObjectName(REQUEST_THREAD_POOLS_OBJECT_NAME), THREAD_POOL_ATTRIBUTES));
+        threadPools.putAll(readAttributes(getObjectName(INTERNAL_THREAD_POOLS_OBJECT_NAME), THREAD_POOL_ATTRIBUTES));
+        List<ThreadPoolProperties> threadPoolProperties = new ArrayList<ThreadPoolProperties>(threadPools.size());
+        for (Map.Entry<ObjectName, Map<String, Object>> entry : threadPools.entrySet()) {
+            Map<String, Object> attributes = entry.getValue();
+            ThreadPoolProperties threadPoolProperty = new ThreadPoolProperties();
+            threadPoolProperty.setThreadPoolPropertyName(entry.getKey().getKeyProperty(TYPE_KEY));
+            threadPoolProperty.setActive(getInt(attributes, "ActiveCount"));
+            threadPoolProperty.setPending(getLong(attributes, "PendingTasks"));
+            threadPoolProperty.setCompleted(getLong(attributes, "CompletedTasks"));
+            threadPoolProperty.setBlocked(getInt(attributes, "CurrentlyBlockedTasks"));
+            threadPoolProperty.setAllTimeBlocked(getInt(attributes, "TotalBlockedTasks"));
+            threadPoolProperties.add(threadPoolProperty);
+        }
+        return threadPoolProperties.toArray(new ThreadPoolProperties[threadPoolProperties.size()]);
+    }
+
+    /**
+     * Get the pending and active compactions together with the estimated remaining time
+     *
+     * @return compaction statistics
+     * @throws ClusterDataAdminException if the statistics could not be read
+     */
+    @SuppressWarnings("unchecked")
+    public CompactionStats getCompactionStats() throws ClusterDataAdminException {
+        Map<String, Object> compactionManager = readAttributesOf(getObjectName(COMPACTION_MANAGER_OBJECT_NAME),
+                                                                 COMPACTION_MANAGER_ATTRIBUTES);
+        Map<String, Object> storageService = readAttributesOf(getObjectName(STORAGE_SERVICE_OBJECT_NAME),
+                                                              STORAGE_SERVICE_ATTRIBUTES);
+        if (compactionManager == null || storageService == null) {
+            throw new ClusterDataAdminException("Unable to locate compaction MBeans", log);
+        }
+        int compactionThroughput = getInt(storageService, "CompactionThroughputMbPerSec");
+        List<Map<String, String>> compactions = (List<Map<String, String>>) compactionManager.get("Compactions");
+
+        CompactionStats compactionStats = new CompactionStats();
+        compactionStats.setPendingTasks(getInt(compactionManager, "PendingTasks"));
+        CompactionProperties[] compactionProperties = null;
+        long remainingBytes = 0;
+        if (compactions != null && compactions.size() > 0) {
+            compactionProperties = new CompactionProperties[compactions.size()];
+            int count = 0;
+            for (Map<String, String> c : compactions) {
+                long bytesComplete = Long.parseLong(c.get("bytesComplete"));
+                long totalBytes = Long.parseLong(c.get("totalBytes"));
+                CompactionProperties compactionProperty = new CompactionProperties();
+                compactionProperty.setCompactionType(c.get("taskType"));
+                compactionProperty.setKeyspace(c.get("keyspace"));
+                compactionProperty.setColumFamily(c.get("columnfamily"));
+                compactionProperty.setBytesCompacted(c.get("bytesComplete"));
+                compactionProperty.setBytesTotal(c.get("totalBytes"));
+                compactionProperty.setProgress(totalBytes == 0
+                        ? "n/a"
+                        : new DecimalFormat("0.00").format((double) bytesComplete / totalBytes * 100) + "%");
+                compactionProperties[count++] = compactionProperty;
+                if (OperationType.COMPACTION.toString().equals(c.get("taskType"))) {
+                    remainingBytes += totalBytes - bytesComplete;
+                }
+            }
+        }
+        long remainingTimeInSecs = compactionThroughput == 0 || remainingBytes == 0
+                ? -1
+                : remainingBytes / (1024L * 1024L * compactionThroughput);
+        compactionStats.setActiveCompactionRemainingTime(remainingTimeInSecs < 0
+                ? "n/a"
+                : String.format("%dh%02dm%02ds", remainingTimeInSecs / 3600, (remainingTimeInSecs % 3600) / 60,
+                                remainingTimeInSecs % 60));
+        compactionStats.setCompactionProperties(compactionProperties);
+        return compactionStats;
+    }
+
+    private Map<String, Object> readAttributesOf(ObjectName objectName, String[] attributeNames)
+            throws ClusterDataAdminException {
+        AttributeList attributeList;
+        try {
+            attributeList = mBeanServerConnection.getAttributes(objectName, attributeNames);
+        } catch (InstanceNotFoundException e) {
+            return null;
+        } catch (JMException e) {
+            throw new ClusterDataAdminException("Unable to read attributes of " + objectName, e, log);
+        } catch (IOException e) {
+            throw new ClusterDataAdminException("Unable to read attributes of " + objectName, e, log);
+        }
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        for (Object attribute : attributeList) {
+            attributes.put(((Attribute) attribute).getName(), ((Attribute) attribute).getValue());
+        }
+        return attributes;
+    }
+
+    private long estimateKeys(ObjectName objectName) throws ClusterDataAdminException {
+        try {
+            return ((Number) mBeanServerConnection.invoke(objectName, ESTIMATE_KEYS_OPERATION, null, null)).
+                    longValue();
+        } catch (InstanceNotFoundException e) {
+            return 0;
+        } catch (JMException e) {
+            throw new ClusterDataAdminException("Unable to estimate keys of " + objectName, e, log);
+        } catch (IOException e) {
+            throw new ClusterDataAdminException("Unable to estimate keys of " + objectName, e, log);
+        }
+    }
+
+    private Map<String, List<Map<String, Object>>> groupByKeyspace(
+            Map<ObjectName, Map<String, Object>> columnFamilies) throws ClusterDataAdminException {
+        Map<String, List<Map<String, Object>>> keyspaces = new TreeMap<String, List<Map<String, Object>>>();
+        for (Map.Entry<ObjectName, Map<String, Object>> entry : columnFamilies.entrySet()) {
+            String keyspace = entry.getKey().getKeyProperty(KEYSPACE_KEY);
+            List<Map<String, Object>> keyspaceColumnFamilies = keyspaces.get(keyspace);
+            if (keyspaceColumnFamilies == null) {
+                keyspaceColumnFamilies = new ArrayList<Map<String, Object>>();
+                keyspaces.put(keyspace, keyspaceColumnFamilies);
+            }
+            Map<String, Object> attributes = entry.getValue();
+            attributes.put(ESTIMATE_KEYS_OPERATION, estimateKeys(entry.getKey()));
+            keyspaceColumnFamilies.add(attributes);
+        }
+        return keyspaces;
+    }
+
+    private KeyspaceInfo toKeyspaceInfo(String keyspace, List<Map<String, Object>> columnFamilies) {
+        KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
+        keyspaceInfo.setKeyspaceName(keyspace);
+        long tableReadCount = 0;
+        long tableWriteCount = 0;
+        int tablePendingTasks = 0;
+        double tableTotalReadTime = 0.0f;
+        double tableTotalWriteTime = 0.0f;
+        ColumnFamilyInformation[] columnFamilyInformations = new ColumnFamilyInformation[columnFamilies.size()];
+        int count = 0;
+        for (Map<String, Object> attributes : columnFamilies) {
+            long readCount = getLong(attributes, "ReadCount");
+            long writeCount = getLong(attributes, "WriteCount");
+            if (readCount > 0) {
+                tableReadCount += readCount;
+                tableTotalReadTime += getLong(attributes, "TotalReadLatencyMicros");
+            }
+            if (writeCount > 0) {
+                tableWriteCount += writeCount;
+                tableTotalWriteTime += getLong(attributes, "TotalWriteLatencyMicros");
+            }
+            tablePendingTasks += getInt(attributes, "PendingTasks");
+            columnFamilyInformations[count++] = toColumnFamilyInformation(attributes);
+        }
+        keyspaceInfo.setTableReadCount(tableReadCount);
+        keyspaceInfo.setTableReadLatency(tableReadCount > 0 ? tableTotalReadTime / tableReadCount / 1000 : Double.NaN);
+        keyspaceInfo.setTableWriteCount(tableWriteCount);
+        keyspaceInfo.setTableWriteLatency(tableWriteCount > 0
+                                          ? tableTotalWriteTime / tableWriteCount / 1000 : Double.NaN);
+        keyspaceInfo.setTablePendingTasks(tablePendingTasks);
+        keyspaceInfo.setColumnFamilyInformations(columnFamilyInformations);
+        return keyspaceInfo;
+    }
+
+    private ColumnFamilyInformation toColumnFamilyInformation(Map<String, Object> attributes) {
+        ColumnFamilyInformation columnFamilyInformation = new ColumnFamilyInformation();
+        columnFamilyInformation.setColumnFamilyName((String) attributes.get("ColumnFamilyName"));
+        columnFamilyInformation.setSSTableCount(getInt(attributes, "LiveSSTableCount"));
+        columnFamilyInformation.setLiveDiskSpaceUsed(getLong(attributes, "LiveDiskSpaceUsed"));
+        columnFamilyInformation.setTotalDiskSpaceUsed(getLong(attributes, "TotalDiskSpaceUsed"));
+        columnFamilyInformation.setNumberOfKeys(getLong(attributes, ESTIMATE_KEYS_OPERATION));
+        columnFamilyInformation.setMemtableSwitchCount(getInt(attributes, "MemtableSwitchCount"));
+        columnFamilyInformation.setReadCount(getLong(attributes, "ReadCount"));
+        columnFamilyInformation.setReadLatency(getDouble(attributes, "RecentReadLatencyMicros"));
+        columnFamilyInformation.setWriteCount(getLong(attributes, "WriteCount"));
+        columnFamilyInformation.setWriteLatency(getDouble(attributes, "RecentWriteLatencyMicros"));
+        columnFamilyInformation.setPendingTasks(getInt(attributes, "PendingTasks"));
+        columnFamilyInformation.setBloomFilterFalsePostives(getLong(attributes, "BloomFilterFalsePositives"));
+        columnFamilyInformation.setBloomFilterFalseRatio(getDouble(attributes, "RecentBloomFilterFalseRatio"));
+        columnFamilyInformation.setBloomFilterSpaceUsed(getLong(attributes, "BloomFilterDiskSpaceUsed"));
+        columnFamilyInformation.setCompactedRowMinimumSize(getLong(attributes, "MinRowSize"));
+        columnFamilyInformation.setCompactedRowMaximumSize(getLong(attributes, "MaxRowSize"));
+        columnFamilyInformation.setCompactedRowMeanSize(getLong(attributes, "MeanRowSize"));
+        return columnFamilyInformation;
+    }
+
+    private ObjectName getKeyspacePattern(String keyspace) throws ClusterDataAdminException {
+        return getObjectName(COLUMN_FAMILIES_OBJECT_NAME + "," + KEYSPACE_KEY + "=" + keyspace + ",*");
+    }
+
+    private ObjectName getObjectName(String name) throws ClusterDataAdminException {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new ClusterDataAdminException("Invalid MBean object name " + name, e, log);
+        }
+    }
+
+    private static long getLong(Map<String, Object> attributes, String name) {
+        Object value = attributes.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static int getInt(Map<String, Object> attributes, String name) {
+        Object value = attributes.get(name);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static double getDouble(Map<String, Object> attributes, String name) {
+        Object value = attributes.get(name);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
@@ -72,5 +72,8 @@ public class ClusterMBeanProxy
     public static ClusterThreadPoolProxyMBeanService getClusterThreadPoolProxyMBeanService() throws ClusterDataAdminException {
         return new ClusterThreadPoolProxyMBeanService();
     }
-}
 
+    public static ClusterBulkAttributeReader getClusterBulkAttributeReader() throws ClusterDataAdminException {
+        return new ClusterBulkAttributeReader();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues monitoring events in a bounded in-memory queue and sends them to an {@link EventSink}
+ * from a background thread, so the ntask thread only pays for building the events. A batch is
+ * flushed once it reaches the batch size or once its first event has waited for the flush
+ * interval. When the queue is full the overflow policy decides which event is lost.
+ */
+public class AsyncEventPublisher {
+    private static Log log = LogFactory.getLog(AsyncEventPublisher.class);
+    /* Longest time the publisher thread waits on the queue without checking whether it was stopped */
+    private static final long STOP_CHECK_INTERVAL = 100;
+
+    public enum OverflowPolicy {
+        /* Reject the event being published */
+        DROP_NEWEST,
+        /* Discard the oldest queued event to make room, keeps the freshest statistics */
+        DROP_OLDEST,
+        /* Wait for room up to the offer timeout, then reject the event */
+        BLOCK
+    }
+
+    private final EventSink eventSink;
+    private final BlockingQueue<Event> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeout;
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * @param eventSink      destination of the batches
+     * @param queueSize      maximum number of queued events
+     * @param batchSize      maximum number of events per batch
+     * @param flushInterval  maximum time in milliseconds an event waits for its batch to fill
+     * @param overflowPolicy what to do when the queue is full
+     * @param offerTimeout   maximum time in milliseconds a publisher waits with {@link OverflowPolicy#BLOCK}
+     */
+    public AsyncEventPublisher(EventSink eventSink, int queueSize, int batchSize, long flushInterval,
+                               OverflowPolicy overflowPolicy, long offerTimeout) {
+        this.eventSink = eventSink;
+        this.queue = new ArrayBlockingQueue<Event>(queueSize);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeout = offerTimeout;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(new Runnable() {
+            public void run() {
+                flushUntilStopped();
+            }
+        }, "cassandra-cluster-stats-publisher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop accepting events and wait for the queued ones to be flushed
+     *
+     * @param timeout maximum time in milliseconds to wait for the flush
+     */
+    public synchronized void stop(long timeout) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+        flusher = null;
+    }
+
+    /**
+     * Queue an event for publishing
+     *
+     * @param event event to publish
+     * @return false if the event was dropped
+     */
+    public boolean publish(Event event) {
+        if (running) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    if (queue.offer(event)) {
+                        return true;
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    return true;
+                case BLOCK:
+                    try {
+                        if (queue.offer(event, offerTimeout, TimeUnit.MILLISECONDS)) {
+                            return true;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    break;
+            }
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return number of events handed to the sink
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * @return number of events lost because the queue was full or the publisher was stopped
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return number of events lost because the sink failed
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return number of events waiting to be flushed
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void flushUntilStopped() {
+        List<Event> batch = new ArrayList<Event>(batchSize);
+        try {
+            while (true) {
+                Event first = queue.poll(Math.min(flushInterval, STOP_CHECK_INTERVAL), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushInterval;
+                queue.drainTo(batch, batchSize - batch.size());
+                // once stopped the queued events are flushed without waiting for batches to fill
+                while (batch.size() < batchSize && running) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Event next = queue.poll(Math.min(remaining, STOP_CHECK_INTERVAL), TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<Event> batch) {
+        try {
+            eventSink.publish(batch);
+            publishedCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            if (log.isDebugEnabled()) {
+                log.error("Error while publishing a batch of " + batch.size() + " cluster stats events", e);
+            }
+        }
+    }
+}
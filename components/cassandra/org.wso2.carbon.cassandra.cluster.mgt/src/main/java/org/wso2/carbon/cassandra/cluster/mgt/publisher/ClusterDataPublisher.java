@@ -23,9 +23,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.cassandra.cluster.mgt.Util.ClusterMonitorConfig;
 import org.wso2.carbon.cassandra.cluster.mgt.Util.StreamsDefinitions;
-import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
-import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
-import org.wso2.carbon.cassandra.cluster.mgt.data.NodeInformation;
 import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
 import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
 import org.wso2.carbon.databridge.agent.thrift.DataPublisher;
@@ -36,97 +33,64 @@ import org.wso2.carbon.databridge.commons.exception.TransportException;
 import org.wso2.carbon.ntask.core.AbstractTask;
 
 import java.net.MalformedURLException;
-import java.util.ArrayList;
+import java.util.List;
 
 public class ClusterDataPublisher extends AbstractTask {
     private static Log log = LogFactory.getLog(ClusterDataPublisher.class);
 
+    /* Maximum time the ntask thread waits for queue space with the BLOCK overflow policy */
+    private static final long EVENT_OFFER_TIMEOUT = 5 * 1000;
+
     private static DataPublisher dataPublisher;
+    private static AsyncEventPublisher eventPublisher;
+    private static EventChangeDetector changeDetector;
+    /* Stream ids are looked up once per data publisher, a new task instance is created on every tick */
+    private static String columnFamilyStatsStreamId;
+    private static String nodeStatsStreamId;
+    private static String keyspaceStatsStreamId;
 
     @Override
     public void execute() {
-        String columnFamilyStatsStreamId = null;
-        String nodeStatsStreamId = null;
-        String keyspaceStatsStreamId = null;
-        DataPublisher dataPublisher = null;
-	    try {
-		    dataPublisher = getDataPublisher(); //Get data publisher
-		    //Define stream if not exists for the publish column family statistics
-		    try {
-			    columnFamilyStatsStreamId = dataPublisher.findStreamId(StreamsDefinitions.COLUMN_FAMILY_STATS, StreamsDefinitions.VERSION);
-			    if (StringUtils.isEmpty(columnFamilyStatsStreamId)) {
-				    columnFamilyStatsStreamId = dataPublisher.defineStream(StreamsDefinitions.COLUMN_FAMILY_STATS_STREAM_DEF);
-			    }
-		    } catch (AgentException e) {
-			    log.error("Error while getting stream id of" + StreamsDefinitions.COLUMN_FAMILY_STATS + "version+" + StreamsDefinitions.VERSION,
-			              e);
-		    } catch (Exception e) {
-			    log.error("Error while defining the stream" + StreamsDefinitions.COLUMN_FAMILY_STATS, e);
-		    }
-
-		    //Define stream if not exists for the publish node statistics
-		    try {
-			    nodeStatsStreamId = dataPublisher.findStreamId(StreamsDefinitions.NODE_STATS, StreamsDefinitions.VERSION);
-			    if (StringUtils.isEmpty(nodeStatsStreamId)) {
-				    nodeStatsStreamId = dataPublisher.defineStream(StreamsDefinitions.NODE_STATS_STREAM_DEF);
-			    }
-		    } catch (AgentException e) {
-			    log.error("Error while getting stream id of" + StreamsDefinitions.NODE_STATS + "version+" + StreamsDefinitions.VERSION,
-			              e);
-		    } catch (Exception e) {
-			    log.error("Error while defining the stream" + StreamsDefinitions.NODE_STATS_STREAM_DEF, e);
-		    }
-
-		    //Define stream if not exists for the publish keyspace statistics
-		    try {
-			    keyspaceStatsStreamId = dataPublisher.findStreamId(StreamsDefinitions.KS_STATS, StreamsDefinitions.VERSION);
-			    if (StringUtils.isEmpty(nodeStatsStreamId)) {
-				    keyspaceStatsStreamId = dataPublisher.defineStream(StreamsDefinitions.KS_STATS_STREAM_DEF);
-			    }
-		    } catch (AgentException e) {
-			    log.error("Error while getting stream id of" + StreamsDefinitions.KS_STATS + "version+" + StreamsDefinitions.VERSION,
-			              e);
-		    } catch (Exception e) {
-			    log.error("Error while defining the stream" + StreamsDefinitions.KS_STATS_STREAM_DEF, e);
-		    }
-	    } catch (Exception e) {
-		    log.error("Error while getting data publisher", e);
-	    }
-
-        String timeStamp = String.valueOf(System.currentTimeMillis());
-
-        if (columnFamilyStatsStreamId != null && dataPublisher != null) {
-            try {
-                publishCFSTats(dataPublisher, columnFamilyStatsStreamId, timeStamp);
-            } catch (ClusterDataAdminException e) {
-                if (log.isDebugEnabled()) {
-                    log.error("Error while publishing the column family stats", e);
-                }
-            }
+        AsyncEventPublisher eventPublisher;
+        try {
+            eventPublisher = getEventPublisher();
+        } catch (Exception e) {
+            log.error("Error while getting data publisher", e);
+            return;
         }
+        defineStreams();
 
-        if (nodeStatsStreamId != null && dataPublisher != null) {
-            try {
-                publishNodeInfoStats(dataPublisher, nodeStatsStreamId, timeStamp);
-            } catch (ClusterDataAdminException e) {
-                if (log.isDebugEnabled()) {
-                    log.error("Error while publishing the data node info stats", e);
-                }
+        List<Event> events;
+        long timestamp = System.currentTimeMillis();
+        try {
+            events = new ClusterStatsCollector(new ClusterMBeanServiceHandler()).collect(
+                    columnFamilyStatsStreamId, nodeStatsStreamId, keyspaceStatsStreamId, timestamp);
+        } catch (ClusterDataAdminException e) {
+            if (log.isDebugEnabled()) {
+                log.error("Error while collecting the cluster stats", e);
             }
+            return;
         }
-
-        if (keyspaceStatsStreamId != null && dataPublisher != null) {
-            try {
-                publishKeyspaceStats(dataPublisher, keyspaceStatsStreamId, timeStamp);
-            } catch (ClusterDataAdminException e) {
-                if (log.isDebugEnabled()) {
-                    log.error("Error while publishing keyspace stats", e);
-                }
+        EventChangeDetector changeDetector = getChangeDetector();
+        if (changeDetector != null) {
+            events = changeDetector.filter(events, timestamp);
+            if (log.isDebugEnabled()) {
+                log.debug("Suppressed " + changeDetector.getSuppressedCount() + " unchanged cluster stats events, " +
+                          "forwarded " + changeDetector.getForwardedCount());
             }
         }
+        // the events are sent by the publisher thread, the tick only queues them
+        for (Event event : events) {
+            eventPublisher.publish(event);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Queued " + events.size() + " cluster stats events, published " +
+                      eventPublisher.getPublishedCount() + ", dropped " + eventPublisher.getDroppedCount() +
+                      ", failed " + eventPublisher.getFailedCount());
+        }
     }
 
-    private static DataPublisher getDataPublisher()
+    private static synchronized AsyncEventPublisher getEventPublisher()
             throws AgentException, MalformedURLException,
             AuthenticationException, TransportException {
         if (null == dataPublisher) {
@@ -134,127 +98,95 @@ public class ClusterDataPublisher extends AbstractTask {
                     ClusterMonitorConfig.getReceiverUrl(),
                     ClusterMonitorConfig.getUsername(), ClusterMonitorConfig.getPassword());
         }
-        return dataPublisher;
+        if (null == eventPublisher) {
+            eventPublisher = new AsyncEventPublisher(new DataPublisherEventSink(dataPublisher),
+                    ClusterMonitorConfig.getEventQueueSize(), ClusterMonitorConfig.getEventBatchSize(),
+                    ClusterMonitorConfig.getEventFlushInterval(),
+                    AsyncEventPublisher.OverflowPolicy.valueOf(ClusterMonitorConfig.getEventOverflowPolicy()),
+                    EVENT_OFFER_TIMEOUT);
+            eventPublisher.start();
+        }
+        return eventPublisher;
     }
 
-    private void publishCFSTats(DataPublisher dataPublisher, String streamId, String timeStamp)
-            throws ClusterDataAdminException {
-        ArrayList<String> cfstats;
-        ClusterMBeanServiceHandler clusterMBeanServiceHandler = new ClusterMBeanServiceHandler();
-        String[] nodeBasicInfo = clusterMBeanServiceHandler.getClusterBasicInfo();
-        for (KeyspaceInfo keyspaceInfo : clusterMBeanServiceHandler.getColumnFamilyStats()) {
-            for (ColumnFamilyInformation columnFamilyInformation : keyspaceInfo.getColumnFamilyInformations()) {
-                cfstats = new ArrayList<String>();
-                cfstats.add(timeStamp);
-                cfstats.add(ClusterMonitorConfig.getNodeId());
-                cfstats.add(nodeBasicInfo[0]);
-                cfstats.add(nodeBasicInfo[1]);
-                cfstats.add(nodeBasicInfo[2]);
-                cfstats.add(keyspaceInfo.getKeyspaceName());
-                cfstats.add(columnFamilyInformation.getColumnFamilyName());
-                cfstats.add(String.valueOf(columnFamilyInformation.getSSTableCount()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getLiveDiskSpaceUsed()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getTotalDiskSpaceUsed()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getMemtableColumnsCount()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getMemtableDataSize()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getMemtableSwitchCount()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getReadCount()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getReadLatency()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getWriteCount()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getWriteLatency()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getPendingTasks()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getNumberOfKeys()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getBloomFilterFalsePostives()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getBloomFilterFalseRatio()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getBloomFilterSpaceUsed()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getCompactedRowMinimumSize()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getCompactedRowMaximumSize()));
-                cfstats.add(String.valueOf(columnFamilyInformation.getCompactedRowMeanSize()));
-                Event cfstatsEvent = new Event(streamId, Long.valueOf(timeStamp), new Object[]{"external"}, null, cfstats.toArray(new String[cfstats.size()]));
-                try {
-                    dataPublisher.publish(cfstatsEvent);
-                } catch (AgentException e) {
-                    if (log.isDebugEnabled()) {
-                        log.error("Error while publishing the data column family stats", e);
-                    }
-                }
+    /**
+     * @return change detector or null if every event is published on every tick
+     */
+    private static synchronized EventChangeDetector getChangeDetector() {
+        if (changeDetector == null && ClusterMonitorConfig.isChangeDetectionEnable()) {
+            changeDetector = new EventChangeDetector(ClusterMonitorConfig.getChangeAbsoluteThreshold(),
+                                                     ClusterMonitorConfig.getChangeRelativeThreshold(),
+                                                     ClusterMonitorConfig.getKeyframeInterval());
+        }
+        // stream ids that could not be defined yet are registered on a later tick
+        if (changeDetector != null) {
+            if (columnFamilyStatsStreamId != null) {
+                changeDetector.setKeyAttributes(columnFamilyStatsStreamId,
+                                                StreamsDefinitions.COLUMN_FAMILY_STATS_KEY_ATTRIBUTES);
+            }
+            if (nodeStatsStreamId != null) {
+                changeDetector.setKeyAttributes(nodeStatsStreamId, StreamsDefinitions.NODE_STATS_KEY_ATTRIBUTES);
+            }
+            if (keyspaceStatsStreamId != null) {
+                changeDetector.setKeyAttributes(keyspaceStatsStreamId, StreamsDefinitions.KS_STATS_KEY_ATTRIBUTES);
             }
         }
-
+        return changeDetector;
     }
 
-    private void publishNodeInfoStats(DataPublisher dataPublisher, String streamId, String timeStamp)
-            throws ClusterDataAdminException {
-        ArrayList<String> nodeInfo;
-        ClusterMBeanServiceHandler clusterMBeanServiceHandler = new ClusterMBeanServiceHandler();
-        String[] nodeBasicInfo = clusterMBeanServiceHandler.getClusterBasicInfo();
-        nodeInfo = new ArrayList<String>();
-        nodeInfo.add(timeStamp);
-        nodeInfo.add(ClusterMonitorConfig.getNodeId());
-        nodeInfo.add(nodeBasicInfo[0]);
-        nodeInfo.add(nodeBasicInfo[1]);
-        nodeInfo.add(nodeBasicInfo[2]);
-        NodeInformation nodeInformation = clusterMBeanServiceHandler.getNodeInfo();
-        nodeInfo.add(nodeInformation.getLoad().split(" ")[1]);
-        nodeInfo.add(nodeInformation.getLoad().split(" ")[0]);
-
-        nodeInfo.add(String.valueOf(nodeInformation.getUptime()));
-        nodeInfo.add(String.valueOf(nodeInformation.getExceptions()));
-        nodeInfo.add(String.valueOf(nodeInformation.getHeapMemory().getUseMemory()));
-        nodeInfo.add(String.valueOf(nodeInformation.getHeapMemory().getMaxMemory()));
-        nodeInfo.add(nodeInformation.getDataCenter());
-
-        nodeInfo.add(nodeInformation.getRack());
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheCapacity()));
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheSize()));
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheRequests()));
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheHits()));
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheSavePeriodInSeconds()));
-        nodeInfo.add(String.valueOf(nodeInformation.getKeyCacheProperties().getCacheRecentHitRate()));
-
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheCapacity()));
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheSize()));
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheRequests()));
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheHits()));
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheSavePeriodInSeconds()));
-        nodeInfo.add(String.valueOf(nodeInformation.getRowCacheProperties().getCacheRecentHitRate()));
+    /**
+     * Flush the queued events and release the data publisher
+     */
+    public static synchronized void shutdown() {
+        if (eventPublisher != null) {
+            eventPublisher.stop(ClusterMonitorConfig.getEventFlushInterval() * 2);
+            eventPublisher = null;
+        }
+        if (dataPublisher != null) {
+            dataPublisher.stop();
+            dataPublisher = null;
+        }
+        changeDetector = null;
+        columnFamilyStatsStreamId = null;
+        nodeStatsStreamId = null;
+        keyspaceStatsStreamId = null;
+    }
 
-        Event nodeInfoStats = new Event(streamId, Long.valueOf(timeStamp), new Object[]{"external"}, null, nodeInfo.toArray(new String[nodeInfo.size()]));
-        try {
-            dataPublisher.publish(nodeInfoStats);
-        } catch (AgentException e) {
-            if (log.isDebugEnabled()) {
-                log.error("Error while publishing the data column family stats", e);
-            }
+    private static synchronized void defineStreams() {
+        if (dataPublisher == null) {
+            return;
+        }
+        if (columnFamilyStatsStreamId == null) {
+            columnFamilyStatsStreamId = getStreamId(dataPublisher, StreamsDefinitions.COLUMN_FAMILY_STATS,
+                                                    StreamsDefinitions.COLUMN_FAMILY_STATS_STREAM_DEF);
+        }
+        if (nodeStatsStreamId == null) {
+            nodeStatsStreamId = getStreamId(dataPublisher, StreamsDefinitions.NODE_STATS,
+                                            StreamsDefinitions.NODE_STATS_STREAM_DEF);
+        }
+        if (keyspaceStatsStreamId == null) {
+            keyspaceStatsStreamId = getStreamId(dataPublisher, StreamsDefinitions.KS_STATS,
+                                                StreamsDefinitions.KS_STATS_STREAM_DEF);
         }
     }
 
-    private void publishKeyspaceStats(DataPublisher dataPublisher, String streamId, String timeStamp)
-            throws ClusterDataAdminException {
-        ArrayList<String> ksStats;
-        ClusterMBeanServiceHandler clusterMBeanServiceHandler = new ClusterMBeanServiceHandler();
-        for (KeyspaceInfo keyspaceInfo : clusterMBeanServiceHandler.getColumnFamilyStats()) {
-            ksStats = new ArrayList<String>();
-            ksStats.add(timeStamp);
-            ksStats.add(ClusterMonitorConfig.getNodeId());
-            ksStats.add(keyspaceInfo.getKeyspaceName());
-            ksStats.add(String.valueOf(keyspaceInfo.getTableReadCount()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTableReadLatency()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTableReadCount()*keyspaceInfo.getTableReadLatency()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTableWriteCount()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTableWriteLatency()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTableWriteCount()*keyspaceInfo.getTableWriteLatency()));
-            ksStats.add(String.valueOf(keyspaceInfo.getTablePendingTasks()));
-            Event ksStatsEvent = new Event(streamId, Long.valueOf(timeStamp), new Object[]{"external"}, null, ksStats.toArray(new String[ksStats.size()]));
-            try {
-                dataPublisher.publish(ksStatsEvent);
-            } catch (AgentException e) {
-                if (log.isDebugEnabled()) {
-                    log.error("Error while publishing keyspace stats", e);
-                }
+    /**
+     * Define stream if not exists
+     *
+     * @return stream id or null if the stream could not be found or defined, it is retried on the next tick
+     */
+    private static String getStreamId(DataPublisher dataPublisher, String streamName, String streamDefinition) {
+        try {
+            String streamId = dataPublisher.findStreamId(streamName, StreamsDefinitions.VERSION);
+            if (StringUtils.isEmpty(streamId)) {
+                streamId = dataPublisher.defineStream(streamDefinition);
             }
-
+            return StringUtils.isEmpty(streamId) ? null : streamId;
+        } catch (AgentException e) {
+            log.error("Error while getting stream id of " + streamName + " version " + StreamsDefinitions.VERSION, e);
+        } catch (Exception e) {
+            log.error("Error while defining the stream " + streamName, e);
         }
+        return null;
     }
-
 }
@@ -0,0 +1,185 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.cluster.mgt.Util.ClusterMonitorConfig;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.NodeInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the node statistics once per publisher tick and turns them into the events of every
+ * cluster monitoring stream. Column family statistics are read a single time and the keyspace
+ * events reuse the aggregates computed from that read.
+ */
+public class ClusterStatsCollector {
+    private static Log log = LogFactory.getLog(ClusterStatsCollector.class);
+
+    private ClusterMBeanServiceHandler clusterMBeanServiceHandler;
+
+    public ClusterStatsCollector(ClusterMBeanServiceHandler clusterMBeanServiceHandler) {
+        this.clusterMBeanServiceHandler = clusterMBeanServiceHandler;
+    }
+
+    /**
+     * Collect the events of one tick, streams without an id are skipped
+     *
+     * @param columnFamilyStatsStreamId stream id of the column family stats
+     * @param nodeStatsStreamId         stream id of the node stats
+     * @param keyspaceStatsStreamId     stream id of the keyspace stats
+     * @param timestamp                 time of the tick
+     * @return events to publish
+     * @throws ClusterDataAdminException if the basic node information could not be read
+     */
+    public List<Event> collect(String columnFamilyStatsStreamId, String nodeStatsStreamId,
+                               String keyspaceStatsStreamId, long timestamp) throws ClusterDataAdminException {
+        List<Event> events = new ArrayList<Event>();
+        String[] nodeBasicInfo = clusterMBeanServiceHandler.getClusterBasicInfo();
+        if (nodeStatsStreamId != null) {
+            try {
+                events.add(createNodeInfoEvent(nodeStatsStreamId, timestamp, nodeBasicInfo,
+                                               clusterMBeanServiceHandler.getNodeInfo()));
+            } catch (ClusterDataAdminException e) {
+                if (log.isDebugEnabled()) {
+                    log.error("Error while collecting the node info stats", e);
+                }
+            }
+        }
+        if (columnFamilyStatsStreamId != null || keyspaceStatsStreamId != null) {
+            KeyspaceInfo[] keyspaceInfos;
+            try {
+                keyspaceInfos = clusterMBeanServiceHandler.getColumnFamilyStats();
+            } catch (ClusterDataAdminException e) {
+                if (log.isDebugEnabled()) {
+                    log.error("Error while collecting the column family stats", e);
+                }
+                return events;
+            }
+            for (KeyspaceInfo keyspaceInfo : keyspaceInfos) {
+                if (keyspaceStatsStreamId != null) {
+                    events.add(createKeyspaceStatsEvent(keyspaceStatsStreamId, timestamp, keyspaceInfo));
+                }
+                if (columnFamilyStatsStreamId != null) {
+                    for (ColumnFamilyInformation columnFamilyInformation : keyspaceInfo.getColumnFamilyInformations()) {
+                        events.add(createColumnFamilyStatsEvent(columnFamilyStatsStreamId, timestamp, nodeBasicInfo,
+                                                                keyspaceInfo.getKeyspaceName(),
+                                                                columnFamilyInformation));
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    private Event createColumnFamilyStatsEvent(String streamId, long timestamp, String[] nodeBasicInfo,
+                                               String keyspace, ColumnFamilyInformation columnFamilyInformation) {
+        List<Object> cfstats = new ArrayList<Object>();
+        cfstats.add(timestamp);
+        cfstats.add(ClusterMonitorConfig.getNodeId());
+        cfstats.add(nodeBasicInfo[0]);
+        cfstats.add(nodeBasicInfo[1]);
+        cfstats.add(nodeBasicInfo[2]);
+        cfstats.add(keyspace);
+        cfstats.add(columnFamilyInformation.getColumnFamilyName());
+        cfstats.add(columnFamilyInformation.getSSTableCount());
+        cfstats.add(columnFamilyInformation.getLiveDiskSpaceUsed());
+        cfstats.add(columnFamilyInformation.getTotalDiskSpaceUsed());
+        cfstats.add(columnFamilyInformation.getMemtableColumnsCount());
+        cfstats.add(columnFamilyInformation.getMemtableDataSize());
+        cfstats.add(columnFamilyInformation.getMemtableSwitchCount());
+        cfstats.add(columnFamilyInformation.getReadCount());
+        cfstats.add(columnFamilyInformation.getReadLatency());
+        cfstats.add(columnFamilyInformation.getWriteCount());
+        cfstats.add(columnFamilyInformation.getWriteLatency());
+        cfstats.add(columnFamilyInformation.getPendingTasks());
+        cfstats.add(columnFamilyInformation.getNumberOfKeys());
+        cfstats.add(columnFamilyInformation.getBloomFilterFalsePostives());
+        cfstats.add(columnFamilyInformation.getBloomFilterFalseRatio());
+        cfstats.add(columnFamilyInformation.getBloomFilterSpaceUsed());
+        cfstats.add(columnFamilyInformation.getCompactedRowMinimumSize());
+        cfstats.add(columnFamilyInformation.getCompactedRowMaximumSize());
+        cfstats.add(columnFamilyInformation.getCompactedRowMeanSize());
+        return new Event(streamId, timestamp, new Object[]{"external"}, null, cfstats.toArray());
+    }
+
+    private Event createNodeInfoEvent(String streamId, long timestamp, String[] nodeBasicInfo,
+                                      NodeInformation nodeInformation) {
+        List<Object> nodeInfo = new ArrayList<Object>();
+        nodeInfo.add(timestamp);
+        nodeInfo.add(ClusterMonitorConfig.getNodeId());
+        nodeInfo.add(nodeBasicInfo[0]);
+        nodeInfo.add(nodeBasicInfo[1]);
+        nodeInfo.add(nodeBasicInfo[2]);
+        String[] load = nodeInformation.getLoad().split(" ");
+        nodeInfo.add(load[1]);
+        nodeInfo.add(parseLoad(load[0]));
+
+        nodeInfo.add(nodeInformation.getUptime());
+        nodeInfo.add(nodeInformation.getExceptions());
+        nodeInfo.add(nodeInformation.getHeapMemory().getUseMemory());
+        nodeInfo.add(nodeInformation.getHeapMemory().getMaxMemory());
+        nodeInfo.add(nodeInformation.getDataCenter());
+
+        nodeInfo.add(nodeInformation.getRack());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheCapacity());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheSize());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheRequests());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheHits());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheSavePeriodInSeconds());
+        nodeInfo.add(nodeInformation.getKeyCacheProperties().getCacheRecentHitRate());
+
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheCapacity());
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheSize());
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheRequests());
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheHits());
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheSavePeriodInSeconds());
+        nodeInfo.add(nodeInformation.getRowCacheProperties().getCacheRecentHitRate());
+        return new Event(streamId, timestamp, new Object[]{"external"}, null, nodeInfo.toArray());
+    }
+
+    private Event createKeyspaceStatsEvent(String streamId, long timestamp, KeyspaceInfo keyspaceInfo) {
+        List<Object> ksStats = new ArrayList<Object>();
+        ksStats.add(timestamp);
+        ksStats.add(ClusterMonitorConfig.getNodeId());
+        ksStats.add(keyspaceInfo.getKeyspaceName());
+        ksStats.add(keyspaceInfo.getTableReadCount());
+        ksStats.add(keyspaceInfo.getTableReadLatency());
+        ksStats.add(keyspaceInfo.getTableReadCount() * keyspaceInfo.getTableReadLatency());
+        ksStats.add(keyspaceInfo.getTableWriteCount());
+        ksStats.add(keyspaceInfo.getTableWriteLatency());
+        ksStats.add(keyspaceInfo.getTableWriteCount() * keyspaceInfo.getTableWriteLatency());
+        ksStats.add(keyspaceInfo.getTablePendingTasks());
+        return new Event(streamId, timestamp, new Object[]{"external"}, null, ksStats.toArray());
+    }
+
+    private static double parseLoad(String load) {
+        try {
+            return Double.parseDouble(load);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
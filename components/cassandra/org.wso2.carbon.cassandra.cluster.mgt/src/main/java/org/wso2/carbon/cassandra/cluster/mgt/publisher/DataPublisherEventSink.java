@@ -0,0 +1,41 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import org.wso2.carbon.databridge.agent.thrift.DataPublisher;
+import org.wso2.carbon.databridge.agent.thrift.exception.AgentException;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.List;
+
+/**
+ * Sends the batches to BAM through the thrift data publisher
+ */
+public class DataPublisherEventSink implements EventSink {
+    private DataPublisher dataPublisher;
+
+    public DataPublisherEventSink(DataPublisher dataPublisher) {
+        this.dataPublisher = dataPublisher;
+    }
+
+    public void publish(List<Event> events) throws AgentException {
+        for (Event event : events) {
+            dataPublisher.publish(event);
+        }
+    }
+}
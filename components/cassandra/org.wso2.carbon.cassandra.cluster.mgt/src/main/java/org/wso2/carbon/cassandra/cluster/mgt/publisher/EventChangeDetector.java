@@ -0,0 +1,181 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suppresses monitoring events whose statistics did not change since they were last published.
+ * An event is identified by its stream and the attributes identifying its node, keyspace or column
+ * family, registered per stream with {@link #setKeyAttributes(String, int[])}. The other attributes
+ * after the leading tick timestamp are compared with the last published event of the same identity:
+ * a numeric value has changed when it moved by more than the absolute threshold and by more than the
+ * relative threshold of its previous value, any other value when it is not equal. Events of streams
+ * without key attributes are always published. Every keyframe interval all events are published so
+ * consumers can recover from lost or dropped events.
+ */
+public class EventChangeDetector {
+
+    private final double absoluteThreshold;
+    private final double relativeThreshold;
+    private final long keyframeInterval;
+    private final Map<String, int[]> keyAttributes = new HashMap<String, int[]>();
+    private final Map<String, Object[]> lastPublished = new HashMap<String, Object[]>();
+    private final AtomicLong forwardedCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong keyframeCount = new AtomicLong();
+    private long lastKeyframe;
+    private boolean keyframePublished;
+
+    /**
+     * @param absoluteThreshold minimum absolute change of a value to publish its event
+     * @param relativeThreshold minimum change of a value relative to its last published value, 0.05 is 5%
+     * @param keyframeInterval  time in milliseconds between two ticks publishing every event
+     */
+    public EventChangeDetector(double absoluteThreshold, double relativeThreshold, long keyframeInterval) {
+        this.absoluteThreshold = absoluteThreshold;
+        this.relativeThreshold = relativeThreshold;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * @param streamId   stream of the events
+     * @param attributes payload positions of the attributes identifying the subject of an event
+     */
+    public synchronized void setKeyAttributes(String streamId, int[] attributes) {
+        keyAttributes.put(streamId, attributes.clone());
+    }
+
+    /**
+     * Filter the events of one tick
+     *
+     * @param events    events collected in the tick
+     * @param timestamp time of the tick
+     * @return events to publish
+     */
+    public synchronized List<Event> filter(List<Event> events, long timestamp) {
+        if (!keyframePublished || timestamp - lastKeyframe >= keyframeInterval) {
+            // the snapshot is rebuilt so column families that no longer exist are forgotten
+            lastPublished.clear();
+            for (Event event : events) {
+                String key = getKey(event);
+                if (key != null) {
+                    lastPublished.put(key, event.getPayloadData());
+                }
+            }
+            keyframePublished = true;
+            lastKeyframe = timestamp;
+            keyframeCount.incrementAndGet();
+            forwardedCount.addAndGet(events.size());
+            return events;
+        }
+        List<Event> changedEvents = new ArrayList<Event>();
+        for (Event event : events) {
+            String key = getKey(event);
+            if (key == null) {
+                changedEvents.add(event);
+                continue;
+            }
+            Object[] previous = lastPublished.get(key);
+            if (previous == null || isChanged(previous, event.getPayloadData())) {
+                lastPublished.put(key, event.getPayloadData());
+                changedEvents.add(event);
+            } else {
+                suppressedCount.incrementAndGet();
+            }
+        }
+        forwardedCount.addAndGet(changedEvents.size());
+        return changedEvents;
+    }
+
+    /**
+     * @return number of events passed on to the publisher
+     */
+    public long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    /**
+     * @return number of events suppressed because their statistics did not change
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * @return number of ticks published in full
+     */
+    public long getKeyframeCount() {
+        return keyframeCount.get();
+    }
+
+    /**
+     * @return identity of the event, or null if its stream has no key attributes
+     */
+    private String getKey(Event event) {
+        int[] attributes = keyAttributes.get(event.getStreamId());
+        if (attributes == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(event.getStreamId());
+        Object[] payload = event.getPayloadData();
+        for (int attribute : attributes) {
+            key.append('\u0000').append(attribute < payload.length ? payload[attribute] : null);
+        }
+        return key.toString();
+    }
+
+    private boolean isChanged(Object[] previous, Object[] current) {
+        if (previous.length != current.length) {
+            return true;
+        }
+        // the first attribute is the tick timestamp which changes on every tick
+        for (int i = 1; i < current.length; i++) {
+            if (current[i] instanceof Number && previous[i] instanceof Number) {
+                if (isChanged((Number) previous[i], (Number) current[i])) {
+                    return true;
+                }
+            } else if (current[i] == null ? previous[i] != null : !current[i].equals(previous[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isChanged(Number previous, Number current) {
+        if (current.equals(previous)) {
+            return false;
+        }
+        double previousValue = previous.doubleValue();
+        double currentValue = current.doubleValue();
+        if (Double.isNaN(previousValue) || Double.isNaN(currentValue)) {
+            return Double.isNaN(previousValue) != Double.isNaN(currentValue);
+        }
+        double threshold = Math.max(absoluteThreshold, relativeThreshold * Math.abs(previousValue));
+        if (threshold <= 0) {
+            return true;
+        }
+        return Math.abs(currentValue - previousValue) > threshold;
+    }
+}
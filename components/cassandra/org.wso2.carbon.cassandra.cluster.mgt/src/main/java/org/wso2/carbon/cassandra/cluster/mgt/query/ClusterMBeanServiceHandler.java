@@ -17,9 +17,6 @@ package org.wso2.carbon.cassandra.cluster.mgt.query;/*
 */
 
 
-import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutorMBean;
-import org.apache.cassandra.db.ColumnFamilyStoreMBean;
-import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.utils.EstimatedHistogram;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -39,13 +36,11 @@ public class ClusterMBeanServiceHandler {
     private ClusterStorageMBeanService clusterStorageMBeanService;
     private ClusterCacheMBeanService clusterCacheMBeanService;
     private ClusterColumnFamilyMBeanService clusterColumnFamilyMBeanService;
-    private ClusterCompactionManagerMBeanService clusterCompactionManagerMBeanService;
     private ClusterEndpointSnitchMBeanService clusterEndpointSnitchMBeanService;
     private ClusterMemoryMXBeanService clusterMemoryMXBeanService;
     private ClusterMessagingServiceMBeanService clusterMessagingServiceMBeanService;
     private ClusterRuntimeMXBeanService clusterRuntimeMXBeanService;
     private ClusterStreamProxyMBeanService clusterStreamProxyMBeanService;
-    private ClusterThreadPoolProxyMBeanService clusterThreadPoolProxyMBeanService;
 
     public ClusterRingInformation[] getRingInfo(String keyspace) throws ClusterDataAdminException {
         clusterStorageMBeanService = ClusterMBeanProxy.getClusterStorageMBeanService();
@@ -191,207 +186,26 @@ public class ClusterMBeanServiceHandler {
     }
 
     public KeyspaceInfo[] getColumnFamilyStats() throws ClusterDataAdminException {
-        clusterColumnFamilyMBeanService = ClusterMBeanProxy.getClusterColumnFamilyMBeanService();
-        KeyspaceInfo[] keyspaceInfos;
-        ColumnFamilyInformation[] columnFamilyInformations;
-        Map<String, List<ColumnFamilyStoreMBean>> cfstoreMap = new HashMap<String, List<ColumnFamilyStoreMBean>>();
-
-        // get a list of column family stores
-        Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> cfamilies = clusterColumnFamilyMBeanService.getColumnFamilyStoreMBeanProxies();
-
-        while (cfamilies.hasNext()) {
-            Map.Entry<String, ColumnFamilyStoreMBean> entry = cfamilies.next();
-            String tableName = entry.getKey();
-            ColumnFamilyStoreMBean cfsProxy = entry.getValue();
-
-            if (!cfstoreMap.containsKey(tableName)) {
-                List<ColumnFamilyStoreMBean> columnFamilies = new ArrayList<ColumnFamilyStoreMBean>();
-                columnFamilies.add(cfsProxy);
-                cfstoreMap.put(tableName, columnFamilies);
-            } else {
-                cfstoreMap.get(tableName).add(cfsProxy);
-            }
-        }
-        keyspaceInfos = new KeyspaceInfo[cfstoreMap.size()];
-        // print out the table statistics
-        int keyspaceCount = 0;
-
-        for (Map.Entry<String, List<ColumnFamilyStoreMBean>> entry : cfstoreMap.entrySet()) {
-            KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
-            String tableName = entry.getKey();
-            List<ColumnFamilyStoreMBean> columnFamilies = entry.getValue();
-            long tableReadCount = 0;
-            long tableWriteCount = 0;
-            int tablePendingTasks = 0;
-            double tableTotalReadTime = 0.0f;
-            double tableTotalWriteTime = 0.0f;
-
-            keyspaceInfo.setKeyspaceName(tableName);
-            for (ColumnFamilyStoreMBean cfstore : columnFamilies) {
-                long writeCount = cfstore.getWriteCount();
-                long readCount = cfstore.getReadCount();
-
-                if (readCount > 0) {
-                    tableReadCount += readCount;
-                    tableTotalReadTime += cfstore.getTotalReadLatencyMicros();
-                }
-                if (writeCount > 0) {
-                    tableWriteCount += writeCount;
-                    tableTotalWriteTime += cfstore.getTotalWriteLatencyMicros();
-                }
-                tablePendingTasks += cfstore.getPendingTasks();
-            }
-
-            double tableReadLatency = tableReadCount > 0 ? tableTotalReadTime / tableReadCount / 1000 : Double.NaN;
-            double tableWriteLatency = tableWriteCount > 0 ? tableTotalWriteTime / tableWriteCount / 1000 : Double.NaN;
-
-            keyspaceInfo.setTableReadCount(tableReadCount);
-            keyspaceInfo.setTableReadLatency(tableReadLatency);
-            keyspaceInfo.setTableWriteCount(tableWriteCount);
-            keyspaceInfo.setTableWriteLatency(tableWriteLatency);
-            keyspaceInfo.setTablePendingTasks(tablePendingTasks);
-            columnFamilyInformations = new ColumnFamilyInformation[columnFamilies.size()];
-            int keyspaceColumnFamilyCount = 0;
-            // print out column family statistics for this table
-            for (ColumnFamilyStoreMBean cfstore : columnFamilies) {
-                columnFamilyInformations[keyspaceColumnFamilyCount] = getColumnFamilyStats(cfstore);
-                keyspaceColumnFamilyCount++;
-            }
-            keyspaceInfo.setColumnFamilyInformations(columnFamilyInformations);
-            keyspaceInfos[keyspaceCount] = keyspaceInfo;
-            keyspaceCount++;
-        }
-        return keyspaceInfos;
+        return ClusterMBeanProxy.getClusterBulkAttributeReader().getKeyspaceStats();
     }
 
     public KeyspaceInfo getKeyspaceColumnFamilyStats(String keyspace) throws ClusterDataAdminException {
-        clusterColumnFamilyMBeanService = ClusterMBeanProxy.getClusterColumnFamilyMBeanService();
-        KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
-        // get a list of column family stores
-        Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> cfamilies = clusterColumnFamilyMBeanService.getColumnFamilyStoreMBeanProxies();
-        List<ColumnFamilyInformation> columnFamilyInformations = new ArrayList<ColumnFamilyInformation>();
-        List<ColumnFamilyStoreMBean> columnFamilyMBeans = new ArrayList<ColumnFamilyStoreMBean>();
-        keyspaceInfo.setKeyspaceName(keyspace);
-        while (cfamilies.hasNext()) {
-            Map.Entry<String, ColumnFamilyStoreMBean> entry = cfamilies.next();
-            String tableName = entry.getKey();
-            ColumnFamilyStoreMBean cfsProxy = entry.getValue();
-
-            if (keyspace.equals(tableName)) {
-                columnFamilyInformations.add(getColumnFamilyStats(cfsProxy));
-                columnFamilyMBeans.add(cfsProxy);
-            }
-        }
-
-        long tableReadCount = 0;
-        long tableWriteCount = 0;
-        int tablePendingTasks = 0;
-        double tableTotalReadTime = 0.0f;
-        double tableTotalWriteTime = 0.0f;
-
-        for (ColumnFamilyStoreMBean cfstore : columnFamilyMBeans) {
-            long writeCount = cfstore.getWriteCount();
-            long readCount = cfstore.getReadCount();
-
-            if (readCount > 0) {
-                tableReadCount += readCount;
-                tableTotalReadTime += cfstore.getTotalReadLatencyMicros();
-            }
-            if (writeCount > 0) {
-                tableWriteCount += writeCount;
-                tableTotalWriteTime += cfstore.getTotalWriteLatencyMicros();
-            }
-            tablePendingTasks += cfstore.getPendingTasks();
-        }
-
-        double tableReadLatency = tableReadCount > 0 ? tableTotalReadTime / tableReadCount / 1000 : Double.NaN;
-        double tableWriteLatency = tableWriteCount > 0 ? tableTotalWriteTime / tableWriteCount / 1000 : Double.NaN;
-
-        keyspaceInfo.setTableReadCount(tableReadCount);
-        keyspaceInfo.setTableReadLatency(tableReadLatency);
-        keyspaceInfo.setTableWriteCount(tableWriteCount);
-        keyspaceInfo.setTableWriteLatency(tableWriteLatency);
-        keyspaceInfo.setTablePendingTasks(tablePendingTasks);
-        keyspaceInfo.setColumnFamilyInformations(columnFamilyInformations.toArray(new ColumnFamilyInformation[columnFamilyInformations.size()]));
-        return keyspaceInfo;
+        return ClusterMBeanProxy.getClusterBulkAttributeReader().getKeyspaceStats(keyspace);
     }
 
     public ColumnFamilyInformation getSingleColumnFamilyStats(String keyspace, String columnFamily) throws ClusterDataAdminException {
-        clusterColumnFamilyMBeanService = ClusterMBeanProxy.getClusterColumnFamilyMBeanService();
-        // get a list of column family stores
-        Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> cfamilies = clusterColumnFamilyMBeanService.getColumnFamilyStoreMBeanProxies();
-
-        while (cfamilies.hasNext()) {
-            Map.Entry<String, ColumnFamilyStoreMBean> entry = cfamilies.next();
-            String tableName = entry.getKey();
-            ColumnFamilyStoreMBean cfsProxy = entry.getValue();
-
-            if (keyspace.equals(tableName) && columnFamily.equals(cfsProxy.getColumnFamilyName())) {
-                return getColumnFamilyStats(cfsProxy);
-            }
-        }
-        return null;
+        return ClusterMBeanProxy.getClusterBulkAttributeReader().getColumnFamilyStats(keyspace, columnFamily);
     }
 
 
     public String[] getColumnFamiliesForKeyspace(String keyspace) throws ClusterDataAdminException {
-        clusterColumnFamilyMBeanService = ClusterMBeanProxy.getClusterColumnFamilyMBeanService();
-        List<String> keyspaceColumnFamilies = new ArrayList<String>();
-        // get a list of column family stores
-        Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> cfamilies = clusterColumnFamilyMBeanService.getColumnFamilyStoreMBeanProxies();
-        while (cfamilies.hasNext()) {
-            Map.Entry<String, ColumnFamilyStoreMBean> entry = cfamilies.next();
-            String tableName = entry.getKey();
-            ColumnFamilyStoreMBean cfsProxy = entry.getValue();
-            if (keyspace.equals(tableName)) {
-                keyspaceColumnFamilies.add(cfsProxy.getColumnFamilyName());
-            }
-        }
-        return keyspaceColumnFamilies.toArray(new String[keyspaceColumnFamilies.size()]);
-    }
-
-    private ColumnFamilyInformation getColumnFamilyStats(ColumnFamilyStoreMBean cfsProxy) {
-        ColumnFamilyInformation columnFamilyInformation = new ColumnFamilyInformation();
-        columnFamilyInformation.setColumnFamilyName(cfsProxy.getColumnFamilyName());
-        columnFamilyInformation.setSSTableCount(cfsProxy.getLiveSSTableCount());
-        columnFamilyInformation.setLiveDiskSpaceUsed(cfsProxy.getLiveDiskSpaceUsed());
-        columnFamilyInformation.setTotalDiskSpaceUsed(cfsProxy.getTotalDiskSpaceUsed());
-        columnFamilyInformation.setNumberOfKeys(cfsProxy.estimateKeys());
-        columnFamilyInformation.setMemtableSwitchCount(cfsProxy.getMemtableSwitchCount());
-        columnFamilyInformation.setReadCount(cfsProxy.getReadCount());
-        columnFamilyInformation.setReadLatency(cfsProxy.getRecentReadLatencyMicros());
-        columnFamilyInformation.setWriteCount(cfsProxy.getWriteCount());
-        columnFamilyInformation.setWriteLatency(cfsProxy.getRecentWriteLatencyMicros());
-        columnFamilyInformation.setPendingTasks(cfsProxy.getPendingTasks());
-        columnFamilyInformation.setBloomFilterFalsePostives(cfsProxy.getBloomFilterFalsePositives());
-        columnFamilyInformation.setBloomFilterFalseRatio(cfsProxy.getRecentBloomFilterFalseRatio());
-        columnFamilyInformation.setBloomFilterSpaceUsed(cfsProxy.getBloomFilterDiskSpaceUsed());
-        columnFamilyInformation.setCompactedRowMinimumSize(cfsProxy.getMinRowSize());
-        columnFamilyInformation.setCompactedRowMeanSize(cfsProxy.getMaxRowSize());
-        columnFamilyInformation.setCompactedRowMeanSize(cfsProxy.getMeanRowSize());
-        return columnFamilyInformation;
+        return ClusterMBeanProxy.getClusterBulkAttributeReader().getColumnFamilyNames(keyspace);
     }
 
     public ThreadPoolInfo getThreadPoolStats() throws ClusterDataAdminException {
-        clusterThreadPoolProxyMBeanService = ClusterMBeanProxy.getClusterThreadPoolProxyMBeanService();
         clusterMessagingServiceMBeanService = ClusterMBeanProxy.getClusterMessagingServiceMBeanService();
-        List<ThreadPoolProperties> threadPoolProperties = new ArrayList<ThreadPoolProperties>();
         List<ThreadPoolDroppedProperties> threadPoolDroppedProperties = new ArrayList<ThreadPoolDroppedProperties>();
         ThreadPoolInfo threadPoolInfo = new ThreadPoolInfo();
-        Iterator<Map.Entry<String, JMXEnabledThreadPoolExecutorMBean>> threads = clusterThreadPoolProxyMBeanService.getThreadPoolMBeanProxies();
-        while (threads.hasNext()) {
-            ThreadPoolProperties threadPoolProperty = new ThreadPoolProperties();
-            Map.Entry<String, JMXEnabledThreadPoolExecutorMBean> thread = threads.next();
-            String poolName = thread.getKey();
-            JMXEnabledThreadPoolExecutorMBean threadPoolProxy = thread.getValue();
-            threadPoolProperty.setThreadPoolPropertyName(poolName);
-            threadPoolProperty.setActive(threadPoolProxy.getActiveCount());
-            threadPoolProperty.setPending(threadPoolProxy.getPendingTasks());
-            threadPoolProperty.setCompleted(threadPoolProxy.getCompletedTasks());
-            threadPoolProperty.setBlocked(threadPoolProxy.getCurrentlyBlockedTasks());
-            threadPoolProperty.setAllTimeBlocked(threadPoolProxy.getTotalBlockedTasks());
-            threadPoolProperties.add(threadPoolProperty);
-        }
 
         for (Map.Entry<String, Integer> entry : clusterMessagingServiceMBeanService.getDroppedMessages().entrySet()) {
             ThreadPoolDroppedProperties threadPoolDroppedProperty = new ThreadPoolDroppedProperties();
@@ -399,51 +213,13 @@ public class ClusterMBeanServiceHandler {
             threadPoolDroppedProperty.setDroppedCount(entry.getValue());
             threadPoolDroppedProperties.add(threadPoolDroppedProperty);
         }
-        threadPoolInfo.setThreadPoolProperties(threadPoolProperties.toArray(new ThreadPoolProperties[threadPoolProperties.size()]));
+        threadPoolInfo.setThreadPoolProperties(ClusterMBeanProxy.getClusterBulkAttributeReader().getThreadPoolStats());
         threadPoolInfo.setThreadPoolDroppedProperties(threadPoolDroppedProperties.toArray(new ThreadPoolDroppedProperties[threadPoolDroppedProperties.size()]));
         return threadPoolInfo;
     }
 
     public CompactionStats getCompactionStats() throws ClusterDataAdminException {
-        clusterStorageMBeanService = ClusterMBeanProxy.getClusterStorageMBeanService();
-        clusterCompactionManagerMBeanService = ClusterMBeanProxy.getClusterCompactionManagerMBeanService();
-        CompactionProperties[] compactionProperties;
-        CompactionStats compactionStats = new CompactionStats();
-        int compactionThroughput = clusterStorageMBeanService.getCompactionThroughput();
-        compactionStats.setPendingTasks(clusterCompactionManagerMBeanService.getPendingTasks());
-        long remainingBytes = 0;
-        if (clusterCompactionManagerMBeanService.getCompactions().size() > 0) {
-            int count = 0;
-            compactionProperties = new CompactionProperties[clusterCompactionManagerMBeanService.getCompactions().size()];
-            for (Map<String, String> c : clusterCompactionManagerMBeanService.getCompactions()) {
-                CompactionProperties compactionProperty = new CompactionProperties();
-                String percentComplete = new Long(c.get("totalBytes")) == 0
-                        ? "n/a"
-                        : new DecimalFormat("0.00").format((double) new Long(c.get("bytesComplete")) / new Long(c.get("totalBytes")) * 100) + "%";
-                compactionProperty.setCompactionType(c.get("taskType"));
-                compactionProperty.setKeyspace(c.get("keyspace"));
-                compactionProperty.setColumFamily(c.get("columnfamily"));
-                compactionProperty.setBytesCompacted(c.get("bytesComplete"));
-                compactionProperty.setBytesTotal(c.get("totalBytes"));
-                compactionProperty.setProgress(percentComplete);
-                compactionProperties[count] = compactionProperty;
-                count++;
-                if (c.get("taskType").equals(OperationType.COMPACTION.toString()))
-                    remainingBytes += (new Long(c.get("totalBytes")) - new Long(c.get("bytesComplete")));
-            }
-        } else {
-            compactionProperties = null;
-        }
-
-        long remainingTimeInSecs = compactionThroughput == 0 || remainingBytes == 0
-                ? -1
-                : (remainingBytes) / (1024L * 1024L * compactionThroughput);
-        String remainingTime = remainingTimeInSecs < 0
-                ? "n/a"
-                : String.format("%dh%02dm%02ds", remainingTimeInSecs / 3600, (remainingTimeInSecs % 3600) / 60, (remainingTimeInSecs % 60));
-        compactionStats.setActiveCompactionRemainingTime(remainingTime);
-        compactionStats.setCompactionProperties(compactionProperties);
-        return compactionStats;
+        return ClusterMBeanProxy.getClusterBulkAttributeReader().getCompactionStats();
     }
 
     public ClusterNetstat getNetworkStats(String hostName) throws ClusterDataAdminException {
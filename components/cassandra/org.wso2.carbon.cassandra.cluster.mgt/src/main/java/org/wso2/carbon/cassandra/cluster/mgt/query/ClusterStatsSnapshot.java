@@ -0,0 +1,114 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.query;
+
+import org.wso2.carbon.cassandra.cluster.mgt.data.ClusterRingInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CompactionStats;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.NodeInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ThreadPoolInfo;
+
+/**
+ * Statistics of the local node read together at one point in time. Snapshots are shared between
+ * all callers, so the data objects handed out must be treated as read only.
+ */
+public final class ClusterStatsSnapshot {
+    private final long timestamp;
+    private final NodeInformation nodeInformation;
+    private final ClusterRingInformation[] ringInformation;
+    private final KeyspaceInfo[] keyspaceInfos;
+    private final ThreadPoolInfo threadPoolInfo;
+    private final CompactionStats compactionStats;
+
+    public ClusterStatsSnapshot(long timestamp, NodeInformation nodeInformation,
+                                ClusterRingInformation[] ringInformation, KeyspaceInfo[] keyspaceInfos,
+                                ThreadPoolInfo threadPoolInfo, CompactionStats compactionStats) {
+        this.timestamp = timestamp;
+        this.nodeInformation = nodeInformation;
+        this.ringInformation = ringInformation;
+        this.keyspaceInfos = keyspaceInfos;
+        this.threadPoolInfo = threadPoolInfo;
+        this.compactionStats = compactionStats;
+    }
+
+    /**
+     * @return time in milliseconds at which the statistics were read
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public NodeInformation getNodeInformation() {
+        return nodeInformation;
+    }
+
+    /**
+     * @return ring with the ownership computed across all keyspaces
+     */
+    public ClusterRingInformation[] getRingInformation() {
+        return ringInformation;
+    }
+
+    public KeyspaceInfo[] getKeyspaceInfos() {
+        return keyspaceInfos;
+    }
+
+    public ThreadPoolInfo getThreadPoolInfo() {
+        return threadPoolInfo;
+    }
+
+    public CompactionStats getCompactionStats() {
+        return compactionStats;
+    }
+
+    /**
+     * Get the statistics of a keyspace
+     *
+     * @param keyspace keyspace name
+     * @return keyspace statistics or null if the keyspace was not present
+     */
+    public KeyspaceInfo getKeyspaceInfo(String keyspace) {
+        for (KeyspaceInfo keyspaceInfo : keyspaceInfos) {
+            if (keyspaceInfo.getKeyspaceName().equals(keyspace)) {
+                return keyspaceInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the statistics of a column family
+     *
+     * @param keyspace     keyspace name
+     * @param columnFamily column family name
+     * @return column family statistics or null if the column family was not present
+     */
+    public ColumnFamilyInformation getColumnFamilyInformation(String keyspace, String columnFamily) {
+        KeyspaceInfo keyspaceInfo = getKeyspaceInfo(keyspace);
+        if (keyspaceInfo == null) {
+            return null;
+        }
+        for (ColumnFamilyInformation columnFamilyInformation : keyspaceInfo.getColumnFamilyInformations()) {
+            if (columnFamily.equals(columnFamilyInformation.getColumnFamilyName())) {
+                return columnFamilyInformation;
+            }
+        }
+        return null;
+    }
+}
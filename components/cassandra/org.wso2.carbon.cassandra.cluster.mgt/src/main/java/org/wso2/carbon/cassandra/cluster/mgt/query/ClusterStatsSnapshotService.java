@@ -0,0 +1,154 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.query;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a snapshot of the local node statistics which is refreshed by a single background thread.
+ * Admin services read the latest snapshot instead of going to JMX, so any number of open
+ * dashboards costs one set of MBean reads per refresh interval. Forced refreshes run on the same
+ * thread and concurrent requests share the refresh already in progress.
+ */
+public class ClusterStatsSnapshotService {
+    private static Log log = LogFactory.getLog(ClusterStatsSnapshotService.class);
+
+    private final ClusterMBeanServiceHandler clusterMBeanServiceHandler;
+    private final long refreshInterval;
+    private ScheduledExecutorService executor;
+    private Future<ClusterStatsSnapshot> pendingRefresh;
+    private volatile ClusterStatsSnapshot snapshot;
+
+    private final Callable<ClusterStatsSnapshot> refreshTask = new Callable<ClusterStatsSnapshot>() {
+        public ClusterStatsSnapshot call() throws Exception {
+            ClusterStatsSnapshot newSnapshot = collect();
+            snapshot = newSnapshot;
+            return newSnapshot;
+        }
+    };
+
+    /**
+     * @param clusterMBeanServiceHandler handler used to read the statistics
+     * @param refreshInterval            time in milliseconds between two scheduled refreshes
+     */
+    public ClusterStatsSnapshotService(ClusterMBeanServiceHandler clusterMBeanServiceHandler, long refreshInterval) {
+        this.clusterMBeanServiceHandler = clusterMBeanServiceHandler;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Start the background refresh, the first snapshot is taken immediately
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "cassandra-cluster-stats-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        pendingRefresh = executor.submit(refreshTask);
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    refreshTask.call();
+                } catch (Exception e) {
+                    log.error("Unable to refresh cluster statistics, keeping the previous snapshot", e);
+                }
+            }
+        }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background refresh
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            pendingRefresh = null;
+        }
+    }
+
+    /**
+     * Get the latest snapshot, waiting for the first one if none has been taken yet
+     *
+     * @return latest statistics snapshot
+     * @throws ClusterDataAdminException if no snapshot could be taken
+     */
+    public ClusterStatsSnapshot getSnapshot() throws ClusterDataAdminException {
+        ClusterStatsSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        return refresh();
+    }
+
+    /**
+     * Take a new snapshot now and wait for it. If a refresh is already running its result is used.
+     *
+     * @return new statistics snapshot
+     * @throws ClusterDataAdminException if the snapshot could not be taken
+     */
+    public ClusterStatsSnapshot refresh() throws ClusterDataAdminException {
+        Future<ClusterStatsSnapshot> refresh;
+        synchronized (this) {
+            if (executor == null) {
+                throw new ClusterDataAdminException("Cluster statistics snapshot service is not running", log);
+            }
+            if (pendingRefresh == null || pendingRefresh.isDone()) {
+                pendingRefresh = executor.submit(refreshTask);
+            }
+            refresh = pendingRefresh;
+        }
+        try {
+            return refresh.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterDataAdminException("Interrupted while refreshing cluster statistics", e, log);
+        } catch (ExecutionException e) {
+            throw new ClusterDataAdminException("Unable to refresh cluster statistics", e.getCause(), log);
+        }
+    }
+
+    private ClusterStatsSnapshot collect() throws ClusterDataAdminException {
+        long timestamp = System.currentTimeMillis();
+        return new ClusterStatsSnapshot(timestamp,
+                                        clusterMBeanServiceHandler.getNodeInfo(),
+                                        clusterMBeanServiceHandler.getRingInfo(null),
+                                        clusterMBeanServiceHandler.getColumnFamilyStats(),
+                                        clusterMBeanServiceHandler.getThreadPoolStats(),
+                                        clusterMBeanServiceHandler.getCompactionStats());
+    }
+}
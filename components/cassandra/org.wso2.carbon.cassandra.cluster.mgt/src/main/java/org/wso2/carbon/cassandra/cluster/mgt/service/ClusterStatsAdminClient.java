@@ -18,8 +18,10 @@ package org.wso2.carbon.cassandra.cluster.mgt.service;/*
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.cluster.mgt.component.ClusterAdminComponentManager;
 import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
 import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterStatsSnapshot;
 import org.wso2.carbon.cassandra.cluster.mgt.data.ClusterNetstat;
 import org.wso2.carbon.cassandra.cluster.mgt.data.ClusterRingInformation;
 import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyHistograms;
@@ -43,36 +45,65 @@ public class ClusterStatsAdminClient extends AbstractAdmin{
     }
 
     public ClusterRingInformation[] getRing(String keyspace) throws ClusterDataAdminException {
+        if (keyspace == null) {
+            return getStatsSnapshot().getRingInformation();
+        }
         return clusterMBeanServiceHandler.getRingInfo(keyspace);
     }
 
     public NodeInformation getInfo() throws  ClusterDataAdminException {
-        return clusterMBeanServiceHandler.getNodeInfo();
+        return getStatsSnapshot().getNodeInformation();
     }
 
     public KeyspaceInfo[] getColumnFamilyStats() throws ClusterDataAdminException {
-        return clusterMBeanServiceHandler.getColumnFamilyStats();
+        return getStatsSnapshot().getKeyspaceInfos();
     }
 
     public KeyspaceInfo getColumnFamilyStatsForKeyspace(String keyspace)
             throws ClusterDataAdminException {
-        return clusterMBeanServiceHandler.getKeyspaceColumnFamilyStats(keyspace);
+        KeyspaceInfo keyspaceInfo = getStatsSnapshot().getKeyspaceInfo(keyspace);
+        if (keyspaceInfo == null) {
+            return clusterMBeanServiceHandler.getKeyspaceColumnFamilyStats(keyspace);
+        }
+        return keyspaceInfo;
     }
 
     public ColumnFamilyInformation getSingleColumnFamilyStats(String keyspace,String columnFamily)
             throws ClusterDataAdminException {
-         return clusterMBeanServiceHandler.getSingleColumnFamilyStats(keyspace,columnFamily);
+        ColumnFamilyInformation columnFamilyInformation =
+                getStatsSnapshot().getColumnFamilyInformation(keyspace, columnFamily);
+        if (columnFamilyInformation == null) {
+            return clusterMBeanServiceHandler.getSingleColumnFamilyStats(keyspace, columnFamily);
+        }
+        return columnFamilyInformation;
     }
+
+    /**
+     * Get the time at which the statistics served by this admin service were read
+     * @return time in milliseconds
+     */
+    public long getStatsTimestamp() throws ClusterDataAdminException {
+        return getStatsSnapshot().getTimestamp();
+    }
+
+    /**
+     * Read the statistics again instead of waiting for the next scheduled refresh
+     * @return time in milliseconds at which the new statistics were read
+     */
+    public long refreshStats() throws ClusterDataAdminException {
+        return ClusterAdminComponentManager.getInstance().getClusterStatsSnapshotService().refresh().getTimestamp();
+    }
+
     public String getVersion() throws ClusterDataAdminException {
         return ClusterMBeanProxy.getClusterStorageMBeanService().getReleaseVersion();
     }
 
     public ThreadPoolInfo getTpstats() throws ClusterDataAdminException {
-        return clusterMBeanServiceHandler.getThreadPoolStats();
+        return getStatsSnapshot().getThreadPoolInfo();
     }
 
     public CompactionStats getCompactionStats() throws ClusterDataAdminException {
-        return clusterMBeanServiceHandler.getCompactionStats();
+        return getStatsSnapshot().getCompactionStats();
     }
 
     public String getGossipInfo() throws ClusterDataAdminException {
@@ -129,6 +160,10 @@ public class ClusterStatsAdminClient extends AbstractAdmin{
         List<String> keyspaces=ClusterMBeanProxy.getClusterStorageMBeanService().getKeyspaces();
         return keyspaces.toArray(new String[keyspaces.size()]);
     }
+
+    private ClusterStatsSnapshot getStatsSnapshot() throws ClusterDataAdminException {
+        return ClusterAdminComponentManager.getInstance().getClusterStatsSnapshotService().getSnapshot();
+    }
 }
 
 
@@ -0,0 +1,380 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.mbean;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CompactionStats;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ThreadPoolProperties;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ClusterBulkAttributeReaderTest extends TestCase {
+
+    private MBeanServer mBeanServer;
+    private Map<String, Integer> calls;
+    private ClusterBulkAttributeReader reader;
+
+    protected void setUp() throws Exception {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        registerColumnFamily("ks1", "users", 10, 2000, 4, 800, 3);
+        registerColumnFamily("ks1", "events", 0, 0, 6, 1200, 1);
+        registerColumnFamily("ks2", "logs", 5, 500, 0, 0, 0);
+        calls = new HashMap<String, Integer>();
+        reader = new ClusterBulkAttributeReader(countingConnection(mBeanServer, calls));
+    }
+
+    public void testKeyspaceStatsAreReadInBulk() throws Exception {
+        KeyspaceInfo[] keyspaces = reader.getKeyspaceStats();
+
+        assertEquals(2, keyspaces.length);
+        assertEquals("ks1", keyspaces[0].getKeyspaceName());
+        assertEquals(10, keyspaces[0].getTableReadCount());
+        assertEquals(0.2, keyspaces[0].getTableReadLatency(), 0.0001);
+        assertEquals(10, keyspaces[0].getTableWriteCount());
+        assertEquals(0.2, keyspaces[0].getTableWriteLatency(), 0.0001);
+        assertEquals(4, keyspaces[0].getTablePendingTasks());
+        assertEquals(2, keyspaces[0].getColumnFamilyInformations().length);
+        assertEquals("ks2", keyspaces[1].getKeyspaceName());
+        assertTrue(Double.isNaN(keyspaces[1].getTableWriteLatency()));
+
+        ColumnFamilyInformation users = find(keyspaces[0].getColumnFamilyInformations(), "users");
+        assertEquals(7, users.getSSTableCount());
+        assertEquals(1000, users.getNumberOfKeys());
+        assertEquals(10, users.getCompactedRowMinimumSize());
+        assertEquals(300, users.getCompactedRowMaximumSize());
+        assertEquals(100, users.getCompactedRowMeanSize());
+        assertEquals(0.5, users.getBloomFilterFalseRatio(), 0.0001);
+
+        // one pattern query, one attribute read and one key estimate per column family
+        assertEquals(1, count("queryNames"));
+        assertEquals(3, count("getAttributes"));
+        assertEquals(3, count("invoke"));
+        assertEquals(0, count("getAttribute"));
+    }
+
+    public void testSingleKeyspaceAndColumnFamily() throws Exception {
+        KeyspaceInfo keyspace = reader.getKeyspaceStats("ks2");
+        assertEquals(1, keyspace.getColumnFamilyInformations().length);
+        assertEquals(5, keyspace.getTableReadCount());
+
+        assertEquals(0, reader.getKeyspaceStats("missing").getColumnFamilyInformations().length);
+
+        ColumnFamilyInformation events = reader.getColumnFamilyStats("ks1", "events");
+        assertEquals("events", events.getColumnFamilyName());
+        assertEquals(6, events.getWriteCount());
+        assertNull(reader.getColumnFamilyStats("ks1", "missing"));
+
+        String[] names = reader.getColumnFamilyNames("ks1");
+        assertEquals(2, names.length);
+        assertTrue("users".equals(names[0]) || "users".equals(names[1]));
+    }
+
+    public void testThreadPoolAndCompactionStats() throws Exception {
+        mBeanServer.registerMBean(new StandardMBean(new FakeThreadPool(2, 7), FakeThreadPoolMBean.class),
+                                  new ObjectName("org.apache.cassandra.request:type=ReadStage"));
+        mBeanServer.registerMBean(new StandardMBean(new FakeThreadPool(0, 1), FakeThreadPoolMBean.class),
+                                  new ObjectName("org.apache.cassandra.internal:type=GossipStage"));
+        mBeanServer.registerMBean(new StandardMBean(new FakeCompactionManager(), FakeCompactionManagerMBean.class),
+                                  new ObjectName("org.apache.cassandra.db:type=CompactionManager"));
+        mBeanServer.registerMBean(new StandardMBean(new FakeStorageService(), FakeStorageServiceMBean.class),
+                                  new ObjectName("org.apache.cassandra.db:type=StorageService"));
+
+        ThreadPoolProperties[] threadPools = reader.getThreadPoolStats();
+        assertEquals(2, threadPools.length);
+        for (ThreadPoolProperties threadPool : threadPools) {
+            if ("ReadStage".equals(threadPool.getThreadPoolPropertyName())) {
+                assertEquals(2, threadPool.getActive());
+                assertEquals(7, threadPool.getPending());
+            } else {
+                assertEquals("GossipStage", threadPool.getThreadPoolPropertyName());
+            }
+        }
+
+        CompactionStats compactionStats = reader.getCompactionStats();
+        assertEquals(3, compactionStats.getPendingTasks());
+        assertEquals(1, compactionStats.getCompactionProperties().length);
+        assertEquals("25.00%", compactionStats.getCompactionProperties()[0].getProgress());
+        assertEquals("0h00m48s", compactionStats.getActiveCompactionRemainingTime());
+    }
+
+    private int count(String method) {
+        Integer count = calls.get(method);
+        return count == null ? 0 : count;
+    }
+
+    private void registerColumnFamily(String keyspace, String columnFamily, long reads, long readMicros,
+                                      long writes, long writeMicros, int pendingTasks) throws Exception {
+        FakeColumnFamilyStore store = new FakeColumnFamilyStore(columnFamily, reads, readMicros, writes,
+                                                                writeMicros, pendingTasks);
+        mBeanServer.registerMBean(new StandardMBean(store, FakeColumnFamilyStoreMBean.class),
+                                  new ObjectName("org.apache.cassandra.db:type=ColumnFamilies,keyspace=" +
+                                                 keyspace + ",columnfamily=" + columnFamily));
+    }
+
+    private static ColumnFamilyInformation find(ColumnFamilyInformation[] columnFamilies, String name) {
+        for (ColumnFamilyInformation columnFamily : columnFamilies) {
+            if (name.equals(columnFamily.getColumnFamilyName())) {
+                return columnFamily;
+            }
+        }
+        fail("No column family " + name);
+        return null;
+    }
+
+    private static MBeanServerConnection countingConnection(final MBeanServer target,
+                                                            final Map<String, Integer> calls) {
+        return (MBeanServerConnection) Proxy.newProxyInstance(
+                MBeanServerConnection.class.getClassLoader(), new Class[]{MBeanServerConnection.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Integer count = calls.get(method.getName());
+                        calls.put(method.getName(), count == null ? 1 : count + 1);
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    public interface FakeColumnFamilyStoreMBean {
+        String getColumnFamilyName();
+
+        int getLiveSSTableCount();
+
+        long getLiveDiskSpaceUsed();
+
+        long getTotalDiskSpaceUsed();
+
+        int getMemtableSwitchCount();
+
+        long getReadCount();
+
+        double getRecentReadLatencyMicros();
+
+        long getWriteCount();
+
+        double getRecentWriteLatencyMicros();
+
+        int getPendingTasks();
+
+        long getBloomFilterFalsePositives();
+
+        double getRecentBloomFilterFalseRatio();
+
+        long getBloomFilterDiskSpaceUsed();
+
+        long getMinRowSize();
+
+        long getMaxRowSize();
+
+        long getMeanRowSize();
+
+        long getTotalReadLatencyMicros();
+
+        long getTotalWriteLatencyMicros();
+
+        long estimateKeys();
+    }
+
+    public static class FakeColumnFamilyStore implements FakeColumnFamilyStoreMBean {
+        private final String name;
+        private final long reads;
+        private final long readMicros;
+        private final long writes;
+        private final long writeMicros;
+        private final int pendingTasks;
+
+        public FakeColumnFamilyStore(String name, long reads, long readMicros, long writes, long writeMicros,
+                                     int pendingTasks) {
+            this.name = name;
+            this.reads = reads;
+            this.readMicros = readMicros;
+            this.writes = writes;
+            this.writeMicros = writeMicros;
+            this.pendingTasks = pendingTasks;
+        }
+
+        public String getColumnFamilyName() {
+            return name;
+        }
+
+        public int getLiveSSTableCount() {
+            return 7;
+        }
+
+        public long getLiveDiskSpaceUsed() {
+            return 4096;
+        }
+
+        public long getTotalDiskSpaceUsed() {
+            return 8192;
+        }
+
+        public int getMemtableSwitchCount() {
+            return 2;
+        }
+
+        public long getReadCount() {
+            return reads;
+        }
+
+        public double getRecentReadLatencyMicros() {
+            return 12.5;
+        }
+
+        public long getWriteCount() {
+            return writes;
+        }
+
+        public double getRecentWriteLatencyMicros() {
+            return 3.5;
+        }
+
+        public int getPendingTasks() {
+            return pendingTasks;
+        }
+
+        public long getBloomFilterFalsePositives() {
+            return 1;
+        }
+
+        public double getRecentBloomFilterFalseRatio() {
+            return 0.5;
+        }
+
+        public long getBloomFilterDiskSpaceUsed() {
+            return 64;
+        }
+
+        public long getMinRowSize() {
+            return 10;
+        }
+
+        public long getMaxRowSize() {
+            return 300;
+        }
+
+        public long getMeanRowSize() {
+            return 100;
+        }
+
+        public long getTotalReadLatencyMicros() {
+            return readMicros;
+        }
+
+        public long getTotalWriteLatencyMicros() {
+            return writeMicros;
+        }
+
+        public long estimateKeys() {
+            return 1000;
+        }
+    }
+
+    public interface FakeThreadPoolMBean {
+        int getActiveCount();
+
+        long getPendingTasks();
+
+        long getCompletedTasks();
+
+        int getCurrentlyBlockedTasks();
+
+        int getTotalBlockedTasks();
+    }
+
+    public static class FakeThreadPool implements FakeThreadPoolMBean {
+        private final int active;
+        private final long pending;
+
+        public FakeThreadPool(int active, long pending) {
+            this.active = active;
+            this.pending = pending;
+        }
+
+        public int getActiveCount() {
+            return active;
+        }
+
+        public long getPendingTasks() {
+            return pending;
+        }
+
+        public long getCompletedTasks() {
+            return 100;
+        }
+
+        public int getCurrentlyBlockedTasks() {
+            return 0;
+        }
+
+        public int getTotalBlockedTasks() {
+            return 0;
+        }
+    }
+
+    public interface FakeCompactionManagerMBean {
+        int getPendingTasks();
+
+        List<Map<String, String>> getCompactions();
+    }
+
+    public static class FakeCompactionManager implements FakeCompactionManagerMBean {
+        public int getPendingTasks() {
+            return 3;
+        }
+
+        public List<Map<String, String>> getCompactions() {
+            Map<String, String> compaction = new HashMap<String, String>();
+            compaction.put("taskType", "Compaction");
+            compaction.put("keyspace", "ks1");
+            compaction.put("columnfamily", "users");
+            compaction.put("bytesComplete", String.valueOf(16L * 1024 * 1024));
+            compaction.put("totalBytes", String.valueOf(64L * 1024 * 1024));
+            List<Map<String, String>> compactions = new ArrayList<Map<String, String>>();
+            compactions.add(compaction);
+            return compactions;
+        }
+    }
+
+    public interface FakeStorageServiceMBean {
+        int getCompactionThroughputMbPerSec();
+    }
+
+    public static class FakeStorageService implements FakeStorageServiceMBean {
+        public int getCompactionThroughputMbPerSec() {
+            return 1;
+        }
+    }
+}
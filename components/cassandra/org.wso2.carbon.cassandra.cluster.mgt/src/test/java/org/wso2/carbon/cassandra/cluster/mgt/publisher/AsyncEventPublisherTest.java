@@ -0,0 +1,390 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.cluster.mgt.Util.ClusterMonitorConfig;
+import org.wso2.carbon.cassandra.cluster.mgt.Util.StreamsDefinitions;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
+import org.wso2.carbon.databridge.agent.thrift.DataPublisher;
+import org.wso2.carbon.databridge.agent.thrift.exception.AgentException;
+import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Credentials;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.core.AgentCallback;
+import org.wso2.carbon.databridge.core.DataBridge;
+import org.wso2.carbon.databridge.core.Utils.AgentSession;
+import org.wso2.carbon.databridge.core.definitionstore.InMemoryStreamDefinitionStore;
+import org.wso2.carbon.databridge.core.internal.authentication.AuthenticationHandler;
+import org.wso2.carbon.databridge.receiver.thrift.ThriftDataReceiver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncEventPublisherTest extends TestCase {
+    /* the thrift receiver authenticates the publisher on RECEIVER_PORT + 100 */
+    private static final int RECEIVER_PORT = 7711;
+
+    private ReceiverStub receiver;
+    private AsyncEventPublisher publisher;
+
+    protected void setUp() throws Exception {
+        receiver = new ReceiverStub();
+    }
+
+    protected void tearDown() throws Exception {
+        receiver.release();
+        if (publisher != null) {
+            publisher.stop(1000);
+        }
+    }
+
+    public void testBatchIsFlushedWhenFull() throws Exception {
+        publisher = start(100, 5, 60 * 1000, AsyncEventPublisher.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(publisher.publish(event(i)));
+        }
+        assertTrue(receiver.awaitEvents(10));
+        assertEquals(2, receiver.batches.size());
+        assertEquals(5, receiver.batches.get(0).size());
+        assertEquals(0L, receiver.events().get(0).getTimeStamp());
+        assertEquals(9L, receiver.events().get(9).getTimeStamp());
+        publisher.stop(1000);
+        assertEquals(10, publisher.getPublishedCount());
+    }
+
+    public void testPartialBatchIsFlushedAfterInterval() throws Exception {
+        publisher = start(100, 100, 50, AsyncEventPublisher.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(event(i));
+        }
+        assertTrue(receiver.awaitEvents(3));
+        assertEquals(1, receiver.batches.size());
+        assertEquals(3, receiver.batches.get(0).size());
+    }
+
+    public void testDropNewestRejectsWhenFull() throws Exception {
+        publisher = fillQueue(AsyncEventPublisher.OverflowPolicy.DROP_NEWEST);
+        assertFalse(publisher.publish(event(3)));
+        receiver.release();
+
+        assertTrue(receiver.awaitEvents(3));
+        assertEquals(timestamps(0, 1, 2), timestamps(receiver.events()));
+        assertEquals(1, publisher.getDroppedCount());
+    }
+
+    public void testDropOldestKeepsFreshestEvents() throws Exception {
+        publisher = fillQueue(AsyncEventPublisher.OverflowPolicy.DROP_OLDEST);
+        assertTrue(publisher.publish(event(3)));
+        receiver.release();
+
+        assertTrue(receiver.awaitEvents(3));
+        assertEquals(timestamps(0, 2, 3), timestamps(receiver.events()));
+        assertEquals(1, publisher.getDroppedCount());
+    }
+
+    public void testBlockWaitsForRoomUpToTimeout() throws Exception {
+        publisher = fillQueue(AsyncEventPublisher.OverflowPolicy.BLOCK);
+        long start = System.currentTimeMillis();
+        assertFalse(publisher.publish(event(3)));
+        assertTrue(System.currentTimeMillis() - start >= 40);
+        receiver.release();
+
+        assertTrue(receiver.awaitEvents(3));
+        assertEquals(timestamps(0, 1, 2), timestamps(receiver.events()));
+        assertEquals(1, publisher.getDroppedCount());
+    }
+
+    public void testStopFlushesQueuedEventsAndCountsFailures() throws Exception {
+        receiver.release();
+        receiver.failing = true;
+        publisher = start(100, 100, 60 * 1000, AsyncEventPublisher.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            publisher.publish(event(i));
+        }
+        publisher.stop(1000);
+
+        assertEquals(4, publisher.getFailedCount());
+        assertEquals(0, publisher.getQueuedCount());
+        assertFalse(publisher.publish(event(5)));
+        publisher = null;
+    }
+
+    public void testEventsReachThriftReceiverWithStreamTypes() throws Exception {
+        System.setProperty("javax.net.ssl.keyStore", "src/test/resources/wso2carbon.jks");
+        System.setProperty("javax.net.ssl.keyStorePassword", "wso2carbon");
+        System.setProperty("javax.net.ssl.trustStore", "src/test/resources/client-truststore.jks");
+        System.setProperty("javax.net.ssl.trustStorePassword", "wso2carbon");
+        ThriftReceiver thriftReceiver = new ThriftReceiver();
+        DataBridge dataBridge = new DataBridge(new AllowAllAuthenticationHandler(),
+                                               new InMemoryStreamDefinitionStore());
+        dataBridge.subscribe(thriftReceiver);
+        ThriftDataReceiver thriftDataReceiver = new ThriftDataReceiver(RECEIVER_PORT, dataBridge);
+        thriftDataReceiver.start("localhost");
+        DataPublisher dataPublisher = null;
+        try {
+            dataPublisher = new DataPublisher("ssl://localhost:" + (RECEIVER_PORT + 100),
+                                              "tcp://localhost:" + RECEIVER_PORT, "admin", "admin");
+            String streamId = dataPublisher.defineStream(StreamsDefinitions.KS_STATS_STREAM_DEF);
+            assertEquals(streamId, dataPublisher.findStreamId(StreamsDefinitions.KS_STATS,
+                                                               StreamsDefinitions.VERSION));
+
+            ClusterMonitorConfig.setNodeId("node1");
+            List<Event> events = new ClusterStatsCollector(new KeyspaceStatsHandler()).collect(null, null,
+                                                                                              streamId, 42L);
+            publisher = new AsyncEventPublisher(new DataPublisherEventSink(dataPublisher), 100, 10, 50,
+                                                AsyncEventPublisher.OverflowPolicy.DROP_NEWEST, 50);
+            publisher.start();
+            for (Event event : events) {
+                assertTrue(publisher.publish(event));
+            }
+            assertTrue(thriftReceiver.awaitEvents(2));
+            assertEquals(2, publisher.getPublishedCount());
+            assertEquals(0, publisher.getFailedCount());
+
+            StreamDefinition streamDefinition = thriftReceiver.getStreamDefinition();
+            assertEquals(StreamsDefinitions.KS_STATS, streamDefinition.getName());
+            assertEquals("2.0.0", streamDefinition.getVersion());
+            assertEquals(Arrays.asList(AttributeType.LONG, AttributeType.STRING, AttributeType.STRING,
+                                       AttributeType.LONG, AttributeType.DOUBLE, AttributeType.DOUBLE,
+                                       AttributeType.LONG, AttributeType.DOUBLE, AttributeType.DOUBLE,
+                                       AttributeType.INT), types(streamDefinition.getPayloadData()));
+
+            // the receiver decodes the payload by the stream attribute types
+            Event event = thriftReceiver.events().get(0);
+            assertEquals(streamId, event.getStreamId());
+            Object[] payload = event.getPayloadData();
+            assertEquals(Long.valueOf(42L), payload[0]);
+            assertEquals("node1", payload[1]);
+            assertEquals("ks1", payload[2]);
+            assertEquals(Long.valueOf(20L), payload[3]);
+            assertEquals(Double.valueOf(0.5), payload[4]);
+            assertEquals(Double.valueOf(10.0), payload[5]);
+            assertEquals(Long.valueOf(4L), payload[6]);
+            assertEquals(Double.valueOf(0.25), payload[7]);
+            assertEquals(Double.valueOf(1.0), payload[8]);
+            assertEquals(Integer.valueOf(3), payload[9]);
+            assertEquals("ks2", thriftReceiver.events().get(1).getPayloadData()[2]);
+        } finally {
+            if (publisher != null) {
+                publisher.stop(1000);
+                publisher = null;
+            }
+            if (dataPublisher != null) {
+                dataPublisher.stop();
+            }
+            thriftDataReceiver.stop();
+        }
+    }
+
+    private AsyncEventPublisher start(int queueSize, int batchSize, long flushInterval,
+                                      AsyncEventPublisher.OverflowPolicy overflowPolicy) {
+        AsyncEventPublisher asyncEventPublisher = new AsyncEventPublisher(receiver, queueSize, batchSize,
+                                                                          flushInterval, overflowPolicy, 50);
+        asyncEventPublisher.start();
+        return asyncEventPublisher;
+    }
+
+    /**
+     * Leaves the publisher thread blocked in the receiver with event 0 and the queue full with events 1 and 2
+     */
+    private AsyncEventPublisher fillQueue(AsyncEventPublisher.OverflowPolicy overflowPolicy) throws Exception {
+        receiver.hold();
+        AsyncEventPublisher asyncEventPublisher = start(2, 1, 10, overflowPolicy);
+        asyncEventPublisher.publish(event(0));
+        assertTrue(receiver.awaitBlocked());
+        assertTrue(asyncEventPublisher.publish(event(1)));
+        assertTrue(asyncEventPublisher.publish(event(2)));
+        return asyncEventPublisher;
+    }
+
+    private static Event event(long timestamp) {
+        return new Event("stream", timestamp, new Object[]{"external"}, null, new Object[]{timestamp, 1.5});
+    }
+
+    private static List<AttributeType> types(List<Attribute> attributes) {
+        List<AttributeType> types = new ArrayList<AttributeType>();
+        for (Attribute attribute : attributes) {
+            types.add(attribute.getType());
+        }
+        return types;
+    }
+
+    private static List<Long> timestamps(long... timestamps) {
+        List<Long> list = new ArrayList<Long>();
+        for (long timestamp : timestamps) {
+            list.add(timestamp);
+        }
+        return list;
+    }
+
+    private static List<Long> timestamps(List<Event> events) {
+        List<Long> list = new ArrayList<Long>();
+        for (Event event : events) {
+            list.add(event.getTimeStamp());
+        }
+        return list;
+    }
+
+    /**
+     * In-memory sink for the queue policy tests, records every batch it is sent
+     */
+    private static class ReceiverStub implements EventSink {
+        private final List<List<Event>> batches = new ArrayList<List<Event>>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean failing;
+
+        public void publish(List<Event> events) throws AgentException {
+            blocked.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new AgentException("Receiver unavailable");
+            }
+            synchronized (this) {
+                batches.add(new ArrayList<Event>(events));
+                notifyAll();
+            }
+        }
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        boolean awaitBlocked() throws InterruptedException {
+            return blocked.await(5, TimeUnit.SECONDS);
+        }
+
+        synchronized boolean awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events().size() < count) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+
+        synchronized List<Event> events() {
+            List<Event> events = new ArrayList<Event>();
+            for (List<Event> batch : batches) {
+                events.addAll(batch);
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Records the streams defined and the events received by the in-process thrift receiver
+     */
+    private static class ThriftReceiver implements AgentCallback {
+        private final List<Event> events = new ArrayList<Event>();
+        private volatile StreamDefinition streamDefinition;
+
+        public void definedStream(StreamDefinition streamDefinition, int tenantId) {
+            this.streamDefinition = streamDefinition;
+        }
+
+        public void removeStream(StreamDefinition streamDefinition, int tenantId) {
+        }
+
+        public synchronized void receive(List<Event> eventList, Credentials credentials) {
+            events.addAll(eventList);
+            notifyAll();
+        }
+
+        StreamDefinition getStreamDefinition() {
+            return streamDefinition;
+        }
+
+        synchronized boolean awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < count) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+
+        synchronized List<Event> events() {
+            return new ArrayList<Event>(events);
+        }
+    }
+
+    private static class AllowAllAuthenticationHandler implements AuthenticationHandler {
+        public boolean authenticate(String userName, String password) {
+            return true;
+        }
+
+        public String getTenantDomain(String userName) {
+            return "carbon.super";
+        }
+
+        public int getTenantId(String tenantDomain) {
+            return -1234;
+        }
+
+        public void initContext(AgentSession agentSession) {
+        }
+
+        public void destroyContext(AgentSession agentSession) {
+        }
+    }
+
+    private static class KeyspaceStatsHandler extends ClusterMBeanServiceHandler {
+        public String[] getClusterBasicInfo() {
+            return new String[]{"10.0.0.1", "node1", "token1"};
+        }
+
+        public KeyspaceInfo[] getColumnFamilyStats() {
+            return new KeyspaceInfo[]{createKeyspace("ks1"), createKeyspace("ks2")};
+        }
+
+        private static KeyspaceInfo createKeyspace(String name) {
+            KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
+            keyspaceInfo.setKeyspaceName(name);
+            keyspaceInfo.setTableReadCount(20);
+            keyspaceInfo.setTableReadLatency(0.5);
+            keyspaceInfo.setTableWriteCount(4);
+            keyspaceInfo.setTableWriteLatency(0.25);
+            keyspaceInfo.setTablePendingTasks(3);
+            keyspaceInfo.setColumnFamilyInformations(new ColumnFamilyInformation[0]);
+            return keyspaceInfo;
+        }
+    }
+}
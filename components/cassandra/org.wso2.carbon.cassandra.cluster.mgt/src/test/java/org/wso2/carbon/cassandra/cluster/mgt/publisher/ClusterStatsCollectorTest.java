@@ -0,0 +1,133 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CacheProperties;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.HeapMemory;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.NodeInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.query.ClusterMBeanServiceHandler;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.List;
+
+public class ClusterStatsCollectorTest extends TestCase {
+
+    public void testColumnFamilyStatsAreReadOncePerTick() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        List<Event> events = new ClusterStatsCollector(handler).collect("cf", "node", "ks", 42L);
+
+        assertEquals(1, handler.columnFamilyStatsCalls);
+        assertEquals(1, handler.basicInfoCalls);
+        // one node event, two keyspace events and three column family events
+        assertEquals(6, events.size());
+        assertEquals(1, count(events, "node"));
+        assertEquals(2, count(events, "ks"));
+        assertEquals(3, count(events, "cf"));
+
+        Event keyspaceEvent = find(events, "ks");
+        assertEquals(42L, keyspaceEvent.getTimeStamp());
+        assertEquals(42L, keyspaceEvent.getPayloadData()[0]);
+        assertEquals("ks1", keyspaceEvent.getPayloadData()[2]);
+        assertEquals(20L, keyspaceEvent.getPayloadData()[3]);
+
+        Event columnFamilyEvent = find(events, "cf");
+        assertEquals("10.0.0.1", columnFamilyEvent.getPayloadData()[2]);
+        assertEquals("ks1", columnFamilyEvent.getPayloadData()[5]);
+        assertEquals("cf0", columnFamilyEvent.getPayloadData()[6]);
+        assertEquals(0, columnFamilyEvent.getPayloadData()[7]);
+
+        Event nodeEvent = find(events, "node");
+        assertEquals("KB", nodeEvent.getPayloadData()[5]);
+        assertEquals(1.5, nodeEvent.getPayloadData()[6]);
+    }
+
+    public void testStreamsWithoutIdAreSkipped() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        List<Event> events = new ClusterStatsCollector(handler).collect(null, null, "ks", 42L);
+
+        assertEquals(2, events.size());
+        assertEquals(0, handler.nodeInfoCalls);
+
+        handler = new FakeHandler();
+        events = new ClusterStatsCollector(handler).collect(null, "node", null, 42L);
+        assertEquals(1, events.size());
+        assertEquals(0, handler.columnFamilyStatsCalls);
+    }
+
+    private static int count(List<Event> events, String streamId) {
+        int count = 0;
+        for (Event event : events) {
+            if (streamId.equals(event.getStreamId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Event find(List<Event> events, String streamId) {
+        for (Event event : events) {
+            if (streamId.equals(event.getStreamId())) {
+                return event;
+            }
+        }
+        fail("No event for stream " + streamId);
+        return null;
+    }
+
+    private static class FakeHandler extends ClusterMBeanServiceHandler {
+        private int basicInfoCalls;
+        private int nodeInfoCalls;
+        private int columnFamilyStatsCalls;
+
+        public String[] getClusterBasicInfo() {
+            basicInfoCalls++;
+            return new String[]{"10.0.0.1", "node1", "token1"};
+        }
+
+        public NodeInformation getNodeInfo() {
+            nodeInfoCalls++;
+            NodeInformation nodeInformation = new NodeInformation();
+            nodeInformation.setLoad("1.5 KB");
+            nodeInformation.setHeapMemory(new HeapMemory());
+            nodeInformation.setKeyCacheProperties(new CacheProperties());
+            nodeInformation.setRowCacheProperties(new CacheProperties());
+            return nodeInformation;
+        }
+
+        public KeyspaceInfo[] getColumnFamilyStats() {
+            columnFamilyStatsCalls++;
+            return new KeyspaceInfo[]{createKeyspace("ks1", 2), createKeyspace("ks2", 1)};
+        }
+
+        private static KeyspaceInfo createKeyspace(String name, int columnFamilies) {
+            KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
+            keyspaceInfo.setKeyspaceName(name);
+            keyspaceInfo.setTableReadCount(20);
+            ColumnFamilyInformation[] columnFamilyInformations = new ColumnFamilyInformation[columnFamilies];
+            for (int i = 0; i < columnFamilies; i++) {
+                columnFamilyInformations[i] = new ColumnFamilyInformation();
+                columnFamilyInformations[i].setColumnFamilyName("cf" + i);
+            }
+            keyspaceInfo.setColumnFamilyInformations(columnFamilyInformations);
+            return keyspaceInfo;
+        }
+    }
+}
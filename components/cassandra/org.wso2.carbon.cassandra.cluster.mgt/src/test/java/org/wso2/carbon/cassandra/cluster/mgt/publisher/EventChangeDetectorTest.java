@@ -0,0 +1,140 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.publisher;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventChangeDetectorTest extends TestCase {
+
+    private static final long KEYFRAME_INTERVAL = 60 * 1000;
+
+    public void testUnchangedEventsAreSuppressedUntilKeyframe() throws Exception {
+        EventChangeDetector detector = detector(0, 0, KEYFRAME_INTERVAL);
+        assertEquals(2, detector.filter(tick(0, 100L, 200L), 0).size());
+
+        List<Event> events = detector.filter(tick(2000, 100L, 201L), 2000);
+        assertEquals(1, events.size());
+        assertEquals("cf2", events.get(0).getPayloadData()[2]);
+        assertEquals(1, detector.getSuppressedCount());
+
+        assertEquals(0, detector.filter(tick(4000, 100L, 201L), 4000).size());
+        assertEquals(2, detector.filter(tick(KEYFRAME_INTERVAL, 100L, 201L), KEYFRAME_INTERVAL).size());
+        assertEquals(2, detector.getKeyframeCount());
+        assertEquals(3, detector.getSuppressedCount());
+        assertEquals(5, detector.getForwardedCount());
+    }
+
+    public void testAbsoluteThreshold() throws Exception {
+        EventChangeDetector detector = detector(10, 0, KEYFRAME_INTERVAL);
+        detector.filter(tick(0, 100L, 1000L), 0);
+
+        assertEquals(0, detector.filter(tick(1, 110L, 1010L), 1).size());
+        // compared with the last published value, so slow drifts are published eventually
+        List<Event> events = detector.filter(tick(2, 111L, 1010L), 2);
+        assertEquals(1, events.size());
+        assertEquals("cf1", events.get(0).getPayloadData()[2]);
+    }
+
+    public void testRelativeThreshold() throws Exception {
+        EventChangeDetector detector = detector(0, 0.05, KEYFRAME_INTERVAL);
+        detector.filter(tick(0, 100L, 1000L), 0);
+
+        assertEquals(0, detector.filter(tick(1, 105L, 1040L), 1).size());
+        List<Event> events = detector.filter(tick(2, 100L, 1060L), 2);
+        assertEquals(1, events.size());
+        assertEquals("cf2", events.get(0).getPayloadData()[2]);
+    }
+
+    public void testNewIdentitiesAndNaNValues() throws Exception {
+        EventChangeDetector detector = detector(0, 0, KEYFRAME_INTERVAL);
+        List<Event> events = new ArrayList<Event>();
+        events.add(event(0, "cf1", Double.NaN));
+        detector.filter(events, 0);
+
+        events = new ArrayList<Event>();
+        events.add(event(1, "cf1", Double.NaN));
+        events.add(event(1, "cf3", 1L));
+        events = detector.filter(events, 1);
+        assertEquals(1, events.size());
+        assertEquals("cf3", events.get(0).getPayloadData()[2]);
+
+        events = new ArrayList<Event>();
+        events.add(event(2, "cf1", 1.5));
+        assertEquals(1, detector.filter(events, 2).size());
+    }
+
+    public void testValueStringsAreComparedWithinTheSameIdentity() throws Exception {
+        EventChangeDetector detector = detector(0, 0, KEYFRAME_INTERVAL);
+        List<Event> events = new ArrayList<Event>();
+        events.add(event(0, "cf1", 1.5, "MB"));
+        detector.filter(events, 0);
+
+        events = new ArrayList<Event>();
+        events.add(event(1, "cf1", 1.5, "GB"));
+        assertEquals(1, detector.filter(events, 1).size());
+
+        // the unit change replaced the published value of cf1 instead of starting another series
+        events = new ArrayList<Event>();
+        events.add(event(2, "cf1", 1.5, "GB"));
+        assertEquals(0, detector.filter(events, 2).size());
+        events = new ArrayList<Event>();
+        events.add(event(3, "cf1", 1.5, "MB"));
+        assertEquals(1, detector.filter(events, 3).size());
+        assertEquals(1, detector.getSuppressedCount());
+    }
+
+    public void testEventsOfUnregisteredStreamsAreAlwaysPublished() throws Exception {
+        EventChangeDetector detector = detector(0, 0, KEYFRAME_INTERVAL);
+        detector.filter(tick(0, 100L, 200L), 0);
+
+        List<Event> events = new ArrayList<Event>();
+        events.add(new Event("other", 1L, new Object[]{"external"}, null, new Object[]{1L, "ks1", "cf1", 100L}));
+        events.add(new Event("other", 1L, new Object[]{"external"}, null, new Object[]{1L, "ks1", "cf1", 100L}));
+        assertEquals(2, detector.filter(events, 1).size());
+        assertEquals(0, detector.getSuppressedCount());
+    }
+
+    private static EventChangeDetector detector(double absoluteThreshold, double relativeThreshold,
+                                                long keyframeInterval) {
+        EventChangeDetector detector = new EventChangeDetector(absoluteThreshold, relativeThreshold,
+                                                               keyframeInterval);
+        detector.setKeyAttributes("cf", new int[]{1, 2});
+        return detector;
+    }
+
+    private static List<Event> tick(long timestamp, Object cf1Value, Object cf2Value) {
+        List<Event> events = new ArrayList<Event>();
+        events.add(event(timestamp, "cf1", cf1Value));
+        events.add(event(timestamp, "cf2", cf2Value));
+        return events;
+    }
+
+    private static Event event(long timestamp, String columnFamily, Object value) {
+        return new Event("cf", timestamp, new Object[]{"external"}, null,
+                         new Object[]{timestamp, "ks1", columnFamily, value});
+    }
+
+    private static Event event(long timestamp, String columnFamily, Object value, String unit) {
+        return new Event("cf", timestamp, new Object[]{"external"}, null,
+                         new Object[]{timestamp, "ks1", columnFamily, value, unit});
+    }
+}
@@ -0,0 +1,125 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+package org.wso2.carbon.cassandra.cluster.mgt.query;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ClusterRingInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ColumnFamilyInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.CompactionStats;
+import org.wso2.carbon.cassandra.cluster.mgt.data.KeyspaceInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.data.NodeInformation;
+import org.wso2.carbon.cassandra.cluster.mgt.data.ThreadPoolInfo;
+import org.wso2.carbon.cassandra.cluster.mgt.exception.ClusterDataAdminException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClusterStatsSnapshotServiceTest extends TestCase {
+
+    private CountingHandler handler;
+    private ClusterStatsSnapshotService service;
+
+    protected void setUp() throws Exception {
+        handler = new CountingHandler();
+        service = new ClusterStatsSnapshotService(handler, 60 * 60 * 1000);
+        service.start();
+    }
+
+    protected void tearDown() throws Exception {
+        service.stop();
+    }
+
+    public void testReadsAreServedFromSnapshot() throws Exception {
+        ClusterStatsSnapshot snapshot = service.getSnapshot();
+        for (int i = 0; i < 10; i++) {
+            assertSame(snapshot, service.getSnapshot());
+        }
+        assertEquals(1, handler.collections.get());
+        assertSame(handler.keyspaceInfo, snapshot.getKeyspaceInfo("ks1"));
+        assertEquals("users", snapshot.getColumnFamilyInformation("ks1", "users").getColumnFamilyName());
+        assertNull(snapshot.getColumnFamilyInformation("ks1", "missing"));
+        assertNull(snapshot.getKeyspaceInfo("missing"));
+    }
+
+    public void testForcedRefreshReplacesSnapshot() throws Exception {
+        ClusterStatsSnapshot first = service.getSnapshot();
+        ClusterStatsSnapshot second = service.refresh();
+
+        assertNotSame(first, second);
+        assertSame(second, service.getSnapshot());
+        assertTrue(second.getTimestamp() >= first.getTimestamp());
+        assertEquals(2, handler.collections.get());
+    }
+
+    public void testFailedRefreshKeepsPreviousSnapshot() throws Exception {
+        ClusterStatsSnapshot snapshot = service.getSnapshot();
+        handler.fail = true;
+        try {
+            service.refresh();
+            fail("Refresh should report the JMX failure");
+        } catch (ClusterDataAdminException expected) {
+        }
+        assertSame(snapshot, service.getSnapshot());
+    }
+
+    public void testStoppedServiceRejectsRefresh() throws Exception {
+        service.stop();
+        try {
+            service.refresh();
+            fail("Refresh should fail once the service is stopped");
+        } catch (ClusterDataAdminException expected) {
+        }
+    }
+
+    private static class CountingHandler extends ClusterMBeanServiceHandler {
+        private final AtomicInteger collections = new AtomicInteger();
+        private final KeyspaceInfo keyspaceInfo = new KeyspaceInfo();
+        private volatile boolean fail;
+
+        CountingHandler() {
+            ColumnFamilyInformation columnFamilyInformation = new ColumnFamilyInformation();
+            columnFamilyInformation.setColumnFamilyName("users");
+            keyspaceInfo.setKeyspaceName("ks1");
+            keyspaceInfo.setColumnFamilyInformations(new ColumnFamilyInformation[]{columnFamilyInformation});
+        }
+
+        public NodeInformation getNodeInfo() throws ClusterDataAdminException {
+            if (fail) {
+                throw new ClusterDataAdminException("JMX unavailable", LogFactory.getLog(getClass()));
+            }
+            collections.incrementAndGet();
+            return new NodeInformation();
+        }
+
+        public ClusterRingInformation[] getRingInfo(String keyspace) {
+            return new ClusterRingInformation[0];
+        }
+
+        public KeyspaceInfo[] getColumnFamilyStats() {
+            return new KeyspaceInfo[]{keyspaceInfo};
+        }
+
+        public ThreadPoolInfo getThreadPoolStats() {
+            return new ThreadPoolInfo();
+        }
+
+        public CompactionStats getCompactionStats() {
+            return new CompactionStats();
+        }
+    }
+}
@@ -84,6 +84,24 @@ public class ClusterProxyStatsAdmin {
         }
     }
 
+    public long getStatsTimestamp(String host)
+            throws ClusterProxyAdminException {
+        try{
+            return AuthenticateStub.getAuthenticatedStatsStub(host).getStatsTimestamp();
+        }catch (Exception e){
+            throw new ClusterProxyAdminException("Error while getting the statistics timestamp",e,log);
+        }
+    }
+
+    public long refreshStats(String host)
+            throws ClusterProxyAdminException {
+        try{
+            return AuthenticateStub.getAuthenticatedStatsStub(host).refreshStats();
+        }catch (Exception e){
+            throw new ClusterProxyAdminException("Error while refreshing the statistics",e,log);
+        }
+    }
+
     public ProxyThreadPoolInfo getTpstats(String host)
             throws ClusterProxyAdminException {
         try{